@@ -17,4 +17,12 @@ dependencies {
     implementation(project(":samples-infrastructure"))
     implementation(platform("com.vmware.sdk:vcf-sdk-bom:9.0.0.0"))
     implementation("com.vmware.sdk:sddc-manager")
+    implementation("com.vmware.sdk:vmware-sdk-common")
+
+    testImplementation(testLibs.junit)
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
@@ -20,6 +20,8 @@ import java.util.concurrent.ExecutionException;
 import com.vmware.sdk.sddcm.model.TokenCreationSpec;
 import com.vmware.sdk.sddcm.model.TokenPair;
 import com.vmware.sdk.sddcm.v1.Tokens;
+import com.vmware.sdk.sddcm.v1.tokens.access_token.Refresh;
+import com.vmware.sdk.utils.auth.AccessTokenManager;
 import com.vmware.vapi.bindings.StubConfiguration;
 import com.vmware.vapi.client.ApiClient;
 import com.vmware.vapi.client.ApiClients;
@@ -58,12 +60,16 @@ public class ApiClientUtil {
      * @return the OAuth API client instance
      */
     public static ApiClient getBasicAuthApiClient(String host) {
+        return createBasicAuthApiClient(String.format(BASE_URL, host), httpConfiguration);
+    }
+
+    private static ApiClient createBasicAuthApiClient(String url, HttpConfiguration httpConfig) {
         Configuration configuration = new Configuration.Builder()
-                .register(HTTP_CONFIG_CFG, httpConfiguration)
+                .register(HTTP_CONFIG_CFG, httpConfig)
                 .register(STUB_CONFIG_CFG, new StubConfiguration())
                 .register(REST_REQUEST_AUTHENTICATOR_CFG, new BasicAuthenticationAppender())
                 .build();
-        return ApiClients.newRestClient(String.format(BASE_URL, host), configuration);
+        return ApiClients.newRestClient(url, configuration);
     }
 
     /**
@@ -83,6 +89,78 @@ public class ApiClientUtil {
         return ApiClients.newRestClient(String.format(BASE_URL, host), configuration);
     }
 
+    /**
+     * Gets an API client which authenticates with an access token and renews it when it expires. Long-running workflows
+     * should use a single such client instead of logging in again.
+     *
+     * @param host server IP Address/FQDN
+     * @param username user name of the server
+     * @param password password of the server
+     * @return the client, which has to be closed to stop the token renewal
+     * @throws ExecutionException if the API call fails
+     * @throws InterruptedException if the client is interrupted while waiting
+     * @see AccessTokenManager
+     */
+    public static RefreshingApiClient createRefreshingClient(String host, String username, String password)
+            throws ExecutionException, InterruptedException {
+        return createRefreshingClient(String.format(BASE_URL, host), httpConfiguration, username, password);
+    }
+
+    /**
+     * Gets an API client which authenticates with an access token. The token is refreshed ahead of its expiration, and
+     * a new token pair is created with the credentials once the refresh token is no longer accepted.
+     *
+     * @param url base URL of the API, e.g. {@code https://sddc-manager.example.com:443}
+     * @param httpConfig configuration of the HTTP connections
+     * @param username user name of the server
+     * @param password password of the server
+     * @return the client, which has to be closed to stop the token renewal
+     * @throws ExecutionException if the API call fails
+     * @throws InterruptedException if the client is interrupted while waiting
+     */
+    public static RefreshingApiClient createRefreshingClient(
+            String url, HttpConfiguration httpConfig, String username, String password)
+            throws ExecutionException, InterruptedException {
+        // the client with basic authentication creates and refreshes the tokens for as long as the client is used
+        ApiClient basicAuthClient = createBasicAuthApiClient(url, httpConfig);
+        AccessTokenManager tokenManager = null;
+        try {
+            Refresh refresh = basicAuthClient.createStub(Refresh.class);
+            Tokens tokens = basicAuthClient.createStub(Tokens.class);
+            TokenCreationSpec tokenCreationSpec = new TokenCreationSpec.Builder()
+                    .setUsername(username)
+                    .setPassword(password)
+                    .build();
+
+            tokenManager = new AccessTokenManager(
+                    toIssuedTokens(
+                            tokens.createToken(tokenCreationSpec).invoke().get()),
+                    refreshToken -> refresh.refreshAccessToken(refreshToken).invoke(),
+                    () -> tokens.createToken(tokenCreationSpec).invoke().thenApply(ApiClientUtil::toIssuedTokens));
+            tokenManager.startProactiveRefresh();
+
+            Configuration configuration = new Configuration.Builder()
+                    .registerHttpConfiguration(httpConfig)
+                    .configureBearerAuthentication(tokenManager.getAccessToken(), tokenManager)
+                    .build();
+            return new RefreshingApiClient(ApiClients.newRestClient(url, configuration), basicAuthClient, tokenManager);
+        } catch (ExecutionException | InterruptedException | RuntimeException e) {
+            if (tokenManager != null) {
+                tokenManager.close();
+            }
+            closeQuietly(basicAuthClient, e);
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(ApiClient client, Exception failure) {
+        try {
+            client.close();
+        } catch (Exception e) {
+            failure.addSuppressed(e);
+        }
+    }
+
     /**
      * Gets the OAuth API client instance for cloud builder instance.
      *
@@ -141,11 +219,21 @@ public class ApiClientUtil {
      */
     public static TokenPair getTokenPair(String host, String username, String password)
             throws ExecutionException, InterruptedException {
-        Tokens tokens = getBasicAuthApiClient(host).createStub(Tokens.class);
+        return getTokenPair(getBasicAuthApiClient(host), username, password);
+    }
+
+    private static TokenPair getTokenPair(ApiClient basicAuthClient, String username, String password)
+            throws ExecutionException, InterruptedException {
+        Tokens tokens = basicAuthClient.createStub(Tokens.class);
         TokenCreationSpec tokenCreationSpec = new TokenCreationSpec.Builder()
                 .setUsername(username)
                 .setPassword(password)
                 .build();
         return tokens.createToken(tokenCreationSpec).invoke().get();
     }
+
+    private static AccessTokenManager.IssuedTokens toIssuedTokens(TokenPair tokenPair) {
+        return new AccessTokenManager.IssuedTokens(
+                tokenPair.getAccessToken(), tokenPair.getRefreshToken().getId());
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.samples.sddcm.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import com.vmware.sdk.utils.auth.AccessTokenManager;
+import com.vmware.vapi.bindings.Service;
+import com.vmware.vapi.client.ApiClient;
+
+/**
+ * An API client which authenticates with an access token, together with the {@link AccessTokenManager} renewing the
+ * token and the client with basic authentication the token manager uses to create and refresh tokens.
+ *
+ * <p>Closing it stops the token renewal and closes both clients.
+ *
+ * @see ApiClientUtil#createRefreshingClient(String, String, String)
+ */
+public final class RefreshingApiClient implements Closeable {
+    private final ApiClient client;
+    private final ApiClient basicAuthClient;
+    private final AccessTokenManager tokenManager;
+
+    RefreshingApiClient(ApiClient client, ApiClient basicAuthClient, AccessTokenManager tokenManager) {
+        this.client = client;
+        this.basicAuthClient = basicAuthClient;
+        this.tokenManager = tokenManager;
+    }
+
+    /**
+     * Creates a stub which authenticates with the current access token.
+     *
+     * @param vapiIface the interface of the service
+     * @param <T> the type of the service
+     * @return the stub
+     */
+    public <T extends Service> T createStub(Class<T> vapiIface) {
+        return client.createStub(vapiIface);
+    }
+
+    /** @return the client which authenticates with the access token */
+    public ApiClient getApiClient() {
+        return client;
+    }
+
+    /** @return the manager renewing the access token */
+    public AccessTokenManager getTokenManager() {
+        return tokenManager;
+    }
+
+    @Override
+    public void close() throws IOException {
+        tokenManager.close();
+        try {
+            client.close();
+        } finally {
+            basicAuthClient.close();
+        }
+    }
+}
@@ -10,14 +10,15 @@
 
 package com.vmware.sdk.samples.sddcm.tasks;
 
-import java.util.HashMap;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.vmware.sdk.samples.sddcm.utils.SddcUtil;
+import com.vmware.sdk.samples.sddcm.client.ApiClientUtil;
+import com.vmware.sdk.samples.sddcm.client.RefreshingApiClient;
 import com.vmware.sdk.sddcm.model.Task;
 import com.vmware.sdk.sddcm.v1.Tasks;
 
@@ -27,8 +28,6 @@ public class TaskHelper {
     private int retryWaitTimeInSec;
     private final int retryCount;
 
-    private static final Integer TASK_WAIT_TIME = 15;
-
     private static final Integer DEFAULT_TASK_POLL_TIME_IN_SECONDS = 60;
 
     private static final Integer RETRY_COUNT = 3;
@@ -70,64 +69,18 @@ public class TaskHelper {
      * @throws Exception if any error occurs during monitoring of the task
      */
     public boolean monitorTaskList(List<Task> taskList, Tasks taskService) throws Exception {
-        log.info("Task Monitoring Started");
-        Map<String, Integer> retryMap = new HashMap<>();
-
-        log.info("Waiting for {} seconds before fetching task details", TASK_WAIT_TIME);
-        Thread.sleep(TASK_WAIT_TIME * 1000);
-        boolean flag = taskList.isEmpty();
-        while (!flag) {
-            for (Task task : taskList) {
-                task = taskService.getTask(task.getId()).invoke().get();
-                log.debug("Task Status : {}", task.getStatus());
-                if (task.getStatus().equalsIgnoreCase(TaskStatus.IN_PROGRESS.getStatus())) {
-                    log.info("Task Name:- {}, Id:- {}, Status:- {}", task.getName(), task.getId(), task.getStatus());
-                } else if (task.getStatus().equalsIgnoreCase(TaskStatus.FAILED.getStatus())) {
-                    log.error("Task Name:- {}, Id:- {}, Status:- {}", task.getName(), task.getId(), task.getStatus());
-
-                    // Retry logic for parallel tasks
-                    String id = task.getId();
-                    retryMap.put(id, retryMap.containsKey(id) ? retryMap.get(id) + 1 : 1);
-                    Integer count = retryMap.get(id);
-                    if (count <= retryCount) {
-                        log.info("Waiting for {} seconds before retrying failed task", retryWaitTimeInSec);
-                        Thread.sleep(retryWaitTimeInSec * 1000L);
-                        log.info(
-                                "Retrying task (Attempt:- {}/{}), Task name:- {}, Id:- {}",
-                                count,
-                                retryCount,
-                                task.getName(),
-                                id);
-                        taskService.retryTask(id).invoke().get();
-                    } else {
-                        return false;
-                    }
-                }
-            }
-            for (Task task : taskList) {
-                task = taskService.getTask(task.getId()).invoke().get();
-                if (task.getStatus().equalsIgnoreCase(TaskStatus.IN_PROGRESS.getStatus())
-                        || task.getStatus().equalsIgnoreCase(TaskStatus.PENDING.getStatus())) {
-                    flag = false;
-                    break;
-                } else {
-                    flag = true;
-                }
-            }
-            log.info("Wait for {} seconds before next polling", DEFAULT_TASK_POLL_TIME_IN_SECONDS);
-            Thread.sleep(DEFAULT_TASK_POLL_TIME_IN_SECONDS * 1000);
-        }
-        return true;
+        return monitorTaskList(taskList, taskService, DEFAULT_TASK_POLL_TIME_IN_SECONDS);
     }
 
     /**
-     * Method to monitor the long-running tasks.
+     * Method to monitor the long-running tasks. The tasks are monitored with one client, which renews its access token
+     * as needed.
      *
      * @param taskList to monitor
      * @param sddcManagerHostname SDDC host FQDN/IpAddress
      * @param sddcManagerSsoUserName SDDC SSO user name
      * @param sddcManagerSsoPassword SDDC SSO password
-     * @param taskPollTime Task poll time in seconds to monitor task at given interval
+     * @param taskPollTime longest time in seconds between two task status queries
      * @return boolean status based on whether task is success(true)/failed(false)
      * @throws Exception if any error occurs during monitoring of the task
      */
@@ -138,59 +91,23 @@ public class TaskHelper {
             String sddcManagerSsoPassword,
             Integer taskPollTime)
             throws Exception {
-        log.info("Task monitoring started");
-        Map<String, Integer> retryMap = new HashMap<>();
+        try (RefreshingApiClient client = ApiClientUtil.createRefreshingClient(
+                sddcManagerHostname, sddcManagerSsoUserName, sddcManagerSsoPassword)) {
+            return monitorTaskList(taskList, client.createStub(Tasks.class), taskPollTime);
+        }
+    }
 
-        log.info("Waiting for {} seconds before fetching task details.", TASK_WAIT_TIME);
-        Thread.sleep(TASK_WAIT_TIME * 1000);
-        boolean flag = taskList.isEmpty();
-        while (!flag) {
-            try (SddcUtil.SddcFactory factory =
-                    new SddcUtil.SddcFactory(sddcManagerHostname, sddcManagerSsoUserName, sddcManagerSsoPassword)) {
-                Tasks taskService = factory.getV1Factory().tasksService();
-                for (Task task : taskList) {
-                    task = taskService.getTask(task.getId()).invoke().get();
-                    log.debug("Task status : {}", task.getStatus());
-                    if (task.getStatus().equalsIgnoreCase(TaskStatus.IN_PROGRESS.getStatus())) {
-                        log.info(
-                                "Task name:- {}, Id:- {}, Status:- {}", task.getName(), task.getId(), task.getStatus());
-                    } else if (task.getStatus().equalsIgnoreCase(TaskStatus.FAILED.getStatus())) {
-                        log.error(
-                                "Task name:- {}, Id:- {}, Status:- {}", task.getName(), task.getId(), task.getStatus());
-                        // Retry logic for parallel tasks
-                        String id = task.getId();
-                        retryMap.put(id, retryMap.containsKey(id) ? retryMap.get(id) + 1 : 1);
-                        Integer count = retryMap.get(id);
-                        if (count <= retryCount) {
-                            log.info("Waiting for {} seconds before retrying failed task.", retryWaitTimeInSec);
-                            Thread.sleep(retryWaitTimeInSec * 1000L);
-                            log.info(
-                                    "Retrying task (Attempt:- {}/{}), Task name:- {}, Id:- {}",
-                                    count,
-                                    retryCount,
-                                    task.getName(),
-                                    id);
-                            taskService.retryTask(id).invoke().get();
-                        } else {
-                            return false;
-                        }
-                    }
-                }
-                for (Task task : taskList) {
-                    task = taskService.getTask(task.getId()).invoke().get();
-                    log.debug("Task status : {} for id : {}", task.getStatus(), task.getId());
-                    if (task.getStatus().equalsIgnoreCase(TaskStatus.IN_PROGRESS.getStatus())
-                            || task.getStatus().equalsIgnoreCase(TaskStatus.PENDING.getStatus())) {
-                        flag = false;
-                        break;
-                    } else {
-                        flag = true;
-                    }
-                }
-                log.info("Wait for {} seconds before next polling.", taskPollTime);
-                Thread.sleep(taskPollTime * 1000);
+    private boolean monitorTaskList(List<Task> taskList, Tasks taskService, int taskPollTime) throws Exception {
+        log.info("Task monitoring started");
+        try (TaskMonitor monitor = new TaskMonitor(
+                taskService, Duration.ofSeconds(taskPollTime), retryCount, Duration.ofSeconds(retryWaitTimeInSec))) {
+            CompletableFuture<Boolean> result = monitor.monitor(taskList);
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                result.cancel(false);
+                throw e;
             }
         }
-        return true;
     }
 }
@@ -0,0 +1,327 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.samples.sddcm.tasks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.sdk.sddcm.model.SubTask;
+import com.vmware.sdk.sddcm.model.Task;
+import com.vmware.sdk.sddcm.v1.Tasks;
+
+/**
+ * Monitors a set of SDDC Manager tasks until none of them is pending or in progress.
+ *
+ * <p>On every tick the status of all tracked tasks is fetched concurrently. The tick interval starts short and grows
+ * while no status changes, up to the maximum interval; it is reset whenever a task or subtask changes its status.
+ * Failed tasks are retried after the retry wait time, at most the configured number of times per task; the retries are
+ * scheduled, so the other tasks keep being monitored in the meantime. A task which is still reported as failed after
+ * its retry has been accepted is not retried again until its status has left FAILED.
+ *
+ * <p>The monitor uses a single {@link Tasks} service, so it should be created from a client which renews its access
+ * token, see {@link com.vmware.sdk.samples.sddcm.client.ApiClientUtil#createRefreshingClient(String, String, String)}.
+ */
+public class TaskMonitor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(TaskMonitor.class);
+
+    private static final Duration INITIAL_TICK = Duration.ofSeconds(5);
+
+    private static final double TICK_BACKOFF_MULTIPLIER = 1.5;
+
+    private final Tasks taskService;
+    private final Duration maxTick;
+    private final int retryCount;
+    private final Duration retryWait;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Listener listener = new Listener() {};
+
+    /** Receives the status changes observed by a {@link TaskMonitor}. The callbacks run on the monitor thread. */
+    public interface Listener {
+
+        /**
+         * Called when the status of a task is seen for the first time or has changed.
+         *
+         * @param task the task
+         * @param previousStatus the previous status, or null when the task is seen for the first time
+         */
+        default void onTaskStatusChanged(Task task, String previousStatus) {}
+
+        /**
+         * Called when the status of a subtask is seen for the first time or has changed.
+         *
+         * @param task the task the subtask belongs to
+         * @param subTask the subtask
+         * @param previousStatus the previous status, or null when the subtask is seen for the first time
+         */
+        default void onSubTaskStatusChanged(Task task, SubTask subTask, String previousStatus) {}
+
+        /**
+         * Called when a failed task is retried.
+         *
+         * @param task the failed task
+         * @param attempt the number of the retry, starting with 1
+         */
+        default void onTaskRetried(Task task, int attempt) {}
+    }
+
+    /**
+     * @param taskService required to know the status of the tasks
+     * @param maxTick the longest interval between two status queries
+     * @param retryCount the number of times a failed task is retried
+     * @param retryWait the time to wait before retrying a failed task
+     */
+    public TaskMonitor(Tasks taskService, Duration maxTick, int retryCount, Duration retryWait) {
+        this.taskService = Objects.requireNonNull(taskService);
+        this.maxTick = Objects.requireNonNull(maxTick);
+        this.retryWait = Objects.requireNonNull(retryWait);
+        if (maxTick.isNegative() || maxTick.isZero()) {
+            throw new IllegalArgumentException("Expected positive maximum tick, but got " + maxTick);
+        }
+        if (retryCount < 0) {
+            throw new IllegalArgumentException("Expected non-negative retry count, but got " + retryCount);
+        }
+        this.retryCount = retryCount;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sddcm-task-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** @param listener receives the status changes of all subsequently monitored tasks */
+    public void setListener(Listener listener) {
+        this.listener = Objects.requireNonNull(listener);
+    }
+
+    /**
+     * Starts monitoring the tasks.
+     *
+     * @param tasks to monitor
+     * @return completes with true if all tasks have finished without a failure that could not be retried, and with
+     *     false otherwise; completes exceptionally if the status of a task could not be fetched. Cancelling it stops
+     *     the monitoring.
+     */
+    public CompletableFuture<Boolean> monitor(List<Task> tasks) {
+        Monitoring monitoring = new Monitoring(tasks);
+        if (tasks.isEmpty()) {
+            monitoring.result.complete(true);
+        } else {
+            monitoring.schedule(Duration.ZERO);
+        }
+        return monitoring.result;
+    }
+
+    /** Stops the monitor thread; running monitorings do not complete afterwards. */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private static boolean hasStatus(Task task, TaskStatus status) {
+        return status.getStatus().equalsIgnoreCase(task.getStatus());
+    }
+
+    /** State of one {@link #monitor(List)} call, only accessed from the monitor thread. */
+    private final class Monitoring {
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        private final Map<String, Task> tasks = new LinkedHashMap<>();
+        private final Map<String, String> statuses = new HashMap<>();
+        private final Map<String, Integer> retries = new HashMap<>();
+        private final Map<String, ScheduledFuture<?>> pendingRetries = new HashMap<>();
+        /** The tasks retried after a failure, whose next status different from FAILED has not been seen yet. */
+        private final Set<String> retriedTasks = new HashSet<>();
+
+        private Duration tick = min(INITIAL_TICK, maxTick);
+        private volatile ScheduledFuture<?> scheduled;
+
+        Monitoring(List<Task> taskList) {
+            for (Task task : taskList) {
+                tasks.put(task.getId(), task);
+            }
+            result.whenComplete((ok, e) -> {
+                ScheduledFuture<?> next = scheduled;
+                if (next != null) {
+                    next.cancel(false);
+                }
+            });
+        }
+
+        void schedule(Duration delay) {
+            if (!result.isDone()) {
+                scheduled = scheduler.schedule(this::tick, delay.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        void tick() {
+            List<CompletableFuture<Task>> queries = new ArrayList<>(tasks.size());
+            for (String id : tasks.keySet()) {
+                queries.add(taskService.getTask(id).invoke().toCompletableFuture());
+            }
+            CompletableFuture.allOf(queries.toArray(new CompletableFuture[0]))
+                    .whenCompleteAsync(
+                            (ignored, e) -> {
+                                if (e != null) {
+                                    result.completeExceptionally(e);
+                                    return;
+                                }
+                                try {
+                                    List<Task> fetched = new ArrayList<>(queries.size());
+                                    for (CompletableFuture<Task> query : queries) {
+                                        fetched.add(query.join());
+                                    }
+                                    process(fetched);
+                                } catch (RuntimeException processingFailure) {
+                                    result.completeExceptionally(processingFailure);
+                                }
+                            },
+                            scheduler);
+        }
+
+        private void process(List<Task> fetched) {
+            boolean changed = false;
+            boolean running = false;
+            for (Task task : fetched) {
+                tasks.put(task.getId(), task);
+                changed |= recordStatus(task);
+
+                if (!hasStatus(task, TaskStatus.FAILED)) {
+                    // SDDC Manager has picked up the retry
+                    retriedTasks.remove(task.getId());
+                }
+                if (hasStatus(task, TaskStatus.IN_PROGRESS) || hasStatus(task, TaskStatus.PENDING)) {
+                    running = true;
+                } else if (hasStatus(task, TaskStatus.FAILED)) {
+                    if (pendingRetries.containsKey(task.getId()) || retriedTasks.contains(task.getId())) {
+                        // the retry is still to be sent, or the status still belongs to the run before the retry
+                        running = true;
+                    } else if (!scheduleRetry(task)) {
+                        result.complete(false);
+                        return;
+                    } else {
+                        running = true;
+                    }
+                }
+            }
+
+            if (!running) {
+                log.info("All {} tasks have finished", tasks.size());
+                result.complete(true);
+                return;
+            }
+
+            tick = changed ? min(INITIAL_TICK, maxTick) : min(multiply(tick, TICK_BACKOFF_MULTIPLIER), maxTick);
+            log.debug("Next task status query in {} ms", tick.toMillis());
+            schedule(tick);
+        }
+
+        /** @return whether the status of the task or one of its subtasks has changed */
+        private boolean recordStatus(Task task) {
+            boolean changed = false;
+            String previous = statuses.put(task.getId(), task.getStatus());
+            if (!Objects.equals(previous, task.getStatus())) {
+                changed = true;
+                if (hasStatus(task, TaskStatus.FAILED)) {
+                    log.error("Task name:- {}, Id:- {}, Status:- {}", task.getName(), task.getId(), task.getStatus());
+                } else {
+                    log.info("Task name:- {}, Id:- {}, Status:- {}", task.getName(), task.getId(), task.getStatus());
+                }
+                listener.onTaskStatusChanged(task, previous);
+            }
+
+            List<SubTask> subTasks = task.getSubTasks();
+            if (subTasks == null) {
+                return changed;
+            }
+            for (int i = 0; i < subTasks.size(); i++) {
+                SubTask subTask = subTasks.get(i);
+                // subtasks have no id, their position in the task identifies them
+                String previousSubTaskStatus = statuses.put(task.getId() + "/" + i, subTask.getStatus());
+                if (!Objects.equals(previousSubTaskStatus, subTask.getStatus())) {
+                    changed = true;
+                    log.debug(
+                            "Task Id:- {}, SubTask name:- {}, Status:- {}",
+                            task.getId(),
+                            subTask.getName(),
+                            subTask.getStatus());
+                    listener.onSubTaskStatusChanged(task, subTask, previousSubTaskStatus);
+                }
+            }
+            return changed;
+        }
+
+        /** @return false if the task has no retries left */
+        private boolean scheduleRetry(Task task) {
+            String id = task.getId();
+            int attempt = retries.merge(id, 1, Integer::sum);
+            if (attempt > retryCount) {
+                log.error("Task name:- {}, Id:- {} has failed after {} retries", task.getName(), id, retryCount);
+                return false;
+            }
+
+            log.info("Waiting for {} seconds before retrying failed task", retryWait.toSeconds());
+            pendingRetries.put(
+                    id, scheduler.schedule(() -> retry(task, attempt), retryWait.toMillis(), TimeUnit.MILLISECONDS));
+            return true;
+        }
+
+        private void retry(Task task, int attempt) {
+            if (result.isDone()) {
+                return;
+            }
+            log.info(
+                    "Retrying task (Attempt:- {}/{}), Task name:- {}, Id:- {}",
+                    attempt,
+                    retryCount,
+                    task.getName(),
+                    task.getId());
+            listener.onTaskRetried(task, attempt);
+            taskService
+                    .retryTask(task.getId())
+                    .invoke()
+                    .toCompletableFuture()
+                    .whenCompleteAsync(
+                            (retried, e) -> {
+                                pendingRetries.remove(task.getId());
+                                if (e != null) {
+                                    // the next status query decides about another retry
+                                    log.warn("Could not retry task Id:- {}", task.getId(), e);
+                                } else {
+                                    retriedTasks.add(task.getId());
+                                }
+                            },
+                            scheduler);
+        }
+    }
+
+    private static Duration multiply(Duration duration, double multiplier) {
+        return Duration.ofMillis((long) (duration.toMillis() * multiplier));
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.samples.sddcm.tasks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.vmware.sdk.samples.sddcm.client.ApiClientUtil;
+import com.vmware.sdk.samples.sddcm.client.RefreshingApiClient;
+import com.vmware.sdk.sddcm.model.SubTask;
+import com.vmware.sdk.sddcm.model.Task;
+import com.vmware.sdk.sddcm.v1.Tasks;
+import com.vmware.vapi.protocol.HttpConfiguration;
+
+/**
+ * Tests {@link TaskMonitor} over a client of {@link ApiClientUtil} against a stub SDDC Manager API, which answers every
+ * request after a fixed latency and rejects expired access tokens.
+ */
+public class TaskMonitorTest {
+
+    private static final long LATENCY_MS = 100;
+    private static final Pattern TASK_PATH = Pattern.compile("/v1/tasks/([^/]+)");
+
+    private final Map<String, StubTask> tasks = new ConcurrentHashMap<>();
+    private final Map<String, Instant> accessTokens = new ConcurrentHashMap<>();
+    private final AtomicInteger logins = new AtomicInteger();
+    private final AtomicInteger refreshes = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+    private volatile Duration tokenLifetime = Duration.ofHours(1);
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private RefreshingApiClient client;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v1/tokens", this::handleTokens);
+        server.createContext("/v1/tasks/", this::handleTasks);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @AfterEach
+    public void teardown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testStatusQueriesRunConcurrently() throws Exception {
+        List<Task> taskList = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            taskList.add(addTask("task-" + i, "IN PROGRESS", "IN PROGRESS", "SUCCESSFUL"));
+        }
+
+        long start = System.nanoTime();
+        assertTrue(monitor(taskList, 0, new TaskMonitor.Listener() {}));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        for (StubTask task : tasks.values()) {
+            assertEquals(3, task.queries.get());
+        }
+        // one login for the whole monitoring, and the status queries of a tick overlap
+        assertEquals(1, logins.get());
+        assertTrue(elapsedMs < 8 * 3 * LATENCY_MS / 2, "took " + elapsedMs + "ms");
+    }
+
+    @Test
+    public void testSubTaskProgressIsReported() throws Exception {
+        StubTask task = new StubTask("task-1");
+        task.report("IN PROGRESS", "IN PROGRESS", "PENDING");
+        task.report("IN PROGRESS", "SUCCESSFUL", "IN PROGRESS");
+        task.report("SUCCESSFUL", "SUCCESSFUL", "SUCCESSFUL");
+        tasks.put(task.id, task);
+
+        List<String> events = new CopyOnWriteArrayList<>();
+        boolean result = monitor(List.of(task.toTask()), 0, new TaskMonitor.Listener() {
+            @Override
+            public void onTaskStatusChanged(Task task, String previousStatus) {
+                events.add(task.getId() + ": " + previousStatus + " -> " + task.getStatus());
+            }
+
+            @Override
+            public void onSubTaskStatusChanged(Task task, SubTask subTask, String previousStatus) {
+                events.add(subTask.getName() + ": " + previousStatus + " -> " + subTask.getStatus());
+            }
+        });
+
+        assertTrue(result);
+        assertEquals(
+                List.of(
+                        "task-1: null -> IN PROGRESS",
+                        "validate: null -> IN PROGRESS",
+                        "deploy: null -> PENDING",
+                        "validate: IN PROGRESS -> SUCCESSFUL",
+                        "deploy: PENDING -> IN PROGRESS",
+                        "task-1: IN PROGRESS -> SUCCESSFUL",
+                        "deploy: IN PROGRESS -> SUCCESSFUL"),
+                events);
+    }
+
+    @Test
+    public void testFailedTaskIsRetried() throws Exception {
+        StubTask task =
+                addTaskWithRetry("task-1", List.of("IN PROGRESS", "FAILED"), List.of("IN PROGRESS", "SUCCESSFUL"));
+        List<Integer> attempts = new CopyOnWriteArrayList<>();
+
+        boolean result = monitor(List.of(task.toTask()), 2, new TaskMonitor.Listener() {
+            @Override
+            public void onTaskRetried(Task task, int attempt) {
+                attempts.add(attempt);
+            }
+        });
+
+        assertTrue(result);
+        assertEquals(List.of(1), attempts);
+        assertEquals(1, retries.get());
+    }
+
+    @Test
+    public void testStaleFailedStatusIsNotRetriedAgain() throws Exception {
+        // SDDC Manager keeps reporting the failure of the previous run until it picks up the retry
+        StubTask task = addTaskWithRetry(
+                "task-1", List.of("FAILED"), List.of("FAILED", "FAILED", "FAILED", "IN PROGRESS", "SUCCESSFUL"));
+
+        assertTrue(monitor(List.of(task.toTask()), 1, new TaskMonitor.Listener() {}));
+        assertEquals(1, retries.get());
+    }
+
+    @Test
+    public void testRetriesAreBounded() throws Exception {
+        StubTask task = addTaskWithRetry("task-1", List.of("FAILED"), List.of("IN PROGRESS", "FAILED"));
+
+        assertFalse(monitor(List.of(task.toTask()), 2, new TaskMonitor.Listener() {}));
+        assertEquals(2, retries.get());
+    }
+
+    @Test
+    public void testAccessTokenIsRenewedDuringMonitoring() throws Exception {
+        tokenLifetime = Duration.ofSeconds(2);
+        String[] statuses = new String[25];
+        Arrays.fill(statuses, "IN PROGRESS");
+        statuses[statuses.length - 1] = "SUCCESSFUL";
+        Task task = addTask("task-1", statuses);
+
+        assertTrue(monitor(List.of(task), 0, new TaskMonitor.Listener() {}));
+
+        // the token is refreshed ahead of its expiration and the credentials are used once; a client rejected with
+        // the previous token gets the refreshed one without another refresh
+        assertTrue(refreshes.get() > 0, "refreshes: " + refreshes.get());
+        assertEquals(1, logins.get());
+        assertTrue(
+                rejected.get() <= refreshes.get(), "rejected: " + rejected.get() + ", refreshes: " + refreshes.get());
+    }
+
+    private boolean monitor(List<Task> taskList, int retryCount, TaskMonitor.Listener listener) throws Exception {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort();
+        client = ApiClientUtil.createRefreshingClient(
+                url, new HttpConfiguration.Builder().getConfig(), "admin@local", "secret");
+        try (TaskMonitor monitor = new TaskMonitor(
+                client.createStub(Tasks.class), Duration.ofMillis(50), retryCount, Duration.ofMillis(50))) {
+            monitor.setListener(listener);
+            return monitor.monitor(taskList).get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private Task addTask(String id, String... statuses) {
+        StubTask task = new StubTask(id);
+        for (String status : statuses) {
+            task.report(status);
+        }
+        tasks.put(id, task);
+        return task.toTask();
+    }
+
+    private StubTask addTaskWithRetry(String id, List<String> statuses, List<String> statusesAfterRetry) {
+        StubTask task = new StubTask(id);
+        statuses.forEach(task::report);
+        task.statusesAfterRetry.addAll(statusesAfterRetry);
+        tasks.put(id, task);
+        return task;
+    }
+
+    private void handleTokens(HttpExchange exchange) throws IOException {
+        sleep(LATENCY_MS);
+        String path = exchange.getRequestURI().getPath();
+        if ("POST".equals(exchange.getRequestMethod()) && "/v1/tokens".equals(path)) {
+            logins.incrementAndGet();
+            respond(
+                    exchange,
+                    200,
+                    "{\"accessToken\":\"" + issueAccessToken() + "\",\"refreshToken\":{\"id\":\"refresh-" + logins.get()
+                            + "\"}}");
+        } else if ("PATCH".equals(exchange.getRequestMethod()) && "/v1/tokens/access-token/refresh".equals(path)) {
+            refreshes.incrementAndGet();
+            respond(exchange, 200, "\"" + issueAccessToken() + "\"");
+        } else {
+            respond(exchange, 404, "{}");
+        }
+    }
+
+    private void handleTasks(HttpExchange exchange) throws IOException {
+        sleep(LATENCY_MS);
+        String authorization = String.valueOf(exchange.getRequestHeaders().getFirst("Authorization"));
+        Instant expiresAt = accessTokens.get(authorization.replaceFirst("^Bearer ", ""));
+        if (expiresAt == null || !Instant.now().isBefore(expiresAt)) {
+            rejected.incrementAndGet();
+            respond(exchange, 401, "{\"errorCode\":\"UNAUTHORIZED\"}");
+            return;
+        }
+
+        Matcher matcher = TASK_PATH.matcher(exchange.getRequestURI().getPath());
+        StubTask task = matcher.matches() ? tasks.get(matcher.group(1)) : null;
+        if (task == null) {
+            respond(exchange, 404, "{}");
+        } else if ("PATCH".equals(exchange.getRequestMethod())) {
+            retries.incrementAndGet();
+            task.retry();
+            respond(exchange, 202, task.toJson(0));
+        } else {
+            respond(exchange, 200, task.toJson(task.queries.getAndIncrement()));
+        }
+    }
+
+    /** @return a new access token, a JWT which expires after the token lifetime */
+    private String issueAccessToken() {
+        Instant expiresAt = Instant.now().plus(tokenLifetime);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String token = encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(("{\"sub\":\"admin@local\",\"exp\":" + expiresAt.getEpochSecond() + "}")
+                        .getBytes(StandardCharsets.UTF_8))
+                + ".signature-" + accessTokens.size();
+        accessTokens.put(token, Instant.ofEpochSecond(expiresAt.getEpochSecond()));
+        return token;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A task of the stub server. Every status query returns the next reported status, the last one is repeated; a retry
+     * starts over with the statuses after retry.
+     */
+    private static final class StubTask {
+        private static final String[] SUBTASKS = {"validate", "deploy"};
+
+        private final String id;
+        private final List<String[]> reports = new CopyOnWriteArrayList<>();
+        private final List<String> statusesAfterRetry = new CopyOnWriteArrayList<>();
+        private final AtomicInteger queries = new AtomicInteger();
+
+        StubTask(String id) {
+            this.id = id;
+        }
+
+        /** @param statuses the status of the task, followed by the statuses of its subtasks, if any */
+        void report(String... statuses) {
+            reports.add(statuses);
+        }
+
+        synchronized void retry() {
+            reports.clear();
+            statusesAfterRetry.forEach(this::report);
+            queries.set(0);
+        }
+
+        Task toTask() {
+            Task task = new Task();
+            task.setId(id);
+            task.setName("Task " + id);
+            task.setStatus(reports.get(0)[0]);
+            return task;
+        }
+
+        synchronized String toJson(int query) {
+            String[] report = reports.get(Math.min(query, reports.size() - 1));
+            StringBuilder json = new StringBuilder()
+                    .append("{\"id\":\"")
+                    .append(id)
+                    .append("\",\"name\":\"Task ")
+                    .append(id)
+                    .append("\",\"status\":\"")
+                    .append(report[0])
+                    .append("\"");
+            if (report.length > 1) {
+                json.append(",\"subTasks\":[");
+                for (int i = 1; i < report.length; i++) {
+                    json.append(i > 1 ? "," : "")
+                            .append("{\"name\":\"")
+                            .append(SUBTASKS[i - 1])
+                            .append("\",\"status\":\"")
+                            .append(report[i])
+                            .append("\"}");
+                }
+                json.append("]");
+            }
+            return json.append("}").toString();
+        }
+    }
+}
@@ -24,6 +24,7 @@ dependencies {
     implementation(sdkLibs.vapi.runtime)
     implementation(project(":utils:vapi-samltoken"))
     testImplementation(testLibs.junit)
+    testImplementation(testFixtures(project(":utils:vapi-samltoken")))
     testImplementation(testLibs.easymock)
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
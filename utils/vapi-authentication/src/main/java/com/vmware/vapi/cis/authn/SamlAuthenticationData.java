@@ -36,6 +36,7 @@ public final class SamlAuthenticationData {
         Objects.requireNonNull(token);
         this.token = token;
         this.key = key;
+        // serialized once here, whatever the token implementation; a token which cannot be serialized fails here
         this.tokenXml = token.toXml();
     }
 
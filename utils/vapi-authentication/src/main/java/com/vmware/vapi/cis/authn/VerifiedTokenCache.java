@@ -0,0 +1,99 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.vapi.cis.authn;
+
+import java.security.cert.X509Certificate;
+
+import com.vmware.vapi.internal.util.Validate;
+import com.vmware.vapi.saml.DefaultTokenFactory;
+import com.vmware.vapi.saml.SamlToken;
+import com.vmware.vapi.saml.SamlTokenCache;
+import com.vmware.vapi.saml.exception.InvalidTokenException;
+
+/**
+ * Cache of authenticated SAML tokens for the verification side of request signing.
+ *
+ * <p>A token is parsed and fully validated (schema, XML signature and trust chain to the given roots) the first time it
+ * is seen. Further requests carrying the same token text, compared by SHA-256 digest, and validated against the same
+ * trusted roots get the already validated token, so only the per-request signature has to be checked against its
+ * confirmation certificate. Tampered tokens have a different digest and always go through the full validation.
+ *
+ * <p>Entries are dropped when the token reaches its {@code NotOnOrAfter} instant. The validity period of a token is not
+ * part of the cache key: the {@code NotBefore} and {@code NotOnOrAfter} instants of every returned token, cached or
+ * not, are checked against the clock of the {@link SamlTokenCache} and the clock tolerance of the current caller, so a
+ * token validated earlier with a larger tolerance is never accepted with a smaller one.
+ *
+ * <p>This class is thread safe.
+ */
+public final class VerifiedTokenCache {
+
+    private final SamlTokenCache tokenCache;
+    private final DefaultTokenFactory tokenFactory;
+
+    /** Creates a cache with {@link SamlTokenCache#DEFAULT_MAX_ENTRIES} entries. */
+    public VerifiedTokenCache() {
+        this(new SamlTokenCache());
+    }
+
+    /**
+     * @param tokenCache the storage for the validated tokens. its clock is used to check the validity period of the
+     *     tokens. cannot be null.
+     */
+    public VerifiedTokenCache(SamlTokenCache tokenCache) {
+        Validate.notNull(tokenCache);
+
+        this.tokenCache = tokenCache;
+        this.tokenFactory = new DefaultTokenFactory(tokenCache);
+    }
+
+    /**
+     * Returns the validated token for the given token text, validating it if it has not been seen before.
+     *
+     * @param tokenXml the token text. cannot be null.
+     * @param trustedRoots the trusted root certificates of the STS which signed the token. cannot be empty.
+     * @param clockToleranceSec the allowed time discrepancy between the client and the server. must not be negative.
+     * @return the validated token. shared between callers and must be treated as read-only.
+     * @throws InvalidTokenException if the token is malformed, not signed by a trusted STS, not yet valid or expired
+     */
+    public SamlToken getVerifiedToken(String tokenXml, X509Certificate[] trustedRoots, long clockToleranceSec)
+            throws InvalidTokenException {
+        Validate.notNull(tokenXml);
+        Validate.notEmpty(trustedRoots);
+        Validate.isTrue(clockToleranceSec > -1);
+
+        // the factory checks the validity period of cached tokens against the tolerance of this call
+        return tokenFactory.parseToken(tokenXml, trustedRoots, clockToleranceSec);
+    }
+
+    /**
+     * Drops all validated instances of the token with the given ID.
+     *
+     * @param tokenId the {@link SamlToken#getId() ID} of the token. cannot be null.
+     */
+    public void invalidate(String tokenId) {
+        tokenCache.invalidate(tokenId);
+    }
+
+    /** Drops all validated tokens, e.g. after the trusted roots have been rotated. */
+    public void clear() {
+        tokenCache.clear();
+    }
+
+    /** @return the number of cached tokens */
+    public int size() {
+        return tokenCache.size();
+    }
+
+    /** @return a snapshot of the cache statistics */
+    public SamlTokenCache.Statistics getStatistics() {
+        return tokenCache.getStatistics();
+    }
+}
@@ -10,7 +10,9 @@
 
 package com.vmware.vapi.cis.authn.json;
 
-import java.util.Calendar;
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -38,13 +40,21 @@ public final class JsonSigningProcessor implements RequestProcessor {
 
     private static final String UTF8_CHARSET = "UTF-8";
     private static final Logger log = LoggerFactory.getLogger(JsonSigningProcessor.class);
+    private static final JsonSignatureAlgorithm SIGNATURE_ALGORITHM = JsonSignatureAlgorithm.getDefault();
     private static final Message DECODE_ERROR = MessageFactory.getMessage("vapi.sso.signproc.decoderequest");
     private final Signer jsonSigner;
     private final JsonSecurityContextSerializer scSerializer = new JsonSecurityContextSerializer();
     private final DateTimeConverter dateConverter = new DateTimeConverter();
+    private final Clock clock;
 
     public JsonSigningProcessor() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /** @param clock the source of the request timestamps, in the time zone used for formatting them */
+    JsonSigningProcessor(Clock clock) {
         jsonSigner = new JsonSignerImpl(new JsonCanonicalizer());
+        this.clock = clock;
     }
 
     @Override
@@ -55,41 +65,51 @@ public final class JsonSigningProcessor implements RequestProcessor {
 
         // TODO a more optimal usage of vapiRequest could be used here
         Object secCtx = metadata.get(RequestProcessor.SECURITY_CONTEXT_KEY);
-        if (!shouldSignRequest(secCtx)) {
+        SamlAuthenticationData sc = getSigningData(secCtx);
+        if (sc == null) {
             return request;
         }
 
-        return signRequest(request, (SecurityContext) secCtx);
+        return signRequest(request, sc);
     }
 
     /** @return true if the request should be signed, false otherwise */
     boolean shouldSignRequest(Object secCtx) {
-        boolean shouldSign = false;
+        return getSigningData(secCtx) != null;
+    }
 
+    /**
+     * Parses the security context once per request; the result is reused for signing.
+     *
+     * @return the SAML data with a private key if the request should be signed, null otherwise
+     */
+    private SamlAuthenticationData getSigningData(Object secCtx) {
         if (secCtx != null && secCtx instanceof SecurityContext) {
             SecurityContext context = (SecurityContext) secCtx;
             if (StdSecuritySchemes.SAML_TOKEN.equals(context.getProperty(SecurityContext.AUTHENTICATION_SCHEME_ID))) {
                 SamlAuthenticationData sc = SecurityContextFactory.parseSamlSecurityContext(context);
-                shouldSign = sc.getPrivateKey() != null;
+                if (sc.getPrivateKey() != null) {
+                    return sc;
+                }
             }
         }
 
-        return shouldSign;
+        return null;
     }
 
     /**
      * Signs the request and embeds the signature into it
      *
      * @param jsonRequest cannot be null
-     * @param secCtx cannot be null
+     * @param sc the SAML data of the security context, with a private key; cannot be null
      * @return the signed request
      */
-    private byte[] signRequest(byte[] jsonRequest, SecurityContext secCtx) {
+    private byte[] signRequest(byte[] jsonRequest, SamlAuthenticationData sc) {
         if (jsonRequest == null) {
             throw new IllegalArgumentException("jsonRequest is null");
         }
-        if (secCtx == null) {
-            throw new IllegalArgumentException("secCtx is null");
+        if (sc == null) {
+            throw new IllegalArgumentException("sc is null");
         }
 
         log.debug("Signing the request");
@@ -100,13 +120,10 @@ public final class JsonSigningProcessor implements RequestProcessor {
         secCtxMap.put(
                 SecurityContextConstants.TIMESTAMP_KEY, createTimestamp(JsonSecurityContextSerializer.TS_DEF_OFFSET));
         // TODO signatureAlgorithm should not be hardcoded
-        secCtxMap.put(
-                SecurityContextConstants.SIGNATURE_ALGORITHM_KEY,
-                JsonSignatureAlgorithm.getDefault().name());
+        secCtxMap.put(SecurityContextConstants.SIGNATURE_ALGORITHM_KEY, SIGNATURE_ALGORITHM.name());
         byte[] signRequest = scSerializer.serializeSecurityContext(secCtxMap, jsonRequest);
 
-        SamlAuthenticationData sc = SecurityContextFactory.parseSamlSecurityContext(secCtx);
-        String signature = jsonSigner.sign(signRequest, sc.getPrivateKey(), JsonSignatureAlgorithm.getDefault());
+        String signature = jsonSigner.sign(signRequest, sc.getPrivateKey(), SIGNATURE_ALGORITHM);
 
         // add the signature to the security context
         Map<String, String> scSigValue = new HashMap<String, String>();
@@ -124,13 +141,13 @@ public final class JsonSigningProcessor implements RequestProcessor {
      * @return the timestamp structure
      */
     private Map<String, String> createTimestamp(int offset) {
-        // TODO is creating a calendar a slow operation?
-        // TODO does the default timezone works?
-        Calendar cal = Calendar.getInstance();
+        // the converter only formats calendars, the time arithmetic is done with java.time
+        ZonedDateTime created = ZonedDateTime.now(clock);
         Map<String, String> ts = new HashMap<String, String>();
-        ts.put(SecurityContextConstants.TS_CREATED_KEY, dateConverter.toStringValue(cal));
-        cal.add(Calendar.MINUTE, offset);
-        ts.put(SecurityContextConstants.TS_EXPIRES_KEY, dateConverter.toStringValue(cal));
+        ts.put(SecurityContextConstants.TS_CREATED_KEY, dateConverter.toStringValue(GregorianCalendar.from(created)));
+        ts.put(
+                SecurityContextConstants.TS_EXPIRES_KEY,
+                dateConverter.toStringValue(GregorianCalendar.from(created.plusMinutes(offset))));
         return ts;
     }
 }
@@ -15,6 +15,7 @@ import java.util.Map;
 
 import com.vmware.vapi.Message;
 import com.vmware.vapi.MessageFactory;
+import com.vmware.vapi.cis.authn.VerifiedTokenCache;
 import com.vmware.vapi.dsig.json.SignatureException;
 import com.vmware.vapi.internal.security.SecurityContextConstants;
 import com.vmware.vapi.internal.security.SecurityUtil;
@@ -80,6 +81,25 @@ public final class JsonSignatureStruct {
      */
     public static JsonSignatureStruct parseJsonSignatureStruct(
             Map<String, Object> jsonSignatureStruct, X509Certificate[] trustedRoots, long clockToleranceSec) {
+        return parseJsonSignatureStruct(jsonSignatureStruct, trustedRoots, clockToleranceSec, null);
+    }
+
+    /**
+     * Parses a JSON signature structure string, taking the SAML token from the given cache if it has already been
+     * validated.
+     *
+     * @param jsonSignatureStruct cannot be null.
+     * @param trustedRoots the trusted root certificates of the SSO server, used to sign the SAML token in the JSON
+     *     signature structure. cannot be empty.
+     * @param clockToleranceSec the allowed time discrepancy between the client and the server. must not be negative.
+     * @param tokenCache the cache of validated tokens. can be null, in which case the token is always validated.
+     * @return the parsed {@link JsonSignatureStruct}
+     */
+    public static JsonSignatureStruct parseJsonSignatureStruct(
+            Map<String, Object> jsonSignatureStruct,
+            X509Certificate[] trustedRoots,
+            long clockToleranceSec,
+            VerifiedTokenCache tokenCache) {
 
         Validate.notNull(jsonSignatureStruct);
         Validate.notEmpty(trustedRoots);
@@ -95,9 +115,10 @@ public final class JsonSignatureStruct {
         if (sigValue != null && samlToken != null && signingAlgorithm != null) {
             SamlToken parsedToken;
             try {
-                synchronized (TOKEN_FACTORY) {
-                    parsedToken = TOKEN_FACTORY.parseToken(samlToken, trustedRoots, clockToleranceSec);
-                }
+                // the factory is thread safe, no need to serialize the validations
+                parsedToken = tokenCache != null
+                        ? tokenCache.getVerifiedToken(samlToken, trustedRoots, clockToleranceSec)
+                        : TOKEN_FACTORY.parseToken(samlToken, trustedRoots, clockToleranceSec);
             } catch (InvalidTokenException e) {
                 throw new SignatureException(VERIFY_ERROR, e);
             }
@@ -15,12 +15,14 @@ import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.Signature;
 import java.security.cert.X509Certificate;
+import java.util.EnumMap;
 import java.util.Map;
 
 import org.apache.commons.codec.binary.Base64;
 
 import com.vmware.vapi.Message;
 import com.vmware.vapi.MessageFactory;
+import com.vmware.vapi.cis.authn.VerifiedTokenCache;
 import com.vmware.vapi.dsig.json.SignatureException;
 import com.vmware.vapi.dsig.json.StsTrustChain;
 import com.vmware.vapi.internal.cis.authn.Signer;
@@ -34,8 +36,18 @@ public final class JsonSignerImpl implements Signer, Verifier {
 
     private static final Message SIGN_ERROR = MessageFactory.getMessage("vapi.signature.sign");
     private static final Message VERIFY_ERROR = MessageFactory.getMessage("vapi.signature.verify");
+
+    /**
+     * Verification engines of the current thread, one per algorithm. An engine is initialized again for every
+     * verification, so it only refers to the public key of the last certificate it verified with. Signing engines are
+     * not kept, so no private key outlives the {@link #sign} call that uses it.
+     */
+    private static final ThreadLocal<Map<JsonSignatureAlgorithm, Signature>> VERIFIERS =
+            ThreadLocal.withInitial(() -> new EnumMap<>(JsonSignatureAlgorithm.class));
+
     private final Canonicalizer jsonCanonicalizer;
     private final StsTrustChain stsTrustChain;
+    private final VerifiedTokenCache tokenCache;
     private final JsonSecurityContextSerializer deserializer = new JsonSecurityContextSerializer();
 
     /** @param jsonCanonicalizer cannot be null. */
@@ -49,10 +61,22 @@ public final class JsonSignerImpl implements Signer, Verifier {
      *     {@link Signer} but not as a {@link Verifier}.
      */
     public JsonSignerImpl(Canonicalizer jsonCanonicalizer, StsTrustChain stsTrustChain) {
+        this(jsonCanonicalizer, stsTrustChain, null);
+    }
+
+    /**
+     * @param jsonCanonicalizer cannot be null.
+     * @param stsTrustChain StsTrustChain retriever. Can be null if the current instance will be used only as a
+     *     {@link Signer} but not as a {@link Verifier}.
+     * @param tokenCache the cache of validated SAML tokens. Can be null, in which case the token of every verified
+     *     request is fully validated.
+     */
+    public JsonSignerImpl(Canonicalizer jsonCanonicalizer, StsTrustChain stsTrustChain, VerifiedTokenCache tokenCache) {
         Validate.notNull(jsonCanonicalizer);
 
         this.jsonCanonicalizer = jsonCanonicalizer;
         this.stsTrustChain = stsTrustChain;
+        this.tokenCache = tokenCache;
     }
 
     @Override
@@ -89,7 +113,7 @@ public final class JsonSignerImpl implements Signer, Verifier {
 
         try {
             JsonSignatureStruct jsonSignature = JsonSignatureStruct.parseJsonSignatureStruct(
-                    signature, stsTrustChain.getStsTrustChain(), clockToleranceSec);
+                    signature, stsTrustChain.getStsTrustChain(), clockToleranceSec, tokenCache);
 
             return verify(
                     jsonSignature.getSamlToken().getConfirmationCertificate(),
@@ -121,6 +145,7 @@ public final class JsonSignerImpl implements Signer, Verifier {
             throw new IllegalArgumentException("Private key cannot be null");
         }
 
+        // a new engine per signature, so the private key is not referenced after the call
         Signature rsa = Signature.getInstance(alg.getJavaName());
         rsa.initSign(privateKey);
         rsa.update(payload);
@@ -150,10 +175,30 @@ public final class JsonSignerImpl implements Signer, Verifier {
         } catch (IllegalArgumentException e) {
             throw new SignatureException(MessageFactory.getMessage("vapi.signature.unknowndsigalg", alg));
         }
-        Signature signature = Signature.getInstance(signAlg.getJavaName());
-        signature.initVerify(certificate);
-        signature.update(jsonMessage);
+        Signature verifier = getVerifier(signAlg);
+        boolean done = false;
+        try {
+            verifier.initVerify(certificate);
+            verifier.update(jsonMessage);
+            boolean valid = verifier.verify(Base64.decodeBase64(b64Signature));
+            done = true;
+            return valid;
+        } finally {
+            if (!done) {
+                // the state of an engine whose operation failed is unknown
+                VERIFIERS.get().remove(signAlg);
+            }
+        }
+    }
 
-        return signature.verify(Base64.decodeBase64(b64Signature));
+    /** @return the verification engine of the current thread for the given algorithm */
+    private static Signature getVerifier(JsonSignatureAlgorithm alg) throws NoSuchAlgorithmException {
+        Map<JsonSignatureAlgorithm, Signature> verifiers = VERIFIERS.get();
+        Signature verifier = verifiers.get(alg);
+        if (verifier == null) {
+            verifier = Signature.getInstance(alg.getJavaName());
+            verifiers.put(alg, verifier);
+        }
+        return verifier;
     }
 }
@@ -0,0 +1,125 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.vapi.cis.authn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.vmware.vapi.cis.authn.json.SamlTokenUtil;
+import com.vmware.vapi.saml.MutableClock;
+import com.vmware.vapi.saml.SamlToken;
+import com.vmware.vapi.saml.SamlTokenCache;
+import com.vmware.vapi.saml.exception.InvalidSignatureException;
+import com.vmware.vapi.saml.exception.InvalidTimingException;
+import com.vmware.vapi.saml.exception.InvalidTokenException;
+
+/** Unit tests for {@link VerifiedTokenCache}. */
+public class VerifiedTokenCacheTest {
+
+    // NotBefore and NotOnOrAfter of the sample token
+    private static final Instant TOKEN_START = Instant.parse("2000-01-01T00:00:00Z");
+    private static final Instant TOKEN_EXPIRATION = Instant.parse("2030-01-01T00:00:00Z");
+    private static final X509Certificate[] TRUSTED_ROOTS = SamlTokenUtil.getTrustedRoots();
+
+    private String tokenXml;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        tokenXml = SamlTokenUtil.loadSampleTokenXml();
+    }
+
+    @Test
+    public void testTokenIsValidatedOnce() throws InvalidTokenException {
+        VerifiedTokenCache cache = new VerifiedTokenCache();
+
+        SamlToken token = cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 0);
+        assertSame(token, cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 0));
+        assertEquals(1, cache.getStatistics().getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testTamperedTokenIsRejected() throws InvalidTokenException {
+        VerifiedTokenCache cache = new VerifiedTokenCache();
+        cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 0);
+
+        String tamperedXml = tokenXml.replace("root@localos", "admin@localos");
+        assertThrows(InvalidSignatureException.class, () -> cache.getVerifiedToken(tamperedXml, TRUSTED_ROOTS, 0));
+        assertThrows(InvalidSignatureException.class, () -> cache.getVerifiedToken(tamperedXml, TRUSTED_ROOTS, 0));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testExpiredTokenIsRejected() throws InvalidTokenException {
+        MutableClock clock = new MutableClock(TOKEN_EXPIRATION.minusSeconds(1));
+        SamlTokenCache tokenCache = new SamlTokenCache(SamlTokenCache.DEFAULT_MAX_ENTRIES, clock);
+        VerifiedTokenCache cache = new VerifiedTokenCache(tokenCache);
+
+        SamlToken token = cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 0);
+
+        clock.set(TOKEN_EXPIRATION.plusSeconds(1));
+        assertThrows(InvalidTimingException.class, () -> cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 0));
+        assertEquals(0, tokenCache.size());
+
+        // the expired token was dropped and is validated again
+        clock.set(TOKEN_EXPIRATION.minusSeconds(1));
+        assertNotSame(token, cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 0));
+    }
+
+    @Test
+    public void testClockToleranceOfCallerIsAppliedBeforeNotBefore() throws InvalidTokenException {
+        MutableClock clock = new MutableClock(TOKEN_START.minusSeconds(300));
+        VerifiedTokenCache cache = newCache(clock);
+
+        // validated and cached with a tolerance covering the skew, rejected from the cache without one
+        SamlToken token = cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 600);
+        assertThrows(InvalidTimingException.class, () -> cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 0));
+        assertSame(token, cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 600));
+        assertEquals(1, cache.size());
+
+        clock.set(TOKEN_START);
+        assertSame(token, cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 0));
+    }
+
+    @Test
+    public void testClockToleranceOfCallerIsAppliedAfterNotOnOrAfter() throws InvalidTokenException {
+        MutableClock clock = new MutableClock(TOKEN_EXPIRATION.minusSeconds(1));
+        VerifiedTokenCache cache = newCache(clock);
+        cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 600);
+
+        // accepted with a tolerance covering the skew, rejected without one
+        clock.set(TOKEN_EXPIRATION.plusSeconds(300));
+        cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 600);
+        assertThrows(InvalidTimingException.class, () -> cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 60));
+    }
+
+    @Test
+    public void testInvalidate() throws InvalidTokenException {
+        VerifiedTokenCache cache = new VerifiedTokenCache();
+        SamlToken token = cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 0);
+
+        cache.invalidate(token.getId());
+        assertEquals(0, cache.size());
+        assertNotSame(token, cache.getVerifiedToken(tokenXml, TRUSTED_ROOTS, 0));
+    }
+
+    private static VerifiedTokenCache newCache(MutableClock clock) {
+        return new VerifiedTokenCache(new SamlTokenCache(SamlTokenCache.DEFAULT_MAX_ENTRIES, clock));
+    }
+}
@@ -10,6 +10,7 @@
 
 package com.vmware.vapi.cis.authn.json;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -17,6 +18,9 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.security.PrivateKey;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -53,6 +57,20 @@ public class JsonSigningProcessorTest {
         assertTrue(body.contains(SecurityContextConstants.SAML_TOKEN_KEY));
     }
 
+    @Test
+    public void testSignIsRepeatable() throws InvalidTokenException, IOException, URISyntaxException {
+        Clock clock = Clock.fixed(Instant.parse("2025-01-01T10:15:30.123Z"), ZoneId.of("Europe/Sofia"));
+        JsonSigningProcessor proc = new JsonSigningProcessor(clock);
+        SecurityContext props = SecurityContextFactory.createSamlSecurityContext(
+                SamlTokenUtil.loadSampleToken(), SamlTokenUtil.loadTokenPrivateKey());
+        Map<String, Object> meta = Collections.singletonMap(RequestProcessor.SECURITY_CONTEXT_KEY, (Object) props);
+
+        // RS256 is deterministic, so equal timestamps give equal requests
+        byte[] res = proc.process(SamlTokenUtil.loadTestMsg(), meta, null);
+        assertArrayEquals(res, proc.process(SamlTokenUtil.loadTestMsg(), meta, null));
+        assertArrayEquals(res, new JsonSigningProcessor(clock).process(SamlTokenUtil.loadTestMsg(), meta, null));
+    }
+
     @Test
     public void testSignTextToken() throws URISyntaxException, IOException {
         JsonSigningProcessor proc = new JsonSigningProcessor();
@@ -23,10 +23,15 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
 import java.security.PrivateKey;
+import java.security.Signature;
 import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
 import java.util.Map;
 
+import org.apache.commons.codec.binary.Base64;
 import org.junit.jupiter.api.Test;
 
 import com.vmware.vapi.cis.authn.json.SamlTokenUtil;
@@ -53,6 +58,45 @@ public class JsonSignerAlgorithmsTest {
         signVerify(RS512, SIGNING_KEY_ALIAS, SIGNING_CERT_ALIAS);
     }
 
+    @Test
+    void testRepeatedSignIsDeterministicForRsa() throws IOException, InvalidTokenException {
+        PrivateKey privateKey = SamlTokenUtil.loadPrivateKey(SIGNING_KEY_ALIAS);
+        byte[] payload = testHelper.getPayload().getBytes(StandardCharsets.UTF_8);
+
+        for (JsonSignatureAlgorithm algorithm : new JsonSignatureAlgorithm[] {RS256, RS384, RS512}) {
+            String first = jsonSignerImpl.sign(payload, privateKey, algorithm);
+            assertEquals(first, jsonSignerImpl.sign(payload, privateKey, algorithm));
+            signVerify(algorithm, SIGNING_KEY_ALIAS, SIGNING_CERT_ALIAS);
+        }
+    }
+
+    @Test
+    void testRepeatedSignWithEcdsa() throws Exception {
+        byte[] payload = testHelper.getPayload().getBytes(StandardCharsets.UTF_8);
+        byte[] canonical = new JsonCanonicalizer().asCanonical(payload);
+
+        signVerifyEcdsa(JsonSignatureAlgorithm.ES256, "secp256r1", payload, canonical);
+        signVerifyEcdsa(JsonSignatureAlgorithm.ES384, "secp384r1", payload, canonical);
+        signVerifyEcdsa(JsonSignatureAlgorithm.ES512, "secp521r1", payload, canonical);
+    }
+
+    /** ECDSA signatures are randomized, so every signature is checked with a separately created verifier. */
+    private void signVerifyEcdsa(JsonSignatureAlgorithm algorithm, String curve, byte[] payload, byte[] canonical)
+            throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec(curve));
+        KeyPair keyPair = generator.generateKeyPair();
+
+        for (int i = 0; i < 3; i++) {
+            String sigValue = jsonSignerImpl.sign(payload, keyPair.getPrivate(), algorithm);
+
+            Signature verifier = Signature.getInstance(algorithm.getJavaName());
+            verifier.initVerify(keyPair.getPublic());
+            verifier.update(canonical);
+            assertTrue(verifier.verify(Base64.decodeBase64(sigValue)));
+        }
+    }
+
     public static DefaultStsTrustChain loadFromKeystore(String fileName, String password, String certAlias) {
         KeyStoreHelper keyStore = null;
         try {
@@ -11,16 +11,21 @@
 package com.vmware.vapi.internal.cis.authn.json;
 
 import static com.vmware.vapi.internal.cis.authn.json.JsonSignerTestHelper.STS_TRUSTCHAIN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.charset.StandardCharsets;
+import java.security.PrivateKey;
+import java.security.Signature;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.commons.codec.binary.Base64;
 import org.junit.jupiter.api.Test;
 
+import com.vmware.vapi.cis.authn.VerifiedTokenCache;
 import com.vmware.vapi.cis.authn.json.SamlTokenUtil;
 import com.vmware.vapi.dsig.json.SignatureException;
 import com.vmware.vapi.internal.dsig.json.JsonCanonicalizer;
@@ -70,6 +75,64 @@ public class JsonSignerImplTest {
         });
     }
 
+    @Test
+    public void testSignatureMatchesFreshEngine() throws Exception {
+        PrivateKey tokenKey = SamlTokenUtil.loadTokenPrivateKey();
+        PrivateKey otherKey = SamlTokenUtil.loadPrivateKey(SamlTokenUtil.SIGNING_KEY_ALIAS);
+
+        String expected = signWithFreshEngine(tokenKey);
+        assertEquals(expected, jsonSignerImpl.sign(payloadBytes, tokenKey, defaultAlg));
+        assertEquals(expected, jsonSignerImpl.sign(payloadBytes, tokenKey, defaultAlg));
+
+        // signing with another key in between does not affect the signatures with the first one
+        assertEquals(signWithFreshEngine(otherKey), jsonSignerImpl.sign(payloadBytes, otherKey, defaultAlg));
+        assertEquals(expected, jsonSignerImpl.sign(payloadBytes, tokenKey, defaultAlg));
+    }
+
+    @Test
+    public void testVerifyAfterFailedVerify() {
+        Map<String, Object> invalid = testHelper.serializeSignature("aa", defaultAlg.name());
+        assertThrows(
+                SignatureException.class,
+                () -> jsonVerifierImpl.verifySignature(
+                        testHelper.serializeSecurityContext(payload, invalid),
+                        invalid,
+                        Verifier.DEFAULT_CLOCK_TOLERANCE_SEC));
+
+        String sigValue = jsonSignerImpl.sign(payloadBytes, SamlTokenUtil.loadTokenPrivateKey(), defaultAlg);
+        Map<String, Object> signature = testHelper.serializeSignature(sigValue, defaultAlg.name());
+        assertTrue(jsonVerifierImpl.verifySignature(
+                testHelper.serializeSecurityContext(payload, signature),
+                signature,
+                Verifier.DEFAULT_CLOCK_TOLERANCE_SEC));
+    }
+
+    @Test
+    public void testVerifyWithTokenCache() {
+        VerifiedTokenCache tokenCache = new VerifiedTokenCache();
+        JsonSignerImpl verifier = new JsonSignerImpl(new JsonCanonicalizer(), STS_TRUSTCHAIN, tokenCache);
+
+        String sigValue = jsonSignerImpl.sign(payloadBytes, SamlTokenUtil.loadTokenPrivateKey(), defaultAlg);
+        Map<String, Object> signature = testHelper.serializeSignature(sigValue, defaultAlg.name());
+        byte[] request = testHelper.serializeSecurityContext(payload, signature);
+        assertTrue(verifier.verifySignature(request, signature, Verifier.DEFAULT_CLOCK_TOLERANCE_SEC));
+        assertTrue(verifier.verifySignature(request, signature, Verifier.DEFAULT_CLOCK_TOLERANCE_SEC));
+        assertEquals(1, tokenCache.getStatistics().getHitCount());
+
+        // the request signature is still checked for every request
+        assertFalse(verifier.verifySignature(
+                testHelper.serializeSecurityContext(payload.replace('a', 'b'), signature),
+                signature,
+                Verifier.DEFAULT_CLOCK_TOLERANCE_SEC));
+    }
+
+    private String signWithFreshEngine(PrivateKey privateKey) throws Exception {
+        Signature signature = Signature.getInstance(defaultAlg.getJavaName());
+        signature.initSign(privateKey);
+        signature.update(new JsonCanonicalizer().asCanonical(payloadBytes));
+        return Base64.encodeBase64String(signature.sign());
+    }
+
     @Test
     public void testSignerVerify() {
         assertThrows(IllegalStateException.class, () -> {
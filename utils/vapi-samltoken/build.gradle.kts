@@ -10,6 +10,7 @@
 
 plugins {
     `java-library`
+    `java-test-fixtures`
     id("util-conventions")
 }
 
@@ -38,6 +39,11 @@ tasks.test {
     useJUnitPlatform()
 }
 
+// the test fixtures are shared with the tests of dependent modules, they are not published
+val javaComponent = components["java"] as AdhocComponentWithVariants
+javaComponent.withVariantsFromConfiguration(configurations["testFixturesApiElements"]) { skip() }
+javaComponent.withVariantsFromConfiguration(configurations["testFixturesRuntimeElements"]) { skip() }
+
 spotless {
     java {
         targetExclude("**/oasis/**", "**/w3/**")
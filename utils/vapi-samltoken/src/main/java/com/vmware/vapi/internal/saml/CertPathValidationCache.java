@@ -0,0 +1,244 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.vapi.internal.saml;
+
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.crypto.KeySelectorException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers the outcome of certification path builds done by {@link X509TrustChainKeySelector}.
+ *
+ * <p>An entry is keyed by the certificate chain found in the signature's KeyInfo together with the set of trusted
+ * roots, so changing the trusted roots never reuses an outcome computed for another set - the old entries are simply
+ * not reachable anymore and age out. Successful validations are kept until the earliest expiry of the chain or of the
+ * trust anchors, but not longer than the configured TTL. Failed validations are kept for a short period only, so a
+ * fixed configuration is picked up quickly. Errors caused by the Java platform are never cached.
+ *
+ * <p>Revocation checking is disabled for the path builds, so an outcome can change only with time (certificate
+ * validity) or with the trusted roots.
+ *
+ * <p>This class is thread safe.
+ */
+public final class CertPathValidationCache {
+
+    /** Default maximum number of cached outcomes. */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    /** Default time a successful validation is kept for, unless a certificate expires earlier. */
+    public static final Duration DEFAULT_TTL = Duration.ofHours(1);
+
+    /** Default time a failed validation is kept for. */
+    public static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofSeconds(30);
+
+    private static final Logger log = LoggerFactory.getLogger(CertPathValidationCache.class);
+
+    private static final CertPathValidationCache DEFAULT = new CertPathValidationCache();
+
+    private final int _maxEntries;
+    private final Duration _ttl;
+    private final Duration _negativeTtl;
+    private final Clock _clock;
+    private final LinkedHashMap<Key, Entry> _entries;
+
+    /** Creates a cache with {@link #DEFAULT_MAX_ENTRIES}, {@link #DEFAULT_TTL} and {@link #DEFAULT_NEGATIVE_TTL}. */
+    public CertPathValidationCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TTL, DEFAULT_NEGATIVE_TTL);
+    }
+
+    /**
+     * @param maxEntries the maximum number of cached outcomes; must be positive
+     * @param ttl the maximum time a successful validation is kept for; must be positive
+     * @param negativeTtl the time a failed validation is kept for; zero disables caching of failures
+     */
+    public CertPathValidationCache(int maxEntries, Duration ttl, Duration negativeTtl) {
+        this(maxEntries, ttl, negativeTtl, Clock.systemUTC());
+    }
+
+    CertPathValidationCache(int maxEntries, Duration ttl, Duration negativeTtl, Clock clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Expected positive number of entries, but got " + maxEntries);
+        }
+        ValidateUtil.validateNotNull(ttl, "TTL");
+        ValidateUtil.validateNotNull(negativeTtl, "Negative TTL");
+        if (ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("Expected positive TTL, but got " + ttl);
+        }
+        if (negativeTtl.isNegative()) {
+            throw new IllegalArgumentException("Expected non-negative TTL, but got " + negativeTtl);
+        }
+
+        _maxEntries = maxEntries;
+        _ttl = ttl;
+        _negativeTtl = negativeTtl;
+        _clock = clock;
+        _entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /** @return the cache used by {@link X509TrustChainKeySelector} unless another one is given */
+    public static CertPathValidationCache getDefault() {
+        return DEFAULT;
+    }
+
+    /** @return the number of cached outcomes, including the ones which have expired but are not evicted yet */
+    public synchronized int size() {
+        return _entries.size();
+    }
+
+    /** Discards all cached outcomes, e.g. after the trust configuration of the application has changed. */
+    public synchronized void clear() {
+        _entries.clear();
+    }
+
+    /**
+     * Returns the cached outcome of the validation of the given chain against the given trust anchors, or runs
+     * {@code validator} and caches its outcome.
+     *
+     * @param chain the certificates from the KeyInfo, the signing certificate first
+     * @param trustAnchors the trust anchors the chain is validated against
+     * @param validator builds the certification path
+     * @return whether a trusted path exists
+     * @throws KeySelectorException if thrown by {@code validator}
+     */
+    boolean validate(List<X509Certificate> chain, Set<TrustAnchor> trustAnchors, Validator validator)
+            throws KeySelectorException {
+
+        Key key = new Key(chain, trustAnchors);
+        Instant now = _clock.instant();
+        synchronized (this) {
+            Entry entry = _entries.get(key);
+            if (entry != null) {
+                if (now.isBefore(entry._expiresAt)) {
+                    return entry._trusted;
+                }
+                _entries.remove(key);
+            }
+        }
+
+        // the path is built outside of the lock, concurrent builds of the same chain are harmless
+        boolean trusted = validator.validate();
+
+        Instant expiresAt = trusted ? positiveExpiry(chain, trustAnchors, now) : now.plus(_negativeTtl);
+        if (now.isBefore(expiresAt)) {
+            synchronized (this) {
+                _entries.put(key, new Entry(trusted, expiresAt));
+                evictEntries(now);
+            }
+        }
+        return trusted;
+    }
+
+    private Instant positiveExpiry(List<X509Certificate> chain, Set<TrustAnchor> trustAnchors, Instant now) {
+        Instant expiresAt = now.plus(_ttl);
+        for (X509Certificate cert : chain) {
+            expiresAt = earliest(expiresAt, cert);
+        }
+        for (TrustAnchor anchor : trustAnchors) {
+            expiresAt = earliest(expiresAt, anchor.getTrustedCert());
+        }
+        return expiresAt;
+    }
+
+    private static Instant earliest(Instant expiresAt, X509Certificate cert) {
+        if (cert == null) {
+            return expiresAt;
+        }
+        Instant notAfter = cert.getNotAfter().toInstant();
+        return notAfter.isBefore(expiresAt) ? notAfter : expiresAt;
+    }
+
+    /** Drops expired entries and, if still needed, the least recently used ones. Must hold the lock. */
+    private void evictEntries(Instant now) {
+        if (_entries.size() <= _maxEntries) {
+            return;
+        }
+
+        for (Iterator<Entry> it = _entries.values().iterator(); it.hasNext(); ) {
+            if (!now.isBefore(it.next()._expiresAt)) {
+                it.remove();
+            }
+        }
+
+        Iterator<Entry> it = _entries.values().iterator();
+        while (_entries.size() > _maxEntries) {
+            it.next();
+            it.remove();
+        }
+        log.debug("Certification path validation cache trimmed to {} entries", _entries.size());
+    }
+
+    /** Builds a certification path; invoked on a cache miss. */
+    @FunctionalInterface
+    interface Validator {
+        boolean validate() throws KeySelectorException;
+    }
+
+    /**
+     * Cache key. {@link X509Certificate} equality is based on the encoded form, so equal chains parsed from different
+     * tokens produce equal keys.
+     */
+    private static final class Key {
+        private final List<X509Certificate> _chain;
+        private final Set<X509Certificate> _trustedCerts;
+        private final int _hashCode;
+
+        Key(List<X509Certificate> chain, Set<TrustAnchor> trustAnchors) {
+            _chain = new ArrayList<>(chain);
+            _trustedCerts = new HashSet<>();
+            for (TrustAnchor anchor : trustAnchors) {
+                _trustedCerts.add(anchor.getTrustedCert());
+            }
+            _hashCode = 31 * _chain.hashCode() + _trustedCerts.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return _hashCode == other._hashCode
+                    && _chain.equals(other._chain)
+                    && _trustedCerts.equals(other._trustedCerts);
+        }
+
+        @Override
+        public int hashCode() {
+            return _hashCode;
+        }
+    }
+
+    private static final class Entry {
+        private final boolean _trusted;
+        private final Instant _expiresAt;
+
+        Entry(boolean trusted, Instant expiresAt) {
+            _trusted = trusted;
+            _expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.vapi.internal.saml;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of reusable objects which are expensive to create and not thread safe themselves (XML parsers,
+ * transformers, unmarshallers).
+ *
+ * <p>A borrowed object must be used by a single thread and given back with {@link #release(Object)} once the thread is
+ * done with it. The pool never blocks - if there is no idle object a new one is created, and objects released into a
+ * full pool are dropped.
+ *
+ * <p>This class is thread safe.
+ *
+ * @param <T> type of the pooled objects
+ * @param <E> type of the exception thrown when an object cannot be created
+ */
+public final class ObjectPool<T, E extends Exception> {
+
+    /** Default number of idle objects kept by a pool. */
+    public static final int DEFAULT_MAX_IDLE =
+            Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    private static final Logger log = LoggerFactory.getLogger(ObjectPool.class);
+
+    private final Factory<T, E> _factory;
+    private final Consumer<T> _resetter;
+    private final ArrayBlockingQueue<T> _idle;
+
+    /**
+     * @param factory creates new objects; required
+     * @param resetter brings a released object back to its initial state, may be {@code null} if the objects keep no
+     *     state between usages; if it throws, the object is dropped
+     */
+    public ObjectPool(Factory<T, E> factory, Consumer<T> resetter) {
+        this(factory, resetter, DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * @param factory creates new objects; required
+     * @param resetter brings a released object back to its initial state, may be {@code null} if the objects keep no
+     *     state between usages; if it throws, the object is dropped
+     * @param maxIdle the maximum number of idle objects kept by the pool; must be positive
+     */
+    public ObjectPool(Factory<T, E> factory, Consumer<T> resetter, int maxIdle) {
+        ValidateUtil.validateNotNull(factory, "factory");
+        if (maxIdle <= 0) {
+            throw new IllegalArgumentException("Expected positive number of idle objects, but got " + maxIdle);
+        }
+
+        _factory = factory;
+        _resetter = resetter;
+        _idle = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * Borrows an idle object or creates a new one.
+     *
+     * @return an object for exclusive use by the caller, not null
+     * @throws E if a new object cannot be created
+     */
+    public T acquire() throws E {
+        T obj = _idle.poll();
+        return obj != null ? obj : _factory.create();
+    }
+
+    /**
+     * Resets the given object and makes it available for other callers. Objects which could not be used safely anymore
+     * (e.g. because they failed in the middle of an operation) should not be released.
+     *
+     * @param obj the object previously returned by {@link #acquire()}; {@code null} is ignored
+     */
+    public void release(T obj) {
+        if (obj == null) {
+            return;
+        }
+
+        if (_resetter != null) {
+            try {
+                _resetter.accept(obj);
+            } catch (RuntimeException e) {
+                log.debug("Dropping {} which could not be reset", obj.getClass().getName(), e);
+                return;
+            }
+        }
+        _idle.offer(obj);
+    }
+
+    /** @return the number of idle objects */
+    public int getIdleCount() {
+        return _idle.size();
+    }
+
+    /**
+     * Creates new pooled objects.
+     *
+     * @param <T> type of the pooled objects
+     * @param <E> type of the exception thrown when an object cannot be created
+     */
+    @FunctionalInterface
+    public interface Factory<T, E extends Exception> {
+        T create() throws E;
+    }
+}
@@ -37,6 +37,7 @@ import javax.xml.crypto.dsig.XMLSignatureException;
 import javax.xml.crypto.dsig.XMLSignatureFactory;
 import javax.xml.crypto.dsig.dom.DOMValidateContext;
 import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Result;
 import javax.xml.transform.Transformer;
@@ -76,7 +77,6 @@ import com.vmware.vapi.saml.PrincipalId;
 import com.vmware.vapi.saml.SamlToken;
 import com.vmware.vapi.saml.SubjectNameId;
 import com.vmware.vapi.saml.ValidatableSamlTokenEx;
-import com.vmware.vapi.saml.XmlParserFactory;
 import com.vmware.vapi.saml.exception.InvalidSignatureException;
 import com.vmware.vapi.saml.exception.InvalidTimingException;
 import com.vmware.vapi.saml.exception.InvalidTokenException;
@@ -146,9 +146,18 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
     /** issuer of the token. */
     private IssuerNameId _issuerId;
 
-    /** The DOM tree representation of the token */
+    /**
+     * The DOM tree representation of the token. DOM implementations are not thread safe even for reading, so all access
+     * after construction is synchronized on the document.
+     */
     private final Document _parsedToken;
 
+    /**
+     * The serialized form of {@link #_parsedToken}, computed on first use. The token is immutable, so the string is
+     * reused for every subsequent request embedding the token.
+     */
+    private volatile String _xml;
+
     /** The time when the token issuance occurred */
     private long _issueInstant;
 
@@ -206,7 +215,17 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
 
     private static final long MILLISECONDS_PER_SECOND = 1000;
     private static final Logger log = LoggerFactory.getLogger(SamlTokenImpl.class);
-    private static final XmlParserFactory xmlParserFactory = XmlParserFactory.Factory.createSecureXmlParserFactory();
+    private static final SecureXmlParserFactory xmlParserFactory = new SecureXmlParserFactory();
+
+    /** The JAXB context shared by the token factories. Tokens created with it reuse pooled unmarshallers. */
+    private static final JAXBContext DEFAULT_JAXB_CONTEXT = createJaxbContext();
+
+    /**
+     * Unmarshallers for {@link #DEFAULT_JAXB_CONTEXT}, validating against {@link #SAML_SCHEMA}. Unmarshallers keep no
+     * state between successful unmarshal operations, so there is nothing to reset.
+     */
+    private static final ObjectPool<Unmarshaller, JAXBException> DEFAULT_UNMARSHALLERS =
+            new ObjectPool<>(() -> createValidatingUnmarshaller(DEFAULT_JAXB_CONTEXT), null);
 
     /** Internal constructor: parse and validate token Document and populate the extracted properties. */
     private SamlTokenImpl(String sourceType, Document tokenDoc, JAXBContext jaxbContext, Boolean allowNonUpnFormat)
@@ -223,7 +242,7 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
         // that the root element is saml2:Assertion.
         markAssertionIdAttribute(_parsedToken.getDocumentElement());
 
-        log.info("SAML token for {} successfully parsed from {}", _subjectId, sourceType);
+        log.debug("SAML token for {} successfully parsed from {}", _subjectId, sourceType);
     }
 
     /**
@@ -321,12 +340,21 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
     @Override
     public String toXml() {
         checkAccessAllowed();
+        String xml = _xml;
+        if (xml != null) {
+            return xml;
+        }
+
         try {
-            return Util.serializeToString(_parsedToken.getDocumentElement());
+            synchronized (_parsedToken) {
+                xml = Util.serializeToString(_parsedToken.getDocumentElement());
+            }
 
         } catch (ParserException e) {
             throw new IllegalStateException(e);
         }
+        _xml = xml;
+        return xml;
     }
 
     /**
@@ -341,8 +369,10 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
     public Node importTo(Document hostDocument) {
         ValidateUtil.validateNotNull(hostDocument, "Host document");
 
-        Element clonedTokenElement =
-                (Element) hostDocument.importNode(_parsedToken.getDocumentElement(), true /* deep */);
+        Element clonedTokenElement;
+        synchronized (_parsedToken) {
+            clonedTokenElement = (Element) hostDocument.importNode(_parsedToken.getDocumentElement(), true /* deep */);
+        }
         markAssertionIdAttribute(clonedTokenElement);
         return clonedTokenElement;
     }
@@ -377,7 +407,7 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
         checkAccessAllowed();
         Transformer xfrm;
         try {
-            xfrm = Util.TRANSFORMER_FACTORY.newTransformer();
+            xfrm = Util.acquireTransformer();
 
         } catch (TransformerConfigurationException e) {
             throw new IllegalStateException(
@@ -385,7 +415,10 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
         }
 
         try {
-            xfrm.transform(new DOMSource(_parsedToken), destination);
+            synchronized (_parsedToken) {
+                xfrm.transform(new DOMSource(_parsedToken), destination);
+            }
+            Util.releaseTransformer(xfrm);
 
         } catch (TransformerException e) {
             throw new IllegalArgumentException("Exporting SAML XML failed with the supplied destination", e);
@@ -465,7 +498,11 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
             throws InvalidTokenException {
         ValidateUtil.validateNotEmpty(trustedRootCertificates, "Trusted root certificates");
         KeySelector signKeySelector = new X509TrustChainKeySelector(trustedRootCertificates);
-        if (validateSignature(signKeySelector)) {
+        boolean isSignatureValid;
+        synchronized (_parsedToken) {
+            isSignatureValid = validateSignature(signKeySelector);
+        }
+        if (isSignatureValid) {
             validateWithinTokenLifePeriod(clockToleranceSec);
             validateSubjectConfirmationExpDate();
             _tokenValidated.set(true);
@@ -497,14 +534,16 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
         // parse the input xml
         //
         try {
-            Unmarshaller unmarshaller = _jaxbContext.createUnmarshaller();
-
-            //
-            // verify that SAML token has correct schema format
-            //
-            unmarshaller.setSchema(SAML_SCHEMA);
+            boolean pooled = _jaxbContext == DEFAULT_JAXB_CONTEXT;
+            Unmarshaller unmarshaller =
+                    pooled ? DEFAULT_UNMARSHALLERS.acquire() : createValidatingUnmarshaller(_jaxbContext);
 
             jaxbParserResult = (JAXBElement<AssertionType>) unmarshaller.unmarshal(_parsedToken);
+
+            // unmarshallers which failed are not reused
+            if (pooled) {
+                DEFAULT_UNMARSHALLERS.release(unmarshaller);
+            }
         } catch (JAXBException e) {
             log.error("JAXB Parsing token error: {}", PARSING_TOKEN_ERROR_MSG, e);
             throw new MalformedTokenException(PARSING_TOKEN_ERROR_MSG, e);
@@ -534,6 +573,34 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
         log.debug("Token fields are successfully populated");
     }
 
+    /**
+     * Returns the {@link JAXBContext} for {@link Constants#ASSERTION_JAXB_PACKAGE} used by the token factories. Parsing
+     * tokens with this context is cheaper than with any other, as the validating unmarshallers are pooled.
+     *
+     * @return the shared JAXB context, not null
+     */
+    public static JAXBContext getDefaultJaxbContext() {
+        return DEFAULT_JAXB_CONTEXT;
+    }
+
+    private static Unmarshaller createValidatingUnmarshaller(JAXBContext jaxbContext) throws JAXBException {
+        Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+
+        //
+        // verify that SAML token has correct schema format
+        //
+        unmarshaller.setSchema(SAML_SCHEMA);
+        return unmarshaller;
+    }
+
+    private static JAXBContext createJaxbContext() {
+        try {
+            return JAXBContext.newInstance(Constants.ASSERTION_JAXB_PACKAGE);
+        } catch (JAXBException e) {
+            throw new IllegalStateException("Cannot initialize JAXBContext.", e);
+        }
+    }
+
     /** Parse and validate the assertion attributes */
     private void parseAssertionAttributes(AssertionType assertion) {
 
@@ -605,7 +672,9 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
 
         final Document parsedToken;
         try {
-            parsedToken = xmlParserFactory.newDocumentBuilder().parse(new InputSource(new StringReader(xmlToken)));
+            DocumentBuilder builder = xmlParserFactory.acquireDocumentBuilder();
+            parsedToken = builder.parse(new InputSource(new StringReader(xmlToken)));
+            xmlParserFactory.releaseDocumentBuilder(builder);
 
         } catch (SAXException e) {
             log.error("XML Parsing Token Error {}", PARSING_TOKEN_ERROR_MSG, e);
@@ -649,7 +718,7 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
 
         Transformer tx;
         try {
-            tx = Util.TRANSFORMER_FACTORY.newTransformer();
+            tx = Util.acquireTransformer();
 
         } catch (TransformerException e) {
             throw new IllegalStateException(
@@ -659,6 +728,7 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
         DOMResult result = new DOMResult();
         try {
             tx.transform(new DOMSource(element), result);
+            Util.releaseTransformer(tx);
 
         } catch (TransformerException e) {
             throw new IllegalStateException("Unexpected failure in Identity " + "DOM-to-DOM transformation", e);
@@ -723,6 +793,20 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
      * @throws InvalidTimingException when token lifetime is malformed or token is expired
      */
     private void validateWithinTokenLifePeriod(long clockToleranceSec) throws InvalidTimingException {
+        validateWithinTokenLifePeriod(
+                clockToleranceSec,
+                Calendar.getInstance(TimeZone.getTimeZone(DEFAULT_TIME_ZONE)).getTimeInMillis());
+    }
+
+    /**
+     * Validates that the token is within its lifetime at the given time, e.g. when a token validated earlier is used
+     * again.
+     *
+     * @param clockToleranceSec tolerance in seconds for clock skew
+     * @param currentTime the time to check, in milliseconds since the epoch
+     * @throws InvalidTimingException when token lifetime is malformed, the token is not yet valid or expired
+     */
+    public void validateWithinTokenLifePeriod(long clockToleranceSec, long currentTime) throws InvalidTimingException {
         if (_expirationTime < _startTime) {
             String message = "Start time / Expiration time not valid: "
                     + "StartTime: " + new Date(_startTime) + " ExpirationTime: "
@@ -731,8 +815,13 @@ public class SamlTokenImpl implements ValidatableSamlTokenEx {
             throw new InvalidTimingException(message);
         }
 
-        long currentTime =
-                Calendar.getInstance(TimeZone.getTimeZone(DEFAULT_TIME_ZONE)).getTimeInMillis();
+        long effectiveStartTime = _startTime - clockToleranceSec * MILLISECONDS_PER_SECOND;
+        if (effectiveStartTime > currentTime) {
+            String message = "Token start date: " + new Date(_startTime) + " is in the future.";
+            log.info(message);
+            throw new InvalidTimingException(message);
+        }
+
         long effectiveExpirationTime = _expirationTime + clockToleranceSec * MILLISECONDS_PER_SECOND;
 
         if (effectiveExpirationTime < currentTime) {
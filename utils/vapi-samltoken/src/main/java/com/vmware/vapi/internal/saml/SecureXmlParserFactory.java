@@ -34,8 +34,44 @@ public class SecureXmlParserFactory implements XmlParserFactory {
 
     private final Logger log = LoggerFactory.getLogger(SecureXmlParserFactory.class);
 
+    /** Hardened once; guarded by itself, as factories are not guaranteed to be thread safe. */
+    private final DocumentBuilderFactory _dbf = createDocumentBuilderFactory();
+
+    /**
+     * {@link DocumentBuilder#reset()} restores the configuration the builder got from the hardened factory, so pooled
+     * builders keep all the security features.
+     */
+    private final ObjectPool<DocumentBuilder, ParserConfigurationException> _builders =
+            new ObjectPool<>(this::newDocumentBuilder, DocumentBuilder::reset);
+
     @Override
     public DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+        synchronized (_dbf) {
+            return _dbf.newDocumentBuilder();
+        }
+    }
+
+    /**
+     * Borrows a document builder from the pool of this factory. The builder must be given back with
+     * {@link #releaseDocumentBuilder(DocumentBuilder)} and must not be used afterwards.
+     *
+     * @return a document builder configured as the ones returned by {@link #newDocumentBuilder()}, not null
+     * @throws ParserConfigurationException if a new document builder cannot be created
+     */
+    public DocumentBuilder acquireDocumentBuilder() throws ParserConfigurationException {
+        return _builders.acquire();
+    }
+
+    /**
+     * Gives back a document builder obtained from {@link #acquireDocumentBuilder()}.
+     *
+     * @param builder the document builder; {@code null} is ignored
+     */
+    public void releaseDocumentBuilder(DocumentBuilder builder) {
+        _builders.release(builder);
+    }
+
+    private DocumentBuilderFactory createDocumentBuilderFactory() {
         DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
         dbf.setNamespaceAware(true);
 
@@ -61,14 +97,14 @@ public class SecureXmlParserFactory implements XmlParserFactory {
         trySetFeature(dbf, "http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
         trySetFeature(dbf, "http://apache.org/xml/features/disallow-doctype-decl", true);
 
-        return dbf.newDocumentBuilder();
+        return dbf;
     }
 
     private void trySetFeature(DocumentBuilderFactory dbf, String featureKey, boolean value) {
         try {
             dbf.setFeature(featureKey, value);
         } catch (ParserConfigurationException e) {
-            // Note that this may happen on every token parse.
+            // Note that this happens once per factory.
             if (log.isDebugEnabled()) {
                 log.debug(
                         "Couldn't apply feature {} to DocumentBuilderFactory {}. Can be safely ignored.",
@@ -29,6 +29,7 @@ import javax.xml.XMLConstants;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
@@ -57,6 +58,14 @@ public final class Util {
         disableTransformerFactoryAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET);
     }
 
+    /**
+     * Identity transformers created by {@link #TRANSFORMER_FACTORY}. {@link Transformer#reset()} drops output
+     * properties, parameters and resolvers set by the previous user, while the external access restrictions inherited
+     * from the factory remain in place.
+     */
+    private static final ObjectPool<Transformer, TransformerConfigurationException> TRANSFORMERS =
+            new ObjectPool<>(TRANSFORMER_FACTORY::newTransformer, Transformer::reset);
+
     private static void disableTransformerFactoryAttribute(String attribute) {
         try {
             TRANSFORMER_FACTORY.setAttribute(attribute, "");
@@ -81,10 +90,11 @@ public final class Util {
     public static String serializeToString(Node content) throws ParserException {
         StringWriter writer = new StringWriter();
         try {
-            Transformer trans = TRANSFORMER_FACTORY.newTransformer();
+            Transformer trans = acquireTransformer();
             trans.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
             // no need to set encoding here
             trans.transform(new DOMSource(content), new StreamResult(writer));
+            releaseTransformer(trans);
         } catch (TransformerException e) {
             String message = "Error while serializing Node to String";
             getLog().error(message);
@@ -94,6 +104,27 @@ public final class Util {
         return writer.toString();
     }
 
+    /**
+     * Borrows an identity transformer created by {@link #TRANSFORMER_FACTORY}. The transformer must be given back with
+     * {@link #releaseTransformer(Transformer)} and must not be used afterwards.
+     *
+     * @return an identity transformer with default output properties, not null
+     * @throws TransformerConfigurationException if a new transformer cannot be created
+     */
+    public static Transformer acquireTransformer() throws TransformerConfigurationException {
+        return TRANSFORMERS.acquire();
+    }
+
+    /**
+     * Gives back a transformer obtained from {@link #acquireTransformer()}. Transformers which failed in the middle of
+     * a transformation should not be given back.
+     *
+     * @param transformer the transformer; {@code null} is ignored
+     */
+    public static void releaseTransformer(Transformer transformer) {
+        TRANSFORMERS.release(transformer);
+    }
+
     /**
      * Creates a description of the token without any private information
      *
@@ -50,6 +50,9 @@ import org.slf4j.LoggerFactory;
  * &lt;ds:X509Data&gt; element residing in the Signature's &lt;ds:KeyInfo&gt; element. If the KeyInfo has more than one
  * child or it's child is not X509Data, the KeySelector fails. The non-X509Certificate children of the X509Data are
  * ignored.
+ *
+ * <p>The outcome of the certification path build is remembered in a {@link CertPathValidationCache}, by default in
+ * {@link CertPathValidationCache#getDefault()}.
  */
 public class X509TrustChainKeySelector extends KeySelector {
 
@@ -60,15 +63,28 @@ public class X509TrustChainKeySelector extends KeySelector {
 
     private final Logger log;
     private final Set<TrustAnchor> _trustAnchors;
+    private final CertPathValidationCache _validationCache;
 
     /**
      * Create an X509TrustChainKeySelector instance which will accept a chain rooted at any of the provided
-     * certificates.
+     * certificates. Validation outcomes are cached in {@link CertPathValidationCache#getDefault()}.
      *
      * @param trustedRoots the certificates to anchor the trust chain on.
      */
     public X509TrustChainKeySelector(X509Certificate... trustedRoots) {
+        this(CertPathValidationCache.getDefault(), trustedRoots);
+    }
+
+    /**
+     * Create an X509TrustChainKeySelector instance which will accept a chain rooted at any of the provided
+     * certificates.
+     *
+     * @param validationCache the cache for validation outcomes; {@code null} to build the path on every selection
+     * @param trustedRoots the certificates to anchor the trust chain on.
+     */
+    public X509TrustChainKeySelector(CertPathValidationCache validationCache, X509Certificate... trustedRoots) {
         log = LoggerFactory.getLogger(X509TrustChainKeySelector.class);
+        _validationCache = validationCache;
 
         checkCtorArgsNotNull(trustedRoots);
 
@@ -146,7 +162,18 @@ public class X509TrustChainKeySelector extends KeySelector {
      * anchored at any of the certificate, provided in the constructor, and containing only certificates from the
      * provided {@code nodes} set.
      */
-    private boolean verifyTrustedPathExists(X509Certificate target, Collection<X509Certificate> nodes)
+    private boolean verifyTrustedPathExists(X509Certificate target, List<X509Certificate> nodes)
+            throws KeySelectorException {
+
+        if (_validationCache == null) {
+            return buildTrustedPath(target, nodes);
+        }
+        // the target is the first node, so the nodes identify the whole build input
+        return _validationCache.validate(nodes, _trustAnchors, () -> buildTrustedPath(target, nodes));
+    }
+
+    /** Helper: runs the PKIX path build for {@link #verifyTrustedPathExists(X509Certificate, List)}. */
+    private boolean buildTrustedPath(X509Certificate target, Collection<X509Certificate> nodes)
             throws KeySelectorException {
 
         try {
@@ -13,12 +13,12 @@ package com.vmware.vapi.saml;
 import java.security.cert.X509Certificate;
 
 import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.JAXBException;
 
 import org.w3c.dom.Element;
 
-import com.vmware.vapi.internal.saml.Constants;
 import com.vmware.vapi.internal.saml.SamlTokenImpl;
+import com.vmware.vapi.internal.saml.ValidateUtil;
+import com.vmware.vapi.saml.exception.InvalidTimingException;
 import com.vmware.vapi.saml.exception.InvalidTokenException;
 
 /**
@@ -32,33 +32,66 @@ import com.vmware.vapi.saml.exception.InvalidTokenException;
  * signature is valid and that the token is within its valid lifetime, taking into account the specified
  * {@code clockToleranceSec}.
  *
+ * <p>A factory created with a {@link SamlTokenCache} returns previously parsed tokens for repeated input instead of
+ * running the whole parsing and validation pipeline again. A validated token from the cache was validated at another
+ * time and possibly with another {@code clockToleranceSec}, so its lifetime is checked again on every call with the
+ * tolerance of that call. The static factory methods never use a cache.
+ *
  * <p>All instance and static methods in this class are thread safe.
  */
 public final class DefaultTokenFactory implements SamlTokenFactory {
 
     private static final long DEFAULT_TOKEN_CLOCK_TOLERANCE = 0;
 
-    private static final JAXBContext _jaxbContext = createJaxbContext();
+    private static final JAXBContext _jaxbContext = SamlTokenImpl.getDefaultJaxbContext();
+
+    private final SamlTokenCache _cache;
 
-    public DefaultTokenFactory() {}
+    /** Creates a factory which parses every token it is given. */
+    public DefaultTokenFactory() {
+        this(null);
+    }
+
+    /**
+     * Creates a factory which keeps the parsed tokens in the given cache.
+     *
+     * <p>The returned tokens are shared between callers - see {@link SamlTokenCache}.
+     *
+     * @param cache the cache for parsed tokens; {@code null} disables caching
+     */
+    public DefaultTokenFactory(SamlTokenCache cache) {
+        _cache = cache;
+    }
 
     /** {@inheritDoc} */
     @Override
     public SamlToken parseToken(Element tokenRoot, X509Certificate[] trustedRootCertificates, long clockToleranceSec)
             throws InvalidTokenException {
 
-        SamlTokenImpl samlTokenImpl = new SamlTokenImpl(tokenRoot, _jaxbContext);
-        samlTokenImpl.validate(trustedRootCertificates, clockToleranceSec);
-        return samlTokenImpl;
+        if (_cache == null) {
+            return createTokenFromDom(tokenRoot, trustedRootCertificates, clockToleranceSec);
+        }
+        ValidateUtil.validateNotEmpty(trustedRootCertificates, "Trusted root certificates");
+        SamlToken token = _cache.get(
+                tokenRoot,
+                trustedRootCertificates,
+                () -> createTokenFromDom(tokenRoot, trustedRootCertificates, clockToleranceSec));
+        return validateLifetime(token, clockToleranceSec);
     }
     /** {@inheritDoc} */
     @Override
     public SamlToken parseToken(String tokenXml, X509Certificate[] trustedRootCertificates, long clockToleranceSec)
             throws InvalidTokenException {
 
-        SamlTokenImpl samlTokenImpl = new SamlTokenImpl(tokenXml, _jaxbContext);
-        samlTokenImpl.validate(trustedRootCertificates, clockToleranceSec);
-        return samlTokenImpl;
+        if (_cache == null) {
+            return createToken(tokenXml, trustedRootCertificates, clockToleranceSec);
+        }
+        ValidateUtil.validateNotEmpty(trustedRootCertificates, "Trusted root certificates");
+        SamlToken token = _cache.get(
+                tokenXml,
+                trustedRootCertificates,
+                () -> createToken(tokenXml, trustedRootCertificates, clockToleranceSec));
+        return validateLifetime(token, clockToleranceSec);
     }
     /** {@inheritDoc} */
     @Override
@@ -77,16 +110,18 @@ public final class DefaultTokenFactory implements SamlTokenFactory {
     /** {@inheritDoc} */
     @Override
     public SamlToken parseToken(Element tokenRoot) throws InvalidTokenException {
-        SamlTokenImpl samlTokenImpl = new SamlTokenImpl(tokenRoot, _jaxbContext);
-        samlTokenImpl.allowTokenAccess();
-        return samlTokenImpl;
+        if (_cache == null) {
+            return parseUnvalidated(tokenRoot);
+        }
+        return _cache.get(tokenRoot, null, () -> parseUnvalidated(tokenRoot));
     }
     /** {@inheritDoc} */
     @Override
     public SamlToken parseToken(String tokenXml) throws InvalidTokenException {
-        SamlTokenImpl samlTokenImpl = new SamlTokenImpl(tokenXml, _jaxbContext);
-        samlTokenImpl.allowTokenAccess();
-        return samlTokenImpl;
+        if (_cache == null) {
+            return parseUnvalidated(tokenXml);
+        }
+        return _cache.get(tokenXml, null, () -> parseUnvalidated(tokenXml));
     }
 
     /**
@@ -129,7 +164,7 @@ public final class DefaultTokenFactory implements SamlTokenFactory {
      * @throws InvalidTokenException if the token is syntactically or semantically invalid
      */
     public static SamlToken createToken(String tokenXml) throws InvalidTokenException {
-        return new DefaultTokenFactory().parseToken(tokenXml);
+        return parseUnvalidated(tokenXml);
     }
 
     /**
@@ -172,20 +207,24 @@ public final class DefaultTokenFactory implements SamlTokenFactory {
      * @throws InvalidTokenException if the token is syntactically or semantically invalid
      */
     public static SamlToken createTokenFromDom(Element tokenRoot) throws InvalidTokenException {
-        return new DefaultTokenFactory().parseToken(tokenRoot);
+        return parseUnvalidated(tokenRoot);
     }
 
-    /**
-     * Initializes and returns a {@link JAXBContext} for {@link Constants#ASSERTION_JAXB_PACKAGE}.
-     *
-     * @return a {@link JAXBContext} configured for SAML token handling
-     * @throws IllegalStateException if the JAXBContext fails to initialize
-     */
-    private static JAXBContext createJaxbContext() {
-        try {
-            return JAXBContext.newInstance(Constants.ASSERTION_JAXB_PACKAGE);
-        } catch (JAXBException e) {
-            throw new IllegalStateException("Cannot initialize JAXBContext.", e);
-        }
+    /** Checks the lifetime of a validated token from the cache against the tolerance of the current call. */
+    private SamlToken validateLifetime(SamlToken token, long clockToleranceSec) throws InvalidTimingException {
+        ((SamlTokenImpl) token).validateWithinTokenLifePeriod(clockToleranceSec, _cache.currentTimeMillis());
+        return token;
+    }
+
+    private static SamlToken parseUnvalidated(String tokenXml) throws InvalidTokenException {
+        SamlTokenImpl samlTokenImpl = new SamlTokenImpl(tokenXml, _jaxbContext);
+        samlTokenImpl.allowTokenAccess();
+        return samlTokenImpl;
+    }
+
+    private static SamlToken parseUnvalidated(Element tokenRoot) throws InvalidTokenException {
+        SamlTokenImpl samlTokenImpl = new SamlTokenImpl(tokenRoot, _jaxbContext);
+        samlTokenImpl.allowTokenAccess();
+        return samlTokenImpl;
     }
 }
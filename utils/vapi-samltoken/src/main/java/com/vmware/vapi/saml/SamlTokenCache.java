@@ -0,0 +1,435 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.vapi.saml;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import com.vmware.vapi.internal.saml.ValidateUtil;
+import com.vmware.vapi.saml.exception.InvalidTokenException;
+
+/**
+ * Bounded cache of parsed {@link SamlToken} instances, used by {@link DefaultTokenFactory} to avoid running the full
+ * parsing pipeline (DOM parsing, schema validation, JAXB unmarshalling and signature validation) for tokens it has
+ * already seen.
+ *
+ * <p>Entries are keyed by a SHA-256 digest of the token content. Tokens which were validated against a set of trusted
+ * root certificates are stored separately from tokens which were only parsed, and the digest of the trusted roots is
+ * part of the key of a validated entry - a token validated against one set of roots is never returned for another.
+ *
+ * <p>An entry is evicted as soon as the token reaches its {@code NotOnOrAfter} instant. When the cache is full the
+ * least recently used entry is evicted. A validated token is validated with the clock tolerance of one caller, so
+ * {@link DefaultTokenFactory} checks the {@code NotBefore} and {@code NotOnOrAfter} instants of every token it gets
+ * from the cache against the clock of the cache and the tolerance of the current caller.
+ *
+ * <p>The cached tokens are shared between callers and must be treated as read-only.
+ *
+ * <p>This class is thread safe.
+ */
+public final class SamlTokenCache {
+
+    /** The maximum number of entries used by {@link #SamlTokenCache()}. */
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String XMLNS_NS_URI = "http://www.w3.org/2000/xmlns/";
+
+    private static final Logger log = LoggerFactory.getLogger(SamlTokenCache.class);
+
+    private final int _maxEntries;
+    private final Clock _clock;
+    private final Map<Key, Entry> _entries;
+
+    private long _hits;
+    private long _misses;
+    private long _expirations;
+    private long _evictions;
+
+    /** Creates a cache holding up to {@link #DEFAULT_MAX_ENTRIES} tokens. */
+    public SamlTokenCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a cache holding up to the given number of tokens.
+     *
+     * @param maxEntries the maximum number of cached tokens; must be positive
+     */
+    public SamlTokenCache(int maxEntries) {
+        this(maxEntries, Clock.systemUTC());
+    }
+
+    /**
+     * Creates a cache holding up to the given number of tokens, which uses the given clock for the lifetime of the
+     * tokens.
+     *
+     * @param maxEntries the maximum number of cached tokens; must be positive
+     * @param clock the source of the current time; required
+     */
+    public SamlTokenCache(int maxEntries, Clock clock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Expected positive maximum number of entries, but got " + maxEntries);
+        }
+        ValidateUtil.validateNotNull(clock, "clock");
+
+        _maxEntries = maxEntries;
+        _clock = clock;
+        _entries = new LinkedHashMap<>(16, 0.75f, true /* access order */);
+    }
+
+    /** @return the maximum number of tokens held by this cache */
+    public int getMaxEntries() {
+        return _maxEntries;
+    }
+
+    /** @return the current time of the clock of this cache, in milliseconds since the epoch */
+    long currentTimeMillis() {
+        return _clock.millis();
+    }
+
+    /** @return the number of tokens currently held by this cache, including ones which are not yet evicted */
+    public synchronized int size() {
+        return _entries.size();
+    }
+
+    /**
+     * Removes all validated and unvalidated entries for the token with the given assertion ID.
+     *
+     * @param assertionId the ID of the SAML assertion; required
+     */
+    public synchronized void invalidate(String assertionId) {
+        ValidateUtil.validateNotNull(assertionId, "assertionId");
+
+        Iterator<Entry> it = _entries.values().iterator();
+        while (it.hasNext()) {
+            if (assertionId.equals(it.next()._assertionId)) {
+                it.remove();
+            }
+        }
+    }
+
+    /** Removes all entries. The statistics are not reset. */
+    public synchronized void clear() {
+        _entries.clear();
+    }
+
+    /** @return a snapshot of the cache usage statistics */
+    public synchronized Statistics getStatistics() {
+        return new Statistics(_hits, _misses, _expirations, _evictions);
+    }
+
+    /**
+     * Returns the cached token for the given DOM element or uses the loader to create (and cache) one.
+     *
+     * @param tokenRoot the root element of the token; required
+     * @param trustedRootCertificates the roots the token is validated against, {@code null} for tokens which are only
+     *     parsed
+     * @param loader creates the token on cache miss
+     * @return the token, not null
+     * @throws InvalidTokenException if the loader fails
+     */
+    SamlToken get(Element tokenRoot, X509Certificate[] trustedRootCertificates, TokenLoader loader)
+            throws InvalidTokenException {
+        ValidateUtil.validateNotNull(tokenRoot, "token Element");
+
+        MessageDigest digest = newDigest();
+        updateWithVisibleNamespaces(digest, tokenRoot);
+        updateWithNode(digest, tokenRoot);
+
+        return get(new Key(digest.digest(), digestOf(trustedRootCertificates)), loader);
+    }
+
+    /**
+     * Returns the cached token for the given XML or uses the loader to create (and cache) one.
+     *
+     * @param tokenXml the token XML; required
+     * @param trustedRootCertificates the roots the token is validated against, {@code null} for tokens which are only
+     *     parsed
+     * @param loader creates the token on cache miss
+     * @return the token, not null
+     * @throws InvalidTokenException if the loader fails
+     */
+    SamlToken get(String tokenXml, X509Certificate[] trustedRootCertificates, TokenLoader loader)
+            throws InvalidTokenException {
+        ValidateUtil.validateNotNull(tokenXml, "token XML");
+
+        byte[] contentDigest = newDigest().digest(tokenXml.getBytes(StandardCharsets.UTF_8));
+        return get(new Key(contentDigest, digestOf(trustedRootCertificates)), loader);
+    }
+
+    private SamlToken get(Key key, TokenLoader loader) throws InvalidTokenException {
+        long now = _clock.millis();
+
+        synchronized (this) {
+            Entry entry = _entries.get(key);
+            if (entry != null) {
+                if (now < entry._notOnOrAfter) {
+                    _hits++;
+                    return entry._token;
+                }
+                _entries.remove(key);
+                _expirations++;
+            }
+            _misses++;
+        }
+
+        // the loader does the heavy lifting - keep it out of the lock
+        SamlToken token = loader.load();
+
+        long notOnOrAfter = token.getExpirationTime().getTime();
+        if (notOnOrAfter <= now) {
+            log.debug("Token {} has already expired and will not be cached", token.getId());
+            return token;
+        }
+
+        synchronized (this) {
+            _entries.put(key, new Entry(token, notOnOrAfter));
+            evictEntries(now);
+        }
+        return token;
+    }
+
+    /** Drops the expired entries and then the least recently used ones until the cache fits its bound. */
+    private void evictEntries(long now) {
+        if (_entries.size() <= _maxEntries) {
+            return;
+        }
+
+        Iterator<Entry> it = _entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next()._notOnOrAfter <= now) {
+                it.remove();
+                _expirations++;
+            }
+        }
+
+        it = _entries.values().iterator();
+        while (_entries.size() > _maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+            _evictions++;
+        }
+    }
+
+    /** @return digest of the trusted roots, independent of their order, or {@code null} if there are no roots */
+    private static byte[] digestOf(X509Certificate[] trustedRootCertificates) {
+        if (trustedRootCertificates == null) {
+            return null;
+        }
+
+        MessageDigest digest = newDigest();
+        TreeMap<String, byte[]> sortedCerts = new TreeMap<>();
+        for (X509Certificate cert : trustedRootCertificates) {
+            ValidateUtil.validateNotNull(cert, "Trusted root certificate");
+            try {
+                byte[] certDigest = digest.digest(cert.getEncoded());
+                sortedCerts.put(toHex(certDigest), certDigest);
+            } catch (CertificateEncodingException e) {
+                throw new IllegalArgumentException("Cannot encode trusted root certificate", e);
+            }
+        }
+
+        for (byte[] certDigest : sortedCerts.values()) {
+            digest.update(certDigest);
+        }
+        return digest.digest();
+    }
+
+    /**
+     * The standalone copy of a token element gets all namespace declarations visible from its ancestors - they take
+     * part in the key as well.
+     */
+    private static void updateWithVisibleNamespaces(MessageDigest digest, Element element) {
+        TreeMap<String, String> visibleNamespaces = new TreeMap<>();
+        Node walker = element.getParentNode();
+        while (walker != null && walker.getNodeType() == Node.ELEMENT_NODE) {
+            NamedNodeMap attrs = walker.getAttributes();
+            for (int i = 0; i < attrs.getLength(); ++i) {
+                Attr attr = (Attr) attrs.item(i);
+                if (XMLNS_NS_URI.equals(attr.getNamespaceURI())) {
+                    visibleNamespaces.putIfAbsent(attr.getName(), attr.getValue());
+                }
+            }
+            walker = walker.getParentNode();
+        }
+
+        for (Map.Entry<String, String> ns : visibleNamespaces.entrySet()) {
+            update(digest, ns.getKey());
+            update(digest, ns.getValue());
+        }
+    }
+
+    private static void updateWithNode(MessageDigest digest, Node node) {
+        digest.update((byte) node.getNodeType());
+        update(digest, node.getNamespaceURI());
+        update(digest, node.getNodeName());
+        update(digest, node.getNodeValue());
+
+        NamedNodeMap attrs = node.getAttributes();
+        if (attrs != null) {
+            digest.update((byte) attrs.getLength());
+            for (int i = 0; i < attrs.getLength(); ++i) {
+                updateWithNode(digest, attrs.item(i));
+            }
+        }
+
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            updateWithNode(digest, child);
+        }
+        // marks the end of the children list
+        digest.update((byte) 0);
+    }
+
+    /** Length-prefixed update, so that adjacent values cannot be confused with each other. */
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(
+                    DIGEST_ALGORITHM + " is not available (incompliant Java implementation?)", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /** Creates a token on cache miss. */
+    @FunctionalInterface
+    interface TokenLoader {
+        SamlToken load() throws InvalidTokenException;
+    }
+
+    /** Cache key - digest of the token content and, for validated tokens, digest of the trusted roots. */
+    private static final class Key {
+        private final byte[] _contentDigest;
+        private final byte[] _trustDigest;
+        private final int _hashCode;
+
+        Key(byte[] contentDigest, byte[] trustDigest) {
+            _contentDigest = contentDigest;
+            _trustDigest = trustDigest;
+            _hashCode = 31 * Arrays.hashCode(contentDigest) + Arrays.hashCode(trustDigest);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return Arrays.equals(_contentDigest, other._contentDigest)
+                    && Arrays.equals(_trustDigest, other._trustDigest);
+        }
+
+        @Override
+        public int hashCode() {
+            return _hashCode;
+        }
+    }
+
+    private static final class Entry {
+        private final SamlToken _token;
+        private final String _assertionId;
+        private final long _notOnOrAfter;
+
+        Entry(SamlToken token, long notOnOrAfter) {
+            _token = token;
+            _assertionId = token.getId();
+            _notOnOrAfter = notOnOrAfter;
+        }
+    }
+
+    /** Immutable snapshot of the cache usage statistics. */
+    public static final class Statistics {
+        private final long _hits;
+        private final long _misses;
+        private final long _expirations;
+        private final long _evictions;
+
+        Statistics(long hits, long misses, long expirations, long evictions) {
+            _hits = hits;
+            _misses = misses;
+            _expirations = expirations;
+            _evictions = evictions;
+        }
+
+        /** @return the number of lookups answered from the cache */
+        public long getHitCount() {
+            return _hits;
+        }
+
+        /** @return the number of lookups which had to parse the token */
+        public long getMissCount() {
+            return _misses;
+        }
+
+        /** @return the number of entries dropped because the token reached its {@code NotOnOrAfter} instant */
+        public long getExpirationCount() {
+            return _expirations;
+        }
+
+        /** @return the number of entries dropped because the cache was full */
+        public long getEvictionCount() {
+            return _evictions;
+        }
+
+        /** @return the ratio of hits to all lookups, or 0 if there were no lookups */
+        public double getHitRate() {
+            long requests = _hits + _misses;
+            return requests == 0 ? 0 : (double) _hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "SamlTokenCache.Statistics [hits=%d, misses=%d, expirations=%d, evictions=%d, hitRate=%.3f]",
+                    _hits, _misses, _expirations, _evictions, getHitRate());
+        }
+    }
+}
@@ -11,18 +11,16 @@
 package com.vmware.vapi.saml;
 
 import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.JAXBException;
 
 import org.w3c.dom.Element;
 
-import com.vmware.vapi.internal.saml.Constants;
 import com.vmware.vapi.internal.saml.SamlTokenImpl;
 import com.vmware.vapi.saml.exception.InvalidTokenException;
 
 /** Factory providing methods for token operations. Not thread safe. */
 public final class ValidatableTokenFactory {
 
-    private static final JAXBContext _jaxbContext = createJaxbContext();
+    private static final JAXBContext _jaxbContext = SamlTokenImpl.getDefaultJaxbContext();
 
     /**
      * Create a ValidatableSamlToken object from DOM Element, performing syntactic and semantical validation of the XML
@@ -53,13 +51,4 @@ public final class ValidatableTokenFactory {
     public ValidatableSamlTokenEx parseValidatableTokenEx(Element tokenRoot) throws InvalidTokenException {
         return new SamlTokenImpl(tokenRoot, _jaxbContext, true);
     }
-
-    /** @return {@link JAXBContext} for {@link Constants#ASSERTION_JAXB_PACKAGE} */
-    private static JAXBContext createJaxbContext() {
-        try {
-            return JAXBContext.newInstance(Constants.ASSERTION_JAXB_PACKAGE);
-        } catch (JAXBException e) {
-            throw new IllegalStateException("Cannot initialize JAXBContext.", e);
-        }
-    }
 }
@@ -0,0 +1,202 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.vapi.internal.saml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.cert.CertificateFactory;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.crypto.KeySelectorException;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.vmware.vapi.saml.MutableClock;
+
+public class CertPathValidationCacheTest {
+
+    private static final String TEST_FIXTURE_PREFIX = "cert_chain_selector/";
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Duration TTL = Duration.ofHours(1);
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds(30);
+
+    private static X509Certificate CERT_ROOT_CA;
+    private static X509Certificate CERT_CA1;
+    private static X509Certificate CERT_STS;
+
+    private MutableClock clock;
+    private CertPathValidationCache cache;
+    private AtomicInteger validations;
+
+    @BeforeAll
+    public static void setupSuite() throws Exception {
+        ClassLoader loader = ClassLoader.getSystemClassLoader();
+        CertificateFactory cf = CertificateFactory.getInstance("X.509");
+
+        CERT_ROOT_CA =
+                (X509Certificate) cf.generateCertificate(loader.getResourceAsStream(TEST_FIXTURE_PREFIX + "root.cert"));
+        CERT_CA1 =
+                (X509Certificate) cf.generateCertificate(loader.getResourceAsStream(TEST_FIXTURE_PREFIX + "ca1.cert"));
+        CERT_STS =
+                (X509Certificate) cf.generateCertificate(loader.getResourceAsStream(TEST_FIXTURE_PREFIX + "sts.cert"));
+    }
+
+    @BeforeEach
+    public void setUp() {
+        clock = new MutableClock(NOW);
+        cache = new CertPathValidationCache(CertPathValidationCache.DEFAULT_MAX_ENTRIES, TTL, NEGATIVE_TTL, clock);
+        validations = new AtomicInteger();
+    }
+
+    @Test
+    public void testSuccessfulValidationIsCachedForTtl() throws Exception {
+        List<X509Certificate> chain = Arrays.asList(CERT_STS, CERT_CA1);
+
+        assertTrue(validate(chain, anchors(CERT_ROOT_CA), true));
+        assertTrue(validate(chain, anchors(CERT_ROOT_CA), true));
+        assertEquals(1, validations.get());
+
+        clock.set(NOW.plus(TTL));
+        assertTrue(validate(chain, anchors(CERT_ROOT_CA), true));
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    public void testSuccessfulValidationIsCachedUntilCertificateExpiry() throws Exception {
+        Instant stsExpiry = CERT_STS.getNotAfter().toInstant();
+        clock.set(stsExpiry.minusSeconds(60));
+
+        List<X509Certificate> chain = Collections.singletonList(CERT_STS);
+        validate(chain, anchors(CERT_ROOT_CA), true);
+
+        clock.set(stsExpiry.minusSeconds(1));
+        validate(chain, anchors(CERT_ROOT_CA), true);
+        assertEquals(1, validations.get());
+
+        clock.set(stsExpiry);
+        validate(chain, anchors(CERT_ROOT_CA), false);
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    public void testFailedValidationIsCachedBriefly() throws Exception {
+        List<X509Certificate> chain = Collections.singletonList(CERT_STS);
+
+        assertFalse(validate(chain, anchors(CERT_CA1), false));
+        assertFalse(validate(chain, anchors(CERT_CA1), true));
+        assertEquals(1, validations.get());
+
+        clock.set(NOW.plus(NEGATIVE_TTL));
+        assertTrue(validate(chain, anchors(CERT_CA1), true));
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    public void testFailedValidationIsNotCachedWithZeroNegativeTtl() throws Exception {
+        cache = new CertPathValidationCache(CertPathValidationCache.DEFAULT_MAX_ENTRIES, TTL, Duration.ZERO, clock);
+        List<X509Certificate> chain = Collections.singletonList(CERT_STS);
+
+        validate(chain, anchors(CERT_CA1), false);
+        validate(chain, anchors(CERT_CA1), false);
+        assertEquals(2, validations.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testDifferentTrustAnchorsAreNotShared() throws Exception {
+        List<X509Certificate> chain = Arrays.asList(CERT_STS, CERT_CA1);
+
+        assertTrue(validate(chain, anchors(CERT_ROOT_CA), true));
+        assertFalse(validate(chain, anchors(CERT_ROOT_CA, CERT_CA1), false));
+        assertFalse(validate(Collections.singletonList(CERT_STS), anchors(CERT_ROOT_CA), false));
+        assertEquals(3, validations.get());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testErrorIsNotCached() {
+        List<X509Certificate> chain = Collections.singletonList(CERT_STS);
+        CertPathValidationCache.Validator failing = () -> {
+            validations.incrementAndGet();
+            throw new KeySelectorException("test");
+        };
+
+        assertThrows(KeySelectorException.class, () -> cache.validate(chain, anchors(CERT_ROOT_CA), failing));
+        assertThrows(KeySelectorException.class, () -> cache.validate(chain, anchors(CERT_ROOT_CA), failing));
+        assertEquals(2, validations.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() throws Exception {
+        cache = new CertPathValidationCache(2, TTL, NEGATIVE_TTL, clock);
+        List<X509Certificate> chain = Collections.singletonList(CERT_STS);
+
+        validate(chain, anchors(CERT_ROOT_CA), true);
+        validate(chain, anchors(CERT_CA1), true);
+        validate(chain, anchors(CERT_ROOT_CA), true);
+        validate(chain, anchors(CERT_STS), true);
+        assertEquals(2, cache.size());
+        assertEquals(3, validations.get());
+
+        // CERT_CA1 was the least recently used
+        validate(chain, anchors(CERT_ROOT_CA), true);
+        validate(chain, anchors(CERT_CA1), true);
+        assertEquals(4, validations.get());
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        List<X509Certificate> chain = Collections.singletonList(CERT_STS);
+        validate(chain, anchors(CERT_ROOT_CA), true);
+
+        cache.clear();
+        validate(chain, anchors(CERT_ROOT_CA), true);
+        assertEquals(2, validations.get());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new CertPathValidationCache(0, TTL, NEGATIVE_TTL));
+        assertThrows(IllegalArgumentException.class, () -> new CertPathValidationCache(1, Duration.ZERO, NEGATIVE_TTL));
+        assertThrows(IllegalArgumentException.class, () -> new CertPathValidationCache(1, TTL, Duration.ofSeconds(-1)));
+    }
+
+    private boolean validate(List<X509Certificate> chain, Set<TrustAnchor> anchors, boolean result)
+            throws KeySelectorException {
+        return cache.validate(chain, anchors, () -> {
+            validations.incrementAndGet();
+            return result;
+        });
+    }
+
+    private static Set<TrustAnchor> anchors(X509Certificate... certs) {
+        Set<TrustAnchor> anchors = new HashSet<>();
+        for (X509Certificate cert : certs) {
+            anchors.add(new TrustAnchor(cert, null));
+        }
+        return anchors;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.vapi.internal.saml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+public class ObjectPoolTest {
+
+    @Test
+    public void testReleasedObjectIsReusedAndReset() {
+        ObjectPool<StringBuilder, RuntimeException> pool = new ObjectPool<>(StringBuilder::new, sb -> sb.setLength(0));
+
+        StringBuilder sb = pool.acquire();
+        sb.append("state");
+        pool.release(sb);
+
+        StringBuilder reused = pool.acquire();
+        assertSame(sb, reused);
+        assertEquals(0, reused.length());
+        assertNotSame(reused, pool.acquire());
+    }
+
+    @Test
+    public void testIdleObjectsAreBounded() {
+        ObjectPool<Object, RuntimeException> pool = new ObjectPool<>(Object::new, null, 2);
+
+        pool.release(new Object());
+        pool.release(new Object());
+        pool.release(new Object());
+        assertEquals(2, pool.getIdleCount());
+    }
+
+    @Test
+    public void testObjectWhichCannotBeResetIsDropped() {
+        ObjectPool<Object, RuntimeException> pool = new ObjectPool<>(Object::new, o -> {
+            throw new IllegalStateException();
+        });
+
+        pool.release(new Object());
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void testInvalidMaxIdle() {
+        assertThrows(IllegalArgumentException.class, () -> new ObjectPool<>(Object::new, null, 0));
+    }
+
+    @Test
+    public void testReusedTransformerHasDefaultOutputProperties() throws Exception {
+        Transformer transformer = Util.acquireTransformer();
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        Util.releaseTransformer(transformer);
+
+        Document doc = new SecureXmlParserFactory().newDocumentBuilder().newDocument();
+        doc.appendChild(doc.createElement("root")).appendChild(doc.createElement("child"));
+
+        String xml = Util.serializeToString(doc);
+        assertEquals("<root><child/></root>", xml);
+
+        Transformer reused = Util.acquireTransformer();
+        StringWriter writer = new StringWriter();
+        reused.transform(new DOMSource(doc), new StreamResult(writer));
+        assertTrue(writer.toString().startsWith("<?xml"));
+        assertEquals(-1, writer.toString().indexOf('\n'));
+    }
+}
@@ -10,14 +10,17 @@
 
 package com.vmware.vapi.internal.saml;
 
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.IOException;
+import java.io.StringReader;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.junit.jupiter.api.Test;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
@@ -31,4 +34,27 @@ public class SecureXmlParserFactoryTest {
             db.parse(this.getClass().getResourceAsStream("/sample_xml/xml_entities.xml"));
         });
     }
+
+    @Test
+    public void testDoctypeDeclarationDisallowedForReusedBuilder() throws Exception {
+        SecureXmlParserFactory factory = new SecureXmlParserFactory();
+
+        DocumentBuilder db = factory.acquireDocumentBuilder();
+        db.parse(new InputSource(new StringReader("<root/>")));
+        factory.releaseDocumentBuilder(db);
+
+        DocumentBuilder reused = factory.acquireDocumentBuilder();
+        assertSame(db, reused);
+        assertThrows(
+                SAXParseException.class,
+                () -> reused.parse(this.getClass().getResourceAsStream("/sample_xml/xml_entities.xml")));
+        factory.releaseDocumentBuilder(reused);
+
+        // the failed parse must not weaken the restrictions either
+        DocumentBuilder reusedAgain = factory.acquireDocumentBuilder();
+        assertSame(db, reusedAgain);
+        assertThrows(
+                SAXParseException.class,
+                () -> reusedAgain.parse(this.getClass().getResourceAsStream("/sample_xml/xml_entities.xml")));
+    }
 }
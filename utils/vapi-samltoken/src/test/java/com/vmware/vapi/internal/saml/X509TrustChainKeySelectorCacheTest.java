@@ -0,0 +1,133 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.vapi.internal.saml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.Key;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+
+import javax.xml.crypto.KeySelector;
+import javax.xml.crypto.dom.DOMStructure;
+import javax.xml.crypto.dsig.XMLSignatureFactory;
+import javax.xml.crypto.dsig.keyinfo.KeyInfo;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+/**
+ * Tests the use of a {@link CertPathValidationCache} by {@link X509TrustChainKeySelector}.
+ *
+ * <p>Unlike the fixtures of {@link X509TrustChainKeySelectorTest}, the chain used here has 2048 bit keys, so the path
+ * is built under the default algorithm constraints of the JDK.
+ */
+public class X509TrustChainKeySelectorCacheTest {
+
+    private static final String TEST_FIXTURE_PREFIX = "cert_chain_cache/";
+
+    private static X509Certificate CERT_ROOT_CA;
+    private static X509Certificate CERT_CA;
+    private static KeyInfo CHAIN;
+    private static KeyInfo INCOMPLETE_CHAIN;
+
+    @BeforeAll
+    public static void setupSuite() throws Exception {
+        ClassLoader loader = ClassLoader.getSystemClassLoader();
+        CertificateFactory cf = CertificateFactory.getInstance("X.509");
+
+        CERT_ROOT_CA =
+                (X509Certificate) cf.generateCertificate(loader.getResourceAsStream(TEST_FIXTURE_PREFIX + "root.cert"));
+        CERT_CA = (X509Certificate) cf.generateCertificate(loader.getResourceAsStream(TEST_FIXTURE_PREFIX + "ca.cert"));
+
+        // the chain holds the signing certificate and the intermediate CA, the incomplete chain only the former
+        CHAIN = loadKeyInfo("keyinfo-chain");
+        INCOMPLETE_CHAIN = loadKeyInfo("keyinfo-incomplete-chain");
+    }
+
+    @Test
+    public void testValidationIsCached() throws Exception {
+        CertPathValidationCache cache = new CertPathValidationCache();
+
+        assertNotNull(select(new X509TrustChainKeySelector(cache, CERT_ROOT_CA), CHAIN));
+        assertNotNull(select(new X509TrustChainKeySelector(cache, CERT_ROOT_CA), CHAIN));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testValidationCacheDependsOnTrustedRoots() throws Exception {
+        CertPathValidationCache cache = new CertPathValidationCache();
+
+        assertNotNull(select(new X509TrustChainKeySelector(cache, CERT_ROOT_CA), CHAIN));
+        assertNull(select(new X509TrustChainKeySelector(cache, CERT_ROOT_CA), INCOMPLETE_CHAIN));
+        assertNotNull(select(new X509TrustChainKeySelector(cache, CERT_CA), INCOMPLETE_CHAIN));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testFailedValidationIsCached() throws Exception {
+        CertPathValidationCache cache = new CertPathValidationCache();
+        KeySelector ks = new X509TrustChainKeySelector(cache, CERT_ROOT_CA);
+
+        assertNull(select(ks, INCOMPLETE_CHAIN));
+        assertNull(select(ks, INCOMPLETE_CHAIN));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testValidationWithoutCache() throws Exception {
+        KeySelector ks = new X509TrustChainKeySelector((CertPathValidationCache) null, CERT_ROOT_CA);
+
+        Key key = select(ks, CHAIN);
+        assertNotNull(key);
+        assertEquals(key, select(ks, CHAIN));
+        assertNull(select(ks, INCOMPLETE_CHAIN));
+    }
+
+    @Test
+    public void testDefaultConstructorUsesSharedCache() throws Exception {
+        CertPathValidationCache shared = CertPathValidationCache.getDefault();
+
+        assertNotNull(select(new X509TrustChainKeySelector(CERT_ROOT_CA), CHAIN));
+        int size = shared.size();
+        assertTrue(size > 0);
+
+        // a selector created elsewhere in the process reuses the outcome
+        assertNotNull(select(new X509TrustChainKeySelector(CERT_ROOT_CA), CHAIN));
+        assertEquals(size, shared.size());
+        assertSame(shared, CertPathValidationCache.getDefault());
+    }
+
+    private static Key select(KeySelector keySelector, KeyInfo keyInfo) throws Exception {
+        return keySelector
+                .select(keyInfo, KeySelector.Purpose.VERIFY, null, null)
+                .getKey();
+    }
+
+    private static KeyInfo loadKeyInfo(String name) throws Exception {
+        DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
+        docBuilderFactory.setNamespaceAware(true);
+
+        Document doc = docBuilderFactory
+                .newDocumentBuilder()
+                .parse(X509TrustChainKeySelectorCacheTest.class.getResourceAsStream(
+                        "/" + TEST_FIXTURE_PREFIX + name + ".xml"));
+
+        XMLSignatureFactory dsFactory = XMLSignatureFactory.getInstance("DOM");
+        return dsFactory.getKeyInfoFactory().unmarshalKeyInfo(new DOMStructure(doc.getDocumentElement()));
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.vapi.saml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.vmware.vapi.saml.exception.InvalidSignatureException;
+import com.vmware.vapi.saml.exception.InvalidTimingException;
+import com.vmware.vapi.saml.util.KeyStoreData;
+
+/** Tests for {@link SamlTokenCache} and its usage by {@link DefaultTokenFactory}. */
+public class SamlTokenCacheTest {
+
+    // between NotBefore and NotOnOrAfter of the test tokens
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant TOKEN_START = Instant.parse("2011-01-07T12:56:00.530Z");
+    private static final Instant TOKEN_EXPIRATION = Instant.parse("2031-01-07T13:06:00.530Z");
+
+    private MutableClock clock;
+    private SamlTokenCache cache;
+    private DefaultTokenFactory factory;
+    private X509Certificate trustedRoot;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        clock = new MutableClock(NOW);
+        cache = new SamlTokenCache(SamlTokenCache.DEFAULT_MAX_ENTRIES, clock);
+        factory = new DefaultTokenFactory(cache);
+
+        KeyStoreData keystore = TestTokenUtil.loadDefaultKeystore();
+        trustedRoot = keystore.getCertificate();
+    }
+
+    @Test
+    public void validatedTokenIsReturnedFromCache() throws Exception {
+        String tokenXml = TestTokenUtil.getValidSamlTokenString();
+
+        SamlToken token = factory.parseToken(tokenXml, trustedRoot);
+        assertSame(token, factory.parseToken(tokenXml, trustedRoot));
+        assertSame(token, factory.parseToken(tokenXml, new X509Certificate[] {trustedRoot}, 600));
+
+        SamlTokenCache.Statistics stats = cache.getStatistics();
+        assertEquals(2, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(2.0 / 3, stats.getHitRate(), 0.0001);
+    }
+
+    @Test
+    public void domTokenIsReturnedFromCache() throws Exception {
+        SamlToken token = factory.parseToken(TestTokenUtil.getValidSamlTokenElement(), trustedRoot);
+
+        // separately parsed DOM tree with the same content
+        assertSame(token, factory.parseToken(TestTokenUtil.getValidSamlTokenElement(), trustedRoot));
+        assertEquals(1, cache.getStatistics().getHitCount());
+    }
+
+    @Test
+    public void differentTokensHaveDifferentEntries() throws Exception {
+        SamlToken token = factory.parseToken(TestTokenUtil.getValidSamlTokenString(), trustedRoot);
+        SamlToken anotherToken = factory.parseToken(TestTokenUtil.getAnotherValidSamlTokenString(), trustedRoot);
+
+        assertNotSame(token, anotherToken);
+        assertEquals(2, cache.size());
+        assertEquals(0, cache.getStatistics().getHitCount());
+    }
+
+    @Test
+    public void validatedAndUnvalidatedTokensHaveSeparateEntries() throws Exception {
+        String tokenXml = TestTokenUtil.getValidSamlTokenString();
+
+        SamlToken unvalidated = factory.parseToken(tokenXml);
+        SamlToken validated = factory.parseToken(tokenXml, trustedRoot);
+
+        assertNotSame(unvalidated, validated);
+        assertSame(unvalidated, factory.parseToken(tokenXml));
+        assertSame(validated, factory.parseToken(tokenXml, trustedRoot));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void tokenWithInvalidSignatureIsNotCached() throws Exception {
+        String tokenXml = TestTokenUtil.getValidSamlTokenString();
+        int charIndex = tokenXml.indexOf("Q==</ds:SignatureValue>") - 1;
+        String tamperedXml = tokenXml.substring(0, charIndex) + "6" + tokenXml.substring(charIndex + 1);
+
+        // the unvalidated entry must not be used to skip the signature validation
+        factory.parseToken(tamperedXml);
+        assertThrows(InvalidSignatureException.class, () -> factory.parseToken(tamperedXml, trustedRoot));
+        assertThrows(InvalidSignatureException.class, () -> factory.parseToken(tamperedXml, trustedRoot));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void cachedTokenIsCheckedBeforeNotBeforeWithToleranceOfEachCall() throws Exception {
+        String tokenXml = TestTokenUtil.getValidSamlTokenString();
+        X509Certificate[] trustedRoots = {trustedRoot};
+        clock.set(TOKEN_START.minusSeconds(300));
+
+        SamlToken token = factory.parseToken(tokenXml, trustedRoots, 600);
+
+        // the token is cached, but not yet valid without a tolerance covering the skew
+        assertThrows(InvalidTimingException.class, () -> factory.parseToken(tokenXml, trustedRoots, 0));
+        assertThrows(InvalidTimingException.class, () -> factory.parseToken(tokenXml, trustedRoot));
+        assertSame(token, factory.parseToken(tokenXml, trustedRoots, 600));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void tokenIsCheckedAfterNotOnOrAfterWithToleranceOfEachCall() throws Exception {
+        String tokenXml = TestTokenUtil.getValidSamlTokenString();
+        X509Certificate[] trustedRoots = {trustedRoot};
+        factory.parseToken(tokenXml, trustedRoots, 600);
+
+        clock.set(TOKEN_EXPIRATION.plusSeconds(300));
+        factory.parseToken(tokenXml, trustedRoots, 600);
+        assertThrows(InvalidTimingException.class, () -> factory.parseToken(tokenXml, trustedRoots, 60));
+        // an expired token is not kept, so it is validated again
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void nullTrustedRootsAreRejected() throws Exception {
+        String tokenXml = TestTokenUtil.getValidSamlTokenString();
+        factory.parseToken(tokenXml);
+
+        assertThrows(IllegalArgumentException.class, () -> factory.parseToken(tokenXml, (X509Certificate[]) null, 0));
+    }
+
+    @Test
+    public void entryIsEvictedAtNotOnOrAfter() throws Exception {
+        String tokenXml = TestTokenUtil.getValidSamlTokenString();
+        SamlToken token = factory.parseToken(tokenXml);
+
+        clock.set(TOKEN_EXPIRATION.minusMillis(1));
+        assertSame(token, factory.parseToken(tokenXml));
+
+        clock.set(TOKEN_EXPIRATION);
+        assertNotSame(token, factory.parseToken(tokenXml));
+
+        SamlTokenCache.Statistics stats = cache.getStatistics();
+        assertEquals(1, stats.getExpirationCount());
+        // expired tokens are parsed, but not cached
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() throws Exception {
+        cache = new SamlTokenCache(1, clock);
+        factory = new DefaultTokenFactory(cache);
+
+        String tokenXml = TestTokenUtil.getValidSamlTokenString();
+        SamlToken token = factory.parseToken(tokenXml);
+        factory.parseToken(TestTokenUtil.getAnotherValidSamlTokenString());
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getStatistics().getEvictionCount());
+        assertNotSame(token, factory.parseToken(tokenXml));
+    }
+
+    @Test
+    public void invalidateRemovesAllEntriesOfToken() throws Exception {
+        String tokenXml = TestTokenUtil.getValidSamlTokenString();
+        SamlToken token = factory.parseToken(tokenXml, trustedRoot);
+        factory.parseToken(tokenXml);
+        factory.parseToken(TestTokenUtil.getAnotherValidSamlTokenString());
+
+        cache.invalidate(token.getId());
+
+        assertEquals(1, cache.size());
+        assertNotSame(token, factory.parseToken(tokenXml, trustedRoot));
+    }
+
+    @Test
+    public void invalidMaxEntries() {
+        assertThrows(IllegalArgumentException.class, () -> new SamlTokenCache(0));
+    }
+}
@@ -210,6 +210,18 @@ public class SamlTokenTest {
         assertTrue(serializedToken.contains(token.getSubject().getName()));
     }
 
+    @Test
+    public void serializeToXmlIsMemoized() throws Exception {
+        SamlToken token = getToken(TestTokenUtil.getValidSamlTokenString());
+
+        String serializedToken = token.toXml();
+        assertSame(serializedToken, token.toXml());
+
+        // the memoized form still carries a valid signature
+        KeyStoreData keystore = TestTokenUtil.loadDefaultKeystore();
+        assertNotNull(DefaultTokenFactory.createToken(serializedToken, keystore.getCertificate()));
+    }
+
     // the next two test-cases include validation of inResponseTo and Recipient
     // attributes in the subjectConfirmationData
     @Test
@@ -0,0 +1,61 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.vapi.saml;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A clock for tests of time dependent caches, which stands still until it is set or advanced.
+ *
+ * <p>The clocks returned by {@link #withZone(ZoneId)} share the instant of this clock.
+ */
+public final class MutableClock extends Clock {
+    private final AtomicReference<Instant> _instant;
+    private final ZoneId _zone;
+
+    public MutableClock(Instant instant) {
+        this(new AtomicReference<>(Objects.requireNonNull(instant)), ZoneOffset.UTC);
+    }
+
+    private MutableClock(AtomicReference<Instant> instant, ZoneId zone) {
+        _instant = instant;
+        _zone = zone;
+    }
+
+    public void set(Instant instant) {
+        _instant.set(Objects.requireNonNull(instant));
+    }
+
+    public void advance(Duration duration) {
+        _instant.updateAndGet(instant -> instant.plus(duration));
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return _zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return zone.equals(_zone) ? this : new MutableClock(_instant, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return _instant.get();
+    }
+}
@@ -16,7 +16,14 @@ plugins {
 dependencies {
     api(sdkLibs.vcf.installer)
     api(libs.slf4j.api)
-    implementation(project(":utils:vmware-sdk-common"))
+    api(project(":utils:vmware-sdk-common"))
+    testImplementation(testLibs.junit)
+    testImplementation(testFixtures(project(":utils:vmware-sdk-common")))
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
 
 tasks.named<Jar>("jar") {
@@ -0,0 +1,397 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import static com.vmware.sdk.vcf.installer.utils.DownloadBundlesUtil.IMAGE_TYPE;
+import static com.vmware.sdk.vcf.installer.utils.DownloadBundlesUtil.START_BUNDLE_DOWNLOAD_ERRORS_TO_IGNORE;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.sdk.vcf.installer.model.BundleDownloadSpec;
+import com.vmware.sdk.vcf.installer.model.BundleDownloadStatusInfo;
+import com.vmware.sdk.vcf.installer.model.BundleUpdateSpec;
+import com.vmware.sdk.vcf.installer.v1.Bundles;
+import com.vmware.sdk.vcf.installer.v1.bundles.DownloadStatus;
+import com.vmware.vapi.client.ApiClient;
+
+/**
+ * Starts and tracks the download of a batch of bundles on a VCF Installer appliance.
+ *
+ * <p>Downloads are requested concurrently, with at most a configured number of requests in flight. A request which
+ * fails is retried on its own after a delay, and so is a download which the appliance reports as failed, so a single
+ * failure does not restart the whole batch. The batch fails only once a bundle has used up its attempts.
+ */
+public class BundleDownloadOrchestrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BundleDownloadOrchestrator.class);
+
+    /** Default number of download requests in flight at the same time. */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 8;
+
+    /** Default number of attempts to download a single bundle. */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /** Default delay before a failed download request is sent again. */
+    public static final Duration DEFAULT_RETRY_DELAY = Duration.ofSeconds(30);
+
+    private static final String STATUS_SUCCESS = "SUCCESS";
+    private static final String STATUS_FAILED = "FAILED";
+    private static final String STATUS_CANCELLED = "CANCELLED";
+
+    private final Depot depot;
+    private final int maxInFlight;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Clock clock;
+    private final PollingScheduler scheduler;
+
+    /** The calls to the appliance, replaced by a stub depot in tests. */
+    interface Depot {
+        /** @return completes once the appliance has accepted the request to download the bundle */
+        CompletableFuture<Void> startBundleDownload(String bundleId);
+
+        /** @return completes with the download status of the bundles of the given release */
+        CompletableFuture<List<BundleDownloadStatusInfo>> getBundleDownloadStatus(String releaseVersion);
+    }
+
+    /** @param client Already initialized and logged in client */
+    public BundleDownloadOrchestrator(ApiClient client) {
+        this(client, DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_DELAY);
+    }
+
+    /**
+     * @param client Already initialized and logged in client
+     * @param maxInFlight the number of download requests in flight at the same time
+     * @param maxAttempts the number of attempts to download a single bundle
+     * @param retryDelay the delay before a failed download request is sent again
+     */
+    public BundleDownloadOrchestrator(ApiClient client, int maxInFlight, int maxAttempts, Duration retryDelay) {
+        this(
+                createDepot(client),
+                maxInFlight,
+                maxAttempts,
+                retryDelay,
+                Clock.systemUTC(),
+                PollingScheduler.getDefault());
+    }
+
+    BundleDownloadOrchestrator(
+            Depot depot,
+            int maxInFlight,
+            int maxAttempts,
+            Duration retryDelay,
+            Clock clock,
+            PollingScheduler scheduler) {
+        Objects.requireNonNull(depot);
+        Objects.requireNonNull(retryDelay);
+        Objects.requireNonNull(clock);
+        Objects.requireNonNull(scheduler);
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException(
+                    "Expected positive number of requests in flight, but got " + maxInFlight);
+        }
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Expected positive number of attempts, but got " + maxAttempts);
+        }
+
+        this.depot = depot;
+        this.maxInFlight = maxInFlight;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.clock = clock;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Requests the download of the given bundles. Bundles which are already scheduled or downloaded count as started.
+     *
+     * @param bundleIds the bundles to download
+     * @return completes with the IDs of the bundles being downloaded, in the given order; fails with the error of the
+     *     first bundle which could not be started in {@code maxAttempts} attempts
+     */
+    public CompletableFuture<List<String>> startDownloads(List<String> bundleIds) {
+        return new StartBatch(bundleIds).start();
+    }
+
+    /**
+     * Polls the download status until all given bundles are downloaded. Downloads reported as failed are restarted
+     * until the bundle has used up its attempts. A failure still reported after a restart, before the status of the
+     * bundle has left FAILED, belongs to the previous download and is not restarted again.
+     *
+     * @param bundleIds the bundles being downloaded
+     * @param releaseVersion release version of the bundles
+     * @param policy how often to poll the download status
+     * @param listener notified about the progress after every poll; may be null
+     * @return completes with the final progress; fails if a download was cancelled, failed too often or timed out
+     */
+    public CompletableFuture<BundleDownloadProgress> awaitDownloads(
+            List<String> bundleIds,
+            String releaseVersion,
+            PollingPolicy policy,
+            Consumer<BundleDownloadProgress> listener) {
+        DownloadTracker tracker = new DownloadTracker(bundleIds, releaseVersion);
+        return scheduler.pollAsync(
+                () -> tracker.update().thenApply(progress -> {
+                    if (listener != null) {
+                        listener.accept(progress);
+                    }
+                    return progress.isComplete()
+                            ? PollResult.done(progress)
+                            : PollResult.pending(progress.getFraction());
+                }),
+                policy);
+    }
+
+    private static Depot createDepot(ApiClient client) {
+        Objects.requireNonNull(client);
+        return new Depot() {
+            @Override
+            public CompletableFuture<Void> startBundleDownload(String bundleId) {
+                BundleDownloadSpec bundleDownloadSpec = new BundleDownloadSpec();
+                bundleDownloadSpec.setDownloadNow(true);
+
+                BundleUpdateSpec bundleUpdateSpec = new BundleUpdateSpec();
+                bundleUpdateSpec.setBundleDownloadSpec(bundleDownloadSpec);
+
+                Bundles bundlesApi = client.createStub(Bundles.class);
+                return bundlesApi
+                        .startBundleDownloadByID(bundleId, bundleUpdateSpec)
+                        .invoke()
+                        .toCompletableFuture()
+                        .thenApply(result -> (Void) null);
+            }
+
+            @Override
+            public CompletableFuture<List<BundleDownloadStatusInfo>> getBundleDownloadStatus(String releaseVersion) {
+                return client.createStub(DownloadStatus.class)
+                        .getBundleDownloadStatus()
+                        .releaseVersion(releaseVersion)
+                        .imageType(IMAGE_TYPE)
+                        .invoke()
+                        .toCompletableFuture()
+                        .thenApply(statusPage -> statusPage.getElements());
+            }
+        };
+    }
+
+    private CompletableFuture<Void> requestDownload(String bundleId) {
+        return depot.startBundleDownload(bundleId).exceptionally(e -> {
+            Throwable cause = unwrap(e);
+            if (cause instanceof com.vmware.sdk.vcf.installer.model.Error
+                    && START_BUNDLE_DOWNLOAD_ERRORS_TO_IGNORE.contains(
+                            ((com.vmware.sdk.vcf.installer.model.Error) cause).getErrorCode())) {
+                log.info(
+                        "Not downloading bundle with id: '{}' as download has already been initiated previously.",
+                        bundleId);
+                return null;
+            }
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+        });
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    /** Sends the download requests of one {@link #startDownloads(List)} call. */
+    private final class StartBatch {
+        private final List<String> bundleIds;
+        private final Queue<String> queue;
+        private final Set<String> started = new LinkedHashSet<>();
+        private final CompletableFuture<List<String>> result = new CompletableFuture<>();
+        private final Executor retryExecutor =
+                CompletableFuture.delayedExecutor(retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+        private int inFlight;
+
+        StartBatch(List<String> bundleIds) {
+            this.bundleIds = new ArrayList<>(new LinkedHashSet<>(bundleIds));
+            this.queue = new ArrayDeque<>(this.bundleIds);
+        }
+
+        CompletableFuture<List<String>> start() {
+            launch();
+            return result;
+        }
+
+        private synchronized void launch() {
+            while (!result.isDone() && inFlight < maxInFlight && !queue.isEmpty()) {
+                inFlight++;
+                request(queue.remove(), 1);
+            }
+            if (inFlight == 0 && queue.isEmpty() && !result.isDone()) {
+                List<String> ordered = new ArrayList<>();
+                for (String bundleId : bundleIds) {
+                    if (started.contains(bundleId)) {
+                        ordered.add(bundleId);
+                    }
+                }
+                result.complete(ordered);
+            }
+        }
+
+        private void request(String bundleId, int attempt) {
+            requestDownload(bundleId).whenComplete((ignored, e) -> {
+                if (e == null) {
+                    finished(bundleId);
+                } else if (attempt < maxAttempts && !result.isDone()) {
+                    log.warn(
+                            "Failed to start download of bundle with id: '{}' (attempt {} of {}), retrying in {}",
+                            bundleId,
+                            attempt,
+                            maxAttempts,
+                            retryDelay,
+                            unwrap(e));
+                    retryExecutor.execute(() -> request(bundleId, attempt + 1));
+                } else {
+                    log.error("Failed to download bundle with id: '{}'", bundleId);
+                    result.completeExceptionally(unwrap(e));
+                }
+            });
+        }
+
+        private synchronized void finished(String bundleId) {
+            started.add(bundleId);
+            inFlight--;
+            launch();
+        }
+    }
+
+    /**
+     * Tracks the status of the bundles of one {@link #awaitDownloads} call. Used by one poll at a time, as the next
+     * poll starts once the previous one has completed.
+     */
+    private final class DownloadTracker {
+        private final String releaseVersion;
+        private final int total;
+        private final Set<String> pending;
+        private final Map<String, String> lastStatus = new HashMap<>();
+        private final Map<String, Integer> attempts = new HashMap<>();
+        /** The bundles restarted after a failure, whose next status different from FAILED has not been seen yet. */
+        private final Set<String> restartPending = new HashSet<>();
+
+        private final long startMs = clock.millis();
+        private int retried;
+
+        DownloadTracker(List<String> bundleIds, String releaseVersion) {
+            this.releaseVersion = releaseVersion;
+            this.pending = new LinkedHashSet<>(bundleIds);
+            this.total = pending.size();
+        }
+
+        /** @return completes with the progress once the status has been retrieved and failed downloads restarted */
+        CompletableFuture<BundleDownloadProgress> update() {
+            return depot.getBundleDownloadStatus(releaseVersion)
+                    .handle((statusInfos, e) -> {
+                        if (e != null) {
+                            log.warn("Caught exception while retrieving download status", unwrap(e));
+                            return CompletableFuture.completedFuture(progress());
+                        }
+                        return update(statusInfos);
+                    })
+                    .thenCompose(stage -> stage);
+        }
+
+        private CompletableFuture<BundleDownloadProgress> update(List<BundleDownloadStatusInfo> statusInfos) {
+            Map<String, CompletableFuture<Boolean>> restarts = new HashMap<>();
+            for (BundleDownloadStatusInfo statusInfo : statusInfos) {
+                String bundleId = statusInfo.getBundleId();
+                if (!pending.contains(bundleId)) {
+                    continue;
+                }
+
+                String status = statusInfo.getDownloadStatus();
+                if (!STATUS_FAILED.equals(status)) {
+                    // the appliance has picked up the restarted download
+                    restartPending.remove(bundleId);
+                } else if (restartPending.contains(bundleId)) {
+                    // the status still belongs to the download before the restart
+                    continue;
+                }
+                if (Objects.equals(status, lastStatus.put(bundleId, status))) {
+                    continue;
+                }
+
+                log.info("Download status of bundle with id: '{}' is {}", bundleId, status);
+                if (STATUS_SUCCESS.equals(status)) {
+                    pending.remove(bundleId);
+                } else if (STATUS_CANCELLED.equals(status)) {
+                    throw new RuntimeException("Download bundle with id: " + bundleId + " has been cancelled.");
+                } else if (STATUS_FAILED.equals(status)) {
+                    restartPending.add(bundleId);
+                    restarts.put(bundleId, retry(bundleId));
+                }
+            }
+
+            return CompletableFuture.allOf(restarts.values().toArray(new CompletableFuture<?>[0]))
+                    .thenApply(ignored -> {
+                        restarts.forEach((bundleId, restart) -> {
+                            if (!restart.join()) {
+                                // nothing was restarted, so the next FAILED status is restarted again
+                                restartPending.remove(bundleId);
+                                lastStatus.remove(bundleId);
+                            }
+                        });
+
+                        BundleDownloadProgress progress = progress();
+                        if (progress.isComplete()) {
+                            log.info("All bundles have been successfully downloaded.");
+                        }
+                        return progress;
+                    });
+        }
+
+        /** @return completes with whether the download has been restarted */
+        private CompletableFuture<Boolean> retry(String bundleId) {
+            int attempt = attempts.merge(bundleId, 1, Integer::sum) + 1;
+            if (attempt > maxAttempts) {
+                throw new RuntimeException("Failed to download bundle with id: " + bundleId);
+            }
+
+            log.warn("Restarting download of bundle with id: '{}' (attempt {} of {})", bundleId, attempt, maxAttempts);
+            retried++;
+            return requestDownload(bundleId).handle((ignored, e) -> {
+                if (e != null) {
+                    log.warn("Failed to restart download of bundle with id: '{}'", bundleId, unwrap(e));
+                    return false;
+                }
+                return true;
+            });
+        }
+
+        private BundleDownloadProgress progress() {
+            return new BundleDownloadProgress(
+                    total, total - pending.size(), retried, Duration.ofMillis(clock.millis() - startMs));
+        }
+    }
+}
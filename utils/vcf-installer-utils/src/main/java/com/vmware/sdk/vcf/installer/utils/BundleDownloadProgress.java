@@ -0,0 +1,93 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of the progress of a batch of bundle downloads tracked by a {@link BundleDownloadOrchestrator}.
+ *
+ * <p>The throughput and the estimated time to completion are based on the number of completed bundles, as the download
+ * status reported by the VCF Installer does not carry byte counts.
+ */
+public final class BundleDownloadProgress {
+
+    private final int total;
+    private final int succeeded;
+    private final int retried;
+    private final Duration elapsed;
+
+    BundleDownloadProgress(int total, int succeeded, int retried, Duration elapsed) {
+        this.total = total;
+        this.succeeded = succeeded;
+        this.retried = retried;
+        this.elapsed = elapsed;
+    }
+
+    /** @return the number of bundles in the batch */
+    public int getTotal() {
+        return total;
+    }
+
+    /** @return the number of successfully downloaded bundles */
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    /** @return the number of bundles which are not downloaded yet */
+    public int getRemaining() {
+        return total - succeeded;
+    }
+
+    /** @return the number of download restarts after a failure */
+    public int getRetried() {
+        return retried;
+    }
+
+    /** @return the time since the tracking started */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /** @return the completed fraction of the batch, in [0, 1] */
+    public double getFraction() {
+        return total == 0 ? 1 : (double) succeeded / total;
+    }
+
+    /** @return the average number of bundles downloaded per hour so far */
+    public double getBundlesPerHour() {
+        long elapsedMs = elapsed.toMillis();
+        return elapsedMs == 0 ? 0 : succeeded * (double) Duration.ofHours(1).toMillis() / elapsedMs;
+    }
+
+    /** @return the estimated time until all bundles are downloaded, or null while no bundle has completed */
+    public Duration getEstimatedTimeRemaining() {
+        if (getRemaining() == 0) {
+            return Duration.ZERO;
+        }
+        if (succeeded == 0) {
+            return null;
+        }
+        return Duration.ofMillis(elapsed.toMillis() * getRemaining() / succeeded);
+    }
+
+    public boolean isComplete() {
+        return succeeded == total;
+    }
+
+    @Override
+    public String toString() {
+        Duration eta = getEstimatedTimeRemaining();
+        return String.format(
+                "%d/%d bundles downloaded, %d retried, %.1f bundles/h, ETA %s",
+                succeeded, total, retried, getBundlesPerHour(), eta == null ? "unknown" : eta);
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.sdk.vcf.installer.model.CustomPatch;
+import com.vmware.sdk.vcf.installer.model.CustomPatchBundleInfo;
+import com.vmware.sdk.vcf.installer.model.ProductReleaseComponent;
+
+/**
+ * On-disk cache of the release component catalog of a VCF Installer depot.
+ *
+ * <p>Retrieving the release components returns the full catalog of a release, which is the same for every run as long
+ * as the depot has not been synced again. The cache keeps, per SKU and release version, the bundle IDs of every
+ * component version together with a fingerprint of the depot sync state. An entry is only used while the current
+ * fingerprint matches and the entry is younger than the maximum age, so revalidating an entry costs a single depot sync
+ * info request.
+ *
+ * <p>The entries are indexed in memory by component name. The file is written in a compact binary form with a checksum;
+ * a file which cannot be read, e.g. because it was truncated or written by another version, is discarded.
+ *
+ * <p>This class is thread safe.
+ */
+public final class DepotMetadataCache {
+
+    /** Default time after which an entry is fetched again, even if the depot fingerprint has not changed. */
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofDays(1);
+
+    private static final Logger log = LoggerFactory.getLogger(DepotMetadataCache.class);
+
+    private static final int MAGIC = 0x56434644; // "VCFD"
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path file;
+    private final Duration maxAge;
+    private final Clock clock;
+
+    private Map<String, Entry> entries;
+
+    /**
+     * Cached release components of one SKU and release version.
+     *
+     * <p>Instances are immutable.
+     */
+    public static final class Entry {
+        private final String fingerprint;
+        private final Instant cachedAt;
+        private final Map<String, List<List<String>>> components;
+
+        Entry(String fingerprint, Instant cachedAt, Map<String, List<List<String>>> components) {
+            this.fingerprint = fingerprint;
+            this.cachedAt = cachedAt;
+            this.components = components;
+        }
+
+        /** @return the names of the release components */
+        public Set<String> getComponentNames() {
+            return components.keySet();
+        }
+
+        /**
+         * @param componentName the name of the release component
+         * @return the IDs of the bundles of the latest version of the component; empty if there is no such component or
+         *     it has no versions
+         */
+        public List<String> getLatestBundleIds(String componentName) {
+            List<List<String>> versions = components.get(componentName);
+            return versions == null || versions.isEmpty() ? List.of() : versions.get(0);
+        }
+
+        /**
+         * @param componentName the name of the release component
+         * @return the bundle IDs of each version of the component, latest first; empty if there is no such component
+         */
+        public List<List<String>> getVersionBundleIds(String componentName) {
+            return components.getOrDefault(componentName, List.of());
+        }
+
+        /** @return the time at which the entry was stored */
+        public Instant getCachedAt() {
+            return cachedAt;
+        }
+    }
+
+    /** @param file the file holding the cache; created on the first store */
+    public DepotMetadataCache(Path file) {
+        this(file, DEFAULT_MAX_AGE, Clock.systemUTC());
+    }
+
+    /**
+     * @param file the file holding the cache; created on the first store
+     * @param maxAge the time after which an entry is stale, regardless of the fingerprint
+     */
+    public DepotMetadataCache(Path file, Duration maxAge) {
+        this(file, maxAge, Clock.systemUTC());
+    }
+
+    DepotMetadataCache(Path file, Duration maxAge, Clock clock) {
+        this.file = Objects.requireNonNull(file);
+        this.maxAge = Objects.requireNonNull(maxAge);
+        this.clock = Objects.requireNonNull(clock);
+        if (maxAge.isNegative()) {
+            throw new IllegalArgumentException("Expected non-negative maximum age, but got " + maxAge);
+        }
+    }
+
+    /**
+     * Looks up the release components of a SKU and release version.
+     *
+     * @param sku the SKU, e.g. VCF
+     * @param releaseVersion the release version
+     * @param fingerprint the current fingerprint of the depot
+     * @return the cached components, or null if there are none, they were cached for another fingerprint or they are
+     *     stale
+     */
+    public synchronized Entry get(String sku, String releaseVersion, String fingerprint) {
+        Entry entry = entries().get(key(sku, releaseVersion));
+        if (entry == null) {
+            log.debug("No cached release components for {} {}", sku, releaseVersion);
+            return null;
+        }
+        if (!entry.fingerprint.equals(fingerprint)) {
+            log.debug("The depot has changed since the release components for {} {} were cached", sku, releaseVersion);
+            return null;
+        }
+        if (clock.instant().isAfter(entry.cachedAt.plus(maxAge))) {
+            log.debug("The cached release components for {} {} are stale", sku, releaseVersion);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores the release components of a SKU and release version and writes the cache file.
+     *
+     * @param sku the SKU, e.g. VCF
+     * @param releaseVersion the release version
+     * @param fingerprint the fingerprint of the depot the components were retrieved from
+     * @param components the release components
+     * @return the stored entry
+     */
+    public Entry put(String sku, String releaseVersion, String fingerprint, List<ProductReleaseComponent> components) {
+        Map<String, List<List<String>>> index = new LinkedHashMap<>();
+        for (ProductReleaseComponent component : components) {
+            List<List<String>> versions = new ArrayList<>();
+            List<CustomPatch> componentVersions = component.getVersions();
+            for (CustomPatch version : componentVersions == null ? List.<CustomPatch>of() : componentVersions) {
+                List<String> bundleIds = new ArrayList<>();
+                for (CustomPatchBundleInfo bundle : version.getArtifacts().getBundles()) {
+                    bundleIds.add(bundle.getId());
+                }
+                versions.add(bundleIds);
+            }
+            index.put(component.getName(), versions);
+        }
+        return put(sku, releaseVersion, fingerprint, index);
+    }
+
+    synchronized Entry put(
+            String sku, String releaseVersion, String fingerprint, Map<String, List<List<String>>> components) {
+        Objects.requireNonNull(fingerprint);
+        Entry entry = new Entry(fingerprint, clock.instant(), immutableCopy(components));
+        entries().put(key(sku, releaseVersion), entry);
+        try {
+            store();
+        } catch (IOException e) {
+            // the entry is still served from memory
+            log.warn("Could not write the depot metadata cache {}", file, e);
+        }
+        return entry;
+    }
+
+    /** Removes all entries and the cache file. */
+    public synchronized void clear() {
+        entries = new HashMap<>();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete the depot metadata cache {}", file, e);
+        }
+    }
+
+    /** Must hold the lock. */
+    private Map<String, Entry> entries() {
+        if (entries == null) {
+            entries = load();
+        }
+        return entries;
+    }
+
+    private Map<String, Entry> load() {
+        try (InputStream in = Files.newInputStream(file)) {
+            Map<String, Entry> loaded = read(in);
+            log.debug("Loaded {} entries from the depot metadata cache {}", loaded.size(), file);
+            return loaded;
+        } catch (NoSuchFileException e) {
+            return new HashMap<>();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Discarding the unreadable depot metadata cache {}", file, e);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException deleteFailure) {
+                e.addSuppressed(deleteFailure);
+            }
+            return new HashMap<>();
+        }
+    }
+
+    private void store() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        // write a sibling and move it over the file, so readers never see a partially written cache
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                write(entries, out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static void write(Map<String, Entry> entries, OutputStream out) throws IOException {
+        CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(out), new CRC32());
+        DataOutputStream data = new DataOutputStream(checked);
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeInt(entries.size());
+        for (Map.Entry<String, Entry> keyAndEntry : entries.entrySet()) {
+            Entry entry = keyAndEntry.getValue();
+            data.writeUTF(keyAndEntry.getKey());
+            data.writeUTF(entry.fingerprint);
+            data.writeLong(entry.cachedAt.toEpochMilli());
+            data.writeInt(entry.components.size());
+            for (Map.Entry<String, List<List<String>>> component : entry.components.entrySet()) {
+                data.writeUTF(component.getKey());
+                data.writeInt(component.getValue().size());
+                for (List<String> bundleIds : component.getValue()) {
+                    data.writeInt(bundleIds.size());
+                    for (String bundleId : bundleIds) {
+                        data.writeUTF(bundleId);
+                    }
+                }
+            }
+        }
+        data.flush();
+        // the checksum itself is not part of the checksum
+        long checksum = checked.getChecksum().getValue();
+        new DataOutputStream(out).writeLong(checksum);
+        out.flush();
+    }
+
+    static Map<String, Entry> read(InputStream in) throws IOException {
+        CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(in), new CRC32());
+        DataInputStream data = new DataInputStream(checked);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a depot metadata cache");
+        }
+        int formatVersion = data.readInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported depot metadata cache format " + formatVersion);
+        }
+
+        int entryCount = readCount(data);
+        Map<String, Entry> entries = new HashMap<>();
+        for (int i = 0; i < entryCount; i++) {
+            String key = data.readUTF();
+            String fingerprint = data.readUTF();
+            Instant cachedAt = Instant.ofEpochMilli(data.readLong());
+            int componentCount = readCount(data);
+            Map<String, List<List<String>>> components = new LinkedHashMap<>();
+            for (int j = 0; j < componentCount; j++) {
+                String name = data.readUTF();
+                int versionCount = readCount(data);
+                List<List<String>> versions = new ArrayList<>(versionCount);
+                for (int k = 0; k < versionCount; k++) {
+                    int bundleCount = readCount(data);
+                    List<String> bundleIds = new ArrayList<>(bundleCount);
+                    for (int l = 0; l < bundleCount; l++) {
+                        bundleIds.add(data.readUTF());
+                    }
+                    versions.add(Collections.unmodifiableList(bundleIds));
+                }
+                components.put(name, Collections.unmodifiableList(versions));
+            }
+            entries.put(key, new Entry(fingerprint, cachedAt, Collections.unmodifiableMap(components)));
+        }
+
+        long expected = checked.getChecksum().getValue();
+        // read the checksum past the checked stream
+        long actual = new DataInputStream(checked).readLong();
+        if (actual != expected) {
+            throw new IOException("Checksum mismatch in depot metadata cache");
+        }
+        return entries;
+    }
+
+    /** Guards the allocations against counts read from a damaged file. */
+    private static int readCount(DataInputStream data) throws IOException {
+        int count = data.readInt();
+        if (count < 0 || count > 1_000_000) {
+            throw new IOException("Invalid count " + count + " in depot metadata cache");
+        }
+        return count;
+    }
+
+    private static String key(String sku, String releaseVersion) {
+        return Objects.requireNonNull(sku) + '\u0000' + Objects.requireNonNull(releaseVersion);
+    }
+
+    private static Map<String, List<List<String>>> immutableCopy(Map<String, List<List<String>>> components) {
+        Map<String, List<List<String>>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, List<List<String>>> component : components.entrySet()) {
+            List<List<String>> versions = new ArrayList<>();
+            for (List<String> bundleIds : component.getValue()) {
+                versions.add(List.copyOf(bundleIds));
+            }
+            copy.put(component.getKey(), Collections.unmodifiableList(versions));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+}
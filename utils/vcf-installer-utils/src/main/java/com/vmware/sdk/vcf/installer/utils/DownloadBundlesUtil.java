@@ -12,7 +12,13 @@ package com.vmware.sdk.vcf.installer.utils;
 
 import static java.util.Objects.requireNonNullElse;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
@@ -22,16 +28,13 @@ import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.vmware.sdk.vcf.installer.model.BundleDownloadSpec;
 import com.vmware.sdk.vcf.installer.model.BundleDownloadStatusInfo;
-import com.vmware.sdk.vcf.installer.model.BundleUpdateSpec;
 import com.vmware.sdk.vcf.installer.model.CustomPatch;
 import com.vmware.sdk.vcf.installer.model.CustomPatchBundleInfo;
 import com.vmware.sdk.vcf.installer.model.DepotAccount;
 import com.vmware.sdk.vcf.installer.model.DepotSettings;
 import com.vmware.sdk.vcf.installer.model.ProductReleaseComponent;
 import com.vmware.sdk.vcf.installer.model.ReleaseComponentDetail;
-import com.vmware.sdk.vcf.installer.v1.Bundles;
 import com.vmware.sdk.vcf.installer.v1.bundles.DownloadStatus;
 import com.vmware.sdk.vcf.installer.v1.releases.ReleaseComponents;
 import com.vmware.sdk.vcf.installer.v1.system.settings.Depot;
@@ -49,6 +52,9 @@ public class DownloadBundlesUtil {
 
     protected static final String IMAGE_TYPE = "INSTALL";
 
+    /** The interval after the first poll of the download status; later polls back off up to the configured one. */
+    private static final Duration INITIAL_POLL_INTERVAL = Duration.ofSeconds(10);
+
     protected static final Set<String> START_BUNDLE_DOWNLOAD_ERRORS_TO_IGNORE = Set.of(
             // happens when download has already been initiated, but download has not started yet
             "BUNDLE_DOWNLOAD_ALREADY_SCHEDULED",
@@ -59,9 +65,30 @@ public class DownloadBundlesUtil {
 
     protected ApiClient client;
 
+    protected BundleDownloadOrchestrator orchestrator;
+
+    protected DepotMetadataCache metadataCache;
+
     /** @param client Already initialized and logged in client */
     public DownloadBundlesUtil(ApiClient client) {
+        this(client, new BundleDownloadOrchestrator(client));
+    }
+
+    /**
+     * @param client Already initialized and logged in client
+     * @param orchestrator starts and tracks the bundle downloads
+     */
+    public DownloadBundlesUtil(ApiClient client, BundleDownloadOrchestrator orchestrator) {
         this.client = client;
+        this.orchestrator = orchestrator;
+    }
+
+    /**
+     * @param metadataCache caches the release components between runs, see {@link #getLatestBundleIds(String, String,
+     *     Set)}; null disables caching
+     */
+    public void setMetadataCache(DepotMetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
     }
 
     public void configureOnlineDepot(String depotAccountUsername, String depotAccountPassword)
@@ -131,6 +158,93 @@ public class DownloadBundlesUtil {
     public List<ProductReleaseComponent> getLatestProductReleaseComponents(
             String sku, String releaseVersion, Set<String> productReleaseComponentsNamesToInclude)
             throws ExecutionException, InterruptedException {
+        return getLatestProductReleaseComponents(sku, releaseVersion).stream()
+                .filter(c -> productReleaseComponentsNamesToInclude.contains(c.getName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the IDs of the bundles of the latest version of the given components. If a {@link DepotMetadataCache} is
+     * set, the release components are only retrieved when the depot has changed since they were cached.
+     *
+     * @param sku the SKU, e.g. VCF
+     * @param releaseVersion the release version
+     * @param productReleaseComponentsNamesToInclude the names of the components
+     * @return the bundle IDs
+     * @throws ExecutionException if the operation failed
+     * @throws InterruptedException if the client is interrupted while waiting
+     */
+    public List<String> getLatestBundleIds(
+            String sku, String releaseVersion, Set<String> productReleaseComponentsNamesToInclude)
+            throws ExecutionException, InterruptedException {
+        String fingerprint = metadataCache == null ? null : getDepotFingerprint();
+        DepotMetadataCache.Entry entry =
+                fingerprint == null ? null : metadataCache.get(sku, releaseVersion, fingerprint);
+        if (entry != null) {
+            log.info("Using the cached release components of {} {}", sku, releaseVersion);
+        } else {
+            List<ProductReleaseComponent> components = getLatestProductReleaseComponents(sku, releaseVersion);
+            if (fingerprint == null) {
+                return getLatestBundleIds(components.stream()
+                        .filter(c -> productReleaseComponentsNamesToInclude.contains(c.getName()))
+                        .collect(Collectors.toList()));
+            }
+            entry = metadataCache.put(sku, releaseVersion, fingerprint, components);
+        }
+
+        List<String> bundleIds = new ArrayList<>();
+        for (String name : entry.getComponentNames()) {
+            if (productReleaseComponentsNamesToInclude.contains(name)) {
+                List<String> ids = entry.getLatestBundleIds(name);
+                if (ids.isEmpty()) {
+                    log.warn("No bundles found for release component with name: '{}'", name);
+                } else {
+                    log.info("Latest bundles of '{}': {}", name, ids);
+                    bundleIds.addAll(ids);
+                }
+            }
+        }
+        return bundleIds;
+    }
+
+    /**
+     * Fingerprints the sync state of the depot. The release catalog does not change while the fingerprint stays the
+     * same.
+     *
+     * @return the fingerprint, or null if the depot is not synced
+     */
+    protected String getDepotFingerprint() throws ExecutionException, InterruptedException {
+        com.vmware.sdk.vcf.installer.v1.system.settings.depot.DepotSyncInfo depotSyncInfoApi =
+                client.createStub(com.vmware.sdk.vcf.installer.v1.system.settings.depot.DepotSyncInfo.class);
+        com.vmware.sdk.vcf.installer.model.DepotSyncInfo syncInfo =
+                depotSyncInfoApi.getDepotSyncInfo().invoke().get();
+        if (!"SYNCED".equals(syncInfo.getSyncStatus()) || syncInfo.getLastSyncTime() == null) {
+            return null;
+        }
+        return getDepotFingerprint(syncInfo.getSyncStatus(), String.valueOf(syncInfo.getLastSyncTime()));
+    }
+
+    /**
+     * Only the sync status and the time of the last sync go into the fingerprint, so other fields of the sync info,
+     * e.g. a progress message, do not invalidate the cached catalog.
+     *
+     * @return the fingerprint of the given sync state
+     */
+    static String getDepotFingerprint(String syncStatus, String lastSyncTime) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(syncStatus.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(lastSyncTime.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<ProductReleaseComponent> getLatestProductReleaseComponents(String sku, String releaseVersion)
+            throws ExecutionException, InterruptedException {
         ReleaseComponents releaseComponentsApi = client.createStub(ReleaseComponents.class);
 
         List<ReleaseComponentDetail> releaseComponentDetails = releaseComponentsApi
@@ -148,64 +262,58 @@ public class DownloadBundlesUtil {
 
         ReleaseComponentDetail latestReleaseComponentDetail = releaseComponentDetails.get(0);
 
-        return latestReleaseComponentDetail.getComponents().stream()
-                .filter(c -> productReleaseComponentsNamesToInclude.contains(c.getName()))
-                .collect(Collectors.toList());
+        return latestReleaseComponentDetail.getComponents();
     }
 
+    /**
+     * Starts the download of the latest version of the given components. The download requests are sent concurrently
+     * and retried individually, see {@link BundleDownloadOrchestrator#startDownloads(List)}.
+     *
+     * @param releaseComponents the components to download
+     * @return the IDs of the bundles being downloaded
+     * @throws InterruptedException if the client is interrupted while waiting
+     */
     public List<String> startBundlesDownload(List<ProductReleaseComponent> releaseComponents)
             throws InterruptedException {
-        Bundles bundlesApi = client.createStub(Bundles.class);
-
-        BundleDownloadSpec bundleDownloadSpec = new BundleDownloadSpec();
-        bundleDownloadSpec.setDownloadNow(true);
+        return startBundlesDownloadById(getLatestBundleIds(releaseComponents));
+    }
 
-        BundleUpdateSpec bundleUpdateSpec = new BundleUpdateSpec();
-        bundleUpdateSpec.setBundleDownloadSpec(bundleDownloadSpec);
+    /**
+     * Starts the download of the given bundles, see {@link BundleDownloadOrchestrator#startDownloads(List)}.
+     *
+     * @param bundleIds the IDs of the bundles, e.g. from {@link #getLatestBundleIds(String, String, Set)}
+     * @return the IDs of the bundles being downloaded
+     * @throws InterruptedException if the client is interrupted while waiting
+     */
+    public List<String> startBundlesDownloadById(List<String> bundleIds) throws InterruptedException {
+        return MiscUtil.await(orchestrator.startDownloads(bundleIds));
+    }
 
-        List<String> bundleIdsBeingDownloaded = new ArrayList<>();
+    private static List<String> getLatestBundleIds(List<ProductReleaseComponent> releaseComponents) {
+        List<String> bundleIds = new ArrayList<>();
 
         for (ProductReleaseComponent component : releaseComponents) {
-            CustomPatch latest = component.getVersions().get(0);
+            List<CustomPatch> versions = getVersions(component);
+            if (versions.isEmpty()) {
+                log.warn("No bundles found for release component with name: '{}'", component.getName());
+                continue;
+            }
+            CustomPatch latest = versions.get(0);
 
             List<String> ids = latest.getArtifacts().getBundles().stream()
                     .map(CustomPatchBundleInfo::getId)
                     .collect(Collectors.toList());
 
-            for (String id : ids) {
-                try {
-                    bundlesApi
-                            .startBundleDownloadByID(id, bundleUpdateSpec)
-                            .invoke()
-                            .get();
-
-                    bundleIdsBeingDownloaded.add(id);
-                } catch (ExecutionException e) {
-                    if (e.getCause() instanceof com.vmware.sdk.vcf.installer.model.Error) {
-                        com.vmware.sdk.vcf.installer.model.Error vcfInstallerError =
-                                (com.vmware.sdk.vcf.installer.model.Error) e.getCause();
-
-                        if (START_BUNDLE_DOWNLOAD_ERRORS_TO_IGNORE.contains(vcfInstallerError.getErrorCode())) {
-                            log.info(
-                                    "Not downloading bundle with name: '{}' and id: '{}' as download has already been initiated previously.",
-                                    component.getName(),
-                                    id);
-
-                            bundleIdsBeingDownloaded.add(id);
-                        } else {
-                            log.error(
-                                    "Failed to download bundle with name: '{}' and id: '{}'", component.getName(), id);
-
-                            throw vcfInstallerError;
-                        }
-                    } else {
-                        throw new RuntimeException(e);
-                    }
-                }
-            }
+            log.info("Downloading bundles with name: '{}' and ids: {}", component.getName(), ids);
+            bundleIds.addAll(ids);
         }
+        return bundleIds;
+    }
 
-        return bundleIdsBeingDownloaded;
+    /** @return the versions of the component, latest first; empty if the component has none */
+    static List<CustomPatch> getVersions(ProductReleaseComponent component) {
+        List<CustomPatch> versions = component.getVersions();
+        return versions == null ? List.of() : versions;
     }
 
     public boolean areBundlesDownloaded(List<String> bundleIdsBeingDownloaded, String releaseVersion) {
@@ -225,9 +333,10 @@ public class DownloadBundlesUtil {
             return false;
         }
 
+        Set<String> bundleIds = new HashSet<>(bundleIdsBeingDownloaded);
         boolean allDownloaded = true;
         for (BundleDownloadStatusInfo statusInfo : bundleDownloadStatusInfos) {
-            if (bundleIdsBeingDownloaded.contains(statusInfo.getBundleId())) {
+            if (bundleIds.contains(statusInfo.getBundleId())) {
                 if (statusInfo.getDownloadStatus().equals("FAILED")) {
                     throw new RuntimeException("Failed to download bundle with id: " + statusInfo.getBundleId());
                 } else if (statusInfo.getDownloadStatus().equals("CANCELLED")) {
@@ -249,7 +358,9 @@ public class DownloadBundlesUtil {
     }
 
     /**
-     * Polls until bundles are downloaded or timeout is reached in which case an exception is thrown.
+     * Polls until bundles are downloaded or timeout is reached in which case an exception is thrown. Failed downloads
+     * are restarted, see {@link BundleDownloadOrchestrator#awaitDownloads(List, String, PollingPolicy,
+     * java.util.function.Consumer)}.
      *
      * @param bundleIdsBeingDownloaded bundles to check
      * @param releaseVersion release version of the bundles to check
@@ -272,9 +383,15 @@ public class DownloadBundlesUtil {
 
         log.info("Polling download status.");
 
-        MiscUtil.poll(
-                TimeUnit.HOURS.toSeconds(pollTimeoutInHours),
-                pollIntervalInSec,
-                () -> areBundlesDownloaded(bundleIdsBeingDownloaded, releaseVersion));
+        Duration maxInterval = Duration.ofSeconds(pollIntervalInSec);
+        Duration initialInterval =
+                maxInterval.compareTo(INITIAL_POLL_INTERVAL) < 0 ? maxInterval : INITIAL_POLL_INTERVAL;
+        PollingPolicy policy = PollingPolicy.of(initialInterval, maxInterval, Duration.ofHours(pollTimeoutInHours));
+
+        MiscUtil.await(orchestrator.awaitDownloads(
+                bundleIdsBeingDownloaded,
+                releaseVersion,
+                policy,
+                progress -> log.info("Download progress: {}", progress)));
     }
 }
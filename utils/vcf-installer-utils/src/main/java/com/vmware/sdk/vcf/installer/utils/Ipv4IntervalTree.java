@@ -0,0 +1,202 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Static interval tree over inclusive IPv4 address ranges, used to find overlapping ranges and the ranges containing an
+ * address.
+ *
+ * <p>The ranges are sorted by their first address and form an implicit balanced search tree, the middle of each
+ * sub-array being the root of its subtree. Every node knows the largest last address in its subtree, so a query skips
+ * the subtrees which end before it. A query costs O(log n + k) for k results, building the tree O(n log n).
+ *
+ * <p>Addresses are unsigned 32-bit values held in a {@code long}, see {@link #parseAddress(String)}.
+ *
+ * @param <T> the type of the values attached to the ranges
+ */
+final class Ipv4IntervalTree<T> {
+
+    /** An inclusive range of IPv4 addresses with an attached value. */
+    static final class Interval<T> {
+        final long first;
+        final long last;
+        final T value;
+
+        Interval(long first, long last, T value) {
+            if (first > last) {
+                throw new IllegalArgumentException(
+                        "Expected first address before last address, but got " + format(first) + "-" + format(last));
+            }
+            this.first = first;
+            this.last = last;
+            this.value = value;
+        }
+
+        boolean overlaps(long otherFirst, long otherLast) {
+            return first <= otherLast && otherFirst <= last;
+        }
+
+        @Override
+        public String toString() {
+            return format(first) + "-" + format(last);
+        }
+    }
+
+    private final List<Interval<T>> intervals;
+    private final long[] maxLast;
+
+    /** @param intervals the ranges to index; may overlap */
+    Ipv4IntervalTree(List<Interval<T>> intervals) {
+        this.intervals = new ArrayList<>(intervals);
+        this.intervals.sort(Comparator.comparingLong((Interval<T> interval) -> interval.first)
+                .thenComparingLong(interval -> interval.last));
+        this.maxLast = new long[this.intervals.size()];
+        computeMaxLast(0, this.intervals.size() - 1);
+    }
+
+    int size() {
+        return intervals.size();
+    }
+
+    /** @return the ranges overlapping the inclusive range [first, last], ordered by their first address */
+    List<Interval<T>> findOverlapping(long first, long last) {
+        List<Interval<T>> result = new ArrayList<>();
+        collect(0, intervals.size() - 1, first, last, index -> result.add(intervals.get(index)));
+        return result;
+    }
+
+    /** @return the ranges containing the address */
+    List<Interval<T>> findContaining(long address) {
+        return findOverlapping(address, address);
+    }
+
+    /**
+     * Finds every pair of overlapping ranges. Each pair is reported once, ordered by the first address of the ranges.
+     *
+     * @return the overlapping pairs
+     */
+    List<List<Interval<T>>> findOverlappingPairs() {
+        List<List<Interval<T>>> pairs = new ArrayList<>();
+        for (int i = 0; i < intervals.size(); i++) {
+            Interval<T> interval = intervals.get(i);
+            int current = i;
+            collect(0, intervals.size() - 1, interval.first, interval.last, index -> {
+                if (index > current) {
+                    pairs.add(List.of(interval, intervals.get(index)));
+                }
+            });
+        }
+        return pairs;
+    }
+
+    private long computeMaxLast(int low, int high) {
+        if (low > high) {
+            return -1;
+        }
+        int mid = (low + high) >>> 1;
+        long max = Math.max(
+                intervals.get(mid).last, Math.max(computeMaxLast(low, mid - 1), computeMaxLast(mid + 1, high)));
+        maxLast[mid] = max;
+        return max;
+    }
+
+    /** Reports the indexes of the overlapping ranges in ascending order. */
+    private void collect(int low, int high, long first, long last, IntConsumer result) {
+        if (low > high) {
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        if (maxLast[mid] < first) {
+            // every range in this subtree ends before the query
+            return;
+        }
+        collect(low, mid - 1, first, last, result);
+        Interval<T> interval = intervals.get(mid);
+        if (interval.first <= last) {
+            if (interval.overlaps(first, last)) {
+                result.accept(mid);
+            }
+            collect(mid + 1, high, first, last, result);
+        }
+    }
+
+    /**
+     * Parses a dotted-quad IPv4 address. Does not resolve host names.
+     *
+     * @return the address as an unsigned 32-bit value, or -1 if the text is not an IPv4 address
+     */
+    static long parseAddress(String text) {
+        if (text == null) {
+            return -1;
+        }
+        String[] octets = text.trim().split("\\.", -1);
+        if (octets.length != 4) {
+            return -1;
+        }
+        long address = 0;
+        for (String octet : octets) {
+            if (octet.isEmpty() || octet.length() > 3) {
+                return -1;
+            }
+            int value = 0;
+            for (int i = 0; i < octet.length(); i++) {
+                char c = octet.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            }
+            if (value > 255) {
+                return -1;
+            }
+            address = (address << 8) | value;
+        }
+        return address;
+    }
+
+    /**
+     * Parses an IPv4 subnet in CIDR notation, e.g. {@code 10.0.0.0/24}.
+     *
+     * @return the first and the last address of the subnet, or null if the text is not an IPv4 CIDR
+     */
+    static long[] parseCidr(String text) {
+        if (text == null) {
+            return null;
+        }
+        int slash = text.indexOf('/');
+        if (slash < 0) {
+            return null;
+        }
+        long address = parseAddress(text.substring(0, slash));
+        int prefixLength;
+        try {
+            prefixLength = Integer.parseInt(text.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (address < 0 || prefixLength < 0 || prefixLength > 32) {
+            return null;
+        }
+        long mask = prefixLength == 0 ? 0 : (0xFFFFFFFFL << (32 - prefixLength)) & 0xFFFFFFFFL;
+        long first = address & mask;
+        return new long[] {first, first | (~mask & 0xFFFFFFFFL)};
+    }
+
+    static String format(long address) {
+        return ((address >>> 24) & 0xFF) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "."
+                + (address & 0xFF);
+    }
+}
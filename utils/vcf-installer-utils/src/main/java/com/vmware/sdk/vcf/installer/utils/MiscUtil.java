@@ -10,8 +10,12 @@
 
 package com.vmware.sdk.vcf.installer.utils;
 
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -25,6 +29,9 @@ public class MiscUtil {
 
     private static final Logger log = LoggerFactory.getLogger(MiscUtil.class);
 
+    /** The interval after the first check done by {@link #poll(long, long, Supplier)}. */
+    private static final Duration INITIAL_POLL_INTERVAL = Duration.ofSeconds(1);
+
     public static String getVersionWithoutBuildNumber(ApiClient client)
             throws ExecutionException, InterruptedException {
         com.vmware.sdk.vcf.installer.v1.system.ApplianceInfo applianceInfoApi =
@@ -47,28 +54,69 @@ public class MiscUtil {
     }
 
     /**
-     * Blocks the current thread until a condition is met.
+     * Blocks the current thread until a condition is met. The condition usually waits for the server, so it is checked
+     * on the current thread; the {@link PollingScheduler#getDefault() default polling scheduler} only decides when,
+     * first right away, then after one second and then in growing intervals up to the given one.
      *
      * @param maxTimeToPollInSeconds maximum time to wait
-     * @param timeToSleepInBetweenPollsInSeconds how often to poll
+     * @param timeToSleepInBetweenPollsInSeconds the longest time between two checks
      * @param condition If condition.get() throws an exception then polling will cease.
      * @throws InterruptedException if the current thread was interrupted before the condition was met
      */
     public static void poll(
             long maxTimeToPollInSeconds, long timeToSleepInBetweenPollsInSeconds, Supplier<Boolean> condition)
             throws InterruptedException {
-        final long maxNumTimesToPoll = maxTimeToPollInSeconds / timeToSleepInBetweenPollsInSeconds;
-
-        for (long i = 0; i < maxNumTimesToPoll; ++i) {
-            if (!condition.get()) {
-                log.info("Sleeping for {} seconds.", timeToSleepInBetweenPollsInSeconds);
-                Thread.sleep(TimeUnit.SECONDS.toMillis(timeToSleepInBetweenPollsInSeconds));
-                log.info("Polls left {}.", maxNumTimesToPoll - i - 1);
-            } else {
-                return;
+        Duration maxInterval = Duration.ofSeconds(timeToSleepInBetweenPollsInSeconds);
+        Duration initialInterval =
+                maxInterval.compareTo(INITIAL_POLL_INTERVAL) < 0 ? maxInterval : INITIAL_POLL_INTERVAL;
+        PollingPolicy policy =
+                PollingPolicy.of(initialInterval, maxInterval, Duration.ofSeconds(maxTimeToPollInSeconds));
+
+        log.info("Polling every {} seconds at most.", timeToSleepInBetweenPollsInSeconds);
+        // the scheduler hands each check over to this thread instead of running it on its own few threads
+        BlockingQueue<Runnable> checks = new LinkedBlockingQueue<>();
+        CompletableFuture<Void> polling = PollingScheduler.getDefault()
+                .pollAsync(
+                        () -> CompletableFuture.supplyAsync(
+                                () -> condition.get() ? PollResult.<Void>done(null) : PollResult.<Void>pending(),
+                                checks::add),
+                        policy);
+        polling.whenComplete((result, e) -> checks.add(() -> {}));
+        try {
+            while (!polling.isDone()) {
+                checks.take().run();
             }
+        } catch (InterruptedException e) {
+            polling.cancel(false);
+            throw e;
         }
+        await(polling);
+    }
 
-        throw new RuntimeException("Polling has timed out.");
+    /**
+     * Blocks the current thread until the given polling completes. Cancels the polling if the thread is interrupted.
+     *
+     * @param polling the polling, e.g. started with {@link PollingScheduler#poll(PollingScheduler.Check,
+     *     PollingPolicy)}
+     * @return the polled value
+     * @throws InterruptedException if the current thread was interrupted before the polling completed
+     * @throws RuntimeException if the polling has failed or timed out
+     */
+    public static <T> T await(CompletableFuture<T> polling) throws InterruptedException {
+        try {
+            return polling.get();
+        } catch (InterruptedException e) {
+            polling.cancel(false);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                throw new RuntimeException("Polling has timed out.", cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
     }
 }
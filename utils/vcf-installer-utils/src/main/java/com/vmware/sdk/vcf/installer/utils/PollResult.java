@@ -0,0 +1,86 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+/**
+ * Outcome of a single check done by a {@link PollingScheduler}: either the final value, or the information that the
+ * operation is still running, optionally with its progress.
+ *
+ * @param <T> the type of the final value
+ */
+public final class PollResult<T> {
+
+    private static final double NO_PROGRESS = -1;
+
+    private static final PollResult<?> PENDING = new PollResult<>(false, null, NO_PROGRESS);
+
+    private final boolean done;
+    private final T value;
+    private final double progress;
+
+    private PollResult(boolean done, T value, double progress) {
+        this.done = done;
+        this.value = value;
+        this.progress = progress;
+    }
+
+    /**
+     * @param value the final value, may be null
+     * @return a result which stops the polling
+     */
+    public static <T> PollResult<T> done(T value) {
+        return new PollResult<>(true, value, 1);
+    }
+
+    /** @return a result which continues the polling, for operations which do not report progress */
+    @SuppressWarnings("unchecked")
+    public static <T> PollResult<T> pending() {
+        return (PollResult<T>) PENDING;
+    }
+
+    /**
+     * @param progress the completed fraction of the operation, in [0, 1]
+     * @return a result which continues the polling
+     */
+    public static <T> PollResult<T> pending(double progress) {
+        if (!(progress >= 0 && progress <= 1)) {
+            throw new IllegalArgumentException("Expected progress in [0, 1], but got " + progress);
+        }
+        return new PollResult<>(false, null, progress);
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /** @return the final value, null if the result is not {@link #isDone() done} */
+    public T getValue() {
+        return value;
+    }
+
+    /** @return whether the result carries the progress of the operation */
+    public boolean hasProgress() {
+        return progress != NO_PROGRESS;
+    }
+
+    /** @return the completed fraction of the operation, in [0, 1], or -1 if unknown */
+    public double getProgress() {
+        return progress;
+    }
+
+    @Override
+    public String toString() {
+        if (done) {
+            return "PollResult{done, value=" + value + "}";
+        }
+        return hasProgress() ? "PollResult{pending, progress=" + progress + "}" : "PollResult{pending}";
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Describes how often a {@link PollingScheduler} checks a condition.
+ *
+ * <p>The first check is done right away. While the condition reports no progress, the interval grows from the initial
+ * interval by the backoff multiplier up to the maximum interval. While the condition reports progress, the interval is
+ * shortened to the estimated time to completion, so the end of an operation is noticed early. Every interval is
+ * randomized by the jitter, so pollers started together do not hit the server together. Polling fails with a
+ * {@link java.util.concurrent.TimeoutException} once the timeout has elapsed.
+ *
+ * <p>Instances are immutable.
+ */
+public final class PollingPolicy {
+
+    /** Default multiplier applied to the interval after each check without progress. */
+    public static final double DEFAULT_BACKOFF_MULTIPLIER = 2.0;
+
+    /** Default jitter, i.e. intervals are randomized by up to 10% in either direction. */
+    public static final double DEFAULT_JITTER = 0.1;
+
+    private final Duration initialInterval;
+    private final Duration maxInterval;
+    private final Duration timeout;
+    private final double backoffMultiplier;
+    private final double jitter;
+
+    private PollingPolicy(
+            Duration initialInterval, Duration maxInterval, Duration timeout, double backoffMultiplier, double jitter) {
+        Objects.requireNonNull(initialInterval);
+        Objects.requireNonNull(maxInterval);
+        Objects.requireNonNull(timeout);
+        if (initialInterval.isNegative() || initialInterval.isZero()) {
+            throw new IllegalArgumentException("Expected positive initial interval, but got " + initialInterval);
+        }
+        if (maxInterval.compareTo(initialInterval) < 0) {
+            throw new IllegalArgumentException(
+                    "Maximum interval " + maxInterval + " is shorter than the initial interval " + initialInterval);
+        }
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("Expected non-negative timeout, but got " + timeout);
+        }
+        if (backoffMultiplier < 1) {
+            throw new IllegalArgumentException(
+                    "Expected backoff multiplier of at least 1, but got " + backoffMultiplier);
+        }
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("Expected jitter in [0, 1), but got " + jitter);
+        }
+
+        this.initialInterval = initialInterval;
+        this.maxInterval = maxInterval;
+        this.timeout = timeout;
+        this.backoffMultiplier = backoffMultiplier;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Creates a policy with the {@link #DEFAULT_BACKOFF_MULTIPLIER} and the {@link #DEFAULT_JITTER}.
+     *
+     * @param initialInterval the interval after the first check
+     * @param maxInterval the longest interval between two checks
+     * @param timeout the time after which polling fails
+     * @return the policy
+     */
+    public static PollingPolicy of(Duration initialInterval, Duration maxInterval, Duration timeout) {
+        return new PollingPolicy(initialInterval, maxInterval, timeout, DEFAULT_BACKOFF_MULTIPLIER, DEFAULT_JITTER);
+    }
+
+    /**
+     * Creates a policy which checks in a fixed interval, like a plain sleep loop does.
+     *
+     * @param interval the interval between two checks
+     * @param timeout the time after which polling fails
+     * @return the policy
+     */
+    public static PollingPolicy fixed(Duration interval, Duration timeout) {
+        return new PollingPolicy(interval, interval, timeout, 1, 0);
+    }
+
+    /**
+     * @param backoffMultiplier the multiplier applied to the interval after each check without progress; at least 1
+     * @return a copy of this policy with the given multiplier
+     */
+    public PollingPolicy withBackoffMultiplier(double backoffMultiplier) {
+        return new PollingPolicy(initialInterval, maxInterval, timeout, backoffMultiplier, jitter);
+    }
+
+    /**
+     * @param jitter the relative amount by which intervals are randomized, in [0, 1)
+     * @return a copy of this policy with the given jitter
+     */
+    public PollingPolicy withJitter(double jitter) {
+        return new PollingPolicy(initialInterval, maxInterval, timeout, backoffMultiplier, jitter);
+    }
+
+    /**
+     * @param timeout the time after which polling fails
+     * @return a copy of this policy with the given timeout
+     */
+    public PollingPolicy withTimeout(Duration timeout) {
+        return new PollingPolicy(initialInterval, maxInterval, timeout, backoffMultiplier, jitter);
+    }
+
+    public Duration getInitialInterval() {
+        return initialInterval;
+    }
+
+    public Duration getMaxInterval() {
+        return maxInterval;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public double getBackoffMultiplier() {
+        return backoffMultiplier;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    @Override
+    public String toString() {
+        return "PollingPolicy{initialInterval=" + initialInterval + ", maxInterval=" + maxInterval + ", timeout="
+                + timeout + ", backoffMultiplier=" + backoffMultiplier + ", jitter=" + jitter + "}";
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Polls long-running operations of the VCF Installer and SDDC Manager without blocking a thread per operation.
+ *
+ * <p>Each poller is a sequence of checks scheduled on a small shared thread pool according to a {@link PollingPolicy}.
+ * Between the checks no thread is held, so a single scheduler can track many operations at once. A {@link Check} runs
+ * on the scheduler threads and holds one of them until it returns, so it should be short. An {@link AsyncCheck}, e.g.
+ * an asynchronous API call, holds no thread while it waits for the server; prefer it for checks which wait for I/O.
+ *
+ * <p>This class is thread safe.
+ */
+public final class PollingScheduler implements Closeable {
+
+    /**
+     * Number of threads of the {@link #getDefault() default} scheduler. The pollers of this library use
+     * {@link AsyncCheck}s, which do not hold these threads while waiting for the server.
+     */
+    public static final int DEFAULT_THREADS = 2;
+
+    private static final Logger log = LoggerFactory.getLogger(PollingScheduler.class);
+
+    private static final AtomicInteger SCHEDULER_COUNT = new AtomicInteger();
+
+    private final ScheduledExecutorService executor;
+    private final Clock clock;
+    private final DoubleSupplier random;
+
+    /** A single check of a polled operation. */
+    @FunctionalInterface
+    public interface Check<T> {
+        /**
+         * @return whether the operation is done and, if not, how far it got
+         * @throws Exception to stop the polling; the exception fails the polling result
+         */
+        PollResult<T> check() throws Exception;
+    }
+
+    /** A single check of a polled operation which does not block while waiting, e.g. an asynchronous API call. */
+    @FunctionalInterface
+    public interface AsyncCheck<T> {
+        /**
+         * @return completes with whether the operation is done and, if not, how far it got; fails to stop the polling,
+         *     the failure then fails the polling result
+         */
+        CompletionStage<PollResult<T>> check();
+    }
+
+    /**
+     * Creates a scheduler with its own daemon threads. The scheduler should be {@link #close() closed} when no longer
+     * needed.
+     *
+     * @param threads the number of threads running the checks
+     */
+    public PollingScheduler(int threads) {
+        this(createExecutor(threads), Clock.systemUTC(), () -> ThreadLocalRandom.current()
+                .nextDouble());
+    }
+
+    PollingScheduler(ScheduledExecutorService executor, Clock clock, DoubleSupplier random) {
+        this.executor = Objects.requireNonNull(executor);
+        this.clock = Objects.requireNonNull(clock);
+        this.random = Objects.requireNonNull(random);
+    }
+
+    /** @return the process-wide scheduler with {@value #DEFAULT_THREADS} daemon threads */
+    public static PollingScheduler getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * Starts polling the given check. Cancelling the returned future stops the polling.
+     *
+     * @param check the check, run on the scheduler threads
+     * @param policy when to run the check
+     * @return completes with the value of the first {@link PollResult#isDone() done} result; fails with the exception
+     *     thrown by the check, or with a {@link TimeoutException} once the policy timeout has elapsed
+     */
+    public <T> CompletableFuture<T> poll(Check<T> check, PollingPolicy policy) {
+        Objects.requireNonNull(check);
+
+        return pollAsync(
+                () -> {
+                    try {
+                        return CompletableFuture.completedFuture(check.check());
+                    } catch (Exception e) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                },
+                policy);
+    }
+
+    /**
+     * Starts polling the given asynchronous check. The next check is scheduled once the previous one has completed.
+     * Cancelling the returned future stops the polling.
+     *
+     * @param check the check, started on the scheduler threads
+     * @param policy when to run the check
+     * @return completes with the value of the first {@link PollResult#isDone() done} result; fails with the failure of
+     *     the check, or with a {@link TimeoutException} once the policy timeout has elapsed
+     */
+    public <T> CompletableFuture<T> pollAsync(AsyncCheck<T> check, PollingPolicy policy) {
+        Objects.requireNonNull(check);
+        Objects.requireNonNull(policy);
+
+        Poller<T> poller = new Poller<>(check, policy);
+        poller.schedule(0);
+        return poller.result;
+    }
+
+    /** Stops all pollers of this scheduler. Has no effect on the {@link #getDefault() default} scheduler. */
+    @Override
+    public void close() {
+        if (this != DefaultHolder.INSTANCE) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ScheduledExecutorService createExecutor(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Expected positive number of threads, but got " + threads);
+        }
+
+        int schedulerId = SCHEDULER_COUNT.incrementAndGet();
+        AtomicInteger threadCount = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "vcf-poller-" + schedulerId + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * The state of a single polled operation. Only touched by one thread at a time, as a check is scheduled once the
+     * previous one has completed.
+     */
+    private final class Poller<T> {
+        private final AsyncCheck<T> check;
+        private final PollingPolicy policy;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final long deadlineMs;
+
+        private volatile ScheduledFuture<?> scheduled;
+        private long intervalMs;
+        private boolean firstCheck = true;
+        private double lastProgress = -1;
+        private long lastProgressMs;
+
+        Poller(AsyncCheck<T> check, PollingPolicy policy) {
+            this.check = check;
+            this.policy = policy;
+            this.deadlineMs = saturatedAdd(clock.millis(), policy.getTimeout().toMillis());
+            this.intervalMs = policy.getInitialInterval().toMillis();
+            result.whenComplete((value, e) -> {
+                ScheduledFuture<?> next = scheduled;
+                if (next != null) {
+                    next.cancel(false);
+                }
+            });
+        }
+
+        void schedule(long delayMs) {
+            try {
+                scheduled = executor.schedule(this::run, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        private void run() {
+            if (result.isDone()) {
+                return;
+            }
+
+            CompletionStage<PollResult<T>> pending;
+            try {
+                pending = Objects.requireNonNull(check.check(), "check result");
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            pending.whenComplete(this::checked);
+        }
+
+        private void checked(PollResult<T> pollResult, Throwable failure) {
+            if (failure != null) {
+                result.completeExceptionally(
+                        failure instanceof CompletionException && failure.getCause() != null
+                                ? failure.getCause()
+                                : failure);
+                return;
+            }
+            if (result.isDone()) {
+                // cancelled while the check was running
+                return;
+            }
+            if (pollResult == null) {
+                result.completeExceptionally(new NullPointerException("check result"));
+                return;
+            }
+
+            if (pollResult.isDone()) {
+                result.complete(pollResult.getValue());
+                return;
+            }
+
+            long now = clock.millis();
+            if (now >= deadlineMs) {
+                result.completeExceptionally(new TimeoutException(
+                        "Polling has timed out after " + policy.getTimeout().toMillis() + " ms."));
+                return;
+            }
+
+            long delayMs = Math.min(nextInterval(pollResult, now), deadlineMs - now);
+            log.debug("Operation still in progress ({}), checking again in {} ms", pollResult, delayMs);
+            schedule(delayMs);
+        }
+
+        private long nextInterval(PollResult<T> pollResult, long now) {
+            long initialMs = policy.getInitialInterval().toMillis();
+            long maxMs = policy.getMaxInterval().toMillis();
+
+            double progress = pollResult.getProgress();
+            if (firstCheck) {
+                firstCheck = false;
+            } else if (pollResult.hasProgress()
+                    && lastProgress >= 0
+                    && progress > lastProgress
+                    && now > lastProgressMs) {
+                // the operation is moving - aim at the moment it is expected to finish, but do not slow down
+                double rate = (progress - lastProgress) / (now - lastProgressMs);
+                long remainingMs = (long) Math.min((1 - progress) / rate, (double) Long.MAX_VALUE);
+                intervalMs = Math.max(initialMs, Math.min(intervalMs, remainingMs));
+            } else {
+                intervalMs = (long) Math.min(intervalMs * policy.getBackoffMultiplier(), maxMs);
+            }
+            if (pollResult.hasProgress() && progress != lastProgress) {
+                lastProgress = progress;
+                lastProgressMs = now;
+            }
+
+            double jitter = policy.getJitter() * (2 * random.getAsDouble() - 1);
+            return Math.max(1, Math.round(intervalMs * (1 + jitter)));
+        }
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return ((a ^ sum) & (b ^ sum)) < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static final class DefaultHolder {
+        static final PollingScheduler INSTANCE = new PollingScheduler(DEFAULT_THREADS);
+    }
+}
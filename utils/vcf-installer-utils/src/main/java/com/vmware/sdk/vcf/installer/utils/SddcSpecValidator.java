@@ -0,0 +1,476 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.sdk.vcf.installer.model.IpAddressPoolRangeSpec;
+import com.vmware.sdk.vcf.installer.model.IpAddressPoolSubnetSpec;
+import com.vmware.sdk.vcf.installer.model.IpRange;
+import com.vmware.sdk.vcf.installer.model.NsxtManagerSpec;
+import com.vmware.sdk.vcf.installer.model.SddcHostSpec;
+import com.vmware.sdk.vcf.installer.model.SddcNetworkSpec;
+import com.vmware.sdk.vcf.installer.model.SddcNsxtSpec;
+import com.vmware.sdk.vcf.installer.model.SddcSpec;
+import com.vmware.sdk.vcf.installer.model.VcfAutomationSpec;
+import com.vmware.sdk.vcf.installer.model.VcfOperationsNode;
+import com.vmware.sdk.vcf.installer.model.VsanSpec;
+import com.vmware.sdk.vcf.installer.utils.Ipv4IntervalTree.Interval;
+import com.vmware.sdk.vcf.installer.utils.SpecValidationResult.Issue;
+import com.vmware.sdk.vcf.installer.utils.SpecValidationResult.Severity;
+
+/**
+ * Validates an {@link SddcSpec} locally, before it is sent to the VCF Installer for validation.
+ *
+ * <p>The server-side validation takes many minutes, while the structural mistakes it reports most often can be found in
+ * milliseconds without a server:
+ *
+ * <ul>
+ *   <li>malformed versions, host names and addresses;
+ *   <li>host names used more than once, across hosts and appliances;
+ *   <li>gateways and IP ranges outside of their subnet, IP ranges overlapping each other and gateways inside IP ranges;
+ *   <li>IP ranges with fewer addresses than there are hosts;
+ *   <li>vSAN storage without a vSAN network or with too few hosts for the failures to tolerate.
+ * </ul>
+ *
+ * <p>Only IPv4 addresses are checked; IPv6 addresses are skipped. Passing the local validation does not mean that the
+ * server-side validation passes, as the latter also checks the reachability and the state of the hosts.
+ */
+public final class SddcSpecValidator {
+
+    private static final Logger log = LoggerFactory.getLogger(SddcSpecValidator.class);
+
+    private static final Pattern VERSION = Pattern.compile("\\d+(\\.\\d+){2,4}");
+
+    private static final Pattern HOSTNAME_LABEL = Pattern.compile("[a-zA-Z0-9]([a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?");
+
+    private static final int MAX_HOSTNAME_LENGTH = 253;
+
+    private static final int MAX_VLAN_ID = 4094;
+
+    private static final String VSAN_NETWORK_TYPE = "VSAN";
+    private static final String VMOTION_NETWORK_TYPE = "VMOTION";
+
+    private SddcSpecValidator() {}
+
+    /**
+     * Validates the spec.
+     *
+     * @param spec the spec to validate
+     * @return the issues found
+     */
+    public static SpecValidationResult validate(SddcSpec spec) {
+        long start = System.nanoTime();
+        Validation validation = new Validation();
+        validation.validate(spec);
+        SpecValidationResult result = new SpecValidationResult(validation.issues);
+        log.debug(
+                "Validated the SDDC spec locally in {} us with {} issues",
+                (System.nanoTime() - start) / 1000,
+                result.getIssues().size());
+        return result;
+    }
+
+    /**
+     * Validates the spec and fails if it has errors. Warnings are logged.
+     *
+     * @param spec the spec to validate
+     * @throws IllegalArgumentException if the spec has errors
+     */
+    public static void validateAndFailOnError(SddcSpec spec) {
+        SpecValidationResult result = validate(spec);
+        for (Issue warning : result.getWarnings()) {
+            log.warn("{}", warning);
+        }
+        if (!result.isValid()) {
+            throw new IllegalArgumentException("The SDDC spec is invalid. " + result);
+        }
+    }
+
+    /** State of a single validation run. */
+    private static final class Validation {
+        private final List<Issue> issues = new ArrayList<>();
+
+        /** Host names in lower case, mapped to the path of their first use. */
+        private final Map<String, String> hostnames = new HashMap<>();
+
+        /** Ranges handed out to hosts and appliances, with their paths. */
+        private final List<Interval<String>> ranges = new ArrayList<>();
+
+        /** Gateways, with their paths. */
+        private final List<Interval<String>> gateways = new ArrayList<>();
+
+        void validate(SddcSpec spec) {
+            if (spec.getVersion() == null || !VERSION.matcher(spec.getVersion()).matches()) {
+                error("MALFORMED_VERSION", "version", "Expected a version like 9.0.0.0, but got " + spec.getVersion());
+            }
+            if (isBlank(spec.getSddcId())) {
+                error("MISSING_VALUE", "sddcId", "The SDDC ID is not set");
+            }
+
+            List<SddcHostSpec> hosts = spec.getHostSpecs() == null ? List.of() : spec.getHostSpecs();
+            validateHosts(hosts);
+            validateAppliances(spec);
+            validateNetworks(spec.getNetworkSpecs(), hosts.size());
+            validateNsxt(spec.getNsxtSpec(), hosts.size());
+            validateVcfAutomation(spec.getVcfAutomationSpec());
+            validateVsan(spec, hosts.size());
+            validateAddressConflicts();
+        }
+
+        private void validateHosts(List<SddcHostSpec> hosts) {
+            Map<String, String> thumbprints = new HashMap<>();
+            for (int i = 0; i < hosts.size(); i++) {
+                SddcHostSpec host = hosts.get(i);
+                String path = "hostSpecs[" + i + "]";
+                hostname(path + ".hostname", host.getHostname());
+
+                if (host.getCredentials() == null
+                        || isBlank(host.getCredentials().getPassword())) {
+                    error("MISSING_VALUE", path + ".credentials", "The host has no password");
+                }
+                String thumbprint = host.getSslThumbprint();
+                if (!isBlank(thumbprint)) {
+                    String first = thumbprints.putIfAbsent(thumbprint.toUpperCase(Locale.ROOT), path);
+                    if (first != null) {
+                        warning(
+                                "DUPLICATE_THUMBPRINT",
+                                path + ".sslThumbprint",
+                                "The host has the same SSL thumbprint as " + first);
+                    }
+                }
+            }
+        }
+
+        private void validateAppliances(SddcSpec spec) {
+            if (spec.getVcenterSpec() != null) {
+                hostname("vcenterSpec.vcenterHostname", spec.getVcenterSpec().getVcenterHostname());
+            }
+            if (spec.getSddcManagerSpec() != null) {
+                hostname("sddcManagerSpec.hostname", spec.getSddcManagerSpec().getHostname());
+            }
+            if (spec.getNsxtSpec() != null) {
+                List<NsxtManagerSpec> managers = spec.getNsxtSpec().getNsxtManagers();
+                for (int i = 0; managers != null && i < managers.size(); i++) {
+                    hostname(
+                            "nsxtSpec.nsxtManagers[" + i + "].hostname",
+                            managers.get(i).getHostname());
+                }
+                hostname("nsxtSpec.vipFqdn", spec.getNsxtSpec().getVipFqdn());
+            }
+            if (spec.getVcfOperationsSpec() != null) {
+                List<VcfOperationsNode> nodes = spec.getVcfOperationsSpec().getNodes();
+                for (int i = 0; nodes != null && i < nodes.size(); i++) {
+                    hostname(
+                            "vcfOperationsSpec.nodes[" + i + "].hostname",
+                            nodes.get(i).getHostname());
+                }
+            }
+            if (spec.getVcfOperationsCollectorSpec() != null) {
+                hostname(
+                        "vcfOperationsCollectorSpec.hostname",
+                        spec.getVcfOperationsCollectorSpec().getHostname());
+            }
+            if (spec.getVcfOperationsFleetManagementSpec() != null) {
+                hostname(
+                        "vcfOperationsFleetManagementSpec.hostname",
+                        spec.getVcfOperationsFleetManagementSpec().getHostname());
+            }
+            if (spec.getVcfAutomationSpec() != null) {
+                hostname(
+                        "vcfAutomationSpec.hostname",
+                        spec.getVcfAutomationSpec().getHostname());
+            }
+        }
+
+        private void validateNetworks(List<SddcNetworkSpec> networks, int hostCount) {
+            if (networks == null) {
+                return;
+            }
+
+            Map<String, String> networkTypes = new HashMap<>();
+            for (int i = 0; i < networks.size(); i++) {
+                SddcNetworkSpec network = networks.get(i);
+                String path = "networkSpecs[" + i + "]";
+
+                String first = networkTypes.putIfAbsent(String.valueOf(network.getNetworkType()), path);
+                if (first != null) {
+                    error(
+                            "DUPLICATE_NETWORK_TYPE",
+                            path + ".networkType",
+                            "The network type " + network.getNetworkType() + " is also used by " + first);
+                }
+                Long vlanId = network.getVlanId();
+                if (vlanId != null && (vlanId < 0 || vlanId > MAX_VLAN_ID)) {
+                    error("INVALID_VLAN", path + ".vlanId", "Expected VLAN ID in [0, 4094], but got " + vlanId);
+                }
+
+                long[] subnet = subnet(path + ".subnet", network.getSubnet());
+                gateway(path + ".gateway", network.getGateway(), subnet);
+
+                List<IpRange> ipRanges = network.getIncludeIpAddressRanges();
+                long capacity = 0;
+                for (int j = 0; ipRanges != null && j < ipRanges.size(); j++) {
+                    IpRange ipRange = ipRanges.get(j);
+                    capacity += range(
+                            path + ".includeIpAddressRanges[" + j + "]",
+                            ipRange.getStartIpAddress(),
+                            ipRange.getEndIpAddress(),
+                            subnet);
+                }
+
+                // every host gets an address from the vSAN and the vMotion network
+                boolean perHost = VSAN_NETWORK_TYPE.equals(network.getNetworkType())
+                        || VMOTION_NETWORK_TYPE.equals(network.getNetworkType());
+                if (perHost && ipRanges != null && !ipRanges.isEmpty() && capacity < hostCount) {
+                    error(
+                            "IP_RANGE_TOO_SMALL",
+                            path + ".includeIpAddressRanges",
+                            "The ranges have " + capacity + " addresses for " + hostCount + " hosts");
+                }
+            }
+        }
+
+        private void validateNsxt(SddcNsxtSpec nsxt, int hostCount) {
+            if (nsxt == null) {
+                return;
+            }
+            Long transportVlanId = nsxt.getTransportVlanId();
+            if (transportVlanId != null && (transportVlanId < 0 || transportVlanId > MAX_VLAN_ID)) {
+                error(
+                        "INVALID_VLAN",
+                        "nsxtSpec.transportVlanId",
+                        "Expected VLAN ID in [0, 4094], but got " + transportVlanId);
+            }
+            if (nsxt.getIpAddressPoolSpec() == null
+                    || nsxt.getIpAddressPoolSpec().getSubnets() == null) {
+                return;
+            }
+
+            List<IpAddressPoolSubnetSpec> subnets = nsxt.getIpAddressPoolSpec().getSubnets();
+            long capacity = 0;
+            for (int i = 0; i < subnets.size(); i++) {
+                IpAddressPoolSubnetSpec poolSubnet = subnets.get(i);
+                String path = "nsxtSpec.ipAddressPoolSpec.subnets[" + i + "]";
+                long[] subnet = subnet(path + ".cidr", poolSubnet.getCidr());
+                gateway(path + ".gateway", poolSubnet.getGateway(), subnet);
+
+                List<IpAddressPoolRangeSpec> poolRanges = poolSubnet.getIpAddressPoolRanges();
+                for (int j = 0; poolRanges != null && j < poolRanges.size(); j++) {
+                    IpAddressPoolRangeSpec poolRange = poolRanges.get(j);
+                    capacity += range(
+                            path + ".ipAddressPoolRanges[" + j + "]", poolRange.getStart(), poolRange.getEnd(), subnet);
+                }
+            }
+
+            // every host needs at least one tunnel endpoint
+            if (capacity > 0 && capacity < hostCount) {
+                error(
+                        "IP_RANGE_TOO_SMALL",
+                        "nsxtSpec.ipAddressPoolSpec",
+                        "The TEP pool has " + capacity + " addresses for " + hostCount + " hosts");
+            }
+        }
+
+        private void validateVcfAutomation(VcfAutomationSpec automation) {
+            if (automation == null || automation.getIpPool() == null) {
+                return;
+            }
+            List<String> ipPool = automation.getIpPool();
+            if (ipPool.size() != 2) {
+                error(
+                        "MALFORMED_RANGE",
+                        "vcfAutomationSpec.ipPool",
+                        "Expected the first and the last address of the pool, but got " + ipPool);
+                return;
+            }
+            range("vcfAutomationSpec.ipPool", ipPool.get(0), ipPool.get(1), null);
+        }
+
+        private void validateVsan(SddcSpec spec, int hostCount) {
+            VsanSpec vsan = spec.getDatastoreSpec() == null
+                    ? null
+                    : spec.getDatastoreSpec().getVsanSpec();
+            if (vsan == null) {
+                return;
+            }
+            if (isBlank(vsan.getDatastoreName())) {
+                error("MISSING_VALUE", "datastoreSpec.vsanSpec.datastoreName", "The vSAN datastore name is not set");
+            }
+
+            // mirroring tolerates n failures with 2n + 1 hosts
+            Long failuresToTolerate = vsan.getFailuresToTolerate();
+            if (failuresToTolerate != null && hostCount < 2 * failuresToTolerate + 1) {
+                error(
+                        "INSUFFICIENT_HOSTS",
+                        "datastoreSpec.vsanSpec.failuresToTolerate",
+                        "Tolerating " + failuresToTolerate + " failures needs " + (2 * failuresToTolerate + 1)
+                                + " hosts, but the spec has " + hostCount);
+            }
+
+            List<SddcNetworkSpec> networks = spec.getNetworkSpecs();
+            if (networks != null
+                    && !networks.isEmpty()
+                    && networks.stream().noneMatch(n -> VSAN_NETWORK_TYPE.equals(n.getNetworkType()))) {
+                error("MISSING_REFERENCE", "networkSpecs", "vSAN storage needs a network of type " + VSAN_NETWORK_TYPE);
+            }
+        }
+
+        /** Checks the collected ranges and gateways against each other. */
+        private void validateAddressConflicts() {
+            Ipv4IntervalTree<String> tree = new Ipv4IntervalTree<>(ranges);
+            for (List<Interval<String>> pair : tree.findOverlappingPairs()) {
+                error(
+                        "RANGE_OVERLAP",
+                        pair.get(1).value,
+                        "The range " + pair.get(1) + " overlaps the range " + pair.get(0) + " at " + pair.get(0).value);
+            }
+            for (Interval<String> gateway : gateways) {
+                for (Interval<String> range : tree.findContaining(gateway.first)) {
+                    error(
+                            "GATEWAY_IN_RANGE",
+                            gateway.value,
+                            "The gateway " + Ipv4IntervalTree.format(gateway.first) + " is inside the range " + range
+                                    + " at " + range.value);
+                }
+            }
+        }
+
+        private void hostname(String path, String hostname) {
+            if (isBlank(hostname)) {
+                error("MISSING_VALUE", path, "The host name is not set");
+                return;
+            }
+
+            String normalized = hostname.trim().toLowerCase(Locale.ROOT);
+            if (normalized.endsWith(".")) {
+                normalized = normalized.substring(0, normalized.length() - 1);
+            }
+            String first = hostnames.putIfAbsent(normalized, path);
+            if (first != null) {
+                error("DUPLICATE_FQDN", path, "The host name " + hostname + " is also used by " + first);
+            }
+
+            if (Ipv4IntervalTree.parseAddress(normalized) >= 0 || normalized.contains(":")) {
+                return;
+            }
+            if (normalized.length() > MAX_HOSTNAME_LENGTH) {
+                error("MALFORMED_FQDN", path, "The host name is longer than " + MAX_HOSTNAME_LENGTH + " characters");
+                return;
+            }
+            String[] labels = normalized.split("\\.", -1);
+            for (String label : labels) {
+                if (!HOSTNAME_LABEL.matcher(label).matches()) {
+                    error(
+                            "MALFORMED_FQDN",
+                            path,
+                            "The host name " + hostname + " has the invalid label '" + label + "'");
+                    return;
+                }
+            }
+            if (labels.length < 2) {
+                warning("NOT_FQDN", path, "The host name " + hostname + " is not fully qualified");
+            }
+        }
+
+        /** @return the first and last address of the subnet, or null if it is not set or not IPv4 */
+        private long[] subnet(String path, String cidr) {
+            if (isBlank(cidr)) {
+                error("MISSING_VALUE", path, "The subnet is not set");
+                return null;
+            }
+            if (cidr.contains(":")) {
+                return null;
+            }
+            long[] subnet = Ipv4IntervalTree.parseCidr(cidr);
+            if (subnet == null) {
+                error("MALFORMED_ADDRESS", path, "Expected a subnet like 10.0.0.0/24, but got " + cidr);
+            }
+            return subnet;
+        }
+
+        private void gateway(String path, String gateway, long[] subnet) {
+            if (isBlank(gateway)) {
+                error("MISSING_VALUE", path, "The gateway is not set");
+                return;
+            }
+            long address = address(path, gateway);
+            if (address < 0) {
+                return;
+            }
+            if (subnet != null) {
+                if (address < subnet[0] || address > subnet[1]) {
+                    error("OUTSIDE_SUBNET", path, "The gateway " + gateway + " is outside of the subnet");
+                } else if (subnet[1] - subnet[0] > 1 && (address == subnet[0] || address == subnet[1])) {
+                    error(
+                            "OUTSIDE_SUBNET",
+                            path,
+                            "The gateway " + gateway + " is the network or broadcast address of the subnet");
+                }
+            }
+            gateways.add(new Interval<>(address, address, path));
+        }
+
+        /** @return the number of addresses in the range, 0 if it is invalid */
+        private long range(String path, String start, String end, long[] subnet) {
+            long first = address(path, start);
+            long last = address(path, end);
+            if (first < 0 || last < 0) {
+                return 0;
+            }
+            if (first > last) {
+                error("MALFORMED_RANGE", path, "The range " + start + "-" + end + " ends before it starts");
+                return 0;
+            }
+            if (subnet != null && (first < subnet[0] || last > subnet[1])) {
+                error("OUTSIDE_SUBNET", path, "The range " + start + "-" + end + " is not inside of the subnet");
+            }
+            ranges.add(new Interval<>(first, last, path));
+            return last - first + 1;
+        }
+
+        /** @return the address, or -1 if it is missing, IPv6 or malformed */
+        private long address(String path, String text) {
+            if (isBlank(text)) {
+                error("MISSING_VALUE", path, "The address is not set");
+                return -1;
+            }
+            if (text.contains(":")) {
+                return -1;
+            }
+            long address = Ipv4IntervalTree.parseAddress(text);
+            if (address < 0) {
+                error("MALFORMED_ADDRESS", path, "Expected an IPv4 address, but got " + text);
+            }
+            return address;
+        }
+
+        private void error(String code, String path, String message) {
+            issues.add(new Issue(Severity.ERROR, code, path, message));
+        }
+
+        private void warning(String code, String path, String message) {
+            issues.add(new Issue(Severity.WARNING, code, path, message));
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
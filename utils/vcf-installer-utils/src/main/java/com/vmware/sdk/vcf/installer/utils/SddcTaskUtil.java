@@ -13,7 +13,9 @@ package com.vmware.sdk.vcf.installer.utils;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.BiFunction;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,7 +26,6 @@ import com.vmware.sdk.vcf.installer.model.Validation;
 import com.vmware.sdk.vcf.installer.model.ValidationCheck;
 import com.vmware.sdk.vcf.installer.v1.Sddcs;
 import com.vmware.sdk.vcf.installer.v1.sddcs.Validations;
-import com.vmware.vapi.bindings.Service;
 
 /** Util class used for task monitoring. */
 public class SddcTaskUtil {
@@ -55,6 +56,9 @@ public class SddcTaskUtil {
     private static final long SDDCM_DEPLOY_TIME_BETWEEN_POLLS_MS =
             Duration.ofSeconds(60).toMillis();
 
+    /** Time to wait before the second poll of a task; later polls back off up to the configured time between polls. */
+    private static final Duration FIRST_POLL_INTERVAL = Duration.ofSeconds(2);
+
     /** Time in milliseconds after which a sddc deploy task is no longer polled and a timeout exception is thrown. */
     private static final long SDDCM_DEPLOY_TASK_TIMEOUT_MS =
             Duration.ofHours(10).toMillis();
@@ -98,15 +102,38 @@ public class SddcTaskUtil {
      */
     public static boolean waitForValidationTask(
             Validations validations, String validationTaskId, long timeBetweenPollMs, long taskWaitTimeoutMs) {
+        return awaitTask(
+                waitForValidationTaskAsync(validations, validationTaskId, timeBetweenPollMs, taskWaitTimeoutMs),
+                validationTaskId,
+                taskWaitTimeoutMs);
+    }
+
+    /**
+     * Waits for validation task to finish without blocking the calling thread. The task is polled on the
+     * {@link PollingScheduler#getDefault() default polling scheduler}, in intervals growing up to the given one.
+     *
+     * @param validations Invokable Validations Stub used for polling VCF Installer Appliance.
+     * @param validationTaskId ID of the validation task.
+     * @param timeBetweenPollMs Longest time in milliseconds to wait between calls to VCF Installer Appliance.
+     * @param taskWaitTimeoutMs Time in milliseconds after which a validation task is no longer polled and the result
+     *     fails with a {@link TimeoutException}.
+     * @return completes with true if the task is completed successfully.
+     */
+    public static CompletableFuture<Boolean> waitForValidationTaskAsync(
+            Validations validations, String validationTaskId, long timeBetweenPollMs, long taskWaitTimeoutMs) {
         log.info("Waiting for validation task '{}' to finish", validationTaskId);
-        return waitForTask(validations, validationTaskId, timeBetweenPollMs, taskWaitTimeoutMs, (invokable, taskId) -> {
-            Validation validation = getValidation((Validations) invokable, validationTaskId);
-            String execStatus = validation.getExecutionStatus();
-            if (!IN_PROGRESS.equals(execStatus)) {
-                logValidationResult(validation);
-            }
-            return execStatus;
-        });
+        return waitForTask(validationTaskId, timeBetweenPollMs, taskWaitTimeoutMs, () -> validations
+                .getSddcSpecValidation(validationTaskId)
+                .invoke()
+                .toCompletableFuture()
+                .<PollResult<String>>thenApply(validation -> {
+                    String execStatus = validation.getExecutionStatus();
+                    if (IN_PROGRESS.equals(execStatus)) {
+                        return PollResult.pending();
+                    }
+                    logValidationResult(validation);
+                    return PollResult.done(execStatus);
+                }));
     }
 
     /**
@@ -168,17 +195,43 @@ public class SddcTaskUtil {
      */
     public static boolean waitForSddcDeploymentTask(
             Sddcs sddc, String sddcDeploymentTaskId, long timeBetweenPollMs, long taskWaitTimeoutMs) {
+        return awaitTask(
+                waitForSddcDeploymentTaskAsync(sddc, sddcDeploymentTaskId, timeBetweenPollMs, taskWaitTimeoutMs),
+                sddcDeploymentTaskId,
+                taskWaitTimeoutMs);
+    }
+
+    /**
+     * Waits for sddc manager deployment task to finish without blocking the calling thread. The task is polled on the
+     * {@link PollingScheduler#getDefault() default polling scheduler}, in intervals growing up to the given one and
+     * shrinking again as the subtasks complete.
+     *
+     * @param sddc Invokable Sddcs Stub used for polling VCF Installer Appliance.
+     * @param sddcDeploymentTaskId ID of the sddc task.
+     * @param timeBetweenPollMs Longest time in milliseconds to wait between calls to VCF Installer Appliance.
+     * @param taskWaitTimeoutMs Time in milliseconds after which a sddc task is no longer polled and the result fails
+     *     with a {@link TimeoutException}.
+     * @return completes with true if the task is completed successfully.
+     */
+    public static CompletableFuture<Boolean> waitForSddcDeploymentTaskAsync(
+            Sddcs sddc, String sddcDeploymentTaskId, long timeBetweenPollMs, long taskWaitTimeoutMs) {
         log.info("Waiting for sddc task '{}' to finish", sddcDeploymentTaskId);
-        return waitForTask(sddc, sddcDeploymentTaskId, timeBetweenPollMs, taskWaitTimeoutMs, (invokable, taskId) -> {
-            try {
-                SddcTask sddcTask =
-                        ((Sddcs) invokable).getSddcTaskByID(taskId).invoke().get();
-                String taskStatus = sddcTask.getStatus();
-                if (!IN_PROGRESS.equals(taskStatus)) {
+        return waitForTask(sddcDeploymentTaskId, timeBetweenPollMs, taskWaitTimeoutMs, () -> sddc.getSddcTaskByID(
+                        sddcDeploymentTaskId)
+                .invoke()
+                .toCompletableFuture()
+                .<PollResult<String>>thenApply(sddcTask -> {
+                    String taskStatus = sddcTask.getStatus();
+                    if (IN_PROGRESS.equals(taskStatus)) {
+                        return PollResult.pending(getProgress(sddcTask));
+                    }
                     if (DEPLOYMENT_COMPLETED_WITH_SUCCESS.equals(taskStatus)) {
-                        log.info("Sddc Deployment Task '{}' has completed successfully", taskId);
+                        log.info("Sddc Deployment Task '{}' has completed successfully", sddcDeploymentTaskId);
                     } else if (taskStatus != null && taskStatus.contains(DEPLOYMENT_COMPLETED_WITH_FAILURE)) {
-                        log.error("Sddc Deployment Task '{}' has failed. Execution status: {}", taskId, taskStatus);
+                        log.error(
+                                "Sddc Deployment Task '{}' has failed. Execution status: {}",
+                                sddcDeploymentTaskId,
+                                taskStatus);
                         List<SddcSubTask> subTasks = sddcTask.getSddcSubTasks();
                         for (SddcSubTask subTask : subTasks) {
                             if (subTask.getStatus().contains(DEPLOYMENT_COMPLETED_WITH_FAILURE)) {
@@ -189,45 +242,63 @@ public class SddcTaskUtil {
                             }
                         }
                     }
-                }
-                return taskStatus;
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        });
+                    return PollResult.done(taskStatus);
+                }));
     }
 
-    private static boolean waitForTask(
-            Service client,
-            String taskId,
-            long timeBetweenPollMs,
-            long taskWaitTimeoutMs,
-            BiFunction<Service, String, String> function) {
-        long startTime = System.currentTimeMillis();
-        long now = startTime;
-
-        while (now < startTime + taskWaitTimeoutMs) {
-            now = System.currentTimeMillis();
-            try {
-                String taskStatus = function.apply(client, taskId);
-                if (IN_PROGRESS.equals(taskStatus)) {
-                    log.info(
-                            "Status for task '{}' is still in progress. Will check again in {} seconds.",
-                            taskId,
-                            Duration.ofMillis(timeBetweenPollMs).getSeconds());
-                    Thread.sleep(timeBetweenPollMs);
-                } else {
+    private static CompletableFuture<Boolean> waitForTask(
+            String taskId, long timeBetweenPollMs, long taskWaitTimeoutMs, PollingScheduler.AsyncCheck<String> check) {
+        Duration maxInterval = Duration.ofMillis(timeBetweenPollMs);
+        Duration initialInterval = maxInterval.compareTo(FIRST_POLL_INTERVAL) < 0 ? maxInterval : FIRST_POLL_INTERVAL;
+        PollingPolicy policy = PollingPolicy.of(initialInterval, maxInterval, Duration.ofMillis(taskWaitTimeoutMs));
+
+        return PollingScheduler.getDefault()
+                .pollAsync(
+                        () -> check.check().thenApply(result -> {
+                            if (!result.isDone()) {
+                                log.info("Status for task '{}' is still in progress.", taskId);
+                            }
+                            return result;
+                        }),
+                        policy)
+                .thenApply(taskStatus -> {
                     log.info("Task status is: {}", taskStatus);
                     return VALIDATION_COMPLETED.equals(taskStatus)
                             || DEPLOYMENT_COMPLETED_WITH_SUCCESS.equals(taskStatus);
-                }
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+                });
+    }
+
+    private static boolean awaitTask(CompletableFuture<Boolean> task, String taskId, long taskWaitTimeoutMs) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new RuntimeException(String.format(
+                        "Timed out for task '%s' after %s seconds",
+                        taskId, Duration.ofMillis(taskWaitTimeoutMs).getSeconds()));
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /** @return the fraction of completed subtasks */
+    private static double getProgress(SddcTask sddcTask) {
+        List<SddcSubTask> subTasks = sddcTask.getSddcSubTasks();
+        if (subTasks == null || subTasks.isEmpty()) {
+            return 0;
         }
-        throw new RuntimeException(String.format(
-                "Timed out for task '%s' after %s seconds",
-                taskId, Duration.ofMillis(taskWaitTimeoutMs).getSeconds()));
+        long completed = subTasks.stream()
+                .filter(subTask ->
+                        subTask.getStatus() != null && subTask.getStatus().startsWith("COMPLETED"))
+                .count();
+        return (double) completed / subTasks.size();
     }
 
     private static void logValidationResult(Validation validation) {
@@ -0,0 +1,102 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Outcome of a local validation of an SDDC spec by the {@link SddcSpecValidator}.
+ *
+ * <p>Instances are immutable.
+ */
+public final class SpecValidationResult {
+
+    public enum Severity {
+        /** The server-side validation or the deployment would fail. */
+        ERROR,
+        /** The spec is likely not what was intended, but may be deployable. */
+        WARNING
+    }
+
+    /** A single finding of the validation. */
+    public static final class Issue {
+        private final Severity severity;
+        private final String code;
+        private final String path;
+        private final String message;
+
+        Issue(Severity severity, String code, String path, String message) {
+            this.severity = severity;
+            this.code = code;
+            this.path = path;
+            this.message = message;
+        }
+
+        public Severity getSeverity() {
+            return severity;
+        }
+
+        /** @return a stable identifier of the kind of issue, e.g. {@code DUPLICATE_FQDN} */
+        public String getCode() {
+            return code;
+        }
+
+        /** @return the location of the offending value in the spec, e.g. {@code hostSpecs[2].hostname} */
+        public String getPath() {
+            return path;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return severity + " " + code + " at " + path + ": " + message;
+        }
+    }
+
+    private final List<Issue> issues;
+
+    SpecValidationResult(List<Issue> issues) {
+        this.issues = Collections.unmodifiableList(issues);
+    }
+
+    /** @return all issues, in the order in which they were found */
+    public List<Issue> getIssues() {
+        return issues;
+    }
+
+    /** @return the issues with {@link Severity#ERROR} */
+    public List<Issue> getErrors() {
+        return issues.stream().filter(i -> i.severity == Severity.ERROR).collect(Collectors.toList());
+    }
+
+    /** @return the issues with {@link Severity#WARNING} */
+    public List<Issue> getWarnings() {
+        return issues.stream().filter(i -> i.severity == Severity.WARNING).collect(Collectors.toList());
+    }
+
+    /** @return whether no errors were found; warnings do not make a spec invalid */
+    public boolean isValid() {
+        return issues.stream().noneMatch(i -> i.severity == Severity.ERROR);
+    }
+
+    @Override
+    public String toString() {
+        if (issues.isEmpty()) {
+            return "No issues found";
+        }
+        return issues.stream().map(Issue::toString).collect(Collectors.joining("\n\t", "Issues found:\n\t", ""));
+    }
+}
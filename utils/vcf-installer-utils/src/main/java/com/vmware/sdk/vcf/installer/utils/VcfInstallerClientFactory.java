@@ -18,13 +18,12 @@ import static com.vmware.vapi.internal.protocol.RestProtocol.REST_REQUEST_AUTHEN
 
 import java.net.URISyntaxException;
 import java.security.KeyStore;
-import java.util.concurrent.CompletionStage;
-import java.util.function.Supplier;
 
 import org.apache.http.client.utils.URIBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.vmware.sdk.utils.auth.AccessTokenManager;
 import com.vmware.sdk.utils.ssl.vapi.HttpConfigHelper;
 import com.vmware.sdk.vcf.installer.model.TokenCreationSpec;
 import com.vmware.sdk.vcf.installer.model.TokenPair;
@@ -167,6 +166,45 @@ public class VcfInstallerClientFactory {
      */
     public ApiClient createClient(
             String hostAddress, int port, String username, String password, HttpConfiguration httpConfig) {
+        AccessTokenManager tokenManager = createTokenManager(hostAddress, port, username, password, httpConfig);
+        tokenManager.startProactiveRefresh();
+        return createClient(hostAddress, port, tokenManager, httpConfig);
+    }
+
+    /**
+     * Creates a new {@link ApiClient} which authenticates with the access token of the given manager. The manager can
+     * be shared by several clients of the same appliance.
+     *
+     * @param hostAddress VCF Installer's FQDN or IP address.
+     * @param port VCF Installer's TCP port for API requests.
+     * @param tokenManager provides the access tokens.
+     * @param httpConfig configuration for vApi stubs.
+     * @return a client which can be used to create API stubs.
+     * @see #createTokenManager(String, int, String, String, HttpConfiguration)
+     */
+    public ApiClient createClient(
+            String hostAddress, int port, AccessTokenManager tokenManager, HttpConfiguration httpConfig) {
+        Configuration configuration = new Configuration.Builder()
+                .registerHttpConfiguration(httpConfig)
+                .configureBearerAuthentication(tokenManager.getAccessToken(), tokenManager)
+                .build();
+
+        return ApiClients.newRestClient(createUrl(hostAddress, port), configuration);
+    }
+
+    /**
+     * Acquires a token pair from the VCF Installer and creates a manager which refreshes it. When the refresh token is
+     * no longer accepted, the manager creates a new token pair with the given credentials.
+     *
+     * @param hostAddress VCF Installer's FQDN or IP address.
+     * @param port VCF Installer's TCP port for API requests.
+     * @param username VCF Installer username.
+     * @param password password for the username.
+     * @param httpConfig configuration for vApi stubs.
+     * @return the token manager, without proactive refresh started.
+     */
+    public AccessTokenManager createTokenManager(
+            String hostAddress, int port, String username, String password, HttpConfiguration httpConfig) {
         TokenPair tokenPair;
         try {
             tokenPair = getTokenPair(hostAddress, port, username, password, httpConfig);
@@ -175,24 +213,25 @@ public class VcfInstallerClientFactory {
             throw new RuntimeException(e);
         }
 
-        var supplier = createTokenSupplier(hostAddress, port, httpConfig, tokenPair);
-
-        char[] accessToken = tokenPair.getAccessToken().toCharArray();
-        Configuration configuration = new Configuration.Builder()
-                .registerHttpConfiguration(httpConfig)
-                .configureBearerAuthentication(accessToken, supplier)
+        var client = getBasicAuthApiClient(hostAddress, port, httpConfig);
+        var refresh = client.createStub(Refresh.class);
+        var tokens = client.createStub(Tokens.class);
+        TokenCreationSpec tokenCreationSpec = new TokenCreationSpec.Builder()
+                .setUsername(username)
+                .setPassword(password)
                 .build();
 
-        return ApiClients.newRestClient(createUrl(hostAddress, port), configuration);
+        return new AccessTokenManager(
+                toIssuedTokens(tokenPair),
+                refreshToken -> refresh.refreshAccessToken(refreshToken).invoke(),
+                () -> tokens.createToken(tokenCreationSpec)
+                        .invoke()
+                        .thenApply(VcfInstallerClientFactory::toIssuedTokens));
     }
 
-    private static Supplier<CompletionStage<char[]>> createTokenSupplier(
-            String hostAddress, int port, HttpConfiguration httpConfig, TokenPair tokenPair) {
-        var client = getBasicAuthApiClient(hostAddress, port, httpConfig);
-
-        var refreshToken = tokenPair.getRefreshToken().getId();
-        var refresh = client.createStub(Refresh.class);
-        return () -> refresh.refreshAccessToken(refreshToken).invoke().thenApply(String::toCharArray);
+    private static AccessTokenManager.IssuedTokens toIssuedTokens(TokenPair tokenPair) {
+        return new AccessTokenManager.IssuedTokens(
+                tokenPair.getAccessToken(), tokenPair.getRefreshToken().getId());
     }
 
     /**
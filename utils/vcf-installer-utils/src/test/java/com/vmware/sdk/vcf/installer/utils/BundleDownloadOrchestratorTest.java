@@ -0,0 +1,284 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.vmware.sdk.utils.MutableClock;
+import com.vmware.sdk.vcf.installer.model.BundleDownloadStatusInfo;
+
+/** Tests {@link BundleDownloadOrchestrator} against a stub depot, polled on a virtual clock. */
+public class BundleDownloadOrchestratorTest {
+
+    private static final PollingPolicy POLICY =
+            PollingPolicy.fixed(Duration.ofSeconds(10), Duration.ofHours(1)).withJitter(0);
+
+    private MutableClock clock;
+    private VirtualScheduler executor;
+    private StubDepot depot;
+    private BundleDownloadOrchestrator orchestrator;
+
+    @BeforeEach
+    public void setup() {
+        clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        executor = new VirtualScheduler(clock);
+        depot = new StubDepot();
+        orchestrator = createOrchestrator(8, 3);
+    }
+
+    @Test
+    public void testRepeatedFailureIsRestartedAgain() throws Exception {
+        CompletableFuture<BundleDownloadProgress> result = awaitDownloads("bundle-1");
+
+        depot.status("bundle-1", "FAILED");
+        executor.advance(Duration.ZERO);
+        assertEquals(1, depot.starts("bundle-1"));
+
+        // the restarted download fails as well: the status is the same as before the restart, but it is news
+        depot.status("bundle-1", "IN_PROGRESS");
+        executor.advance(Duration.ofSeconds(10));
+        depot.status("bundle-1", "FAILED");
+        executor.advance(Duration.ofSeconds(10));
+        assertEquals(2, depot.starts("bundle-1"));
+
+        depot.status("bundle-1", "SUCCESS");
+        executor.advance(Duration.ofSeconds(10));
+
+        BundleDownloadProgress progress = result.get();
+        assertEquals(1, progress.getSucceeded());
+        assertEquals(2, progress.getRetried());
+    }
+
+    @Test
+    public void testStaleFailedStatusIsNotRestartedAgain() throws Exception {
+        orchestrator = createOrchestrator(8, 2);
+        CompletableFuture<BundleDownloadProgress> result = awaitDownloads("bundle-1");
+
+        // the appliance keeps reporting the failure of the previous download until it picks up the restart
+        depot.status("bundle-1", "FAILED");
+        executor.advance(Duration.ZERO);
+        executor.advance(Duration.ofSeconds(30));
+        assertEquals(1, depot.starts("bundle-1"));
+        assertFalse(result.isDone());
+
+        // the stale polls have not used up the last attempt
+        depot.status("bundle-1", "IN_PROGRESS");
+        executor.advance(Duration.ofSeconds(10));
+        depot.status("bundle-1", "SUCCESS");
+        executor.advance(Duration.ofSeconds(10));
+
+        BundleDownloadProgress progress = result.get();
+        assertEquals(1, progress.getSucceeded());
+        assertEquals(1, progress.getRetried());
+    }
+
+    @Test
+    public void testRestartDoesNotBlockPolling() throws Exception {
+        depot.holdStarts = true;
+        CompletableFuture<BundleDownloadProgress> result = awaitDownloads("bundle-1", "bundle-2");
+
+        depot.status("bundle-1", "FAILED");
+        depot.status("bundle-2", "IN_PROGRESS");
+        // the scheduler thread returns while the restart request is in flight, and no other poll starts meanwhile
+        executor.advance(Duration.ofMinutes(1));
+        assertEquals(1, depot.starts("bundle-1"));
+        assertEquals(1, depot.statusRequests.get());
+        assertFalse(result.isDone());
+
+        depot.completeStarts();
+        depot.status("bundle-1", "SUCCESS");
+        depot.status("bundle-2", "SUCCESS");
+        executor.advance(Duration.ofSeconds(10));
+
+        assertEquals(2, result.get().getSucceeded());
+        assertEquals(2, depot.statusRequests.get());
+    }
+
+    @Test
+    public void testFailedRestartIsRetriedByNextPoll() throws Exception {
+        CompletableFuture<BundleDownloadProgress> result = awaitDownloads("bundle-1");
+
+        depot.failStarts = true;
+        depot.status("bundle-1", "FAILED");
+        executor.advance(Duration.ZERO);
+        assertEquals(1, depot.starts("bundle-1"));
+
+        depot.failStarts = false;
+        executor.advance(Duration.ofSeconds(10));
+        assertEquals(2, depot.starts("bundle-1"));
+
+        depot.status("bundle-1", "SUCCESS");
+        executor.advance(Duration.ofSeconds(10));
+        assertEquals(1, result.get().getSucceeded());
+    }
+
+    @Test
+    public void testCancelledDownloadFails() {
+        CompletableFuture<BundleDownloadProgress> result = awaitDownloads("bundle-1");
+
+        depot.status("bundle-1", "CANCELLED");
+        executor.advance(Duration.ZERO);
+
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertTrue(e.getCause().getMessage().contains("cancelled"), e.getCause().getMessage());
+    }
+
+    @Test
+    public void testStatusFailureIsRetriedByNextPoll() throws Exception {
+        CompletableFuture<BundleDownloadProgress> result = awaitDownloads("bundle-1");
+
+        depot.failStatus = true;
+        executor.advance(Duration.ofSeconds(10));
+        assertFalse(result.isDone());
+
+        depot.failStatus = false;
+        depot.status("bundle-1", "SUCCESS");
+        executor.advance(Duration.ofSeconds(10));
+        assertEquals(1, result.get().getSucceeded());
+    }
+
+    @Test
+    public void testStartLimitsRequestsInFlight() throws Exception {
+        orchestrator = createOrchestrator(2, 3);
+        depot.holdStarts = true;
+
+        CompletableFuture<List<String>> result =
+                orchestrator.startDownloads(List.of("bundle-1", "bundle-2", "bundle-3", "bundle-4", "bundle-5"));
+        for (int i = 0; i < 5 && !result.isDone(); i++) {
+            assertTrue(depot.heldStarts.size() <= 2, "requests in flight: " + depot.heldStarts.size());
+            depot.completeStarts();
+        }
+
+        assertEquals(
+                List.of("bundle-1", "bundle-2", "bundle-3", "bundle-4", "bundle-5"), result.get(10, TimeUnit.SECONDS));
+        assertEquals(2, depot.maxHeldStarts);
+    }
+
+    @Test
+    public void testStartRetriesFailedRequest() throws Exception {
+        depot.failFirstStarts.put("bundle-2", 2);
+
+        List<String> started =
+                orchestrator.startDownloads(List.of("bundle-1", "bundle-2")).get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of("bundle-1", "bundle-2"), started);
+        assertEquals(3, depot.starts("bundle-2"));
+    }
+
+    @Test
+    public void testStartFailsAfterLastAttempt() {
+        depot.failFirstStarts.put("bundle-2", 3);
+
+        CompletableFuture<List<String>> result = orchestrator.startDownloads(List.of("bundle-1", "bundle-2"));
+
+        assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+        assertEquals(3, depot.starts("bundle-2"));
+    }
+
+    private BundleDownloadOrchestrator createOrchestrator(int maxInFlight, int maxAttempts) {
+        return new BundleDownloadOrchestrator(
+                depot,
+                maxInFlight,
+                maxAttempts,
+                Duration.ZERO,
+                clock,
+                new PollingScheduler(executor, clock, () -> 0.5));
+    }
+
+    private CompletableFuture<BundleDownloadProgress> awaitDownloads(String... bundleIds) {
+        for (String bundleId : bundleIds) {
+            depot.status(bundleId, "SCHEDULED");
+        }
+        return orchestrator.awaitDownloads(List.of(bundleIds), "9.0.0.0", POLICY, null);
+    }
+
+    /** A depot whose download status is set by the test. */
+    private static final class StubDepot implements BundleDownloadOrchestrator.Depot {
+        private final Map<String, String> statuses = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> starts = new ConcurrentHashMap<>();
+        private final Map<String, Integer> failFirstStarts = new ConcurrentHashMap<>();
+        private final List<CompletableFuture<Void>> heldStarts = new CopyOnWriteArrayList<>();
+        private final AtomicInteger statusRequests = new AtomicInteger();
+        private volatile boolean holdStarts;
+        private volatile boolean failStarts;
+        private volatile boolean failStatus;
+        private volatile int maxHeldStarts;
+
+        void status(String bundleId, String status) {
+            statuses.put(bundleId, status);
+        }
+
+        int starts(String bundleId) {
+            AtomicInteger count = starts.get(bundleId);
+            return count == null ? 0 : count.get();
+        }
+
+        void completeStarts() {
+            List<CompletableFuture<Void>> held = new ArrayList<>(heldStarts);
+            heldStarts.removeAll(held);
+            held.forEach(start -> start.complete(null));
+        }
+
+        @Override
+        public CompletableFuture<Void> startBundleDownload(String bundleId) {
+            int count =
+                    starts.computeIfAbsent(bundleId, id -> new AtomicInteger()).incrementAndGet();
+            if (failStarts || count <= failFirstStarts.getOrDefault(bundleId, 0)) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Depot is not reachable"));
+            }
+            if (holdStarts) {
+                CompletableFuture<Void> start = new CompletableFuture<>();
+                heldStarts.add(start);
+                synchronized (this) {
+                    maxHeldStarts = Math.max(maxHeldStarts, heldStarts.size());
+                }
+                return start;
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<List<BundleDownloadStatusInfo>> getBundleDownloadStatus(String releaseVersion) {
+            statusRequests.incrementAndGet();
+            if (failStatus) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Depot is not reachable"));
+            }
+            Map<String, String> snapshot = new HashMap<>(statuses);
+            List<BundleDownloadStatusInfo> statusInfos = new ArrayList<>();
+            snapshot.forEach((bundleId, status) -> {
+                BundleDownloadStatusInfo statusInfo = new BundleDownloadStatusInfo();
+                statusInfo.setBundleId(bundleId);
+                statusInfo.setDownloadStatus(status);
+                statusInfos.add(statusInfo);
+            });
+            return CompletableFuture.completedFuture(statusInfos);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vmware.sdk.utils.MutableClock;
+
+/** Tests the staleness rules and the file format of {@link DepotMetadataCache}. */
+public class DepotMetadataCacheTest {
+
+    private static final Duration MAX_AGE = Duration.ofHours(1);
+    private static final Map<String, List<List<String>>> COMPONENTS = createComponents();
+
+    @TempDir
+    Path tempDir;
+
+    private MutableClock clock;
+    private Path file;
+
+    @BeforeEach
+    public void setup() {
+        clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        file = tempDir.resolve("depot-metadata.bin");
+    }
+
+    @Test
+    public void testEntryIsUsedWhileFingerprintMatches() {
+        DepotMetadataCache cache = new DepotMetadataCache(file, MAX_AGE, clock);
+        cache.put("VCF", "9.0.0.0", "fingerprint-1", COMPONENTS);
+
+        DepotMetadataCache.Entry entry = cache.get("VCF", "9.0.0.0", "fingerprint-1");
+        assertNotNull(entry);
+        assertEquals(List.of("bundle-esx-2"), entry.getLatestBundleIds("ESX_HOST"));
+        assertEquals(List.of(List.of("bundle-esx-2"), List.of("bundle-esx-1")), entry.getVersionBundleIds("ESX_HOST"));
+        // a component without versions has no bundles to download, like an unknown one
+        assertEquals(List.of(), entry.getLatestBundleIds("NSX_T_MANAGER"));
+        assertEquals(List.of(), entry.getLatestBundleIds("VCF_OPS"));
+
+        // the depot has been synced again
+        assertNull(cache.get("VCF", "9.0.0.0", "fingerprint-2"));
+        assertNull(cache.get("VCF", "9.0.1.0", "fingerprint-1"));
+    }
+
+    @Test
+    public void testEntryIsStaleAfterMaxAge() {
+        DepotMetadataCache cache = new DepotMetadataCache(file, MAX_AGE, clock);
+        cache.put("VCF", "9.0.0.0", "fingerprint-1", COMPONENTS);
+
+        clock.advance(MAX_AGE);
+        assertNotNull(cache.get("VCF", "9.0.0.0", "fingerprint-1"));
+
+        clock.advance(Duration.ofMillis(1));
+        assertNull(cache.get("VCF", "9.0.0.0", "fingerprint-1"));
+
+        // storing the components again makes the entry fresh
+        cache.put("VCF", "9.0.0.0", "fingerprint-1", COMPONENTS);
+        assertNotNull(cache.get("VCF", "9.0.0.0", "fingerprint-1"));
+    }
+
+    @Test
+    public void testStalenessSurvivesReload() {
+        new DepotMetadataCache(file, MAX_AGE, clock).put("VCF", "9.0.0.0", "fingerprint-1", COMPONENTS);
+        clock.advance(MAX_AGE.dividedBy(2));
+
+        DepotMetadataCache reloaded = new DepotMetadataCache(file, MAX_AGE, clock);
+        DepotMetadataCache.Entry entry = reloaded.get("VCF", "9.0.0.0", "fingerprint-1");
+        assertNotNull(entry);
+        assertEquals(Instant.parse("2025-01-01T00:00:00Z"), entry.getCachedAt());
+
+        // the age counts from the time the entry was stored, not from the time it was loaded
+        clock.advance(MAX_AGE.dividedBy(2).plusMillis(1));
+        assertNull(new DepotMetadataCache(file, MAX_AGE, clock).get("VCF", "9.0.0.0", "fingerprint-1"));
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        Map<String, DepotMetadataCache.Entry> entries = new LinkedHashMap<>();
+        entries.put("VCF\u00009.0.0.0", new DepotMetadataCache.Entry("fingerprint-1", clock.instant(), COMPONENTS));
+        entries.put("VCF\u00009.0.1.0", new DepotMetadataCache.Entry("fingerprint-2", clock.instant(), Map.of()));
+
+        Map<String, DepotMetadataCache.Entry> read = DepotMetadataCache.read(new ByteArrayInputStream(write(entries)));
+
+        assertEquals(entries.keySet(), read.keySet());
+        DepotMetadataCache.Entry entry = read.get("VCF\u00009.0.0.0");
+        assertEquals(clock.instant(), entry.getCachedAt());
+        assertEquals(COMPONENTS.keySet(), entry.getComponentNames());
+        for (String name : COMPONENTS.keySet()) {
+            assertEquals(COMPONENTS.get(name), entry.getVersionBundleIds(name));
+        }
+        assertTrue(read.get("VCF\u00009.0.1.0").getComponentNames().isEmpty());
+    }
+
+    @Test
+    public void testReadRejectsFlippedByte() throws IOException {
+        byte[] bytes = write(createEntries());
+        // a bundle ID in the middle of the file, which still parses but does not match the checksum
+        int offset = indexOf(bytes, "bundle-esx-1".getBytes()) + "bundle-".length();
+        bytes[offset] ^= 0x01;
+
+        IOException e = assertThrows(IOException.class, () -> read(bytes));
+        assertTrue(e.getMessage().contains("Checksum"), e.getMessage());
+    }
+
+    @Test
+    public void testReadRejectsTruncatedFile() throws IOException {
+        byte[] bytes = write(createEntries());
+
+        for (int length : new int[] {0, 4, 8, bytes.length / 2, bytes.length - 1}) {
+            assertThrows(IOException.class, () -> read(Arrays.copyOf(bytes, length)), "length " + length);
+        }
+    }
+
+    @Test
+    public void testReadRejectsOtherFormats() throws IOException {
+        byte[] bytes = write(createEntries());
+
+        byte[] otherMagic = bytes.clone();
+        otherMagic[0] = 'X';
+        assertThrows(IOException.class, () -> read(otherMagic));
+
+        byte[] otherVersion = bytes.clone();
+        ByteBuffer.wrap(otherVersion).putInt(4, 99);
+        IOException e = assertThrows(IOException.class, () -> read(otherVersion));
+        assertTrue(e.getMessage().contains("99"), e.getMessage());
+    }
+
+    @Test
+    public void testReadRejectsHugeCount() throws IOException {
+        byte[] bytes = write(createEntries());
+        // the entry count follows the magic and the format version
+        ByteBuffer.wrap(bytes).putInt(8, Integer.MAX_VALUE);
+
+        IOException e = assertThrows(IOException.class, () -> read(bytes));
+        assertTrue(e.getMessage().contains("Invalid count"), e.getMessage());
+    }
+
+    @Test
+    public void testCorruptedFileIsDiscarded() throws IOException {
+        new DepotMetadataCache(file, MAX_AGE, clock).put("VCF", "9.0.0.0", "fingerprint-1", COMPONENTS);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        DepotMetadataCache cache = new DepotMetadataCache(file, MAX_AGE, clock);
+        assertNull(cache.get("VCF", "9.0.0.0", "fingerprint-1"));
+        assertFalse(Files.exists(file));
+
+        // the next store writes a valid file again
+        cache.put("VCF", "9.0.0.0", "fingerprint-1", COMPONENTS);
+        assertNotNull(new DepotMetadataCache(file, MAX_AGE, clock).get("VCF", "9.0.0.0", "fingerprint-1"));
+    }
+
+    @Test
+    public void testClearRemovesFile() {
+        DepotMetadataCache cache = new DepotMetadataCache(file, MAX_AGE, clock);
+        cache.put("VCF", "9.0.0.0", "fingerprint-1", COMPONENTS);
+        assertTrue(Files.exists(file));
+
+        cache.clear();
+
+        assertNull(cache.get("VCF", "9.0.0.0", "fingerprint-1"));
+        assertFalse(Files.exists(file));
+    }
+
+    private Map<String, DepotMetadataCache.Entry> createEntries() {
+        return Map.of("VCF\u00009.0.0.0", new DepotMetadataCache.Entry("fingerprint-1", clock.instant(), COMPONENTS));
+    }
+
+    private static Map<String, List<List<String>>> createComponents() {
+        Map<String, List<List<String>>> components = new LinkedHashMap<>();
+        components.put("ESX_HOST", List.of(List.of("bundle-esx-2"), List.of("bundle-esx-1")));
+        components.put("VCENTER", List.of(List.of("bundle-vc-1", "bundle-vc-1-patch")));
+        components.put("NSX_T_MANAGER", List.of());
+        return components;
+    }
+
+    private static byte[] write(Map<String, DepotMetadataCache.Entry> entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DepotMetadataCache.write(entries, out);
+        return out.toByteArray();
+    }
+
+    private static Map<String, DepotMetadataCache.Entry> read(byte[] bytes) throws IOException {
+        return DepotMetadataCache.read(new ByteArrayInputStream(bytes));
+    }
+
+    private static int indexOf(byte[] bytes, byte[] part) {
+        for (int i = 0; i <= bytes.length - part.length; i++) {
+            if (Arrays.equals(bytes, i, i + part.length, part, 0, part.length)) {
+                return i;
+            }
+        }
+        throw new AssertionError("Not found");
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+/** Tests the depot fingerprint of {@link DownloadBundlesUtil}. */
+public class DownloadBundlesUtilTest {
+
+    @Test
+    public void testFingerprintIsStableForSameSync() {
+        assertEquals(
+                DownloadBundlesUtil.getDepotFingerprint("SYNCED", "2025-01-01T00:00:00Z"),
+                DownloadBundlesUtil.getDepotFingerprint("SYNCED", "2025-01-01T00:00:00Z"));
+    }
+
+    @Test
+    public void testFingerprintChangesWithNewSync() {
+        assertNotEquals(
+                DownloadBundlesUtil.getDepotFingerprint("SYNCED", "2025-01-01T00:00:00Z"),
+                DownloadBundlesUtil.getDepotFingerprint("SYNCED", "2025-01-01T06:00:00Z"));
+    }
+
+    @Test
+    public void testFingerprintSeparatesFields() {
+        assertNotEquals(
+                DownloadBundlesUtil.getDepotFingerprint("SYNCED", "1"),
+                DownloadBundlesUtil.getDepotFingerprint("SYNCED1", ""));
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.vmware.sdk.vcf.installer.utils.Ipv4IntervalTree.Interval;
+
+/** Tests the overlap queries and the address parsing of {@link Ipv4IntervalTree}. */
+public class Ipv4IntervalTreeTest {
+
+    @Test
+    public void testOverlappingPairsMatchBruteForce() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            List<Interval<Integer>> intervals = new ArrayList<>();
+            int count = 1 + random.nextInt(200);
+            for (int i = 0; i < count; i++) {
+                long first = random.nextInt(10_000);
+                intervals.add(new Interval<>(first, first + random.nextInt(100), i));
+            }
+
+            List<List<Interval<Integer>>> pairs = new Ipv4IntervalTree<>(intervals).findOverlappingPairs();
+
+            assertEquals(countOverlappingPairs(intervals), pairs.size(), "round " + round);
+            for (List<Interval<Integer>> pair : pairs) {
+                assertTrue(pair.get(0).overlaps(pair.get(1).first, pair.get(1).last), pair.toString());
+                assertTrue(pair.get(0).first <= pair.get(1).first, pair.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testTouchingRangesOverlapAndAdjacentRangesDoNot() {
+        Ipv4IntervalTree<String> touching = tree(range("10.0.0.1", "10.0.0.10"), range("10.0.0.10", "10.0.0.20"));
+        assertEquals(1, touching.findOverlappingPairs().size());
+
+        Ipv4IntervalTree<String> adjacent = tree(range("10.0.0.1", "10.0.0.10"), range("10.0.0.11", "10.0.0.20"));
+        assertTrue(adjacent.findOverlappingPairs().isEmpty());
+    }
+
+    @Test
+    public void testNestedAndDuplicateRangesOverlap() {
+        Ipv4IntervalTree<String> tree = tree(
+                range("10.0.0.0", "10.0.0.255"), range("10.0.0.100", "10.0.0.110"), range("10.0.0.100", "10.0.0.110"));
+
+        assertEquals(3, tree.findOverlappingPairs().size());
+    }
+
+    @Test
+    public void testFindContaining() {
+        Ipv4IntervalTree<String> tree =
+                tree(range("10.0.0.1", "10.0.0.10"), range("10.0.0.5", "10.0.0.20"), range("10.0.1.1", "10.0.1.1"));
+
+        assertEquals(
+                1,
+                tree.findContaining(Ipv4IntervalTree.parseAddress("10.0.0.1")).size());
+        assertEquals(
+                2,
+                tree.findContaining(Ipv4IntervalTree.parseAddress("10.0.0.5")).size());
+        assertEquals(
+                2,
+                tree.findContaining(Ipv4IntervalTree.parseAddress("10.0.0.10")).size());
+        assertEquals(
+                0,
+                tree.findContaining(Ipv4IntervalTree.parseAddress("10.0.0.21")).size());
+        assertEquals(
+                1,
+                tree.findContaining(Ipv4IntervalTree.parseAddress("10.0.1.1")).size());
+        assertEquals(
+                0,
+                tree.findContaining(Ipv4IntervalTree.parseAddress("10.0.0.0")).size());
+    }
+
+    @Test
+    public void testEmptyTree() {
+        Ipv4IntervalTree<String> tree = new Ipv4IntervalTree<>(List.of());
+
+        assertTrue(tree.findOverlappingPairs().isEmpty());
+        assertTrue(tree.findContaining(0).isEmpty());
+    }
+
+    @Test
+    public void testIntervalRejectsReversedRange() {
+        assertThrows(IllegalArgumentException.class, () -> new Interval<>(2, 1, "reversed"));
+    }
+
+    @Test
+    public void testParseCidrEdges() {
+        assertArrayEquals(new long[] {0, 0xFFFFFFFFL}, Ipv4IntervalTree.parseCidr("0.0.0.0/0"));
+        assertArrayEquals(new long[] {0, 0xFFFFFFFFL}, Ipv4IntervalTree.parseCidr("10.1.2.3/0"));
+        assertArrayEquals(cidr("10.0.0.5", "10.0.0.5"), Ipv4IntervalTree.parseCidr("10.0.0.5/32"));
+        assertArrayEquals(cidr("10.0.0.4", "10.0.0.5"), Ipv4IntervalTree.parseCidr("10.0.0.5/31"));
+        assertArrayEquals(cidr("10.0.0.0", "10.0.0.255"), Ipv4IntervalTree.parseCidr("10.0.0.0/24"));
+        // host bits are cleared
+        assertArrayEquals(cidr("192.168.0.0", "192.168.15.255"), Ipv4IntervalTree.parseCidr("192.168.10.1/20"));
+        assertArrayEquals(cidr("255.255.255.0", "255.255.255.255"), Ipv4IntervalTree.parseCidr("255.255.255.1/24"));
+    }
+
+    @Test
+    public void testParseCidrRejectsMalformed() {
+        assertNull(Ipv4IntervalTree.parseCidr(null));
+        assertNull(Ipv4IntervalTree.parseCidr("10.0.0.0"));
+        assertNull(Ipv4IntervalTree.parseCidr("10.0.0.0/33"));
+        assertNull(Ipv4IntervalTree.parseCidr("10.0.0.0/-1"));
+        assertNull(Ipv4IntervalTree.parseCidr("10.0.0.0/x"));
+        assertNull(Ipv4IntervalTree.parseCidr("10.0.0.0/"));
+        assertNull(Ipv4IntervalTree.parseCidr("10.0.0/24"));
+    }
+
+    @Test
+    public void testParseAddress() {
+        assertEquals(0, Ipv4IntervalTree.parseAddress("0.0.0.0"));
+        assertEquals(0xFFFFFFFFL, Ipv4IntervalTree.parseAddress("255.255.255.255"));
+        assertEquals(0x0A000001L, Ipv4IntervalTree.parseAddress(" 10.0.0.1 "));
+        assertEquals(0x0A000001L, Ipv4IntervalTree.parseAddress("010.000.000.001"));
+    }
+
+    @Test
+    public void testParseAddressRejectsMalformed() {
+        for (String text : new String[] {
+            null,
+            "",
+            "10.0.0",
+            "10.0.0.0.0",
+            "10.0.0.256",
+            ".10.0.0.1",
+            "10.0.0.1.",
+            "10..0.1",
+            "10.0.0.0001",
+            "10.0.0.-1",
+            "10.0.0.a",
+            "esx01.example.com",
+            "::1"
+        }) {
+            assertEquals(-1, Ipv4IntervalTree.parseAddress(text), text);
+        }
+    }
+
+    @Test
+    public void testFormatRoundTrip() {
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            long address = random.nextInt() & 0xFFFFFFFFL;
+            assertEquals(address, Ipv4IntervalTree.parseAddress(Ipv4IntervalTree.format(address)));
+        }
+        assertEquals("255.255.255.255", Ipv4IntervalTree.format(0xFFFFFFFFL));
+    }
+
+    @SafeVarargs
+    private static Ipv4IntervalTree<String> tree(Interval<String>... intervals) {
+        return new Ipv4IntervalTree<>(List.of(intervals));
+    }
+
+    private static Interval<String> range(String first, String last) {
+        return new Interval<>(Ipv4IntervalTree.parseAddress(first), Ipv4IntervalTree.parseAddress(last), first);
+    }
+
+    private static long[] cidr(String first, String last) {
+        return new long[] {Ipv4IntervalTree.parseAddress(first), Ipv4IntervalTree.parseAddress(last)};
+    }
+
+    private static int countOverlappingPairs(List<Interval<Integer>> intervals) {
+        int count = 0;
+        for (int i = 0; i < intervals.size(); i++) {
+            for (int j = i + 1; j < intervals.size(); j++) {
+                if (intervals.get(i).overlaps(intervals.get(j).first, intervals.get(j).last)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
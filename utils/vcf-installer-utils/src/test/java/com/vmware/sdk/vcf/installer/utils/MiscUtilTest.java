@@ -0,0 +1,57 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+/** Tests the blocking {@link MiscUtil#poll(long, long, java.util.function.Supplier)}. */
+public class MiscUtilTest {
+
+    @Test
+    public void testConditionIsCheckedOnCallingThread() throws InterruptedException {
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+
+        MiscUtil.poll(10, 1, () -> {
+            threads.add(Thread.currentThread());
+            return threads.size() == 2;
+        });
+
+        // the checks wait for the server, so they do not hold the few threads of the default scheduler
+        assertEquals(List.of(Thread.currentThread(), Thread.currentThread()), threads);
+    }
+
+    @Test
+    public void testFailingConditionStopsPolling() {
+        IllegalStateException failure = new IllegalStateException("no such task");
+
+        assertSame(
+                failure,
+                assertThrows(
+                        IllegalStateException.class,
+                        () -> MiscUtil.poll(10, 1, () -> {
+                            throw failure;
+                        })));
+    }
+
+    @Test
+    public void testPollingTimesOut() {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> MiscUtil.poll(1, 1, () -> false));
+
+        assertEquals("Polling has timed out.", e.getMessage());
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.vmware.sdk.utils.MutableClock;
+
+/** Tests the intervals of {@link PollingScheduler} on a virtual clock, and its asynchronous checks. */
+public class PollingSchedulerTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    private MutableClock clock;
+    private VirtualScheduler executor;
+    private PollingScheduler scheduler;
+    private final List<Long> checkTimes = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        clock = new MutableClock(START);
+        executor = new VirtualScheduler(clock);
+        // the random source sits in the middle of the jitter range, so the intervals have no jitter
+        scheduler = new PollingScheduler(executor, clock, () -> 0.5);
+    }
+
+    @Test
+    public void testIntervalsBackOff() {
+        PollingPolicy policy = PollingPolicy.of(Duration.ofSeconds(1), Duration.ofSeconds(8), Duration.ofHours(1));
+
+        scheduler.poll(() -> record(PollResult.pending()), policy);
+        executor.advance(Duration.ofSeconds(30));
+
+        assertEquals(List.of(0L, 1000L, 3000L, 7000L, 15000L, 23000L), checkTimes);
+    }
+
+    @Test
+    public void testProgressShortensInterval() throws Exception {
+        PollingPolicy policy = PollingPolicy.of(Duration.ofSeconds(1), Duration.ofSeconds(8), Duration.ofHours(1));
+
+        CompletableFuture<String> result = scheduler.poll(
+                () -> {
+                    long elapsed = elapsedMs();
+                    if (elapsed < 15000) {
+                        return record(PollResult.pending());
+                    } else if (elapsed < 23000) {
+                        return record(PollResult.pending(0.5));
+                    } else if (elapsed < 24000) {
+                        return record(PollResult.pending(0.9));
+                    }
+                    return record(PollResult.done("done"));
+                },
+                policy);
+        executor.advance(Duration.ofMinutes(1));
+
+        // from 50% at 15s to 90% at 23s, the operation is expected to end about 2s later instead of 8s
+        assertEquals(List.of(0L, 1000L, 3000L, 7000L, 15000L, 23000L), checkTimes.subList(0, 6));
+        assertEquals(7, checkTimes.size());
+        long last = checkTimes.get(6);
+        assertTrue(last >= 24000 && last <= 25000, "last check at " + last + "ms");
+        assertEquals("done", result.get());
+    }
+
+    @Test
+    public void testTimeout() {
+        PollingPolicy policy = PollingPolicy.of(Duration.ofSeconds(1), Duration.ofSeconds(8), Duration.ofSeconds(10));
+
+        CompletableFuture<Void> result = scheduler.poll(() -> record(PollResult.pending()), policy);
+        executor.advance(Duration.ofMillis(9999));
+        assertFalse(result.isDone());
+
+        executor.advance(Duration.ofMillis(1));
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        // the last interval is cut short by the deadline
+        assertEquals(List.of(0L, 1000L, 3000L, 7000L, 10000L), checkTimes);
+    }
+
+    @Test
+    public void testAsyncCheckHoldsNoThread() throws Exception {
+        PollingPolicy policy = PollingPolicy.fixed(Duration.ofSeconds(1), Duration.ofHours(1));
+        List<CompletableFuture<PollResult<String>>> calls = new ArrayList<>();
+
+        CompletableFuture<String> result = scheduler.pollAsync(
+                () -> {
+                    checkTimes.add(elapsedMs());
+                    CompletableFuture<PollResult<String>> call = new CompletableFuture<>();
+                    calls.add(call);
+                    return call;
+                },
+                policy);
+        executor.advance(Duration.ofSeconds(10));
+
+        // the next check is scheduled only once the running one has completed
+        assertEquals(1, calls.size());
+        assertEquals(0, executor.pendingTasks());
+
+        calls.get(0).complete(PollResult.pending());
+        executor.advance(Duration.ofSeconds(1));
+        assertEquals(List.of(0L, 11000L), checkTimes);
+
+        calls.get(1).complete(PollResult.done("done"));
+        assertEquals("done", result.get());
+    }
+
+    @Test
+    public void testFailedAsyncCheck() {
+        PollingPolicy policy = PollingPolicy.fixed(Duration.ofSeconds(1), Duration.ofHours(1));
+        IllegalStateException failure = new IllegalStateException("no such task");
+
+        CompletableFuture<Void> result = scheduler.pollAsync(
+                () -> CompletableFuture.<Void>completedFuture(null).thenApply(ignored -> {
+                    throw failure;
+                }),
+                policy);
+        executor.advance(Duration.ofSeconds(1));
+
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertSame(failure, e.getCause());
+    }
+
+    @Test
+    public void testNullCheckResultFailsPolling() {
+        PollingPolicy policy = PollingPolicy.fixed(Duration.ofSeconds(1), Duration.ofHours(1));
+
+        CompletableFuture<Void> result = scheduler.poll(() -> null, policy);
+        CompletableFuture<Void> asyncResult =
+                scheduler.pollAsync(() -> CompletableFuture.completedFuture(null), policy);
+        executor.advance(Duration.ofSeconds(1));
+
+        assertTrue(result.isCompletedExceptionally());
+        assertTrue(asyncResult.isCompletedExceptionally());
+        assertInstanceOf(
+                NullPointerException.class,
+                assertThrows(ExecutionException.class, result::get).getCause());
+        assertInstanceOf(
+                NullPointerException.class,
+                assertThrows(ExecutionException.class, asyncResult::get).getCause());
+        assertEquals(0, executor.pendingTasks());
+    }
+
+    @Test
+    public void testCancelStopsPolling() {
+        PollingPolicy policy = PollingPolicy.fixed(Duration.ofSeconds(1), Duration.ofHours(1));
+
+        CompletableFuture<Void> result = scheduler.poll(() -> record(PollResult.pending()), policy);
+        executor.advance(Duration.ofMillis(1500));
+        result.cancel(false);
+        executor.advance(Duration.ofSeconds(10));
+
+        assertEquals(List.of(0L, 1000L), checkTimes);
+        assertEquals(0, executor.pendingTasks());
+    }
+
+    /**
+     * Many operations polled over HTTP by a single scheduler thread: as the checks do not wait for the server on that
+     * thread, the polling of the operations overlaps.
+     */
+    @Test
+    public void testAsyncChecksAgainstStubServer() throws Exception {
+        int operations = 10;
+        int checksPerOperation = 3;
+        long latencyMs = 200;
+
+        Map<String, AtomicInteger> checks = new ConcurrentHashMap<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        ExecutorService serverExecutor = Executors.newCachedThreadPool();
+        server.createContext("/v1/tasks/", exchange -> {
+            String taskId = exchange.getRequestURI().getPath().substring("/v1/tasks/".length());
+            int count =
+                    checks.computeIfAbsent(taskId, id -> new AtomicInteger()).incrementAndGet();
+            sleep(latencyMs);
+            respond(exchange, count < checksPerOperation ? "IN_PROGRESS" : "SUCCESSFUL");
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI base = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/tasks/");
+        PollingScheduler realScheduler = new PollingScheduler(1);
+        try {
+            PollingPolicy policy = PollingPolicy.fixed(Duration.ofMillis(10), Duration.ofMinutes(1));
+            long start = System.nanoTime();
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (int i = 0; i < operations; i++) {
+                HttpRequest request =
+                        HttpRequest.newBuilder(base.resolve("task-" + i)).build();
+                results.add(realScheduler.pollAsync(
+                        () -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                                .thenApply(response -> "IN_PROGRESS".equals(response.body())
+                                        ? PollResult.<String>pending()
+                                        : PollResult.done(response.body())),
+                        policy));
+            }
+            for (CompletableFuture<String> result : results) {
+                assertEquals("SUCCESSFUL", result.get(30, TimeUnit.SECONDS));
+            }
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            for (int i = 0; i < operations; i++) {
+                assertEquals(checksPerOperation, checks.get("task-" + i).get());
+            }
+            // a blocking check would need operations * checksPerOperation * latencyMs on the single thread
+            assertTrue(elapsedMs < operations * checksPerOperation * latencyMs / 2, "took " + elapsedMs + "ms");
+        } finally {
+            realScheduler.close();
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+    }
+
+    private <T> PollResult<T> record(PollResult<T> result) {
+        checkTimes.add(elapsedMs());
+        return result;
+    }
+
+    private long elapsedMs() {
+        return Duration.between(START, clock.instant()).toMillis();
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
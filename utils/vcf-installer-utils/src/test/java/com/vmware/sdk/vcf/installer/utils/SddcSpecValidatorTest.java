@@ -0,0 +1,317 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import com.vmware.sdk.vcf.installer.model.IpRange;
+import com.vmware.sdk.vcf.installer.model.SddcCredentials;
+import com.vmware.sdk.vcf.installer.model.SddcDatastoreSpec;
+import com.vmware.sdk.vcf.installer.model.SddcHostSpec;
+import com.vmware.sdk.vcf.installer.model.SddcManagerSpec;
+import com.vmware.sdk.vcf.installer.model.SddcNetworkSpec;
+import com.vmware.sdk.vcf.installer.model.SddcSpec;
+import com.vmware.sdk.vcf.installer.model.SddcVcenterSpec;
+import com.vmware.sdk.vcf.installer.model.VsanSpec;
+import com.vmware.sdk.vcf.installer.utils.SpecValidationResult.Issue;
+
+/** Tests the local checks of {@link SddcSpecValidator}. */
+public class SddcSpecValidatorTest {
+
+    @Test
+    public void testValidSpecHasNoIssues() {
+        SpecValidationResult result = SddcSpecValidator.validate(createSpec(4));
+
+        assertTrue(result.getIssues().isEmpty(), result.toString());
+        assertTrue(result.isValid());
+    }
+
+    @Test
+    public void testDuplicateFqdnIgnoresCaseAndTrailingDot() {
+        SddcSpec spec = createSpec(4);
+        spec.getHostSpecs().get(2).setHostname("ESX0001.example.com.");
+        spec.getVcenterSpec().setVcenterHostname("esx0002.EXAMPLE.com");
+
+        SpecValidationResult result = SddcSpecValidator.validate(spec);
+
+        assertEquals(List.of("hostSpecs[2].hostname", "vcenterSpec.vcenterHostname"), paths(result, "DUPLICATE_FQDN"));
+        assertFalse(result.isValid());
+    }
+
+    @Test
+    public void testMalformedAndShortHostnames() {
+        SddcSpec spec = createSpec(4);
+        spec.getHostSpecs().get(0).setHostname("esx_01.example.com");
+        spec.getHostSpecs().get(1).setHostname("-esx02.example.com");
+        spec.getHostSpecs().get(2).setHostname("esx03");
+
+        SpecValidationResult result = SddcSpecValidator.validate(spec);
+
+        assertEquals(List.of("hostSpecs[0].hostname", "hostSpecs[1].hostname"), paths(result, "MALFORMED_FQDN"));
+        assertEquals(List.of("hostSpecs[2].hostname"), paths(result, "NOT_FQDN"));
+        assertEquals(1, result.getWarnings().size());
+    }
+
+    @Test
+    public void testOverlappingRangesAcrossNetworks() {
+        SddcSpec spec = createSpec(4);
+        spec.setNetworkSpecs(List.of(
+                network("VSAN", "10.0.0.0/16", "10.0.0.1", ipRange("10.0.1.10", "10.0.1.20")),
+                network("VMOTION", "10.0.0.0/16", "10.0.0.1", ipRange("10.0.1.20", "10.0.1.30"))));
+
+        SpecValidationResult result = SddcSpecValidator.validate(spec);
+
+        assertEquals(List.of("networkSpecs[1].includeIpAddressRanges[0]"), paths(result, "RANGE_OVERLAP"));
+    }
+
+    @Test
+    public void testAdjacentRangesDoNotOverlap() {
+        SddcSpec spec = createSpec(4);
+        spec.setNetworkSpecs(List.of(
+                network("VSAN", "10.0.0.0/16", "10.0.0.1", ipRange("10.0.1.10", "10.0.1.20")),
+                network("VMOTION", "10.0.0.0/16", "10.0.0.1", ipRange("10.0.1.21", "10.0.1.30"))));
+
+        assertTrue(SddcSpecValidator.validate(spec).isValid());
+    }
+
+    @Test
+    public void testGatewayInsideRange() {
+        SddcSpec spec = createSpec(4);
+        spec.getNetworkSpecs().get(0).setGateway("10.1.0.12");
+
+        SpecValidationResult result = SddcSpecValidator.validate(spec);
+
+        assertEquals(List.of("networkSpecs[0].gateway"), paths(result, "GATEWAY_IN_RANGE"));
+    }
+
+    @Test
+    public void testGatewayAndRangeOutsideSubnet() {
+        SddcSpec spec = createSpec(4);
+        spec.getNetworkSpecs().get(0).setGateway("10.9.0.1");
+        spec.getNetworkSpecs().get(1).setGateway("10.2.0.0");
+        spec.getNetworkSpecs().get(1).setIncludeIpAddressRanges(List.of(ipRange("10.2.255.250", "10.3.0.10")));
+
+        SpecValidationResult result = SddcSpecValidator.validate(spec);
+
+        assertEquals(
+                List.of(
+                        "networkSpecs[0].gateway",
+                        "networkSpecs[1].gateway",
+                        "networkSpecs[1].includeIpAddressRanges[0]"),
+                paths(result, "OUTSIDE_SUBNET"));
+    }
+
+    @Test
+    public void testCidrEdges() {
+        SddcSpec spec = createSpec(4);
+        // a /31 has no network or broadcast address, so both addresses are usable
+        spec.getNetworkSpecs().get(0).setSubnet("10.1.0.0/31");
+        spec.getNetworkSpecs().get(0).setGateway("10.1.0.0");
+        spec.getNetworkSpecs().get(0).setIncludeIpAddressRanges(List.of(ipRange("10.1.0.1", "10.1.0.1")));
+        spec.getNetworkSpecs().get(1).setSubnet("10.2.0.0/33");
+
+        SpecValidationResult result = SddcSpecValidator.validate(spec);
+
+        assertEquals(List.of(), paths(result, "OUTSIDE_SUBNET"));
+        assertEquals(List.of("networkSpecs[1].subnet"), paths(result, "MALFORMED_ADDRESS"));
+        assertEquals(List.of("networkSpecs[0].includeIpAddressRanges"), paths(result, "IP_RANGE_TOO_SMALL"));
+    }
+
+    @Test
+    public void testRangeTooSmallForHosts() {
+        SddcSpec spec = createSpec(4);
+        spec.getNetworkSpecs().get(1).setIncludeIpAddressRanges(List.of(ipRange("10.2.0.10", "10.2.0.12")));
+
+        SpecValidationResult result = SddcSpecValidator.validate(spec);
+
+        assertEquals(List.of("networkSpecs[1].includeIpAddressRanges"), paths(result, "IP_RANGE_TOO_SMALL"));
+    }
+
+    @Test
+    public void testVsanHostCountForFailuresToTolerate() {
+        SddcSpec twoHosts = createSpec(2);
+        assertEquals(
+                List.of("datastoreSpec.vsanSpec.failuresToTolerate"),
+                paths(SddcSpecValidator.validate(twoHosts), "INSUFFICIENT_HOSTS"));
+
+        SddcSpec threeHosts = createSpec(3);
+        assertTrue(SddcSpecValidator.validate(threeHosts).isValid());
+
+        SddcSpec fourHosts = createSpec(4);
+        fourHosts.getDatastoreSpec().getVsanSpec().setFailuresToTolerate(2L);
+        assertEquals(
+                List.of("datastoreSpec.vsanSpec.failuresToTolerate"),
+                paths(SddcSpecValidator.validate(fourHosts), "INSUFFICIENT_HOSTS"));
+    }
+
+    @Test
+    public void testVsanWithoutVsanNetwork() {
+        SddcSpec spec = createSpec(4);
+        spec.setNetworkSpecs(List.of(spec.getNetworkSpecs().get(1)));
+
+        SpecValidationResult result = SddcSpecValidator.validate(spec);
+
+        assertEquals(List.of("networkSpecs"), paths(result, "MISSING_REFERENCE"));
+    }
+
+    @Test
+    public void testMalformedVersionAndMissingValues() {
+        SddcSpec spec = createSpec(4);
+        spec.setVersion("9.0");
+        spec.setSddcId(" ");
+        spec.getHostSpecs().get(0).getCredentials().setPassword(null);
+
+        SpecValidationResult result = SddcSpecValidator.validate(spec);
+
+        assertEquals(List.of("version"), paths(result, "MALFORMED_VERSION"));
+        assertEquals(List.of("sddcId", "hostSpecs[0].credentials"), paths(result, "MISSING_VALUE"));
+        IllegalArgumentException e =
+                assertThrows(IllegalArgumentException.class, () -> SddcSpecValidator.validateAndFailOnError(spec));
+        assertTrue(e.getMessage().contains("MALFORMED_VERSION"), e.getMessage());
+    }
+
+    @Test
+    public void testDuplicateThumbprintIsWarning() {
+        SddcSpec spec = createSpec(4);
+        spec.getHostSpecs()
+                .get(1)
+                .setSslThumbprint(spec.getHostSpecs().get(0).getSslThumbprint().toLowerCase());
+
+        SpecValidationResult result = SddcSpecValidator.validate(spec);
+
+        assertEquals(List.of("hostSpecs[1].sslThumbprint"), paths(result, "DUPLICATE_THUMBPRINT"));
+        assertTrue(result.isValid());
+    }
+
+    @Test
+    public void testLargeSpec() {
+        SddcSpec spec = createSpec(5000);
+
+        long start = System.nanoTime();
+        SpecValidationResult result = SddcSpecValidator.validate(spec);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertTrue(result.getIssues().isEmpty(), result.toString());
+        // the server-side validation takes minutes; a loose bound that still catches a quadratic check
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(5)) < 0, "validated in " + elapsed);
+
+        spec.getHostSpecs().get(4999).setHostname("esx0001.example.com");
+        assertEquals(List.of("hostSpecs[4999].hostname"), paths(SddcSpecValidator.validate(spec), "DUPLICATE_FQDN"));
+    }
+
+    /**
+     * Measures the local validation of specs with thousands of hosts, after a warm-up round. Run with
+     * {@code SPEC_VALIDATION_BENCHMARK=true}.
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "SPEC_VALIDATION_BENCHMARK", matches = "true")
+    public void testBenchmark() {
+        int[] hostCounts = {1000, 5000, 20000};
+        for (int round = 0; round < 3; round++) {
+            for (int hostCount : hostCounts) {
+                SddcSpec spec = createSpec(hostCount);
+                int iterations = 20;
+                long startTime = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    assertTrue(SddcSpecValidator.validate(spec).isValid());
+                }
+                long time = (System.nanoTime() - startTime) / iterations;
+
+                System.out.printf(
+                        "round %d, %d hosts: %.2f ms per validation, %.2f us per host%n",
+                        round, hostCount, time / 1e6, time / 1e3 / hostCount);
+            }
+        }
+    }
+
+    /** Creates a valid spec with vSAN and vMotion ranges large enough for the hosts. */
+    private static SddcSpec createSpec(int hostCount) {
+        List<SddcHostSpec> hosts = new ArrayList<>();
+        for (int i = 1; i <= hostCount; i++) {
+            SddcCredentials credentials = new SddcCredentials();
+            credentials.setUsername("root");
+            credentials.setPassword("VMware1!VMware1!");
+
+            SddcHostSpec host = new SddcHostSpec();
+            host.setHostname(String.format("esx%04d.example.com", i));
+            host.setCredentials(credentials);
+            host.setSslThumbprint(String.format("SHA256:%060X", i));
+            hosts.add(host);
+        }
+
+        SddcVcenterSpec vcenterSpec = new SddcVcenterSpec();
+        vcenterSpec.setVcenterHostname("vcenter.example.com");
+
+        SddcManagerSpec sddcManagerSpec = new SddcManagerSpec();
+        sddcManagerSpec.setHostname("sddc-manager.example.com");
+
+        VsanSpec vsanSpec = new VsanSpec.Builder()
+                .setDatastoreName("vsan-datastore")
+                .setFailuresToTolerate(1L)
+                .build();
+        SddcDatastoreSpec datastoreSpec = new SddcDatastoreSpec();
+        datastoreSpec.setVsanSpec(vsanSpec);
+
+        // a /16 has room for every host count used in the tests
+        String lastAddress = "10.%d." + ((hostCount + 10) / 256) + "." + ((hostCount + 10) % 256);
+        return new SddcSpec.Builder()
+                .setVersion("9.0.0.0")
+                .setSddcId("sddc-1")
+                .setHostSpecs(hosts)
+                .setVcenterSpec(vcenterSpec)
+                .setSddcManagerSpec(sddcManagerSpec)
+                .setDatastoreSpec(datastoreSpec)
+                .setNetworkSpecs(List.of(
+                        network("VSAN", "10.1.0.0/16", "10.1.0.1", ipRange("10.1.0.10", String.format(lastAddress, 1))),
+                        network(
+                                "VMOTION",
+                                "10.2.0.0/16",
+                                "10.2.0.1",
+                                ipRange("10.2.0.10", String.format(lastAddress, 2)))))
+                .build();
+    }
+
+    private static SddcNetworkSpec network(String networkType, String subnet, String gateway, IpRange... ipRanges) {
+        return new SddcNetworkSpec.Builder()
+                .setNetworkType(networkType)
+                .setSubnet(subnet)
+                .setGateway(gateway)
+                .setVlanId(0L)
+                .setMtu(9000L)
+                .setIncludeIpAddressRanges(List.of(ipRanges))
+                .build();
+    }
+
+    private static IpRange ipRange(String start, String end) {
+        IpRange ipRange = new IpRange();
+        ipRange.setStartIpAddress(start);
+        ipRange.setEndIpAddress(end);
+        return ipRange;
+    }
+
+    private static List<String> paths(SpecValidationResult result, String code) {
+        return result.getIssues().stream()
+                .filter(issue -> issue.getCode().equals(code))
+                .map(Issue::getPath)
+                .collect(Collectors.toList());
+    }
+}
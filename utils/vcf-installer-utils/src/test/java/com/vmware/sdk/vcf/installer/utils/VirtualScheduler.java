@@ -0,0 +1,149 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vcf.installer.utils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.vmware.sdk.utils.MutableClock;
+
+/**
+ * A scheduled executor for tests, which runs the scheduled tasks in the calling thread of {@link #advance(Duration)}
+ * while moving its clock to the time each task is due. Periodic scheduling is not supported.
+ */
+final class VirtualScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final MutableClock clock;
+    private final PriorityQueue<Task<?>> tasks = new PriorityQueue<>();
+    private long sequence;
+    private boolean shutdown;
+
+    VirtualScheduler(MutableClock clock) {
+        this.clock = clock;
+    }
+
+    /** Runs the tasks due within the given duration, then moves the clock to its end. */
+    void advance(Duration duration) {
+        Instant end = clock.instant().plus(duration);
+        while (true) {
+            Task<?> task;
+            synchronized (this) {
+                task = tasks.peek();
+                if (task == null || task.due.isAfter(end)) {
+                    break;
+                }
+                tasks.poll();
+            }
+            if (task.due.isAfter(clock.instant())) {
+                clock.set(task.due);
+            }
+            task.run();
+        }
+        clock.set(end);
+    }
+
+    /** @return the number of scheduled tasks which have not run yet and are not cancelled */
+    synchronized int pendingTasks() {
+        return (int) tasks.stream().filter(task -> !task.isCancelled()).count();
+    }
+
+    @Override
+    public synchronized ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return schedule(Executors.callable(command), delay, unit);
+    }
+
+    @Override
+    public synchronized <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        if (shutdown) {
+            throw new RejectedExecutionException("The scheduler has been shut down");
+        }
+        Task<V> task = new Task<>(callable, clock.instant().plusNanos(unit.toNanos(delay)), sequence++);
+        tasks.add(task);
+        return task;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public synchronized List<Runnable> shutdownNow() {
+        shutdown = true;
+        tasks.clear();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return shutdown && tasks.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return isTerminated();
+    }
+
+    private final class Task<V> extends FutureTask<V> implements ScheduledFuture<V> {
+        private final Instant due;
+        private final long order;
+
+        Task(Callable<V> callable, Instant due, long order) {
+            super(callable);
+            this.due = due;
+            this.order = order;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(clock.instant(), due).toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Task<?> task = (Task<?>) other;
+            int result = due.compareTo(task.due);
+            return result != 0 ? result : Long.compare(order, task.order);
+        }
+    }
+}
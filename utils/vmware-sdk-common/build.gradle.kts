@@ -10,14 +10,26 @@
 
 plugins {
     `java-library`
+    `java-test-fixtures`
     id("util-conventions")
 }
 
 dependencies {
     implementation(libs.slf4j.api)
     implementation(sdkLibs.vapi.runtime)
+    testImplementation(testLibs.junit)
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
+tasks.test {
+    useJUnitPlatform()
+}
+
+// the test fixtures are shared with the tests of dependent modules, they are not published
+val javaComponent = components["java"] as AdhocComponentWithVariants
+javaComponent.withVariantsFromConfiguration(configurations["testFixturesApiElements"]) { skip() }
+javaComponent.withVariantsFromConfiguration(configurations["testFixturesRuntimeElements"]) { skip() }
+
 tasks.named<Jar>("jar") {
     manifest {
         attributes(
@@ -0,0 +1,367 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.utils.auth;
+
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the access token of a VCF Installer or SDDC Manager REST client fresh.
+ *
+ * <p>The manager is the token supplier of a client configured for bearer authentication. It makes sure that:
+ *
+ * <ul>
+ *   <li>the access token is refreshed ahead of the expiration time found in its JWT {@code exp} claim, so requests
+ *       rarely hit an expired token;
+ *   <li>a single refresh is running at a time, and all threads asking for a token while it runs share its result;
+ *   <li>a client asking for a new token gets the current one if it is not yet due for a refresh, e.g. the token
+ *       refreshed ahead of the expiration while the client still held the previous one;
+ *   <li>if the refresh token is rejected, e.g. because it has expired, a new token pair is created with the
+ *       credentials.
+ * </ul>
+ *
+ * <p>This class is thread safe.
+ */
+public final class AccessTokenManager implements Supplier<CompletionStage<char[]>>, Closeable {
+
+    /** Default time before the expiration of the access token at which it is refreshed. */
+    public static final Duration DEFAULT_REFRESH_MARGIN = Duration.ofMinutes(1);
+
+    /** A token requested within this time after a refresh is answered with the refreshed token. */
+    private static final Duration MIN_TOKEN_AGE = Duration.ofSeconds(5);
+
+    private static final Logger log = LoggerFactory.getLogger(AccessTokenManager.class);
+
+    private static final Pattern EXP_CLAIM = Pattern.compile("\"exp\"\\s*:\\s*(\\d+)");
+
+    private final Function<String, CompletionStage<String>> refresher;
+    private final Supplier<CompletionStage<IssuedTokens>> login;
+    private final Duration refreshMargin;
+    private final Clock clock;
+
+    private IssuedTokens tokens;
+    private Instant issuedAt;
+    private Instant renewedAt;
+    private CompletableFuture<char[]> refresh;
+    private boolean closed;
+
+    private long refreshCount;
+    private long loginCount;
+    private long failureCount;
+    private long totalRefreshNanos;
+    private long maxRefreshNanos;
+
+    /** An access token together with the refresh token it can be refreshed with. */
+    public static final class IssuedTokens {
+        private final String accessToken;
+        private final String refreshToken;
+
+        /**
+         * @param accessToken the access token, a JWT
+         * @param refreshToken the refresh token; may be null if the token can only be renewed with the credentials
+         */
+        public IssuedTokens(String accessToken, String refreshToken) {
+            this.accessToken = Objects.requireNonNull(accessToken);
+            this.refreshToken = refreshToken;
+        }
+
+        public String getAccessToken() {
+            return accessToken;
+        }
+
+        public String getRefreshToken() {
+            return refreshToken;
+        }
+    }
+
+    /**
+     * @param tokens the initial tokens
+     * @param refresher exchanges a refresh token for a new access token
+     * @param login creates a new token pair with the credentials
+     */
+    public AccessTokenManager(
+            IssuedTokens tokens,
+            Function<String, CompletionStage<String>> refresher,
+            Supplier<CompletionStage<IssuedTokens>> login) {
+        this(tokens, refresher, login, DEFAULT_REFRESH_MARGIN, Clock.systemUTC());
+    }
+
+    AccessTokenManager(
+            IssuedTokens tokens,
+            Function<String, CompletionStage<String>> refresher,
+            Supplier<CompletionStage<IssuedTokens>> login,
+            Duration refreshMargin,
+            Clock clock) {
+        this.tokens = Objects.requireNonNull(tokens);
+        this.refresher = Objects.requireNonNull(refresher);
+        this.login = Objects.requireNonNull(login);
+        this.refreshMargin = Objects.requireNonNull(refreshMargin);
+        this.clock = Objects.requireNonNull(clock);
+        this.issuedAt = clock.instant();
+    }
+
+    /** @return the current access token, which may be close to its expiration */
+    public synchronized char[] getAccessToken() {
+        return tokens.getAccessToken().toCharArray();
+    }
+
+    /**
+     * Returns a new access token, typically after the server has rejected the token of the client. Joins the running
+     * refresh, if any. Returns the current token unless it is within the refresh margin of its expiration, as a client
+     * still holding an older token gets the proactively refreshed one this way. A token without expiration time is
+     * refreshed unless it has just been refreshed.
+     *
+     * @return completes with the access token
+     */
+    @Override
+    public synchronized CompletionStage<char[]> get() {
+        if (refresh != null) {
+            return refresh;
+        }
+
+        Instant now = clock.instant();
+        Instant refreshAt = getRefreshTime();
+        boolean current = refreshAt != null
+                ? now.isBefore(refreshAt)
+                : renewedAt != null && now.isBefore(renewedAt.plus(MIN_TOKEN_AGE));
+        if (current) {
+            return CompletableFuture.completedFuture(tokens.getAccessToken().toCharArray());
+        }
+        return startRefresh();
+    }
+
+    /**
+     * Schedules the refreshes of the access token ahead of its expiration. The refreshes run until the manager is
+     * {@link #close() closed} or no longer referenced. Has no effect for tokens without an {@code exp} claim.
+     */
+    public synchronized void startProactiveRefresh() {
+        scheduleProactiveRefresh();
+    }
+
+    /** Stops the proactive refreshes. */
+    @Override
+    public synchronized void close() {
+        closed = true;
+    }
+
+    /** @return a snapshot of the refresh metrics */
+    public synchronized Statistics getStatistics() {
+        return new Statistics(
+                refreshCount,
+                loginCount,
+                failureCount,
+                refreshCount == 0 ? Duration.ZERO : Duration.ofNanos(totalRefreshNanos / refreshCount),
+                Duration.ofNanos(maxRefreshNanos));
+    }
+
+    /**
+     * Extracts the expiration time from the {@code exp} claim of a JWT. The signature is not verified, the value is
+     * only used to schedule the refresh.
+     *
+     * @return the expiration time, or null if the token is not a JWT or has no {@code exp} claim
+     */
+    static Instant getExpirationTime(String jwt) {
+        String[] parts = jwt.split("\\.");
+        if (parts.length < 2) {
+            return null;
+        }
+        try {
+            String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+            Matcher matcher = EXP_CLAIM.matcher(payload);
+            return matcher.find() ? Instant.ofEpochSecond(Long.parseLong(matcher.group(1))) : null;
+        } catch (IllegalArgumentException e) {
+            log.debug("Could not read the expiration time of the access token", e);
+            return null;
+        }
+    }
+
+    /** Must hold the lock. */
+    private CompletableFuture<char[]> startRefresh() {
+        long start = System.nanoTime();
+        String refreshToken = tokens.getRefreshToken();
+
+        CompletableFuture<IssuedTokens> newTokens;
+        if (refreshToken == null) {
+            newTokens = login();
+        } else {
+            newTokens = refresher
+                    .apply(refreshToken)
+                    .toCompletableFuture()
+                    .handle((accessToken, e) -> {
+                        if (e == null) {
+                            return CompletableFuture.completedFuture(new IssuedTokens(accessToken, refreshToken));
+                        }
+                        log.info("Could not refresh the access token, creating a new token pair", e);
+                        return login();
+                    })
+                    .thenCompose(Function.identity());
+        }
+
+        CompletableFuture<char[]> result = newTokens.handle((issued, e) -> {
+            synchronized (this) {
+                refresh = null;
+                if (e != null) {
+                    failureCount++;
+                    log.warn("Could not renew the access token", e);
+                    throw new IllegalStateException("Could not renew the access token", e);
+                }
+
+                long elapsed = System.nanoTime() - start;
+                refreshCount++;
+                totalRefreshNanos += elapsed;
+                maxRefreshNanos = Math.max(maxRefreshNanos, elapsed);
+                tokens = issued;
+                issuedAt = clock.instant();
+                renewedAt = issuedAt;
+                log.debug("Renewed the access token in {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+                return issued.getAccessToken().toCharArray();
+            }
+        });
+        if (!result.isDone()) {
+            refresh = result;
+        }
+        return result;
+    }
+
+    private CompletableFuture<IssuedTokens> login() {
+        synchronized (this) {
+            loginCount++;
+        }
+        return login.get().toCompletableFuture();
+    }
+
+    /** Must hold the lock. */
+    private void scheduleProactiveRefresh() {
+        if (closed) {
+            return;
+        }
+
+        Instant refreshAt = getRefreshTime();
+        if (refreshAt == null) {
+            log.debug("The access token has no expiration time, it will be refreshed on demand only");
+            return;
+        }
+
+        long delayMs = Math.max(0, Duration.between(clock.instant(), refreshAt).toMillis());
+        scheduleProactiveRefresh(delayMs);
+    }
+
+    /**
+     * Must hold the lock.
+     *
+     * @return the time at which the current access token is due for a refresh, or null if it has no expiration time
+     */
+    private Instant getRefreshTime() {
+        Instant expiresAt = getExpirationTime(tokens.getAccessToken());
+        if (expiresAt == null) {
+            return null;
+        }
+
+        // refresh one margin ahead of the expiration, or half-way for tokens living shorter than two margins
+        Duration lifetime = Duration.between(issuedAt, expiresAt);
+        Duration margin = lifetime.compareTo(refreshMargin.multipliedBy(2)) < 0 ? lifetime.dividedBy(2) : refreshMargin;
+        return expiresAt.minus(margin);
+    }
+
+    /** The scheduled task does not keep the manager alive, so refreshes stop once its client is gone. */
+    private void scheduleProactiveRefresh(long delayMs) {
+        WeakReference<AccessTokenManager> manager = new WeakReference<>(this);
+        CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS).execute(() -> {
+            AccessTokenManager referent = manager.get();
+            if (referent != null) {
+                referent.refreshProactively();
+            }
+        });
+    }
+
+    private synchronized void refreshProactively() {
+        if (closed) {
+            return;
+        }
+
+        CompletableFuture<char[]> running = refresh != null ? refresh : startRefresh();
+        running.whenComplete((token, e) -> {
+            synchronized (this) {
+                if (e != null) {
+                    // retry in a while rather than in a tight loop
+                    scheduleProactiveRefresh(MIN_TOKEN_AGE.toMillis());
+                } else {
+                    scheduleProactiveRefresh();
+                }
+            }
+        });
+    }
+
+    /** Snapshot of the metrics of an {@link AccessTokenManager}. */
+    public static final class Statistics {
+        private final long refreshCount;
+        private final long loginCount;
+        private final long failureCount;
+        private final Duration averageLatency;
+        private final Duration maxLatency;
+
+        Statistics(
+                long refreshCount, long loginCount, long failureCount, Duration averageLatency, Duration maxLatency) {
+            this.refreshCount = refreshCount;
+            this.loginCount = loginCount;
+            this.failureCount = failureCount;
+            this.averageLatency = averageLatency;
+            this.maxLatency = maxLatency;
+        }
+
+        /** @return the number of successful token renewals */
+        public long getRefreshCount() {
+            return refreshCount;
+        }
+
+        /** @return the number of times a new token pair was created with the credentials */
+        public long getLoginCount() {
+            return loginCount;
+        }
+
+        /** @return the number of failed token renewals */
+        public long getFailureCount() {
+            return failureCount;
+        }
+
+        /** @return the average duration of a successful token renewal */
+        public Duration getAverageLatency() {
+            return averageLatency;
+        }
+
+        /** @return the longest duration of a successful token renewal */
+        public Duration getMaxLatency() {
+            return maxLatency;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{refreshCount=" + refreshCount + ", loginCount=" + loginCount + ", failureCount="
+                    + failureCount + ", averageLatency=" + averageLatency + ", maxLatency=" + maxLatency + "}";
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.utils.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.vmware.sdk.utils.MutableClock;
+import com.vmware.sdk.utils.auth.AccessTokenManager.IssuedTokens;
+
+/**
+ * Tests {@link AccessTokenManager} against a stub token endpoint. The expiration times of the tokens and the refresh
+ * decisions are based on a virtual clock.
+ */
+public class AccessTokenManagerTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Duration LIFETIME = Duration.ofMinutes(10);
+    private static final Duration MARGIN = Duration.ofMinutes(1);
+    private static final long LATENCY_MS = 100;
+
+    private final AtomicInteger refreshRequests = new AtomicInteger();
+    private final AtomicInteger loginRequests = new AtomicInteger();
+    private final AtomicInteger issued = new AtomicInteger();
+    private volatile String lastRefreshToken;
+    private volatile boolean rejectRefresh;
+    private volatile boolean rejectLogin;
+    private volatile boolean opaqueTokens;
+
+    private MutableClock clock;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private HttpClient client;
+    private URI base;
+    private AccessTokenManager manager;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        clock = new MutableClock(START);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v1/tokens/access-token/refresh", exchange -> {
+            refreshRequests.incrementAndGet();
+            lastRefreshToken = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            sleep(LATENCY_MS);
+            if (rejectRefresh) {
+                respond(exchange, 401, "");
+            } else {
+                respond(exchange, 200, issueAccessToken());
+            }
+        });
+        server.createContext("/v1/tokens", exchange -> {
+            loginRequests.incrementAndGet();
+            sleep(LATENCY_MS);
+            if (rejectLogin) {
+                respond(exchange, 401, "");
+            } else {
+                respond(exchange, 200, issueAccessToken() + " refresh-" + issued.get());
+            }
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        client = HttpClient.newHttpClient();
+        base = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/");
+    }
+
+    @AfterEach
+    public void teardown() {
+        if (manager != null) {
+            manager.close();
+        }
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testGetReturnsCurrentTokenBeforeRefreshMargin() throws Exception {
+        manager = createManager();
+        String initial = new String(manager.getAccessToken());
+
+        clock.advance(LIFETIME.minus(MARGIN).minusSeconds(1));
+
+        assertEquals(initial, get());
+        assertEquals(0, refreshRequests.get());
+    }
+
+    @Test
+    public void testGetRefreshesWithinRefreshMargin() throws Exception {
+        manager = createManager();
+        String initial = new String(manager.getAccessToken());
+
+        clock.advance(LIFETIME.minus(MARGIN));
+        String refreshed = get();
+
+        assertEquals(1, refreshRequests.get());
+        assertEquals(refreshed, new String(manager.getAccessToken()));
+        assertNotEquals(initial, refreshed);
+        assertEquals(1, manager.getStatistics().getRefreshCount());
+
+        // the refreshed token is current again
+        assertEquals(refreshed, get());
+        assertEquals(1, refreshRequests.get());
+    }
+
+    /** A client holding the initial token gets the proactively refreshed one, without another refresh. */
+    @Test
+    public void testProactiveRefreshReachesClient() throws Exception {
+        manager = createManager();
+
+        clock.advance(LIFETIME.minus(MARGIN).plusSeconds(10));
+        manager.startProactiveRefresh();
+        awaitRefreshes(1);
+        String refreshed = new String(manager.getAccessToken());
+
+        // later, the client is rejected with the initial token and asks for a new one
+        clock.advance(Duration.ofSeconds(30));
+        assertEquals(refreshed, get());
+        assertEquals(1, refreshRequests.get());
+        assertEquals(1, manager.getStatistics().getRefreshCount());
+    }
+
+    @Test
+    public void testConcurrentGetsShareRefresh() throws Exception {
+        manager = createManager();
+        clock.advance(LIFETIME);
+
+        List<CompletableFuture<char[]>> tokens = new ArrayList<>();
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<CompletionStage<char[]>>> calls = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                calls.add(CompletableFuture.supplyAsync(manager::get, callers));
+            }
+            for (CompletableFuture<CompletionStage<char[]>> call : calls) {
+                tokens.add(call.get(10, TimeUnit.SECONDS).toCompletableFuture());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        String refreshed = new String(tokens.get(0).get(10, TimeUnit.SECONDS));
+        for (CompletableFuture<char[]> token : tokens) {
+            assertEquals(refreshed, new String(token.get(10, TimeUnit.SECONDS)));
+        }
+        assertEquals(1, refreshRequests.get());
+    }
+
+    @Test
+    public void testRejectedRefreshTokenFallsBackToLogin() throws Exception {
+        manager = createManager();
+        rejectRefresh = true;
+        clock.advance(LIFETIME);
+
+        String renewed = get();
+
+        assertEquals(1, refreshRequests.get());
+        assertEquals(1, loginRequests.get());
+        assertEquals(renewed, new String(manager.getAccessToken()));
+        AccessTokenManager.Statistics statistics = manager.getStatistics();
+        assertEquals(1, statistics.getRefreshCount());
+        assertEquals(1, statistics.getLoginCount());
+
+        // the new refresh token is used for the next refresh
+        rejectRefresh = false;
+        clock.advance(LIFETIME);
+        get();
+        assertEquals(2, refreshRequests.get());
+        assertEquals("refresh-2", lastRefreshToken);
+        assertEquals(1, loginRequests.get());
+    }
+
+    @Test
+    public void testFailedRenewal() throws Exception {
+        manager = createManager();
+        rejectRefresh = true;
+        rejectLogin = true;
+        clock.advance(LIFETIME);
+
+        ExecutionException e = assertThrows(
+                ExecutionException.class,
+                () -> manager.get().toCompletableFuture().get(10, TimeUnit.SECONDS));
+
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(1, manager.getStatistics().getFailureCount());
+
+        // the next call tries again
+        rejectRefresh = false;
+        get();
+        assertEquals(2, refreshRequests.get());
+    }
+
+    @Test
+    public void testTokenWithoutExpirationIsRefreshedOnDemand() throws Exception {
+        opaqueTokens = true;
+        manager = createManager();
+
+        String refreshed = get();
+        assertEquals(1, refreshRequests.get());
+
+        // a token has just been refreshed, the caller was rejected with the previous one
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(refreshed, get());
+        assertEquals(1, refreshRequests.get());
+
+        clock.advance(Duration.ofSeconds(10));
+        get();
+        assertEquals(2, refreshRequests.get());
+    }
+
+    @Test
+    public void testGetExpirationTime() {
+        Instant expiresAt = START.plus(LIFETIME);
+
+        assertEquals(expiresAt, AccessTokenManager.getExpirationTime(createJwt(expiresAt)));
+        assertNull(AccessTokenManager.getExpirationTime("opaque-token"));
+        assertNull(AccessTokenManager.getExpirationTime("header.%%%.signature"));
+        assertNull(AccessTokenManager.getExpirationTime(
+                "e30." + Base64.getUrlEncoder().withoutPadding().encodeToString("{}".getBytes()) + ".sig"));
+    }
+
+    private AccessTokenManager createManager() {
+        IssuedTokens initial = new IssuedTokens(issueAccessToken(), "refresh-0");
+        return new AccessTokenManager(initial, this::refresh, this::login, MARGIN, clock);
+    }
+
+    private CompletionStage<String> refresh(String refreshToken) {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("tokens/access-token/refresh"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(refreshToken))
+                .build();
+        return send(request);
+    }
+
+    private CompletionStage<IssuedTokens> login() {
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("tokens"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"admin\",\"password\":\"secret\"}"))
+                .build();
+        return send(request).thenApply(body -> {
+            String[] tokens = body.split(" ");
+            return new IssuedTokens(tokens[0], tokens[1]);
+        });
+    }
+
+    private CompletableFuture<String> send(HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Token request failed with status " + response.statusCode());
+            }
+            return response.body();
+        });
+    }
+
+    private String get() throws Exception {
+        return new String(manager.get().toCompletableFuture().get(10, TimeUnit.SECONDS));
+    }
+
+    private void awaitRefreshes(long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (manager.getStatistics().getRefreshCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, manager.getStatistics().getRefreshCount());
+    }
+
+    /** @return a new access token, which expires {@link #LIFETIME} after the current time of the clock */
+    private String issueAccessToken() {
+        int id = issued.incrementAndGet();
+        return opaqueTokens ? "opaque-" + id : createJwt(clock.instant().plus(LIFETIME)) + id;
+    }
+
+    private static String createJwt(Instant expiresAt) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(
+                ("{\"sub\":\"admin\",\"exp\":" + expiresAt.getEpochSecond() + "}").getBytes(StandardCharsets.UTF_8));
+        return header + "." + payload + ".signature";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
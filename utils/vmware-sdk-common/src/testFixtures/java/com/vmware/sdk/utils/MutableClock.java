@@ -0,0 +1,61 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.utils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A clock for tests of time dependent code, which stands still until it is set or advanced.
+ *
+ * <p>The clocks returned by {@link #withZone(ZoneId)} share the instant of this clock.
+ */
+public final class MutableClock extends Clock {
+    private final AtomicReference<Instant> current;
+    private final ZoneId zone;
+
+    public MutableClock(Instant instant) {
+        this(new AtomicReference<>(Objects.requireNonNull(instant)), ZoneOffset.UTC);
+    }
+
+    private MutableClock(AtomicReference<Instant> current, ZoneId zone) {
+        this.current = current;
+        this.zone = zone;
+    }
+
+    public void set(Instant instant) {
+        current.set(Objects.requireNonNull(instant));
+    }
+
+    public void advance(Duration duration) {
+        current.updateAndGet(instant -> instant.plus(duration));
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new MutableClock(current, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return current.get();
+    }
+}
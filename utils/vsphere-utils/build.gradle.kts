@@ -32,6 +32,12 @@ dependencies {
     api(project(":utils:vapi-authentication"))
     api(project(":utils:vapi-samltoken"))
     api(project(":utils:vmware-sdk-common"))
+    testImplementation(testLibs.junit)
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
 
 spotless {
@@ -0,0 +1,91 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The time spent in the individual phases of creating a {@link VcenterClient}.
+ *
+ * <p>When the client is created with a bootstrap executor (see
+ * {@link VcenterClientFactory#setBootstrapExecutor(java.util.concurrent.Executor)}) some phases overlap, so their sum
+ * is larger than {@link Phase#TOTAL}.
+ *
+ * <p>This class is thread safe.
+ */
+public final class BootstrapTimings {
+
+    /** The phases of the client creation. */
+    public enum Phase {
+        /** SOAP login, i.e. the creation of the vim session. */
+        SOAP_LOGIN,
+        /** Retrieval of the vim {@code ServiceContent}, which provides the server version. */
+        SERVICE_CONTENT,
+        /** Creation of the secondary vAPI session, only for servers older than 8.0.3. */
+        VAPI_SESSION,
+        /** Warm-up of the PBM endpoint. */
+        PBM_WARM_UP,
+        /** Warm-up of the VSLM endpoint. */
+        VSLM_WARM_UP,
+        /** Warm-up of the SMS endpoint. */
+        SMS_WARM_UP,
+        /** The whole client creation. */
+        TOTAL
+    }
+
+    private final Map<Phase, Duration> durations = new EnumMap<>(Phase.class);
+
+    /**
+     * @param phase the phase
+     * @return the time spent in the given phase, or <code>null</code> if the phase was not executed
+     */
+    public synchronized Duration getDuration(Phase phase) {
+        return durations.get(phase);
+    }
+
+    /** @return the time spent in each executed phase, in {@link Phase} order */
+    public synchronized Map<Phase, Duration> getDurations() {
+        return Collections.unmodifiableMap(new EnumMap<>(durations));
+    }
+
+    synchronized void record(Phase phase, Duration duration) {
+        durations.put(phase, duration);
+    }
+
+    /** Runs the given action and records its duration under the given phase, whether it succeeds or not. */
+    <T> T time(Phase phase, Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(phase, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Phase, Duration> entry : durations.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(entry.getKey())
+                    .append('=')
+                    .append(entry.getValue().toMillis())
+                    .append("ms");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the running operations against a total limit and a limit per key, e.g. per ESXi host or per datastore.
+ *
+ * <p>The owner queues the operations and, whenever one is submitted or completes, starts the queued ones for which
+ * {@link #tryAcquire(String)} succeeds. An operation whose key is at its limit is skipped rather than waited for, so a
+ * busy host does not hold up the operations of the other hosts. Each started operation must be released exactly once.
+ * Keys without running operations are dropped, so the counts of a long lived owner do not grow with every key it has
+ * seen.
+ *
+ * <pre>{@code
+ * KeyedConcurrencyLimiter limiter = new KeyedConcurrencyLimiter(32, 4);
+ * if (limiter.tryAcquire(host)) {
+ *     executor.execute(() -> {
+ *         try {
+ *             search(host);
+ *         } finally {
+ *             limiter.release(host);
+ *         }
+ *     });
+ * }
+ * }</pre>
+ *
+ * <p>The limits can be changed at any time; operations already running are not affected. This class is thread safe.
+ */
+public final class KeyedConcurrencyLimiter {
+
+    /** A limit which is never reached. */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final Map<String, Integer> runningPerKey = new HashMap<>();
+    private int running;
+    private int limit;
+    private int limitPerKey;
+
+    /**
+     * @param limit the number of operations running at the same time
+     * @param limitPerKey the number of operations of the same key running at the same time
+     */
+    public KeyedConcurrencyLimiter(int limit, int limitPerKey) {
+        setLimit(limit);
+        setLimitPerKey(limitPerKey);
+    }
+
+    /** @param limit the number of operations running at the same time */
+    public synchronized void setLimit(int limit) {
+        this.limit = requirePositive(limit);
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    /** @param limitPerKey the number of operations of the same key running at the same time */
+    public synchronized void setLimitPerKey(int limitPerKey) {
+        this.limitPerKey = requirePositive(limitPerKey);
+    }
+
+    public synchronized int getLimitPerKey() {
+        return limitPerKey;
+    }
+
+    /** @return whether the total limit is reached, in which case no operation of any key can start */
+    public synchronized boolean isFull() {
+        return running >= limit;
+    }
+
+    /**
+     * @param key the key of the operation; null counts only towards the total limit
+     * @return whether an operation of the key can start
+     */
+    public synchronized boolean hasRoom(String key) {
+        return running < limit && (key == null || runningPerKey.getOrDefault(key, 0) < limitPerKey);
+    }
+
+    /**
+     * Counts an operation as running, if the limits have room for it.
+     *
+     * @param key the key of the operation; null counts only towards the total limit
+     * @return whether the operation can start; if so, it must be released when it completes
+     */
+    public synchronized boolean tryAcquire(String key) {
+        if (!hasRoom(key)) {
+            return false;
+        }
+        acquire(key);
+        return true;
+    }
+
+    /**
+     * Counts an operation as running regardless of the limits, e.g. after checking the room of several limiters.
+     *
+     * @param key the key of the operation; null counts only towards the total limit
+     */
+    public synchronized void acquire(String key) {
+        running++;
+        if (key != null) {
+            runningPerKey.merge(key, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Counts a running operation as completed.
+     *
+     * @param key the key the operation was acquired with
+     */
+    public synchronized void release(String key) {
+        if (running == 0) {
+            throw new IllegalStateException("No operation is running");
+        }
+        running--;
+        if (key != null) {
+            runningPerKey.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    /** @return the number of running operations */
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    /**
+     * @param key the key
+     * @return the number of running operations of the key
+     */
+    public synchronized int getRunning(String key) {
+        return runningPerKey.getOrDefault(key, 0);
+    }
+
+    /** @return the number of keys with running operations */
+    public synchronized int getKeyCount() {
+        return runningPerKey.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "KeyedConcurrencyLimiter[running=" + running + "/" + limit + ", perKey=" + runningPerKey + "/"
+                + limitPerKey + "]";
+    }
+
+    private static int requirePositive(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Expected positive limit, but got " + limit);
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.feature.Feature;
+import org.apache.cxf.jaxb.JAXBDataBinding;
+import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
+import org.apache.cxf.jaxws.support.JaxWsServiceFactoryBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.pbm.PbmPortType;
+import com.vmware.sdk.vsphere.client.bindings.Vim25Classes;
+import com.vmware.vim.sms.SmsPortType;
+import com.vmware.vim25.VimPortType;
+import com.vmware.vsan.sdk.VsanhealthPortType;
+import com.vmware.vslm.VslmPortType;
+
+/**
+ * Process-wide cache of the SOAP bindings used by {@link VimClient} and {@link VcenterClient}.
+ *
+ * <p>Building the JAXB model of the vim25 API takes several seconds, which dominates the startup of short-lived
+ * applications. The JAXB context of each API (vim25, PBM, SMS, VSLM and vSAN) is built once per process and shared by
+ * all ports of that API. Each port still has its own data binding and proxy.
+ *
+ * <p>Applications can start building the contexts in the background with {@link #prewarm()}, e.g. while they are
+ * reading their configuration or acquiring a token. Applications which use only a small part of the vim25 API can
+ * declare the data objects they use with {@link #setVim25ContextClasses(Class[])}, which keeps the model small.
+ *
+ * <p>This class is thread safe.
+ */
+public final class SoapBindings {
+
+    private static final Logger log = LoggerFactory.getLogger(SoapBindings.class);
+
+    /** The port types of the APIs whose contexts are built by {@link #prewarm(Executor)}. */
+    private static final List<Class<?>> PORT_TYPES = Arrays.asList(
+            VimPortType.class, PbmPortType.class, SmsPortType.class, VslmPortType.class, VsanhealthPortType.class);
+
+    /** The JAXB contexts by port type. Guarded by the class lock. */
+    private static final Map<Class<?>, CompletableFuture<JAXBContext>> contexts = new HashMap<>();
+
+    private static Class<?>[] vim25ContextClasses;
+
+    private SoapBindings() {}
+
+    /**
+     * Limits the vim25 data objects known to new VIM ports to the ones referenced by the {@link VimPortType} methods
+     * plus the given classes. Subtypes which the server returns but which are not declared here, e.g. the concrete
+     * types of a property collector result, cannot be read by these ports.
+     *
+     * @param classes the vim25 data objects used by the application; no classes restore the default, which is to know
+     *     all vim25 data objects
+     */
+    public static synchronized void setVim25ContextClasses(Class<?>... classes) {
+        Class<?>[] contextClasses = classes.length == 0 ? null : classes.clone();
+        if (!Arrays.equals(vim25ContextClasses, contextClasses)) {
+            vim25ContextClasses = contextClasses;
+            // ports created from now on use a context with the new classes
+            contexts.remove(VimPortType.class);
+        }
+    }
+
+    /**
+     * Builds the JAXB contexts of all APIs in the background, using the common fork-join pool.
+     *
+     * @return completes once the contexts are ready
+     * @see #prewarm(Executor)
+     */
+    public static CompletableFuture<Void> prewarm() {
+        return prewarm(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds the JAXB contexts of all APIs in the background. Ports created while this is running wait for the context
+     * of their API instead of building their own. Failures are logged and the contexts are built again on first use.
+     *
+     * @param executor runs the builds, one task per API
+     * @return completes once the contexts are ready
+     */
+    public static CompletableFuture<Void> prewarm(Executor executor) {
+        CompletableFuture<?>[] builds =
+                PORT_TYPES.stream().map(type -> getContext(type, executor)).toArray(CompletableFuture<?>[]::new);
+
+        return CompletableFuture.allOf(builds).whenComplete((result, e) -> {
+            if (e != null) {
+                log.warn("Could not prewarm the SOAP bindings", e);
+            } else {
+                log.debug("Prewarmed the SOAP bindings");
+            }
+        });
+    }
+
+    /**
+     * Creates a port of one of the supported APIs. The caller configures its address and session.
+     *
+     * @param portType the port type, e.g. {@link PbmPortType}
+     * @param features the features to configure on the proxy; can be <code>null</code>
+     * @return a new port with its own data binding over the shared context of its API
+     */
+    static <T> T createPort(Class<T> portType, List<? extends Feature> features) {
+        JaxWsProxyFactoryBean factoryBean = new JaxWsProxyFactoryBean();
+        factoryBean.setDataBinding(createDataBinding(portType));
+        if (features != null) {
+            factoryBean.setFeatures(features);
+        }
+        return factoryBean.create(portType);
+    }
+
+    /** @return a new data binding over the shared context of the API of the given port type */
+    static JAXBDataBinding createDataBinding(Class<?> portType) {
+        try {
+            return new JAXBDataBinding(getContext(portType, null).join());
+        } catch (CompletionException e) {
+            throw new RuntimeException(
+                    "Could not create the JAXB context of " + portType.getSimpleName(), e.getCause());
+        }
+    }
+
+    /**
+     * Returns the context of the given port type, starting to build it if needed. A failed build is retried by the next
+     * caller.
+     *
+     * @param executor builds the context; <code>null</code> builds it in the calling thread
+     */
+    private static synchronized CompletableFuture<JAXBContext> getContext(Class<?> portType, Executor executor) {
+        CompletableFuture<JAXBContext> context = contexts.get(portType);
+        if (context == null || context.isCompletedExceptionally()) {
+            Class<?>[] extraClasses = portType == VimPortType.class ? vim25ContextClasses : null;
+            if (executor == null) {
+                context = new CompletableFuture<>();
+                try {
+                    context.complete(createContext(portType, extraClasses));
+                } catch (RuntimeException e) {
+                    context.completeExceptionally(e);
+                }
+            } else {
+                context = CompletableFuture.supplyAsync(() -> createContext(portType, extraClasses), executor);
+            }
+            contexts.put(portType, context);
+        }
+        return context;
+    }
+
+    private static JAXBContext createContext(Class<?> portType, Class<?>[] extraClasses) {
+        long start = System.nanoTime();
+
+        JAXBContext context;
+        if (portType == VimPortType.class && extraClasses == null) {
+            context = createVim25Context();
+        } else {
+            // the classes CXF collects for a port of this type, plus the declared ones - the service model is built
+            // only to initialize the data binding, no port is created
+            JAXBDataBinding dataBinding = new JAXBDataBinding();
+            if (extraClasses != null) {
+                dataBinding.setExtraClass(extraClasses);
+            }
+            JaxWsServiceFactoryBean serviceFactory = new JaxWsServiceFactoryBean();
+            serviceFactory.setBus(BusFactory.getThreadDefaultBus());
+            serviceFactory.setServiceClass(portType);
+            serviceFactory.setDataBinding(dataBinding);
+            serviceFactory.create();
+            context = dataBinding.getContext();
+        }
+
+        log.debug(
+                "Created the JAXB context of {} in {} ms",
+                portType.getSimpleName(),
+                (System.nanoTime() - start) / 1_000_000);
+        return context;
+    }
+
+    private static JAXBContext createVim25Context() {
+        // the same classes CXF would collect: the element declarations plus all data objects
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        classes.add(com.vmware.vim25.ObjectFactory.class);
+        classes.addAll(Arrays.asList(Vim25Classes.getClasses()));
+
+        try {
+            return JAXBContext.newInstance(classes.toArray(new Class<?>[0]));
+        } catch (JAXBException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
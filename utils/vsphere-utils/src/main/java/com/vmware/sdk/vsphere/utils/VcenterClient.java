@@ -18,6 +18,8 @@ import static com.vmware.sdk.vsphere.utils.VsphereCookieHelper.configureOutgoing
 import java.io.Closeable;
 import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import jakarta.xml.ws.BindingProvider;
 
@@ -26,7 +28,6 @@ import org.slf4j.LoggerFactory;
 
 import com.vmware.cis.Session;
 import com.vmware.pbm.PbmPortType;
-import com.vmware.pbm.PbmService;
 import com.vmware.pbm.PbmServiceInstanceContent;
 import com.vmware.sdk.utils.wsdl.PortConfigurer;
 import com.vmware.vapi.bindings.Service;
@@ -35,13 +36,10 @@ import com.vmware.vapi.bindings.StubConfigurationBase;
 import com.vmware.vapi.bindings.StubCreator;
 import com.vmware.vapi.security.SessionSecurityContext;
 import com.vmware.vim.sms.SmsPortType;
-import com.vmware.vim.sms.SmsService;
 import com.vmware.vim25.ManagedObjectReference;
 import com.vmware.vim25.ServiceContent;
-import com.vmware.vim25.VimPortType;
 import com.vmware.vsan.sdk.VsanhealthPortType;
 import com.vmware.vslm.VslmPortType;
-import com.vmware.vslm.VslmService;
 import com.vmware.vslm.VslmServiceInstanceContent;
 
 /**
@@ -60,6 +58,12 @@ public class VcenterClient extends VimClient implements StubCreator, Closeable {
     protected volatile VslmServiceInstanceContent vslmServiceInstanceContent;
     protected volatile PbmServiceInstanceContent pbmServiceInstanceContent;
 
+    /** Set by {@link VcenterClientFactory} once the client has been created. */
+    private volatile BootstrapTimings bootstrapTimings = new BootstrapTimings();
+
+    /** Stubs created by {@link #createStub(Class)}, valid for a single vAPI session. */
+    private volatile SessionStubs sessionStubs = new SessionStubs(new char[0]);
+
     public VcenterClient(
             String serverAddress,
             int port,
@@ -77,8 +81,7 @@ public class VcenterClient extends VimClient implements StubCreator, Closeable {
 
     /** @return fresh VSLM port, which is fully configured and authenticated. */
     public VslmPortType getVslmPort() {
-        VslmService vslmService = new VslmService();
-        VslmPortType vslmPort = vslmService.getVslmPort();
+        VslmPortType vslmPort = SoapBindings.createPort(VslmPortType.class, null);
 
         this.portConfigurer.configure((BindingProvider) vslmPort, createVslmUrl(serverAddress, this.port));
 
@@ -95,8 +98,7 @@ public class VcenterClient extends VimClient implements StubCreator, Closeable {
 
     /** @return a fresh PBM port, which is fully configured and authenticated. */
     public PbmPortType getPbmPort() {
-        PbmService pbmService = new PbmService();
-        PbmPortType pbmPort = pbmService.getPbmPort();
+        PbmPortType pbmPort = SoapBindings.createPort(PbmPortType.class, null);
 
         this.portConfigurer.configure((BindingProvider) pbmPort, createPbmUrl(serverAddress, this.port));
 
@@ -108,9 +110,7 @@ public class VcenterClient extends VimClient implements StubCreator, Closeable {
 
     /** @return fresh SMS port, which is fully configured and authenticated. */
     public SmsPortType getSmsPort() {
-
-        SmsService smsService = new SmsService();
-        SmsPortType pbmPort = smsService.getSmsPort();
+        SmsPortType pbmPort = SoapBindings.createPort(SmsPortType.class, null);
 
         this.portConfigurer.configure((BindingProvider) pbmPort, createSmsUrl(serverAddress, this.port));
 
@@ -182,9 +182,13 @@ public class VcenterClient extends VimClient implements StubCreator, Closeable {
         return serviceContent;
     }
 
-    /** @return the {@link SessionIdProvider} used to configure {@link VimPortType}s. */
-    public SessionIdProvider getVimSessionProvider() {
-        return vimSessionProvider;
+    /** @return the time spent in the individual phases of creating this client */
+    public BootstrapTimings getBootstrapTimings() {
+        return bootstrapTimings;
+    }
+
+    void setBootstrapTimings(BootstrapTimings bootstrapTimings) {
+        this.bootstrapTimings = bootstrapTimings;
     }
 
     /**
@@ -198,15 +202,31 @@ public class VcenterClient extends VimClient implements StubCreator, Closeable {
     /**
      * Creates a stub for the specified interface.
      *
+     * <p>Stubs are thread safe and are created once per interface and vAPI session - repeated calls return the same
+     * stub as long as {@link #vapiSessionProvider} provides the same session.
+     *
      * @param vapiIface <code>Class</code> representing a vAPI interface. not null
      * @return a stub instance for the specified vAPI interface
+     * @throws IllegalStateException if {@link #vapiSessionProvider} provides no session
      */
     @Override
     public <T extends Service> T createStub(Class<T> vapiIface) {
         char[] sessionId = vapiSessionProvider.get();
-        StubConfiguration stubConfig = new StubConfiguration(new SessionSecurityContext(sessionId));
+        if (sessionId == null) {
+            throw new IllegalStateException("Expected a vAPI session from " + vapiSessionProvider + ", but got null");
+        }
 
-        return this.createStub(vapiIface, stubConfig);
+        SessionStubs stubs = this.sessionStubs;
+        if (!Arrays.equals(stubs.sessionId, sessionId)) {
+            // the session has been renewed, the stubs of the old one are not reused
+            stubs = new SessionStubs(sessionId.clone());
+            this.sessionStubs = stubs;
+        }
+
+        return vapiIface.cast(stubs.stubs.computeIfAbsent(vapiIface, iface -> {
+            StubConfiguration stubConfig = new StubConfiguration(new SessionSecurityContext(sessionId));
+            return this.createStub(iface, stubConfig);
+        }));
     }
 
     /**
@@ -241,6 +261,16 @@ public class VcenterClient extends VimClient implements StubCreator, Closeable {
         }
     }
 
+    /** The stubs of one vAPI session, by interface. */
+    private static final class SessionStubs {
+        private final char[] sessionId;
+        private final ConcurrentMap<Class<? extends Service>, Service> stubs = new ConcurrentHashMap<>();
+
+        private SessionStubs(char[] sessionId) {
+            this.sessionId = sessionId;
+        }
+    }
+
     /** @return new VslmServiceInstance {@link ManagedObjectReference} with pre-populated type and value. */
     public static ManagedObjectReference getVslmServiceInstanceRef() {
         ManagedObjectReference ref = new ManagedObjectReference();
@@ -21,15 +21,27 @@ import static com.vmware.sdk.vsphere.utils.VsphereCookieHelper.extractSessionId;
 import static com.vmware.vapi.cis.authn.SecurityContextFactory.createSamlSecurityContext;
 import static com.vmware.vapi.cis.authn.SecurityContextFactory.createUserPassSecurityContext;
 
+import java.io.Closeable;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 import jakarta.xml.ws.BindingProvider;
@@ -48,13 +60,13 @@ import com.vmware.sdk.ssoclient.utils.soaphandlers.WsSecuritySignatureAssertionH
 import com.vmware.sdk.utils.ssl.vapi.HttpConfigHelper;
 import com.vmware.sdk.utils.wsdl.PortConfigurer;
 import com.vmware.sdk.utils.wsdl.SimpleHttpConfigurer;
+import com.vmware.sdk.vsphere.utils.BootstrapTimings.Phase;
 import com.vmware.sdk.vsphere.utils.wstrust.AbstractHokTokenAuthenticator;
 import com.vmware.sdk.vsphere.utils.wstrust.BearerTokenAuthenticator;
 import com.vmware.sdk.vsphere.utils.wstrust.HokTokenAuthenticator;
 import com.vmware.sdk.vsphere.utils.wstrust.HokTokenForTokenAuthenticator;
 import com.vmware.vapi.bindings.Service;
 import com.vmware.vapi.bindings.StubConfiguration;
-import com.vmware.vapi.bindings.StubCreator;
 import com.vmware.vapi.bindings.StubFactory;
 import com.vmware.vapi.cis.authn.ProtocolFactory;
 import com.vmware.vapi.core.ApiProvider;
@@ -63,7 +75,10 @@ import com.vmware.vapi.protocol.HttpConfiguration;
 import com.vmware.vapi.protocol.ProtocolConnection;
 import com.vmware.vapi.saml.DefaultTokenFactory;
 import com.vmware.vapi.saml.SamlToken;
+import com.vmware.vapi.saml.SamlTokenCache;
+import com.vmware.vapi.saml.SamlTokenFactory;
 import com.vmware.vapi.saml.exception.InvalidTokenException;
+import com.vmware.vapi.security.SessionSecurityContext;
 import com.vmware.vim.sms.SmsPortType;
 import com.vmware.vim25.ManagedObjectReference;
 import com.vmware.vim25.ServiceContent;
@@ -91,17 +106,57 @@ import com.vmware.vslm.VslmPortType;
  *
  * <p>This factory hides the authentication complexity.
  *
+ * <p>By default the client is created by a strictly serial sequence of server calls. With a bootstrap executor (see
+ * {@link #setBootstrapExecutor(Executor)}) the independent steps - the SOAP login, the retrieval of the server version
+ * and the secondary vAPI session - run concurrently, and the endpoints selected with
+ * {@link #setWarmUpEndpoints(WarmUpEndpoint...)} are warmed up next to them. The time spent in each step is available
+ * from {@link VcenterClient#getBootstrapTimings()}.
+ *
+ * <p>The clients created by this factory share one vAPI connection per server, which {@link #close()} closes once the
+ * clients are no longer used.
+ *
  * <p>This factory is NOT going to take of the session health checking - i.e. long-running applications should
  * periodically "ping" the session(s) by invoking "cheap" APIs, or alternatively they should acquire new clients in
  * order to re-authenticate. Failing to do so may result in failing API invocations because of expired sessions.
  */
-public class VcenterClientFactory extends VimClientFactory {
+public class VcenterClientFactory extends VimClientFactory implements Closeable {
 
     private static final Logger log = LoggerFactory.getLogger(VcenterClientFactory.class);
 
     /** Http configuration for vAPI stubs. */
     protected final HttpConfiguration vApiHttpConfiguration;
 
+    /**
+     * Stub factories by vAPI endpoint. Each one owns a pooled HTTP connection, which is shared by the session bootstrap
+     * and by all clients created by this factory instead of opening a new pool for every client.
+     */
+    private final ConcurrentMap<URI, StubFactory> stubFactories = new ConcurrentHashMap<>();
+
+    /** The connections opened by {@link #createStubFactory(URI, HttpConfiguration)}, closed by {@link #close()}. */
+    private final Queue<ProtocolConnection> connections = new ConcurrentLinkedQueue<>();
+
+    /** Runs the independent client bootstrap steps concurrently; <code>null</code> means "run them serially". */
+    private volatile Executor bootstrapExecutor;
+
+    /** The endpoints to warm up while creating a client. */
+    private volatile Set<WarmUpEndpoint> warmUpEndpoints = Collections.emptySet();
+
+    /**
+     * The security context supplier may be invoked many times for the same token - keep the parsed tokens around
+     * instead of running the whole SAML parsing pipeline on every invocation.
+     */
+    private volatile SamlTokenFactory tokenFactory = new DefaultTokenFactory(new SamlTokenCache());
+
+    /** Endpoints which can be warmed up while a client is being created. */
+    public enum WarmUpEndpoint {
+        /** Fetches the PBM service content, see {@link VcenterClient#getPbmServiceInstanceContent()}. */
+        PBM,
+        /** Fetches the VSLM service content, see {@link VcenterClient#getVslmServiceInstanceContent()}. */
+        VSLM,
+        /** Loads the SMS port, see {@link VcenterClient#getSmsPort()}. */
+        SMS
+    }
+
     /**
      * Creates a new factory that'll produce clients with default connection configuration.
      *
@@ -213,6 +268,39 @@ public class VcenterClientFactory extends VimClientFactory {
         this.vApiHttpConfiguration = vApiHttpConfiguration;
     }
 
+    /**
+     * Sets the executor which runs the independent steps of the client creation concurrently. Short-lived applications
+     * connecting to many servers benefit the most, as the latency of the individual handshakes no longer adds up.
+     *
+     * @param bootstrapExecutor the executor; <code>null</code> restores the default serial bootstrap
+     */
+    public void setBootstrapExecutor(Executor bootstrapExecutor) {
+        this.bootstrapExecutor = bootstrapExecutor;
+    }
+
+    /**
+     * Selects the endpoints which are warmed up while creating a client, so the first API call to them does not pay for
+     * the connection setup. Warm-up failures are logged and do not fail the client creation.
+     *
+     * @param endpoints the endpoints to warm up; none by default
+     */
+    public void setWarmUpEndpoints(WarmUpEndpoint... endpoints) {
+        Set<WarmUpEndpoint> selected = EnumSet.noneOf(WarmUpEndpoint.class);
+        selected.addAll(Arrays.asList(endpoints));
+        this.warmUpEndpoints = selected;
+    }
+
+    /**
+     * Sets the cache of the SAML tokens parsed for the vAPI sessions of the clients. By default each factory keeps up
+     * to {@link SamlTokenCache#DEFAULT_MAX_ENTRIES} tokens in a cache of its own.
+     *
+     * @param tokenCache the cache, e.g. one of another size or one shared by several factories; <code>null</code>
+     *     parses every token again
+     */
+    public void setTokenCache(SamlTokenCache tokenCache) {
+        this.tokenFactory = new DefaultTokenFactory(tokenCache);
+    }
+
     /**
      * Fetches a HoK token from the STS Service, creates a new vCenter session and uses it to construct a new client
      * which can provide stubs for the various services.
@@ -260,8 +348,14 @@ public class VcenterClientFactory extends VimClientFactory {
             VimPortType vimPort,
             ServiceContent serviceContent,
             SessionIdProvider vimSessionProvider) {
+        // the session has already been created and the server version is known from the given service content
         return createClient(
-                vimPort, vimSessionProvider, () -> createUserPassSecurityContext(username, password.toCharArray()));
+                vimPort,
+                serviceContent,
+                vimSessionProvider,
+                null,
+                () -> createUserPassSecurityContext(username, password.toCharArray()),
+                new BootstrapTimings());
     }
 
     /**
@@ -283,75 +377,272 @@ public class VcenterClientFactory extends VimClientFactory {
         VimPortType vimPort = createVimPort(null);
 
         portConfigurer.configure((BindingProvider) vimPort, createVimUrl(serverAddress, port));
-        configureOutgoingCookie((BindingProvider) vimPort, new String(vimSessionProvider.get()));
 
-        return createClient(vimPort, vimSessionProvider, () -> {
-            try {
-                SamlToken vapiSamlToken = DefaultTokenFactory.createTokenFromDom(samlToken);
-                return createSamlSecurityContext(vapiSamlToken, privateKey);
-            } catch (InvalidTokenException e) {
-                // this shouldn't be possible because the STS is expected to always provide a valid token
-                throw new RuntimeException(e);
-            }
-        });
+        // the ServiceContent can be retrieved without a session, so the login does not have to precede it
+        BootstrapTimings timings = new BootstrapTimings();
+        CompletableFuture<char[]> vimLogin = startPhase(timings, Phase.SOAP_LOGIN, vimSessionProvider::get);
+        SamlTokenFactory tokenFactory = this.tokenFactory;
+
+        return createClient(
+                vimPort,
+                null,
+                vimSessionProvider,
+                vimLogin,
+                () -> {
+                    try {
+                        SamlToken vapiSamlToken = tokenFactory.parseToken(samlToken);
+                        return createSamlSecurityContext(vapiSamlToken, privateKey);
+                    } catch (InvalidTokenException e) {
+                        // this shouldn't be possible because the STS is expected to always provide a valid token
+                        throw new RuntimeException(e);
+                    }
+                },
+                timings);
     }
 
     protected VcenterClient createClient(
             VimPortType vimPort,
             SessionIdProvider vimSessionProvider,
             Supplier<SecurityContext> securityContextSupplier) {
+        return createClient(vimPort, null, vimSessionProvider, null, securityContextSupplier, new BootstrapTimings());
+    }
 
-        String apiVersion;
+    /**
+     * Creates the client once the SOAP login has been started. If the creation fails, the sessions created for it are
+     * destroyed, including the ones created by phases which complete after the failure.
+     *
+     * @param serviceContent the already retrieved service content, or <code>null</code> to retrieve it here
+     * @param vimLogin the SOAP login, or <code>null</code> if the vim session provider should be asked for a session
+     *     when one is needed
+     */
+    private VcenterClient createClient(
+            VimPortType vimPort,
+            ServiceContent serviceContent,
+            SessionIdProvider vimSessionProvider,
+            CompletableFuture<char[]> vimLogin,
+            Supplier<SecurityContext> securityContextSupplier,
+            BootstrapTimings timings) {
+
+        long start = System.nanoTime();
+        // the phases of the bootstrap share its SOAP login, instead of asking the provider for a session each
+        BootstrapSessionProvider bootstrapSessionProvider = new BootstrapSessionProvider(vimSessionProvider, vimLogin);
+        StubFactory stubFactory = null;
+        CompletableFuture<char[]> vapiSession = null;
+        boolean created = false;
         try {
-            apiVersion = vimPort.retrieveServiceContent(getVimServiceInstanceRef())
+            String apiVersion;
+            if (serviceContent != null) {
+                apiVersion = serviceContent.getAbout().getApiVersion();
+            } else {
+                apiVersion = timings.time(Phase.SERVICE_CONTENT, () -> retrieveApiVersion(vimPort));
+            }
+
+            URI vimUrl = createVimUrl(serverAddress, port);
+
+            log.debug("Creating vCenter client for {} (server version = {})", vimUrl, apiVersion);
+
+            stubFactory = getStubFactory(vimUrl);
+
+            if (is803OrLater(apiVersion)) {
+                // no need to do secondary login
+                vapiSession = vimLogin != null ? vimLogin : CompletableFuture.completedFuture(vimSessionProvider.get());
+            } else {
+                // create a secondary session
+                StubFactory vapiStubFactory = stubFactory;
+                vapiSession = startPhase(timings, Phase.VAPI_SESSION, () -> {
+                    SecurityContext samlSecurityContext = securityContextSupplier.get();
+                    StubConfiguration stubConfig = new StubConfiguration(samlSecurityContext);
+
+                    Session session = vapiStubFactory.createStub(Session.class, stubConfig);
+
+                    return session.create();
+                });
+            }
+
+            // the warm-up only needs the vim session, so it may overlap with the creation of the vAPI session
+            CompletableFuture<char[]> vapiLogin = vapiSession;
+            SessionIdProvider vapiSessionProvider = () -> join(vapiLogin);
+            VcenterClient client = new VcenterClient(
+                    serverAddress, port, portConfigurer, bootstrapSessionProvider, stubFactory, vapiSessionProvider);
+            List<CompletableFuture<?>> warmUps = startWarmUps(client, timings);
+
+            join(vapiSession);
+            if (vimLogin != null) {
+                join(vimLogin);
+            }
+            for (CompletableFuture<?> warmUp : warmUps) {
+                try {
+                    warmUp.join();
+                } catch (CompletionException e) {
+                    log.warn("Could not warm up vCenter endpoint", e.getCause());
+                }
+            }
+
+            timings.record(Phase.TOTAL, Duration.ofNanos(System.nanoTime() - start));
+            client.setBootstrapTimings(timings);
+            log.debug("Created vCenter client for {} ({})", vimUrl, timings);
+            created = true;
+            return client;
+        } finally {
+            bootstrapSessionProvider.end();
+            if (!created) {
+                discardSessions(vimLogin, vapiSession, stubFactory);
+            }
+        }
+    }
+
+    /**
+     * Destroys the sessions of a failed client creation, once the phases creating them complete. A phase which is still
+     * running is not interrupted, as its outcome is the only way to learn the session it creates.
+     */
+    private void discardSessions(
+            CompletableFuture<char[]> vimLogin, CompletableFuture<char[]> vapiSession, StubFactory stubFactory) {
+        if (vimLogin != null) {
+            vimLogin.thenAccept(this::logout);
+        }
+        if (vapiSession != null && vapiSession != vimLogin && stubFactory != null) {
+            vapiSession.thenAccept(sessionId -> deleteVapiSession(stubFactory, sessionId));
+        }
+    }
+
+    private void logout(char[] sessionId) {
+        try {
+            VimPortType vimPort = createVimPort(null);
+            portConfigurer.configure((BindingProvider) vimPort, createVimUrl(serverAddress, port));
+            configureOutgoingCookie((BindingProvider) vimPort, new String(sessionId));
+
+            vimPort.logout(
+                    vimPort.retrieveServiceContent(getVimServiceInstanceRef()).getSessionManager());
+            log.debug("Destroyed the SOAP session of a failed client creation");
+        } catch (Exception e) {
+            log.warn("Could not destroy the SOAP session of a failed client creation", e);
+        }
+    }
+
+    private static void deleteVapiSession(StubFactory stubFactory, char[] sessionId) {
+        try {
+            StubConfiguration stubConfig = new StubConfiguration(new SessionSecurityContext(sessionId));
+            stubFactory.createStub(Session.class, stubConfig).delete();
+            log.debug("Destroyed the vAPI session of a failed client creation");
+        } catch (Exception e) {
+            log.warn("Could not destroy the vAPI session of a failed client creation", e);
+        }
+    }
+
+    private static String retrieveApiVersion(VimPortType vimPort) {
+        try {
+            return vimPort.retrieveServiceContent(getVimServiceInstanceRef())
                     .getAbout()
                     .getApiVersion();
         } catch (Exception e) {
             log.error("Could not get retrieve the vCenter's ServiceContent.", e);
             throw new RuntimeException(e);
         }
+    }
 
-        URI vimUrl = createVimUrl(serverAddress, port);
-
-        log.debug("Creating vCenter client for {} (server version = {})", vimUrl, apiVersion);
-
-        char[] vapiSessionId;
-        if (is803OrLater(apiVersion)) {
-            // no need to do secondary login
-            vapiSessionId = vimSessionProvider.get();
-        } else {
-            // create a secondary session
-            SecurityContext samlSecurityContext = securityContextSupplier.get();
-            StubConfiguration stubConfig = new StubConfiguration(samlSecurityContext);
+    private List<CompletableFuture<?>> startWarmUps(VcenterClient client, BootstrapTimings timings) {
+        List<CompletableFuture<?>> warmUps = new ArrayList<>();
+        for (WarmUpEndpoint endpoint : warmUpEndpoints) {
+            switch (endpoint) {
+                case PBM:
+                    warmUps.add(startPhase(timings, Phase.PBM_WARM_UP, client::getPbmServiceInstanceContent));
+                    break;
+                case VSLM:
+                    warmUps.add(startPhase(timings, Phase.VSLM_WARM_UP, client::getVslmServiceInstanceContent));
+                    break;
+                case SMS:
+                    warmUps.add(startPhase(timings, Phase.SMS_WARM_UP, client::getSmsPort));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown endpoint " + endpoint);
+            }
+        }
+        return warmUps;
+    }
 
-            StubFactory stubFactory = createStubFactory(vimUrl, vApiHttpConfiguration);
-            Session session = stubFactory.createStub(Session.class, stubConfig);
+    /**
+     * Runs a bootstrap phase on the bootstrap executor, or right away in the calling thread if there is none. A phase
+     * run in the calling thread never throws - its failure is reported by the returned future as well.
+     */
+    private <T> CompletableFuture<T> startPhase(BootstrapTimings timings, Phase phase, Supplier<T> action) {
+        Supplier<T> timedAction = () -> timings.time(phase, action);
+        Executor executor = this.bootstrapExecutor;
+        if (executor != null) {
+            return CompletableFuture.supplyAsync(timedAction, executor);
+        }
 
-            vapiSessionId = session.create();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            result.complete(timedAction.get());
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
         }
+        return result;
+    }
 
-        SessionIdProvider vapiSessionProvider = () -> vapiSessionId;
-        StubCreator stubCreator = createStubFactory(vimUrl, vApiHttpConfiguration);
+    /** Waits for a mandatory bootstrap phase and rethrows its failure as is. */
+    private static <T> T join(CompletableFuture<T> phase) {
+        try {
+            return phase.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
 
-        return new VcenterClient(
-                serverAddress, port, portConfigurer, vimSessionProvider, stubCreator, vapiSessionProvider);
+    /**
+     * Returns the stub factory for the vAPI endpoint of the given server, creating it with
+     * {@link #createStubFactory(URI, HttpConfiguration)} on first use. The stub factory is shared by all clients
+     * created by this factory.
+     *
+     * @param baseUrl any URL of the server, only the host and the port are used
+     * @return the shared stub factory
+     */
+    protected StubFactory getStubFactory(URI baseUrl) {
+        return stubFactories.computeIfAbsent(
+                createVapiUrl(baseUrl), vapiUrl -> createStubFactory(baseUrl, vApiHttpConfiguration));
     }
 
     protected StubFactory createStubFactory(URI baseUrl, HttpConfiguration httpConfig) {
-        URI vapiUrl;
-        try {
-            vapiUrl = new URI("https", null, baseUrl.getHost(), baseUrl.getPort(), "/api", null, null);
-        } catch (URISyntaxException e) {
-            throw new RuntimeException(e);
-        }
+        URI vapiUrl = createVapiUrl(baseUrl);
 
         ProtocolFactory pf = new ProtocolFactory();
         ProtocolConnection connection = pf.getHttpConnection(vapiUrl.toString(), null, httpConfig);
+        connections.add(connection);
 
         ApiProvider provider = connection.getApiProvider();
         return new StubFactory(provider);
     }
 
+    /**
+     * Closes the vAPI connections shared by the clients created by this factory. The vAPI stubs of these clients fail
+     * afterwards, so the clients should be closed first; a client created after this call opens a new connection.
+     *
+     * <p>The SOAP ports are not affected, each of them has its own connection.
+     */
+    @Override
+    public void close() {
+        stubFactories.clear();
+        ProtocolConnection connection;
+        while ((connection = connections.poll()) != null) {
+            try {
+                connection.disconnect();
+            } catch (RuntimeException e) {
+                log.warn("Could not close the vAPI connection", e);
+            }
+        }
+    }
+
+    private static URI createVapiUrl(URI baseUrl) {
+        try {
+            return new URI("https", null, baseUrl.getHost(), baseUrl.getPort(), "/api", null, null);
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Uses the provided SAML token to log into vCenter via {@link VimPortType#loginByToken(ManagedObjectReference,
      * String)}. Stores the received session id in a {@link SessionIdProvider} upon successful login.
@@ -391,6 +682,31 @@ public class VcenterClientFactory extends VimClientFactory {
         };
     }
 
+    /**
+     * The vim session provider of a client while it is being created. Until {@link #end()} it provides the session of
+     * the bootstrap login, so the phases of the bootstrap do not log in again; afterwards it delegates to the provider
+     * of the client.
+     */
+    private static final class BootstrapSessionProvider implements SessionIdProvider {
+        private final SessionIdProvider delegate;
+        private volatile CompletableFuture<char[]> login;
+
+        private BootstrapSessionProvider(SessionIdProvider delegate, CompletableFuture<char[]> login) {
+            this.delegate = delegate;
+            this.login = login;
+        }
+
+        @Override
+        public char[] get() {
+            CompletableFuture<char[]> login = this.login;
+            return login != null ? join(login).clone() : delegate.get();
+        }
+
+        private void end() {
+            login = null;
+        }
+    }
+
     /**
      * Determines whether the given version is 8.0.3-or-later.
      *
@@ -15,16 +15,13 @@ import static com.vmware.sdk.vsphere.utils.VsphereCookieHelper.configureOutgoing
 
 import java.io.Closeable;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.function.BiFunction;
 
 import jakarta.xml.ws.BindingProvider;
 
 import org.apache.cxf.feature.Feature;
-import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,7 +31,6 @@ import com.vmware.vim25.RuntimeFaultFaultMsg;
 import com.vmware.vim25.ServiceContent;
 import com.vmware.vim25.VimPortType;
 import com.vmware.vsan.sdk.VsanhealthPortType;
-import com.vmware.vsan.sdk.VsanhealthService;
 
 /**
  * A VIM client can be used to access the WSDL-based APIs of an ESXi or vCenter server.
@@ -76,9 +72,16 @@ public abstract class VimClient implements Closeable {
         return port;
     }
 
+    /**
+     * @return the {@link SessionIdProvider} used to configure {@link VimPortType}s, also used by the HTTP file transfer
+     *     endpoints
+     */
+    public SessionIdProvider getVimSessionProvider() {
+        return vimSessionProvider;
+    }
+
     protected VsanhealthPortType getVsanPort(BiFunction<String, Integer, URI> uriGenerator) {
-        VsanhealthService vsanService = new VsanhealthService();
-        VsanhealthPortType vsanPort = vsanService.getVsanhealthPort();
+        VsanhealthPortType vsanPort = SoapBindings.createPort(VsanhealthPortType.class, null);
 
         this.portConfigurer.configure((BindingProvider) vsanPort, uriGenerator.apply(serverAddress, port));
 
@@ -131,22 +134,14 @@ public abstract class VimClient implements Closeable {
     }
 
     /**
-     * Creates the VIMPort via the JAX-WS Proxy Factory Bean. Initializes jaxb.additionalContextClasses with all
-     * bindings from com.vmware.vim25.
+     * Creates the VIMPort via the JAX-WS Proxy Factory Bean. The port uses the process-wide JAXB context with all
+     * bindings from com.vmware.vim25, unless limited by {@link SoapBindings#setVim25ContextClasses(Class[])}.
      *
      * @param features A list of {@link org.apache.cxf.feature.Feature} to configure on the proxy.
      * @return returns VimPortType with pre-populated type and value.
      */
     public static VimPortType createVimPort(List<? extends Feature> features) {
-        JaxWsProxyFactoryBean factoryBean = new JaxWsProxyFactoryBean();
-        Map<String, Object> properties = new HashMap<>();
-        properties.put(
-                "jaxb.additionalContextClasses", com.vmware.sdk.vsphere.client.bindings.Vim25Classes.getClasses());
-        factoryBean.setProperties(properties);
-        if (features != null) {
-            factoryBean.setFeatures(features);
-        }
-        return factoryBean.create(VimPortType.class);
+        return SoapBindings.createPort(VimPortType.class, features);
     }
 
     /** @return new ServiceInstance {@link ManagedObjectReference} with pre-populated type and value. */
@@ -0,0 +1,582 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.datastore;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+
+import com.vmware.sdk.vsphere.utils.KeyedConcurrencyLimiter;
+import com.vmware.sdk.vsphere.utils.PropertyCollectorHelper;
+import com.vmware.vim25.ArrayOfDatastoreHostMount;
+import com.vmware.vim25.ArrayOfHostDatastoreBrowserSearchResults;
+import com.vmware.vim25.DatastoreHostMount;
+import com.vmware.vim25.FileInfo;
+import com.vmware.vim25.FileQueryFlags;
+import com.vmware.vim25.FolderFileInfo;
+import com.vmware.vim25.FolderFileQuery;
+import com.vmware.vim25.HostDatastoreBrowserSearchResults;
+import com.vmware.vim25.HostDatastoreBrowserSearchSpec;
+import com.vmware.vim25.InvalidCollectorVersionFaultMsg;
+import com.vmware.vim25.InvalidPropertyFaultMsg;
+import com.vmware.vim25.LocalizedMethodFault;
+import com.vmware.vim25.ManagedObjectReference;
+import com.vmware.vim25.ObjectUpdate;
+import com.vmware.vim25.PropertyChange;
+import com.vmware.vim25.PropertyFilterUpdate;
+import com.vmware.vim25.RuntimeFaultFaultMsg;
+import com.vmware.vim25.ServiceContent;
+import com.vmware.vim25.TaskInfoState;
+import com.vmware.vim25.UpdateSet;
+import com.vmware.vim25.VimPortType;
+import com.vmware.vim25.WaitOptions;
+
+/**
+ * Lists the files of many datastores with their {@code HostDatastoreBrowser}.
+ *
+ * <p>The searches of all datastores run in parallel, up to a total limit and a limit per ESXi host, which is the first
+ * host that mounts a datastore. A single {@code SearchDatastoreSubFolders_Task} of a large datastore returns all its
+ * files in one response, so by default each datastore is partitioned by its top level folders: the folders are listed
+ * first, and each of them is searched with its own task. All tasks are waited for by one thread through a property
+ * collector of the crawl, with one filter per task, instead of one waiting thread or polling loop per task.
+ *
+ * <p>The files are passed to a consumer as soon as the search which found them completes, e.g. to a
+ * {@link DatastoreFileIndex}. The consumer is called by one thread at a time.
+ *
+ * <pre>{@code
+ * DatastoreCrawler crawler = new DatastoreCrawler(vimPort, serviceContent);
+ * crawler.setMatchPatterns(List.of("*.vmdk"));
+ * Map<String, Exception> failures = crawler.crawl(datastores, file -> System.out.println(file));
+ * }</pre>
+ *
+ * <p>The settings must not be changed while a crawl is running; otherwise this class is thread safe.
+ */
+public class DatastoreCrawler {
+
+    private static final Logger log = LoggerFactory.getLogger(DatastoreCrawler.class);
+
+    public static final int DEFAULT_MAX_CONCURRENT_SEARCHES = 32;
+    public static final int DEFAULT_MAX_CONCURRENT_SEARCHES_PER_HOST = 4;
+    public static final int DEFAULT_PARTITION_DEPTH = 1;
+    public static final Duration DEFAULT_SEARCH_TIMEOUT = Duration.ofMinutes(30);
+
+    private static final int THREADS = 8;
+    private static final int MAX_WAIT_SECONDS = 5;
+
+    private final VimPortType vimPort;
+    private final ServiceContent serviceContent;
+    private final PropertyCollectorHelper propertyCollectorHelper;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private int maxConcurrentSearches = DEFAULT_MAX_CONCURRENT_SEARCHES;
+    private int maxConcurrentSearchesPerHost = DEFAULT_MAX_CONCURRENT_SEARCHES_PER_HOST;
+    private int partitionDepth = DEFAULT_PARTITION_DEPTH;
+    private Duration searchTimeout = DEFAULT_SEARCH_TIMEOUT;
+    private List<String> matchPatterns = List.of();
+
+    /**
+     * @param vimPort the port of the vCenter Server or ESXi host
+     * @param serviceContent the service content of the port
+     */
+    public DatastoreCrawler(VimPortType vimPort, ServiceContent serviceContent) {
+        this.vimPort = Objects.requireNonNull(vimPort);
+        this.serviceContent = Objects.requireNonNull(serviceContent);
+        this.propertyCollectorHelper = new PropertyCollectorHelper(vimPort, serviceContent);
+    }
+
+    /** @param maxConcurrentSearches the number of search tasks running at the same time; defaults to 32 */
+    public void setMaxConcurrentSearches(int maxConcurrentSearches) {
+        if (maxConcurrentSearches <= 0) {
+            throw new IllegalArgumentException(
+                    "Expected positive number of searches, but got " + maxConcurrentSearches);
+        }
+        this.maxConcurrentSearches = maxConcurrentSearches;
+    }
+
+    /**
+     * @param maxConcurrentSearchesPerHost the number of search tasks running at the same time on the datastores of an
+     *     ESXi host; defaults to 4
+     */
+    public void setMaxConcurrentSearchesPerHost(int maxConcurrentSearchesPerHost) {
+        if (maxConcurrentSearchesPerHost <= 0) {
+            throw new IllegalArgumentException(
+                    "Expected positive number of searches, but got " + maxConcurrentSearchesPerHost);
+        }
+        this.maxConcurrentSearchesPerHost = maxConcurrentSearchesPerHost;
+    }
+
+    /**
+     * @param partitionDepth the number of folder levels listed one by one before the folders below are searched with a
+     *     single task each; 0 searches every datastore with a single task. Defaults to 1.
+     */
+    public void setPartitionDepth(int partitionDepth) {
+        if (partitionDepth < 0) {
+            throw new IllegalArgumentException("Expected non-negative partition depth, but got " + partitionDepth);
+        }
+        this.partitionDepth = partitionDepth;
+    }
+
+    /**
+     * @param searchTimeout how long a search task may run; it is cancelled afterwards and its folder is reported as
+     *     failed with a {@link TimeoutException}. Defaults to 30 minutes.
+     */
+    public void setSearchTimeout(Duration searchTimeout) {
+        if (searchTimeout.isNegative() || searchTimeout.isZero()) {
+            throw new IllegalArgumentException("Expected positive timeout, but got " + searchTimeout);
+        }
+        this.searchTimeout = searchTimeout;
+    }
+
+    /**
+     * @param matchPatterns the file name patterns of the files to find, e.g. {@code *.vmdk}; empty, the default, finds
+     *     all files
+     */
+    public void setMatchPatterns(List<String> matchPatterns) {
+        this.matchPatterns = List.copyOf(matchPatterns);
+    }
+
+    /**
+     * Lists the files of the datastores. Folders are not reported.
+     *
+     * @param datastores the datastores
+     * @param consumer receives the files
+     * @return the datastore paths of the folders which could not be searched, with the reason; empty if all files were
+     *     found
+     * @throws InvalidPropertyFaultMsg if the properties of the datastores cannot be read
+     * @throws RuntimeFaultFaultMsg if the search tasks cannot be waited for
+     * @throws InvalidCollectorVersionFaultMsg if the search tasks cannot be waited for
+     * @throws InterruptedException if the thread is interrupted; the running search tasks are cancelled
+     */
+    public Map<String, Exception> crawl(List<ManagedObjectReference> datastores, Consumer<DatastoreFile> consumer)
+            throws InvalidPropertyFaultMsg, RuntimeFaultFaultMsg, InvalidCollectorVersionFaultMsg,
+                    InterruptedException {
+        Objects.requireNonNull(consumer);
+        if (datastores.isEmpty()) {
+            return Map.of();
+        }
+
+        ManagedObjectReference collector = vimPort.createPropertyCollector(serviceContent.getPropertyCollector());
+        ExecutorService workers = Executors.newFixedThreadPool(THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "datastore-crawler-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Crawl crawl = new Crawl(collector, workers, consumer);
+        long startNanos = System.nanoTime();
+        try {
+            for (Target target : resolve(datastores)) {
+                crawl.enqueueFolder(target, "", partitionDepth);
+            }
+            crawl.dispatch();
+            crawl.awaitTasks();
+        } finally {
+            crawl.cancelRunning();
+            workers.shutdownNow();
+            try {
+                // destroys the filters of the tasks too
+                vimPort.destroyPropertyCollector(collector);
+            } catch (RuntimeFaultFaultMsg e) {
+                log.warn("Could not destroy the property collector {}", collector.getValue(), e);
+            }
+        }
+        log.debug(
+                "Found {} files on {} datastores with {} searches in {} ms, {} failed",
+                crawl.files.get(),
+                datastores.size(),
+                crawl.searches.get(),
+                (System.nanoTime() - startNanos) / 1_000_000,
+                crawl.failures.size());
+        return crawl.failures;
+    }
+
+    /** Reads the names, browsers and hosts of the datastores with a single call. */
+    private List<Target> resolve(List<ManagedObjectReference> datastores)
+            throws InvalidPropertyFaultMsg, RuntimeFaultFaultMsg {
+        Map<ManagedObjectReference, Map<String, Object>> properties =
+                propertyCollectorHelper.fetchProperties(datastores, "name", "browser", "host");
+        List<Target> targets = new ArrayList<>(datastores.size());
+        for (Map.Entry<ManagedObjectReference, Map<String, Object>> entry : properties.entrySet()) {
+            Map<String, Object> values = entry.getValue();
+            targets.add(new Target(
+                    (String) values.get("name"),
+                    (ManagedObjectReference) values.get("browser"),
+                    hostKey(entry.getKey(), values.get("host"))));
+        }
+        return targets;
+    }
+
+    /** @return the first host with access to the datastore, or the datastore itself if none is known */
+    private static String hostKey(ManagedObjectReference datastore, Object mounts) {
+        if (mounts instanceof ArrayOfDatastoreHostMount) {
+            for (DatastoreHostMount mount : ((ArrayOfDatastoreHostMount) mounts).getDatastoreHostMount()) {
+                if (mount.getMountInfo() == null
+                        || !Boolean.FALSE.equals(mount.getMountInfo().isAccessible())) {
+                    return mount.getKey().getValue();
+                }
+            }
+        }
+        return datastore.getValue();
+    }
+
+    private HostDatastoreBrowserSearchSpec searchSpec(Kind kind) {
+        FileQueryFlags details = new FileQueryFlags();
+        details.setFileType(kind == Kind.FOLDERS);
+        details.setFileSize(kind != Kind.FOLDERS);
+        details.setModification(kind != Kind.FOLDERS);
+        details.setFileOwner(false);
+
+        HostDatastoreBrowserSearchSpec spec = new HostDatastoreBrowserSearchSpec();
+        spec.setDetails(details);
+        if (kind == Kind.FOLDERS) {
+            spec.getQuery().add(new FolderFileQuery());
+        } else {
+            spec.getMatchPattern().addAll(matchPatterns);
+        }
+        return spec;
+    }
+
+    private static TaskInfoState toState(Object value) {
+        if (value instanceof TaskInfoState) {
+            return (TaskInfoState) value;
+        }
+        // see PropertyCollectorHelper#awaitManagedObjectUpdates, enums are sometimes not unmarshalled
+        if (value instanceof Element && ((Element) value).getFirstChild() != null) {
+            return TaskInfoState.fromValue(((Element) value).getFirstChild().getTextContent());
+        }
+        return null;
+    }
+
+    private static Instant toInstant(XMLGregorianCalendar calendar) {
+        return calendar == null ? null : calendar.toGregorianCalendar().toInstant();
+    }
+
+    /** The state of a single call to {@link #crawl}. */
+    private final class Crawl {
+        final ManagedObjectReference collector;
+        final ExecutorService workers;
+        final Consumer<DatastoreFile> consumer;
+        final Map<String, Exception> failures = Collections.synchronizedMap(new TreeMap<>());
+        final AtomicLong files = new AtomicLong();
+        final AtomicInteger searches = new AtomicInteger();
+        // the running searches, per first host of their datastores
+        final KeyedConcurrencyLimiter limiter =
+                new KeyedConcurrencyLimiter(maxConcurrentSearches, maxConcurrentSearchesPerHost);
+
+        // guarded by this
+        final Deque<Search> pending = new ArrayDeque<>();
+        final Map<String, Search> waiting = new HashMap<>();
+        int outstanding;
+        boolean closed;
+
+        Crawl(ManagedObjectReference collector, ExecutorService workers, Consumer<DatastoreFile> consumer) {
+            this.collector = collector;
+            this.workers = workers;
+            this.consumer = consumer;
+        }
+
+        /** Queues the searches of a folder; its subfolders are listed one by one until the depth is used up. */
+        void enqueueFolder(Target target, String folder, int depth) {
+            synchronized (this) {
+                if (depth == 0) {
+                    pending.add(new Search(target, folder, Kind.TREE, 0));
+                    outstanding++;
+                } else {
+                    pending.add(new Search(target, folder, Kind.FOLDERS, depth));
+                    pending.add(new Search(target, folder, Kind.FILES, depth));
+                    outstanding += 2;
+                }
+            }
+        }
+
+        /** Starts the queued searches for which the limits have room. */
+        void dispatch() {
+            List<Search> startable = new ArrayList<>();
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                Iterator<Search> iterator = pending.iterator();
+                while (!limiter.isFull() && iterator.hasNext()) {
+                    Search search = iterator.next();
+                    if (limiter.tryAcquire(search.target.host)) {
+                        iterator.remove();
+                        startable.add(search);
+                    }
+                }
+            }
+            for (Search search : startable) {
+                workers.execute(() -> start(search));
+            }
+        }
+
+        void start(Search search) {
+            try {
+                HostDatastoreBrowserSearchSpec spec = searchSpec(search.kind);
+                search.task = search.kind == Kind.TREE
+                        ? vimPort.searchDatastoreSubFoldersTask(search.target.browser, search.datastorePath(), spec)
+                        : vimPort.searchDatastoreTask(search.target.browser, search.datastorePath(), spec);
+                search.deadlineNanos = System.nanoTime() + searchTimeout.toNanos();
+                searches.incrementAndGet();
+                synchronized (this) {
+                    // registered before the filter exists, whose first update may arrive at once
+                    waiting.put(search.task.getValue(), search);
+                }
+                vimPort.createFilter(
+                        collector,
+                        propertyCollectorHelper.createPropertyFilterSpec(
+                                search.task, Boolean.FALSE, null, "info.state", "info.error"),
+                        true);
+            } catch (Exception e) {
+                synchronized (this) {
+                    if (search.task != null && waiting.remove(search.task.getValue()) == null) {
+                        return; // already completed by the waiting thread
+                    }
+                }
+                fail(search, e);
+                complete(search);
+            }
+        }
+
+        /** Waits for the updates of all search tasks until no search is left. */
+        void awaitTasks() throws RuntimeFaultFaultMsg, InvalidCollectorVersionFaultMsg, InterruptedException {
+            WaitOptions options = new WaitOptions();
+            options.setMaxWaitSeconds(MAX_WAIT_SECONDS);
+            String version = "";
+            while (true) {
+                synchronized (this) {
+                    if (outstanding == 0) {
+                        return;
+                    }
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                UpdateSet updateSet = vimPort.waitForUpdatesEx(collector, version, options);
+                if (updateSet != null) {
+                    version = updateSet.getVersion();
+                    for (PropertyFilterUpdate filterUpdate : updateSet.getFilterSet()) {
+                        for (ObjectUpdate objectUpdate : filterUpdate.getObjectSet()) {
+                            update(objectUpdate);
+                        }
+                    }
+                }
+                expire();
+            }
+        }
+
+        private void update(ObjectUpdate objectUpdate) {
+            TaskInfoState state = null;
+            LocalizedMethodFault error = null;
+            for (PropertyChange change : objectUpdate.getChangeSet()) {
+                if (change.getName().equals("info.state")) {
+                    state = toState(change.getVal());
+                } else if (change.getName().equals("info.error") && change.getVal() instanceof LocalizedMethodFault) {
+                    error = (LocalizedMethodFault) change.getVal();
+                }
+            }
+            if (state != TaskInfoState.SUCCESS && state != TaskInfoState.ERROR) {
+                return;
+            }
+            Search search;
+            synchronized (this) {
+                search = waiting.remove(objectUpdate.getObj().getValue());
+            }
+            if (search == null) {
+                return;
+            }
+            TaskInfoState finalState = state;
+            LocalizedMethodFault finalError = error;
+            workers.execute(() -> finish(search, finalState, finalError));
+        }
+
+        /** Cancels the tasks which have run longer than the timeout. */
+        private void expire() {
+            List<Search> expired = new ArrayList<>();
+            long now = System.nanoTime();
+            synchronized (this) {
+                Iterator<Search> iterator = waiting.values().iterator();
+                while (iterator.hasNext()) {
+                    Search search = iterator.next();
+                    if (now - search.deadlineNanos > 0) {
+                        iterator.remove();
+                        expired.add(search);
+                    }
+                }
+            }
+            for (Search search : expired) {
+                cancel(search);
+                fail(search, new TimeoutException("The search did not complete within " + searchTimeout));
+                complete(search);
+            }
+        }
+
+        private void finish(Search search, TaskInfoState state, LocalizedMethodFault error) {
+            try {
+                if (state == TaskInfoState.ERROR) {
+                    throw new IOException(error == null ? "The search failed" : error.getLocalizedMessage());
+                }
+                Object result = propertyCollectorHelper.fetch(search.task, "info.result");
+                if (result instanceof ArrayOfHostDatastoreBrowserSearchResults) {
+                    for (HostDatastoreBrowserSearchResults results : ((ArrayOfHostDatastoreBrowserSearchResults) result)
+                            .getHostDatastoreBrowserSearchResults()) {
+                        accept(search, results);
+                    }
+                } else if (result instanceof HostDatastoreBrowserSearchResults) {
+                    accept(search, (HostDatastoreBrowserSearchResults) result);
+                }
+            } catch (Exception e) {
+                fail(search, e);
+            } finally {
+                complete(search);
+            }
+        }
+
+        private void accept(Search search, HostDatastoreBrowserSearchResults results) {
+            String folder = results.getFolderPath() == null
+                    ? search.folder
+                    : relativePath(search.target, results.getFolderPath());
+            for (FileInfo fileInfo : results.getFile()) {
+                String path = folder.isEmpty() ? fileInfo.getPath() : folder + "/" + fileInfo.getPath();
+                if (search.kind == Kind.FOLDERS) {
+                    if (fileInfo instanceof FolderFileInfo) {
+                        enqueueFolder(search.target, path, search.depth - 1);
+                    }
+                } else if (!(fileInfo instanceof FolderFileInfo)) {
+                    DatastoreFile file = new DatastoreFile(
+                            search.target.name,
+                            path,
+                            fileInfo.getFileSize() == null ? -1 : fileInfo.getFileSize(),
+                            toInstant(fileInfo.getModification()));
+                    synchronized (consumer) {
+                        consumer.accept(file);
+                    }
+                    files.incrementAndGet();
+                }
+            }
+        }
+
+        private void fail(Search search, Exception e) {
+            log.debug("Could not search {}", search.datastorePath(), e);
+            failures.put(search.datastorePath(), e);
+        }
+
+        /** Releases the limits of a search and starts the next ones. */
+        private void complete(Search search) {
+            synchronized (this) {
+                outstanding--;
+                limiter.release(search.target.host);
+            }
+            dispatch();
+        }
+
+        void cancelRunning() {
+            List<Search> cancelled;
+            synchronized (this) {
+                closed = true;
+                cancelled = new ArrayList<>(waiting.values());
+                waiting.clear();
+                pending.clear();
+            }
+            for (Search search : cancelled) {
+                cancel(search);
+            }
+        }
+
+        private void cancel(Search search) {
+            try {
+                vimPort.cancelTask(search.task);
+            } catch (Exception e) {
+                // the task may have completed in the meantime
+                log.debug("Could not cancel the search of {}", search.datastorePath(), e);
+            }
+        }
+    }
+
+    /** @return the path relative to the datastore of a folder path like {@code [datastore1] vm1/} */
+    private static String relativePath(Target target, String folderPath) {
+        String path = folderPath;
+        String prefix = "[" + target.name + "]";
+        if (path.startsWith(prefix)) {
+            path = path.substring(prefix.length());
+        }
+        path = path.trim();
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        return path;
+    }
+
+    private enum Kind {
+        /** Lists the subfolders of a folder. */
+        FOLDERS,
+        /** Lists the files directly in a folder. */
+        FILES,
+        /** Lists the files of a folder and all its subfolders. */
+        TREE
+    }
+
+    private static final class Target {
+        final String name;
+        final ManagedObjectReference browser;
+        final String host;
+
+        Target(String name, ManagedObjectReference browser, String host) {
+            this.name = name;
+            this.browser = browser;
+            this.host = host;
+        }
+    }
+
+    private static final class Search {
+        final Target target;
+        final String folder;
+        final Kind kind;
+        final int depth;
+        volatile ManagedObjectReference task;
+        volatile long deadlineNanos;
+
+        Search(Target target, String folder, Kind kind, int depth) {
+            this.target = target;
+            this.folder = folder;
+            this.kind = kind;
+            this.depth = depth;
+        }
+
+        String datastorePath() {
+            return folder.isEmpty() ? "[" + target.name + "]" : "[" + target.name + "] " + folder;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.datastore;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A file found on a datastore.
+ *
+ * <p>Instances are immutable.
+ */
+public final class DatastoreFile {
+
+    private final String datastore;
+    private final String path;
+    private final long size;
+    private final Instant modification;
+
+    /**
+     * @param datastore the name of the datastore
+     * @param path the path of the file relative to the root of the datastore, with {@code /} separators
+     * @param size the size in bytes, or -1 if unknown
+     * @param modification the last modification, or null if unknown
+     */
+    public DatastoreFile(String datastore, String path, long size, Instant modification) {
+        this.datastore = Objects.requireNonNull(datastore);
+        this.path = Objects.requireNonNull(path);
+        this.size = size;
+        this.modification = modification;
+    }
+
+    /** @return the name of the datastore */
+    public String getDatastore() {
+        return datastore;
+    }
+
+    /** @return the path of the file relative to the root of the datastore, e.g. {@code vm1/vm1.vmdk} */
+    public String getPath() {
+        return path;
+    }
+
+    /** @return the path in the form used by the vSphere API, e.g. {@code [datastore1] vm1/vm1.vmdk} */
+    public String getDatastorePath() {
+        return "[" + datastore + "] " + path;
+    }
+
+    /** @return the size in bytes, or -1 if unknown */
+    public long getSize() {
+        return size;
+    }
+
+    /** @return the last modification, or null if unknown */
+    public Instant getModification() {
+        return modification;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof DatastoreFile)) {
+            return false;
+        }
+        DatastoreFile file = (DatastoreFile) other;
+        return datastore.equals(file.datastore)
+                && path.equals(file.path)
+                && size == file.size
+                && Objects.equals(modification, file.modification);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(datastore, path, size, modification);
+    }
+
+    @Override
+    public String toString() {
+        return getDatastorePath() + " (" + size + " bytes, modified " + modification + ")";
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.datastore;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Writes the files found by a {@link DatastoreCrawler} to a local file, one line per file, so that the inventory of
+ * many datastores does not have to fit in memory.
+ *
+ * <p>Each line holds the datastore, the path, the size and the modification time separated by tabs; tabs, line breaks
+ * and backslashes in names are escaped with a backslash. {@link #read(Path, Consumer)} streams the files back.
+ *
+ * <pre>{@code
+ * try (DatastoreFileIndex index = new DatastoreFileIndex(Paths.get("files.tsv"))) {
+ *     crawler.crawl(datastores, index);
+ * }
+ * DatastoreFileIndex.read(Paths.get("files.tsv"), file -> {
+ *     if (file.getPath().endsWith(".vmdk")) {
+ *         ...
+ *     }
+ * });
+ * }</pre>
+ *
+ * <p>This class is thread safe.
+ */
+public final class DatastoreFileIndex implements Consumer<DatastoreFile>, Closeable {
+
+    private static final String UNKNOWN = "-";
+
+    private final Path file;
+    private final BufferedWriter writer;
+    private long count;
+
+    /**
+     * @param file the index, which is replaced if it exists
+     * @throws IOException if the file cannot be created
+     */
+    public DatastoreFileIndex(Path file) throws IOException {
+        this.file = file;
+        this.writer = Files.newBufferedWriter(file, UTF_8);
+    }
+
+    /**
+     * Appends a file to the index.
+     *
+     * @throws UncheckedIOException if the index cannot be written
+     */
+    @Override
+    public synchronized void accept(DatastoreFile datastoreFile) {
+        try {
+            writer.write(escape(datastoreFile.getDatastore()));
+            writer.write('\t');
+            writer.write(escape(datastoreFile.getPath()));
+            writer.write('\t');
+            writer.write(Long.toString(datastoreFile.getSize()));
+            writer.write('\t');
+            writer.write(
+                    datastoreFile.getModification() == null
+                            ? UNKNOWN
+                            : datastoreFile.getModification().toString());
+            writer.write('\n');
+            count++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file, e);
+        }
+    }
+
+    /** @return the number of files written */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Reads an index.
+     *
+     * @param file the index
+     * @param consumer receives the files in the order they were written
+     * @throws IOException if the index cannot be read or is malformed
+     */
+    public static void read(Path file, Consumer<DatastoreFile> consumer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                String[] fields = line.split("\t", -1);
+                if (fields.length != 4) {
+                    throw new IOException(
+                            "Expected 4 fields in line " + number + " of " + file + ", but got " + fields.length);
+                }
+                try {
+                    consumer.accept(new DatastoreFile(
+                            unescape(fields[0]),
+                            unescape(fields[1]),
+                            Long.parseLong(fields[2]),
+                            fields[3].equals(UNKNOWN) ? null : Instant.parse(fields[3])));
+                } catch (RuntimeException e) {
+                    if (e instanceof UncheckedIOException) {
+                        throw e;
+                    }
+                    throw new IOException("Malformed line " + number + " of " + file, e);
+                }
+            }
+        }
+    }
+
+    private static String escape(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                builder.append(c);
+                continue;
+            }
+            char escaped = value.charAt(++i);
+            builder.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,469 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.guest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.sdk.vsphere.utils.KeyedConcurrencyLimiter;
+import com.vmware.vim25.GuestAuthentication;
+import com.vmware.vim25.GuestProcessInfo;
+import com.vmware.vim25.GuestProgramSpec;
+import com.vmware.vim25.ManagedObjectReference;
+import com.vmware.vim25.VimPortType;
+
+/**
+ * Runs programs in the guests of many virtual machines and tracks their completion.
+ *
+ * <p>Programs are started with {@code StartProgramInGuest} by a small pool of threads, up to a total limit and a limit
+ * per ESXi host; the other programs wait in a queue. The pool has a thread per guest operations call in flight, which
+ * is at most the number of programs running at the same time. Instead of polling each process, all processes of a
+ * virtual machine are checked with a single {@code ListProcessesInGuest} call. The checks of a virtual machine start at
+ * the minimum poll interval and back off up to the maximum interval while none of its processes exit, so long running
+ * programs cost few calls and short ones are noticed quickly.
+ *
+ * <pre>{@code
+ * try (GuestProcessExecutor executor = new GuestProcessExecutor(vimPort, processManager)) {
+ *     List<CompletableFuture<GuestProcessResult>> results = new ArrayList<>();
+ *     for (ManagedObjectReference vm : vms) {
+ *         results.add(executor.start(vm, hostOf.get(vm), auth, programSpec));
+ *     }
+ *     CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+ * }
+ * }</pre>
+ *
+ * <p>Cancelling a future terminates its process in the guest. The settings must not be changed while programs are
+ * running; otherwise this class is thread safe.
+ */
+public class GuestProcessExecutor implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(GuestProcessExecutor.class);
+
+    public static final int DEFAULT_MAX_CONCURRENT_PROCESSES = 512;
+    public static final int DEFAULT_MAX_CONCURRENT_PROCESSES_PER_HOST = 32;
+    public static final Duration DEFAULT_MIN_POLL_INTERVAL = Duration.ofSeconds(1);
+    public static final Duration DEFAULT_MAX_POLL_INTERVAL = Duration.ofSeconds(30);
+    public static final int DEFAULT_MAX_CONCURRENT_CALLS = 16;
+
+    private static final int MAX_POLL_FAILURES = 3;
+
+    private final VimPortType vimPort;
+    private final ManagedObjectReference processManager;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    // guarded by this
+    private final Deque<TrackedProcess> pending = new ArrayDeque<>();
+    private final Set<TrackedProcess> launching = new HashSet<>();
+    private final Map<VmKey, VmProcesses> tracked = new HashMap<>();
+    private boolean closed;
+
+    /** The running programs, per host of their virtual machines. */
+    private final KeyedConcurrencyLimiter limiter =
+            new KeyedConcurrencyLimiter(DEFAULT_MAX_CONCURRENT_PROCESSES, DEFAULT_MAX_CONCURRENT_PROCESSES_PER_HOST);
+
+    private int maxConcurrentCalls = DEFAULT_MAX_CONCURRENT_CALLS;
+    private Duration minPollInterval = DEFAULT_MIN_POLL_INTERVAL;
+    private Duration maxPollInterval = DEFAULT_MAX_POLL_INTERVAL;
+    private Duration timeout;
+
+    /**
+     * @param vimPort the port of the vCenter Server or ESXi host
+     * @param processManager the {@code processManager} of the {@code GuestOperationsManager}
+     */
+    public GuestProcessExecutor(VimPortType vimPort, ManagedObjectReference processManager) {
+        this.vimPort = Objects.requireNonNull(vimPort);
+        this.processManager = Objects.requireNonNull(processManager);
+
+        this.scheduler = new ScheduledThreadPoolExecutor(poolSize(), runnable -> {
+            Thread thread = new Thread(runnable, "guest-process-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /** @param maxConcurrentProcesses the number of programs running at the same time; defaults to 512 */
+    public void setMaxConcurrentProcesses(int maxConcurrentProcesses) {
+        if (maxConcurrentProcesses <= 0) {
+            throw new IllegalArgumentException(
+                    "Expected positive number of processes, but got " + maxConcurrentProcesses);
+        }
+        limiter.setLimit(maxConcurrentProcesses);
+        scheduler.setCorePoolSize(poolSize());
+    }
+
+    /**
+     * @param maxConcurrentProcessesPerHost the number of programs running at the same time on the virtual machines of
+     *     an ESXi host; defaults to 32
+     */
+    public void setMaxConcurrentProcessesPerHost(int maxConcurrentProcessesPerHost) {
+        if (maxConcurrentProcessesPerHost <= 0) {
+            throw new IllegalArgumentException(
+                    "Expected positive number of processes, but got " + maxConcurrentProcessesPerHost);
+        }
+        limiter.setLimitPerKey(maxConcurrentProcessesPerHost);
+    }
+
+    /**
+     * @param maxConcurrentCalls the number of {@code StartProgramInGuest}, {@code ListProcessesInGuest} and
+     *     {@code TerminateProcessInGuest} calls in flight at the same time, each of which blocks a thread; defaults to
+     *     16, and is capped at the number of programs running at the same time
+     */
+    public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+        if (maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("Expected positive number of calls, but got " + maxConcurrentCalls);
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        scheduler.setCorePoolSize(poolSize());
+    }
+
+    /**
+     * @param minPollInterval the delay of the first check of a virtual machine and after a process has exited
+     * @param maxPollInterval the longest delay between two checks of a virtual machine
+     */
+    public void setPollInterval(Duration minPollInterval, Duration maxPollInterval) {
+        if (minPollInterval.isNegative()
+                || minPollInterval.isZero()
+                || maxPollInterval.compareTo(minPollInterval) < 0) {
+            throw new IllegalArgumentException("Expected 0 < minPollInterval <= maxPollInterval, but got "
+                    + minPollInterval + " and " + maxPollInterval);
+        }
+        this.minPollInterval = minPollInterval;
+        this.maxPollInterval = maxPollInterval;
+    }
+
+    /**
+     * @param timeout how long a program may run; it is terminated afterwards and its future fails with a
+     *     {@link TimeoutException}. Null, the default, means no limit.
+     */
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Queues a program.
+     *
+     * @param vm the virtual machine
+     * @param host the ESXi host of the virtual machine, which counts against the per-host limit; null for no limit
+     * @param auth the credentials of the guest
+     * @param programSpec the program
+     * @return completes when the program has exited; fails if it could not be started or tracked
+     */
+    public CompletableFuture<GuestProcessResult> start(
+            ManagedObjectReference vm,
+            ManagedObjectReference host,
+            GuestAuthentication auth,
+            GuestProgramSpec programSpec) {
+        TrackedProcess process = new TrackedProcess(
+                Objects.requireNonNull(vm),
+                host == null ? null : host.getValue(),
+                Objects.requireNonNull(auth),
+                Objects.requireNonNull(programSpec));
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The executor is closed");
+            }
+            pending.add(process);
+        }
+        dispatch();
+        return process.future;
+    }
+
+    /** @return the number of programs waiting to be started */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /** @return the number of programs started and not yet exited */
+    public int getRunningCount() {
+        return limiter.getRunning();
+    }
+
+    /**
+     * Stops tracking the programs. The queued programs are not started and their futures are cancelled; the programs
+     * already running keep running in their guests, but their futures fail with a {@link CancellationException}.
+     */
+    @Override
+    public void close() {
+        List<TrackedProcess> dropped = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            dropped.addAll(pending);
+            pending.clear();
+            // the launches still queued are dropped by the scheduler
+            dropped.addAll(launching);
+            launching.clear();
+            for (VmProcesses processes : tracked.values()) {
+                dropped.addAll(processes.processes.values());
+            }
+            tracked.clear();
+        }
+        scheduler.shutdownNow();
+        for (TrackedProcess process : dropped) {
+            process.future.completeExceptionally(new CancellationException("The executor is closed"));
+        }
+    }
+
+    /** Starts the queued programs for which the limits have room. */
+    private void dispatch() {
+        List<TrackedProcess> startable = new ArrayList<>();
+        synchronized (this) {
+            Iterator<TrackedProcess> iterator = pending.iterator();
+            while (!limiter.isFull() && iterator.hasNext()) {
+                TrackedProcess process = iterator.next();
+                if (process.future.isDone()) {
+                    iterator.remove();
+                    continue;
+                }
+                if (!limiter.tryAcquire(process.host)) {
+                    continue;
+                }
+                iterator.remove();
+                launching.add(process);
+                startable.add(process);
+            }
+        }
+        for (TrackedProcess process : startable) {
+            scheduler.execute(() -> launch(process));
+        }
+    }
+
+    private void launch(TrackedProcess process) {
+        try {
+            process.pid = vimPort.startProgramInGuest(processManager, process.vm, process.auth, process.programSpec);
+            process.startNanos = System.nanoTime();
+            log.debug("Started process {} of {}", process.pid, process.vm.getValue());
+        } catch (Exception e) {
+            synchronized (this) {
+                launching.remove(process);
+            }
+            process.future.completeExceptionally(e);
+            release(process);
+            return;
+        }
+
+        synchronized (this) {
+            launching.remove(process);
+            if (closed) {
+                process.future.completeExceptionally(new CancellationException("The executor is closed"));
+                return;
+            }
+            VmProcesses processes =
+                    tracked.computeIfAbsent(new VmKey(process.vm, process.auth), key -> new VmProcesses(key));
+            processes.processes.put(process.pid, process);
+            processes.intervalNanos = minPollInterval.toNanos();
+            if (!processes.scheduled) {
+                processes.scheduled = true;
+                schedule(processes);
+            }
+        }
+    }
+
+    /** Checks all tracked processes of a virtual machine with a single call. */
+    private void poll(VmProcesses vmProcesses) {
+        List<TrackedProcess> processes;
+        synchronized (this) {
+            processes = new ArrayList<>(vmProcesses.processes.values());
+        }
+        List<Long> pids = new ArrayList<>(processes.size());
+        for (TrackedProcess process : processes) {
+            pids.add(process.pid);
+        }
+
+        Map<Long, GuestProcessInfo> infos = new HashMap<>();
+        try {
+            for (GuestProcessInfo info :
+                    vimPort.listProcessesInGuest(processManager, vmProcesses.key.vm, vmProcesses.key.auth, pids)) {
+                infos.put(info.getPid(), info);
+            }
+            vmProcesses.failures = 0;
+        } catch (Exception e) {
+            // the guest may be briefly unreachable, e.g. while its tools restart
+            if (++vmProcesses.failures < MAX_POLL_FAILURES) {
+                log.debug("Could not list the processes of {}", vmProcesses.key.vm.getValue(), e);
+                reschedule(vmProcesses, false);
+                return;
+            }
+            for (TrackedProcess process : processes) {
+                process.future.completeExceptionally(e);
+            }
+            remove(vmProcesses, processes);
+            return;
+        }
+
+        List<TrackedProcess> finished = new ArrayList<>();
+        for (TrackedProcess process : processes) {
+            GuestProcessInfo info = infos.get(process.pid);
+            if (process.future.isDone()) {
+                // cancelled by the caller
+                if (info != null && info.getEndTime() == null) {
+                    terminate(process);
+                }
+            } else if (info == null) {
+                process.future.completeExceptionally(new IOException(
+                        "The process " + process.pid + " of " + process.vm.getValue() + " is no longer listed"));
+            } else if (info.getEndTime() != null) {
+                process.future.complete(new GuestProcessResult(
+                        process.vm,
+                        process.pid,
+                        info.getExitCode() == null ? -1 : info.getExitCode(),
+                        toInstant(info.getStartTime()),
+                        toInstant(info.getEndTime())));
+            } else if (timeout != null && System.nanoTime() - process.startNanos > timeout.toNanos()) {
+                terminate(process);
+                process.future.completeExceptionally(new TimeoutException("The process " + process.pid + " of "
+                        + process.vm.getValue() + " did not exit within " + timeout));
+            } else {
+                continue;
+            }
+            finished.add(process);
+        }
+        remove(vmProcesses, finished);
+    }
+
+    private void terminate(TrackedProcess process) {
+        try {
+            vimPort.terminateProcessInGuest(processManager, process.vm, process.auth, process.pid);
+        } catch (Exception e) {
+            log.warn("Could not terminate the process {} of {}", process.pid, process.vm.getValue(), e);
+        }
+    }
+
+    /** Stops tracking the finished processes and schedules the next check of the others. */
+    private void remove(VmProcesses vmProcesses, List<TrackedProcess> finished) {
+        synchronized (this) {
+            for (TrackedProcess process : finished) {
+                vmProcesses.processes.remove(process.pid);
+            }
+        }
+        for (TrackedProcess process : finished) {
+            release(process);
+        }
+        reschedule(vmProcesses, !finished.isEmpty());
+    }
+
+    private void reschedule(VmProcesses vmProcesses, boolean progress) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (vmProcesses.processes.isEmpty()) {
+                vmProcesses.scheduled = false;
+                tracked.remove(vmProcesses.key);
+                return;
+            }
+            // a virtual machine whose processes keep running is checked less and less often
+            vmProcesses.intervalNanos = progress
+                    ? minPollInterval.toNanos()
+                    : Math.min(vmProcesses.intervalNanos * 2, maxPollInterval.toNanos());
+            schedule(vmProcesses);
+        }
+    }
+
+    private void schedule(VmProcesses vmProcesses) {
+        scheduler.schedule(() -> poll(vmProcesses), vmProcesses.intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void release(TrackedProcess process) {
+        limiter.release(process.host);
+        dispatch();
+    }
+
+    /** @return the size of the pool; more threads than running programs would never have a call to make */
+    private int poolSize() {
+        return Math.min(maxConcurrentCalls, limiter.getLimit());
+    }
+
+    private static Instant toInstant(XMLGregorianCalendar calendar) {
+        return calendar == null ? null : calendar.toGregorianCalendar().toInstant();
+    }
+
+    private static final class TrackedProcess {
+        final ManagedObjectReference vm;
+        final String host;
+        final GuestAuthentication auth;
+        final GuestProgramSpec programSpec;
+        final CompletableFuture<GuestProcessResult> future = new CompletableFuture<>();
+        volatile long pid;
+        volatile long startNanos;
+
+        TrackedProcess(ManagedObjectReference vm, String host, GuestAuthentication auth, GuestProgramSpec programSpec) {
+            this.vm = vm;
+            this.host = host;
+            this.auth = auth;
+            this.programSpec = programSpec;
+        }
+    }
+
+    /** The processes of a virtual machine are listed with the credentials they were started with. */
+    private static final class VmKey {
+        final ManagedObjectReference vm;
+        final GuestAuthentication auth;
+
+        VmKey(ManagedObjectReference vm, GuestAuthentication auth) {
+            this.vm = vm;
+            this.auth = auth;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof VmKey)) {
+                return false;
+            }
+            VmKey key = (VmKey) other;
+            return vm.getValue().equals(key.vm.getValue()) && auth == key.auth;
+        }
+
+        @Override
+        public int hashCode() {
+            return vm.getValue().hashCode() * 31 + System.identityHashCode(auth);
+        }
+    }
+
+    private static final class VmProcesses {
+        final VmKey key;
+        // guarded by the executor
+        final Map<Long, TrackedProcess> processes = new LinkedHashMap<>();
+        boolean scheduled;
+        long intervalNanos;
+        // only used by the single poll of the virtual machine in flight
+        int failures;
+
+        VmProcesses(VmKey key) {
+            this.key = key;
+        }
+    }
+}
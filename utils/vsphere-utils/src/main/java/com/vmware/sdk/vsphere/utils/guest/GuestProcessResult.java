@@ -0,0 +1,71 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.guest;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import com.vmware.vim25.ManagedObjectReference;
+
+/**
+ * A program which has exited in the guest of a virtual machine.
+ *
+ * <p>Instances are immutable.
+ */
+public final class GuestProcessResult {
+
+    private final ManagedObjectReference vm;
+    private final long pid;
+    private final int exitCode;
+    private final Instant startTime;
+    private final Instant endTime;
+
+    GuestProcessResult(ManagedObjectReference vm, long pid, int exitCode, Instant startTime, Instant endTime) {
+        this.vm = vm;
+        this.pid = pid;
+        this.exitCode = exitCode;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public ManagedObjectReference getVm() {
+        return vm;
+    }
+
+    /** @return the process id in the guest */
+    public long getPid() {
+        return pid;
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    /** @return the start of the process reported by the guest */
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    /** @return the end of the process reported by the guest */
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    /** @return the run time of the process in the guest */
+    public Duration getElapsed() {
+        return Duration.between(startTime, endTime);
+    }
+
+    @Override
+    public String toString() {
+        return "Process " + pid + " of " + vm.getValue() + " exited with " + exitCode + " after " + getElapsed();
+    }
+}
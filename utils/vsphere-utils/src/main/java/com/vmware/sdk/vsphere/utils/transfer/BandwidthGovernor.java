@@ -0,0 +1,547 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Shapes the bandwidth of many transfers, so bulk copies leave room for the API calls to the same vCenter Server and
+ * ESXi hosts.
+ *
+ * <p>Every transfer takes its bytes from up to three token buckets: a global one, one of its destination host and one
+ * of its own. The limit of a host is shared by its transfers in proportion to their weights, so a transfer with weight
+ * 2 gets twice the bandwidth of a transfer with weight 1, and the global limit is shared by all transfers in the same
+ * way. A transfer which is held below its share by its own limit or by the limit of its host leaves the rest of its
+ * share to the others. The shares are recomputed whenever a transfer starts or ends and whenever a limit or weight
+ * changes, which can happen at any time.
+ *
+ * <p>The shares also follow the demand of the transfers. Every 200 ms, a transfer which did not have to wait for the
+ * buckets, e.g. because its disk or the other side is slower than its share, is counted at the rate it achieved, and
+ * the bandwidth it leaves is divided among the transfers which are held back, again by weight. The stalled transfer
+ * keeps its own weighted share as its limit, so it can pick up again at once; the host and global buckets keep the
+ * total within the limits until the next rebalance gives it its share back.
+ *
+ * <pre>{@code
+ * BandwidthGovernor governor = new BandwidthGovernor();
+ * governor.setGlobalLimit(200 * 1024 * 1024);
+ * governor.setDefaultHostLimit(50 * 1024 * 1024);
+ * try (BandwidthGovernor.Flow flow = governor.open(uri.getHost(), 1, 0)) {
+ *     WritableByteChannel shaped = flow.wrapWritable(channel);
+ *     ...
+ * }
+ * }</pre>
+ *
+ * <p>The transfer engines of this package take a governor with {@code setBandwidthGovernor}, which shapes each of their
+ * streams as a flow of weight 1; {@link NfcLeaseTransfer} shapes all streams of a lease as a single flow. The achieved
+ * rates are reported per flow, per host and in total.
+ *
+ * <p>This class is thread safe.
+ */
+public class BandwidthGovernor {
+
+    /** The limit which does not limit. */
+    public static final long UNLIMITED = 0;
+
+    /** The bytes a wrapped channel moves before it takes them from the buckets. */
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    /** The interval at which the shares are recomputed from the demand of the flows. */
+    private static final long REBALANCE_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    /** The demand of a flow which used all of its share, or whose demand has not been measured yet. */
+    private static final long UNKNOWN_DEMAND = -1;
+
+    private final LongSupplier nanoClock;
+    private final Node global;
+
+    // guarded by this
+    private final Map<String, Node> hosts = new HashMap<>();
+    private final Map<String, Long> hostLimits = new HashMap<>();
+    private final Set<Flow> flows = new LinkedHashSet<>();
+    private long defaultHostLimit = UNLIMITED;
+    private volatile long nextRebalance;
+
+    public BandwidthGovernor() {
+        this(System::nanoTime);
+    }
+
+    BandwidthGovernor(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.global = new Node(UNLIMITED);
+        this.nextRebalance = nanoClock.getAsLong() + REBALANCE_NANOS;
+    }
+
+    /** @param bytesPerSecond the combined bandwidth of all transfers; 0, the default, means unlimited */
+    public synchronized void setGlobalLimit(long bytesPerSecond) {
+        global.limiter.setBytesPerSecond(bytesPerSecond);
+        updateShares();
+    }
+
+    public synchronized long getGlobalLimit() {
+        return global.limiter.getBytesPerSecond();
+    }
+
+    /**
+     * @param bytesPerSecond the combined bandwidth of the transfers of each host without a limit of its own; 0, the
+     *     default, means unlimited
+     */
+    public synchronized void setDefaultHostLimit(long bytesPerSecond) {
+        checkLimit(bytesPerSecond);
+        defaultHostLimit = bytesPerSecond;
+        for (Map.Entry<String, Node> host : hosts.entrySet()) {
+            host.getValue().limiter.setBytesPerSecond(getHostLimit(host.getKey()));
+        }
+        updateShares();
+    }
+
+    /**
+     * @param host the destination host of the transfers, as in their URLs
+     * @param bytesPerSecond the combined bandwidth of the transfers of the host; 0 means unlimited
+     */
+    public synchronized void setHostLimit(String host, long bytesPerSecond) {
+        checkLimit(bytesPerSecond);
+        hostLimits.put(normalize(host), bytesPerSecond);
+        Node node = hosts.get(normalize(host));
+        if (node != null) {
+            node.limiter.setBytesPerSecond(bytesPerSecond);
+        }
+        updateShares();
+    }
+
+    /** Makes the host use the default host limit again. */
+    public synchronized void clearHostLimit(String host) {
+        hostLimits.remove(normalize(host));
+        Node node = hosts.get(normalize(host));
+        if (node != null) {
+            node.limiter.setBytesPerSecond(defaultHostLimit);
+        }
+        updateShares();
+    }
+
+    /** @return the limit of the transfers of the host */
+    public synchronized long getHostLimit(String host) {
+        return hostLimits.getOrDefault(normalize(host), defaultHostLimit);
+    }
+
+    /** @return the bytes per second of all transfers over about the last second */
+    public long getRate() {
+        return global.meter.getRate();
+    }
+
+    /** @return the bytes of all transfers */
+    public long getTransferredBytes() {
+        return global.meter.getTotal();
+    }
+
+    /** @return the bytes per second of the transfers of the host over about the last second */
+    public long getHostRate(String host) {
+        Node node;
+        synchronized (this) {
+            node = hosts.get(normalize(host));
+        }
+        return node == null ? 0 : node.meter.getRate();
+    }
+
+    /**
+     * Starts shaping a transfer. The flow must be closed at the end of the transfer, otherwise it keeps its share of
+     * the bandwidth.
+     *
+     * @param host the destination host of the transfer, as in its URL
+     * @param weight the share of the transfer relative to the other transfers
+     * @param bytesPerSecond the limit of the transfer; 0 means it gets its weighted share of the host and global limits
+     * @return the flow of the transfer
+     */
+    public synchronized Flow open(String host, int weight, long bytesPerSecond) {
+        checkWeight(weight);
+        checkLimit(bytesPerSecond);
+        String key = normalize(host);
+        Node hostNode = hosts.computeIfAbsent(key, h -> new Node(getHostLimit(h)));
+        hostNode.flows++;
+        Flow flow = new Flow(key, hostNode, weight, bytesPerSecond);
+        flows.add(flow);
+        updateShares();
+        return flow;
+    }
+
+    /** @return the flows which are open */
+    public synchronized int getFlowCount() {
+        return flows.size();
+    }
+
+    /** Measures the demand of each flow over the last interval and recomputes the shares from it. */
+    private synchronized void rebalance(long now) {
+        if (now - nextRebalance < 0) {
+            // another flow got here first
+            return;
+        }
+        nextRebalance = now + REBALANCE_NANOS;
+        for (Flow flow : flows) {
+            long elapsed = now - flow.intervalStart;
+            long bytes = flow.intervalBytes.getAndSet(0);
+            // a flow opened at the end of the interval is measured in the next one
+            flow.demand = flow.throttled || elapsed < REBALANCE_NANOS / 2
+                    ? UNKNOWN_DEMAND
+                    : (long) ((double) bytes * TimeUnit.SECONDS.toNanos(1) / elapsed);
+            flow.throttled = false;
+            flow.intervalStart = now;
+        }
+        updateShares();
+    }
+
+    /**
+     * Recomputes the limit of each flow from its weight and the limits of its host and of all transfers. A flow which
+     * does not use its share keeps it as its limit, while the flows which are held back divide what it leaves.
+     */
+    private void updateShares() {
+        assignShares(false);
+        for (Flow flow : flows) {
+            flow.fairShare = flow.share;
+        }
+        assignShares(true);
+
+        for (Flow flow : flows) {
+            flow.limiter.setBytesPerSecond(flow.demand == UNKNOWN_DEMAND ? flow.share : flow.fairShare);
+        }
+    }
+
+    /** @param byDemand whether to give a flow which does not use its share no more than its demand */
+    private void assignShares(boolean byDemand) {
+        Map<String, List<Flow>> flowsByHost = new HashMap<>();
+        for (Flow flow : flows) {
+            flowsByHost.computeIfAbsent(flow.host, host -> new ArrayList<>()).add(flow);
+            flow.share = byDemand && flow.demand != UNKNOWN_DEMAND
+                    ? min(flow.ownLimit, Math.max(1, flow.demand))
+                    : flow.ownLimit;
+        }
+        for (List<Flow> hostFlows : flowsByHost.values()) {
+            divide(hostFlows.get(0).hostNode.limiter.getBytesPerSecond(), hostFlows);
+        }
+        divide(global.limiter.getBytesPerSecond(), new ArrayList<>(flows));
+    }
+
+    /**
+     * Divides a limit among flows in proportion to their weights, but gives no flow more than its current share. What a
+     * flow cannot use is divided among the others, so the flows with the smallest shares per weight are served first.
+     */
+    private static void divide(long limit, List<Flow> flows) {
+        if (limit == UNLIMITED) {
+            return;
+        }
+        flows.sort(Comparator.comparingDouble(
+                flow -> flow.share == UNLIMITED ? Double.MAX_VALUE : (double) flow.share / flow.weight));
+
+        long remaining = limit;
+        long remainingWeight = 0;
+        for (Flow flow : flows) {
+            remainingWeight += flow.weight;
+        }
+        for (Flow flow : flows) {
+            long fair = Math.max(1, remaining * flow.weight / remainingWeight);
+            flow.share = min(flow.share, fair);
+            remaining = Math.max(0, remaining - flow.share);
+            remainingWeight -= flow.weight;
+        }
+    }
+
+    private synchronized void close(Flow flow) {
+        if (flows.remove(flow)) {
+            if (--flow.hostNode.flows == 0) {
+                hosts.remove(flow.host);
+            }
+            updateShares();
+        }
+    }
+
+    /** @return the lower of two limits, where 0 means unlimited */
+    private static long min(long a, long b) {
+        return a == UNLIMITED ? b : b == UNLIMITED ? a : Math.min(a, b);
+    }
+
+    private static String normalize(String host) {
+        return Objects.requireNonNull(host).toLowerCase();
+    }
+
+    private static void checkLimit(long bytesPerSecond) {
+        if (bytesPerSecond < 0) {
+            throw new IllegalArgumentException("Expected non-negative bandwidth, but got " + bytesPerSecond);
+        }
+    }
+
+    private static void checkWeight(int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Expected positive weight, but got " + weight);
+        }
+    }
+
+    /**
+     * The bandwidth of a single transfer. The methods can be called by all streams of the transfer at the same time.
+     */
+    public final class Flow implements Closeable {
+
+        private final String host;
+        private final Node hostNode;
+        private final BandwidthLimiter limiter = new BandwidthLimiter(UNLIMITED, nanoClock);
+        private final RateMeter meter = new RateMeter(nanoClock);
+        private final AtomicLong intervalBytes = new AtomicLong();
+        /** Whether the flow had to wait for the buckets since the last rebalance. */
+        private volatile boolean throttled;
+        // guarded by the governor
+        private int weight;
+        private long ownLimit;
+        private long share;
+        private long fairShare;
+        private long demand = UNKNOWN_DEMAND;
+        private long intervalStart;
+
+        private Flow(String host, Node hostNode, int weight, long ownLimit) {
+            this.host = host;
+            this.hostNode = hostNode;
+            this.weight = weight;
+            this.ownLimit = ownLimit;
+            this.intervalStart = nanoClock.getAsLong();
+        }
+
+        /**
+         * Takes the bytes from the buckets of the flow, its host and all transfers, sleeping until all of them are out
+         * of debt.
+         *
+         * @param bytes the number of bytes just transferred
+         * @throws InterruptedException if the thread was interrupted while sleeping
+         */
+        public void acquire(long bytes) throws InterruptedException {
+            long waitNanos = reserve(bytes);
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+
+        /** @return the time to wait until the buckets of the flow, its host and all transfers are out of debt */
+        long reserve(long bytes) {
+            if (bytes <= 0) {
+                return 0;
+            }
+            meter.record(bytes);
+            hostNode.meter.record(bytes);
+            global.meter.record(bytes);
+            intervalBytes.addAndGet(bytes);
+            long now = nanoClock.getAsLong();
+            if (now - nextRebalance >= 0) {
+                rebalance(now);
+            }
+
+            long waitNanos = Math.max(
+                    limiter.reserve(bytes), Math.max(hostNode.limiter.reserve(bytes), global.limiter.reserve(bytes)));
+            if (waitNanos > 0) {
+                throttled = true;
+            }
+            return waitNanos;
+        }
+
+        /** @return a channel which reads from the channel at the rate of the flow */
+        public ReadableByteChannel wrapReadable(ReadableByteChannel channel) {
+            return new ShapedReadableChannel(this, channel);
+        }
+
+        /** @return a channel which writes to the channel at the rate of the flow */
+        public WritableByteChannel wrapWritable(WritableByteChannel channel) {
+            return new ShapedWritableChannel(this, channel);
+        }
+
+        /** @param weight the share of the transfer relative to the other transfers */
+        public void setWeight(int weight) {
+            checkWeight(weight);
+            synchronized (BandwidthGovernor.this) {
+                this.weight = weight;
+                updateShares();
+            }
+        }
+
+        /** @param bytesPerSecond the limit of the transfer; 0 means its weighted share of the host and global limits */
+        public void setLimit(long bytesPerSecond) {
+            checkLimit(bytesPerSecond);
+            synchronized (BandwidthGovernor.this) {
+                this.ownLimit = bytesPerSecond;
+                updateShares();
+            }
+        }
+
+        /** @return the current limit of the flow, including its share of the host and global limits */
+        public long getEffectiveLimit() {
+            return limiter.getBytesPerSecond();
+        }
+
+        /** @return the bytes per second of the flow over about the last second */
+        public long getRate() {
+            return meter.getRate();
+        }
+
+        /** @return the bytes of the flow */
+        public long getTransferredBytes() {
+            return meter.getTotal();
+        }
+
+        /** Releases the share of the flow to the other flows. */
+        @Override
+        public void close() {
+            BandwidthGovernor.this.close(this);
+        }
+    }
+
+    /** The bucket and the meter of a host or of all transfers. */
+    private final class Node {
+        final BandwidthLimiter limiter;
+        final RateMeter meter = new RateMeter(nanoClock);
+        // guarded by the governor
+        int flows;
+
+        Node(long bytesPerSecond) {
+            this.limiter = new BandwidthLimiter(bytesPerSecond, nanoClock);
+        }
+    }
+
+    /** Measures the bytes per second over windows of about a second. */
+    private static final class RateMeter {
+        private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        private final LongSupplier nanoClock;
+        private final AtomicLong total = new AtomicLong();
+        // guarded by this
+        private long windowStart;
+        private long windowBytes;
+        private long rate;
+
+        RateMeter(LongSupplier nanoClock) {
+            this.nanoClock = nanoClock;
+            this.windowStart = nanoClock.getAsLong();
+        }
+
+        synchronized void record(long bytes) {
+            total.addAndGet(bytes);
+            roll(nanoClock.getAsLong());
+            windowBytes += bytes;
+        }
+
+        synchronized long getRate() {
+            roll(nanoClock.getAsLong());
+            return rate;
+        }
+
+        long getTotal() {
+            return total.get();
+        }
+
+        private void roll(long now) {
+            long elapsed = now - windowStart;
+            // a window only ends with a record or a query, so after an idle period it is longer than a second
+            if (elapsed >= WINDOW_NANOS) {
+                rate = (long) ((double) windowBytes * WINDOW_NANOS / elapsed);
+                windowStart = now;
+                windowBytes = 0;
+            }
+        }
+    }
+
+    private static final class ShapedReadableChannel implements ReadableByteChannel {
+        private final Flow flow;
+        private final ReadableByteChannel channel;
+
+        ShapedReadableChannel(Flow flow, ReadableByteChannel channel) {
+            this.flow = flow;
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int limit = dst.limit();
+            // a single large read would be paid for by a long sleep afterwards, so read in chunks
+            dst.limit(Math.min(limit, dst.position() + CHUNK_SIZE));
+            int read;
+            try {
+                read = channel.read(dst);
+            } finally {
+                dst.limit(limit);
+            }
+            acquire(flow, read);
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static final class ShapedWritableChannel implements WritableByteChannel {
+        private final Flow flow;
+        private final WritableByteChannel channel;
+
+        ShapedWritableChannel(Flow flow, WritableByteChannel channel) {
+            this.flow = flow;
+            this.channel = channel;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int limit = src.limit();
+            src.limit(Math.min(limit, src.position() + CHUNK_SIZE));
+            int written;
+            try {
+                written = channel.write(src);
+            } finally {
+                src.limit(limit);
+            }
+            acquire(flow, written);
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static void acquire(Flow flow, int bytes) throws InterruptedIOException {
+        try {
+            flow.acquire(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Interrupted while shaping the bandwidth");
+            interrupted.bytesTransferred = bytes;
+            throw interrupted;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket of a {@link BandwidthGovernor}, which keeps the combined throughput of the streams of a flow, of a
+ * host or of all transfers under a limit.
+ *
+ * <p>A stream takes the bytes it has just transferred from the bucket. When the bucket runs dry the stream sleeps until
+ * the bucket has refilled, so a stream which took more than its share pays for it before its next chunk. Up to one
+ * second worth of bytes can be saved up, which lets short bursts through.
+ *
+ * <p>The limit can be changed while streams use the bucket; bytes already taken are paid for at the old rate.
+ *
+ * <p>This class is thread safe.
+ */
+final class BandwidthLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final LongSupplier nanoClock;
+    /** The time up to which the bandwidth has been used; the bucket holds the bytes of the time since then. */
+    private long nextFree;
+
+    private long bytesPerSecond;
+
+    BandwidthLimiter(long bytesPerSecond, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.nextFree = nanoClock.getAsLong() - NANOS_PER_SECOND;
+        setBytesPerSecond(bytesPerSecond);
+    }
+
+    synchronized long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /** @param bytesPerSecond the limit; 0 means unlimited */
+    synchronized void setBytesPerSecond(long bytesPerSecond) {
+        if (bytesPerSecond < 0) {
+            throw new IllegalArgumentException("Expected non-negative bandwidth, but got " + bytesPerSecond);
+        }
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Takes the bytes from the bucket; the caller sleeps for the returned time if the bucket is in debt afterwards.
+     *
+     * @param bytes the number of bytes transferred
+     * @return the time to wait until the bucket is out of debt
+     */
+    synchronized long reserve(long bytes) {
+        if (bytesPerSecond == 0 || bytes <= 0) {
+            return 0;
+        }
+
+        long now = nanoClock.getAsLong();
+        // a bucket does not save up more than one second worth of bytes
+        nextFree = Math.max(nextFree, now - NANOS_PER_SECOND)
+                + (long) ((double) bytes * NANOS_PER_SECOND / bytesPerSecond);
+        return Math.max(0, nextFree - now);
+    }
+}
@@ -0,0 +1,552 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static com.vmware.sdk.vsphere.utils.transfer.HttpTransferClient.discard;
+import static com.vmware.sdk.vsphere.utils.transfer.HttpTransferClient.responseError;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.content.library.Item;
+import com.vmware.content.library.item.DownloadSession;
+import com.vmware.content.library.item.DownloadSessionModel;
+import com.vmware.content.library.item.FileTypes.ChecksumInfo;
+import com.vmware.content.library.item.UpdateSession;
+import com.vmware.content.library.item.UpdateSessionModel;
+import com.vmware.content.library.item.downloadsession.FileTypes.EndpointType;
+import com.vmware.content.library.item.downloadsession.FileTypes.PrepareStatus;
+import com.vmware.content.library.item.updatesession.FileTypes.AddSpec;
+import com.vmware.content.library.item.updatesession.FileTypes.SourceType;
+import com.vmware.content.library.item.updatesession.FileTypes.ValidationError;
+import com.vmware.content.library.item.updatesession.FileTypes.ValidationResult;
+import com.vmware.sdk.vsphere.utils.VcenterClient;
+
+/**
+ * Uploads and downloads the files of content library items through update and download sessions.
+ *
+ * <p>The files of an item are transferred in parallel. Each file is copied through a large pooled buffer and its
+ * SHA-256 digest is computed from the same buffer while the file is transferred, so verifying a download against the
+ * checksum stored in the library does not read the file a second time. Each session is kept alive with
+ * {@code keepAlive} calls while its files are transferred.
+ *
+ * <p>The methods can be called from many threads at the same time, e.g. to publish an item to many libraries;
+ * {@link #getTransferredBytes()} and {@link #getTotalBytes()} add up all sessions of this instance.
+ *
+ * <pre>{@code
+ * ContentLibraryTransfer transfer = new ContentLibraryTransfer(client, new HttpTransferClient(null, trustStore));
+ * Map<String, TransferResult> files = transfer.upload(libraryItemId, List.of(ovf, vmdk));
+ * }</pre>
+ *
+ * <p>The transfer URLs of the sessions carry their own authorization, so the {@link HttpTransferClient} does not need a
+ * session provider. The settings must not be changed while a transfer is running; otherwise this class is thread safe.
+ */
+public class ContentLibraryTransfer {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentLibraryTransfer.class);
+
+    public static final int DEFAULT_MAX_CONCURRENT_FILES = 4;
+    public static final Duration DEFAULT_KEEP_ALIVE_INTERVAL = Duration.ofMinutes(1);
+    public static final Duration DEFAULT_PREPARE_TIMEOUT = Duration.ofMinutes(10);
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final long PREPARE_POLL_MAX_MS = 5000;
+
+    private final Item items;
+    private final UpdateSession updateSessions;
+    private final com.vmware.content.library.item.updatesession.File updateSessionFiles;
+    private final DownloadSession downloadSessions;
+    private final com.vmware.content.library.item.downloadsession.File downloadSessionFiles;
+    private final HttpTransferClient client;
+
+    private final DirectBufferPool buffers = new DirectBufferPool(BUFFER_SIZE, 16);
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong transferredBytes = new AtomicLong();
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private int maxConcurrentFiles = DEFAULT_MAX_CONCURRENT_FILES;
+    private Duration keepAliveInterval = DEFAULT_KEEP_ALIVE_INTERVAL;
+    private Duration prepareTimeout = DEFAULT_PREPARE_TIMEOUT;
+    private TransferProgressListener progressListener;
+    private BandwidthGovernor bandwidthGovernor;
+
+    /**
+     * @param vcenterClient the client used for the session APIs
+     * @param client the client used for the transfer URLs
+     */
+    public ContentLibraryTransfer(VcenterClient vcenterClient, HttpTransferClient client) {
+        this.items = vcenterClient.createStub(Item.class);
+        this.updateSessions = vcenterClient.createStub(UpdateSession.class);
+        this.updateSessionFiles = vcenterClient.createStub(com.vmware.content.library.item.updatesession.File.class);
+        this.downloadSessions = vcenterClient.createStub(DownloadSession.class);
+        this.downloadSessionFiles =
+                vcenterClient.createStub(com.vmware.content.library.item.downloadsession.File.class);
+        this.client = Objects.requireNonNull(client);
+    }
+
+    /** @param maxConcurrentFiles the number of files of a session transferred at the same time; defaults to 4 */
+    public void setMaxConcurrentFiles(int maxConcurrentFiles) {
+        if (maxConcurrentFiles <= 0) {
+            throw new IllegalArgumentException("Expected positive number of files, but got " + maxConcurrentFiles);
+        }
+        this.maxConcurrentFiles = maxConcurrentFiles;
+    }
+
+    /** @param keepAliveInterval the interval of the session {@code keepAlive} calls; defaults to 1 minute */
+    public void setKeepAliveInterval(Duration keepAliveInterval) {
+        if (keepAliveInterval.isNegative() || keepAliveInterval.isZero()) {
+            throw new IllegalArgumentException("Expected positive interval, but got " + keepAliveInterval);
+        }
+        this.keepAliveInterval = keepAliveInterval;
+    }
+
+    /** @param prepareTimeout how long to wait for the server to prepare a file for download; defaults to 10 minutes */
+    public void setPrepareTimeout(Duration prepareTimeout) {
+        this.prepareTimeout = Objects.requireNonNull(prepareTimeout);
+    }
+
+    /** @param progressListener receives the progress of every file; may be null */
+    public void setProgressListener(TransferProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /** @param bandwidthGovernor shapes each file transfer as a flow of its host; may be null */
+    public void setBandwidthGovernor(BandwidthGovernor bandwidthGovernor) {
+        this.bandwidthGovernor = bandwidthGovernor;
+    }
+
+    /** @return the size of all files of the sessions started by this instance */
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    /** @return the bytes transferred by all sessions of this instance */
+    public long getTransferredBytes() {
+        return transferredBytes.get();
+    }
+
+    /**
+     * Replaces or adds files of a library item in a single update session. The files are named after their local file
+     * names. The session is completed if the server accepts all files, and failed otherwise.
+     *
+     * @param libraryItemId the library item
+     * @param files the local files
+     * @return the summary of each file by name, including its SHA-256 digest
+     * @throws IOException if a file could not be uploaded or was rejected by the server
+     * @throws InterruptedException if the thread was interrupted; the session is failed
+     */
+    public Map<String, TransferResult> upload(String libraryItemId, List<Path> files)
+            throws IOException, InterruptedException {
+        UpdateSessionModel createSpec = new UpdateSessionModel();
+        createSpec.setLibraryItemId(libraryItemId);
+        createSpec.setLibraryItemContentVersion(items.get(libraryItemId).getContentVersion());
+        String sessionId = updateSessions.create(UUID.randomUUID().toString(), createSpec);
+        log.debug("Created update session {} for library item {}", sessionId, libraryItemId);
+
+        Session session = new Session(sessionId);
+        for (Path file : files) {
+            session.add(Files.size(file));
+        }
+        try {
+            Map<String, TransferResult> results =
+                    run(session, percent -> updateSessions.keepAlive(sessionId, percent), files.size(), index -> {
+                        Path file = files.get(index);
+                        String name = file.getFileName().toString();
+                        AddSpec addSpec = new AddSpec();
+                        addSpec.setName(name);
+                        addSpec.setSourceType(SourceType.PUSH);
+                        addSpec.setSize(Files.size(file));
+                        URI uri = updateSessionFiles
+                                .add(sessionId, addSpec)
+                                .getUploadEndpoint()
+                                .getUri();
+                        return new NamedResult(name, upload(session, file, uri));
+                    });
+
+            ValidationResult validation = updateSessionFiles.validate(sessionId);
+            List<ValidationError> invalidFiles = validation.getInvalidFiles();
+            Set<String> missingFiles = validation.getMissingFiles();
+            if (!invalidFiles.isEmpty() || !missingFiles.isEmpty()) {
+                throw new IOException("The update session " + sessionId + " of library item " + libraryItemId
+                        + " has invalid files " + invalidFiles + " and missing files " + missingFiles);
+            }
+
+            updateSessions.complete(sessionId);
+            return results;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            try {
+                updateSessions.fail(sessionId, e.toString());
+            } catch (RuntimeException failError) {
+                log.warn("Could not fail the update session {}", sessionId, failError);
+            }
+            throw e;
+        } finally {
+            deleteSession(() -> updateSessions.delete(sessionId), sessionId);
+        }
+    }
+
+    /**
+     * Downloads all files of a library item through a download session. Files for which the library stores a checksum
+     * are verified against it.
+     *
+     * @param libraryItemId the library item
+     * @param targetDirectory the directory of the files, which are written under their names in the library
+     * @return the summary of each file by name, including its SHA-256 digest
+     * @throws IOException if a file could not be downloaded or does not match its checksum
+     * @throws InterruptedException if the thread was interrupted
+     */
+    public Map<String, TransferResult> download(String libraryItemId, Path targetDirectory)
+            throws IOException, InterruptedException {
+        DownloadSessionModel createSpec = new DownloadSessionModel();
+        createSpec.setLibraryItemId(libraryItemId);
+        String sessionId = downloadSessions.create(UUID.randomUUID().toString(), createSpec);
+        log.debug("Created download session {} for library item {}", sessionId, libraryItemId);
+
+        try {
+            List<com.vmware.content.library.item.downloadsession.FileTypes.Info> fileInfos =
+                    downloadSessionFiles.list(sessionId);
+            Session session = new Session(sessionId);
+            for (com.vmware.content.library.item.downloadsession.FileTypes.Info fileInfo : fileInfos) {
+                session.add(fileInfo.getSize() == null ? 0 : fileInfo.getSize());
+                // the server prepares the files in the background, let it work on all of them at once
+                downloadSessionFiles.prepare(sessionId, fileInfo.getName(), EndpointType.HTTPS);
+            }
+
+            return run(session, percent -> downloadSessions.keepAlive(sessionId, percent), fileInfos.size(), index -> {
+                String name = fileInfos.get(index).getName();
+                com.vmware.content.library.item.downloadsession.FileTypes.Info prepared =
+                        awaitPrepared(sessionId, name);
+                TransferResult result = download(
+                        session,
+                        prepared.getDownloadEndpoint().getUri(),
+                        targetDirectory.resolve(name),
+                        prepared.getChecksumInfo());
+                return new NamedResult(name, result);
+            });
+        } finally {
+            deleteSession(() -> downloadSessions.delete(sessionId), sessionId);
+        }
+    }
+
+    /** Runs the file transfers of a session in parallel while keeping the session alive. */
+    private Map<String, TransferResult> run(
+            Session session, LongConsumer keepAlive, int fileCount, FileTransfer transfer)
+            throws IOException, InterruptedException {
+        ScheduledExecutorService keepAliveScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "library-session-keepalive-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ExecutorService workers =
+                Executors.newFixedThreadPool(Math.max(1, Math.min(maxConcurrentFiles, fileCount)), runnable -> {
+                    Thread thread = new Thread(runnable, "library-transfer-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            long intervalMs = keepAliveInterval.toMillis();
+            keepAliveScheduler.scheduleWithFixedDelay(
+                    () -> {
+                        try {
+                            keepAlive.accept(session.getPercent());
+                        } catch (RuntimeException e) {
+                            log.warn("Could not keep the library session {} alive", session.id, e);
+                        }
+                    },
+                    intervalMs,
+                    intervalMs,
+                    TimeUnit.MILLISECONDS);
+
+            List<Future<NamedResult>> futures = new ArrayList<>();
+            for (int i = 0; i < fileCount; i++) {
+                int index = i;
+                futures.add(workers.submit(() -> transfer.run(index)));
+            }
+
+            Map<String, TransferResult> results = new LinkedHashMap<>();
+            for (Future<NamedResult> future : futures) {
+                NamedResult result = future.get();
+                results.put(result.name, result.result);
+            }
+            return results;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Could not transfer the files of the library session " + session.id, cause);
+        } finally {
+            keepAliveScheduler.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+
+    private TransferResult upload(Session session, Path file, URI uri) throws IOException, InterruptedException {
+        long startTime = System.nanoTime();
+        MessageDigest digest = newDigest("SHA-256");
+        BandwidthGovernor.Flow flow = openFlow(uri);
+        ByteBuffer buffer = buffers.acquire();
+        try (FileChannel in = FileChannel.open(file, READ)) {
+            long size = in.size();
+            HttpURLConnection connection = client.open(uri, "PUT");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/octet-stream");
+            connection.setFixedLengthStreamingMode(size);
+
+            long position = 0;
+            try (OutputStream out = connection.getOutputStream();
+                    WritableByteChannel channel = Channels.newChannel(out)) {
+                while (position < size) {
+                    buffer.clear();
+                    if (size - position < buffer.capacity()) {
+                        buffer.limit((int) (size - position));
+                    }
+                    int read = in.read(buffer, position);
+                    if (read <= 0) {
+                        throw new IOException("Expected " + size + " bytes in " + file + ", but got " + position);
+                    }
+                    buffer.flip();
+                    digest.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    position += read;
+                    transferred(session, flow, uri, position, size, read);
+                }
+            }
+
+            int status = connection.getResponseCode();
+            if (status / 100 != 2) {
+                throw responseError(connection, status);
+            }
+            discard(connection);
+            return new TransferResult(
+                    size, size, 0, 1, 0, Duration.ofNanos(System.nanoTime() - startTime), Hex.encode(digest.digest()));
+        } finally {
+            buffers.release(buffer);
+            closeFlow(flow);
+        }
+    }
+
+    private TransferResult download(Session session, URI uri, Path target, ChecksumInfo checksumInfo)
+            throws IOException, InterruptedException {
+        long startTime = System.nanoTime();
+        MessageDigest sha256 = newDigest("SHA-256");
+        // the library may store the checksum of another algorithm, compute that one as well
+        MessageDigest expected = null;
+        if (checksumInfo != null && checksumInfo.getChecksum() != null && checksumInfo.getAlgorithm() != null) {
+            String algorithm = toJcaAlgorithm(checksumInfo.getAlgorithm().name());
+            expected = "SHA-256".equals(algorithm) ? null : newDigest(algorithm);
+        }
+
+        HttpURLConnection connection = client.open(uri, "GET");
+        int status = connection.getResponseCode();
+        if (status != HTTP_OK) {
+            throw responseError(connection, status);
+        }
+        long size = connection.getContentLengthLong();
+
+        BandwidthGovernor.Flow flow = openFlow(uri);
+        ByteBuffer buffer = buffers.acquire();
+        long position = 0;
+        try (ReadableByteChannel in = Channels.newChannel(connection.getInputStream());
+                FileChannel out = FileChannel.open(target, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            int read = 0;
+            while (read >= 0) {
+                // fill the buffer, so the digests and the limits are updated once per buffer
+                read = in.read(buffer);
+                if (buffer.position() == buffer.capacity() || (read < 0 && buffer.position() > 0)) {
+                    buffer.flip();
+                    int length = buffer.remaining();
+                    sha256.update(buffer.duplicate());
+                    if (expected != null) {
+                        expected.update(buffer.duplicate());
+                    }
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    position += length;
+                    transferred(session, flow, uri, position, size, length);
+                    buffer.clear();
+                }
+            }
+        } finally {
+            buffers.release(buffer);
+            closeFlow(flow);
+        }
+        if (size >= 0 && position != size) {
+            throw new IOException("Expected " + size + " bytes from " + uri + ", but got " + position);
+        }
+
+        String digest = Hex.encode(sha256.digest());
+        if (checksumInfo != null && checksumInfo.getChecksum() != null) {
+            String actual = expected == null ? digest : Hex.encode(expected.digest());
+            if (!checksumInfo.getChecksum().equalsIgnoreCase(actual)) {
+                Files.deleteIfExists(target);
+                throw new IOException("Expected " + checksumInfo.getAlgorithm() + " checksum "
+                        + checksumInfo.getChecksum() + " of " + target + ", but got " + actual);
+            }
+        }
+        return new TransferResult(position, position, 0, 1, 0, Duration.ofNanos(System.nanoTime() - startTime), digest);
+    }
+
+    private com.vmware.content.library.item.downloadsession.FileTypes.Info awaitPrepared(String sessionId, String name)
+            throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + prepareTimeout.toNanos();
+        long delayMs = 250;
+        while (true) {
+            com.vmware.content.library.item.downloadsession.FileTypes.Info info =
+                    downloadSessionFiles.get(sessionId, name);
+            PrepareStatus status = info.getStatus();
+            if (PrepareStatus.PREPARED.equals(status)) {
+                return info;
+            } else if (PrepareStatus.ERROR.equals(status)) {
+                throw new IOException("The server could not prepare " + name + " of the download session " + sessionId);
+            } else if (System.nanoTime() > deadline) {
+                throw new IOException(
+                        "Timed out waiting for " + name + " of the download session " + sessionId + " in " + status);
+            }
+            Thread.sleep(delayMs);
+            delayMs = Math.min(delayMs * 2, PREPARE_POLL_MAX_MS);
+        }
+    }
+
+    private void transferred(Session session, BandwidthGovernor.Flow flow, URI uri, long position, long size, int bytes)
+            throws InterruptedException {
+        session.transferred.addAndGet(bytes);
+        transferredBytes.addAndGet(bytes);
+        TransferProgressListener listener = progressListener;
+        if (listener != null) {
+            listener.onProgress(uri, position, size);
+        }
+        if (flow != null) {
+            flow.acquire(bytes);
+        }
+    }
+
+    private BandwidthGovernor.Flow openFlow(URI uri) {
+        BandwidthGovernor governor = bandwidthGovernor;
+        return governor == null ? null : governor.open(uri.getHost(), 1, BandwidthGovernor.UNLIMITED);
+    }
+
+    private static void closeFlow(BandwidthGovernor.Flow flow) {
+        if (flow != null) {
+            flow.close();
+        }
+    }
+
+    private void deleteSession(Runnable delete, String sessionId) {
+        try {
+            delete.run();
+        } catch (RuntimeException e) {
+            // the session expires on the server if it is not deleted
+            log.warn("Could not delete the library session {}", sessionId, e);
+        }
+    }
+
+    private static String toJcaAlgorithm(String algorithm) {
+        switch (algorithm) {
+            case "SHA1":
+                return "SHA-1";
+            case "SHA256":
+                return "SHA-256";
+            case "SHA512":
+                return "SHA-512";
+            default:
+                return algorithm;
+        }
+    }
+
+    private static MessageDigest newDigest(String algorithm) throws IOException {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Unsupported checksum algorithm " + algorithm, e);
+        }
+    }
+
+    /** Transfers the file with the given index of a session. */
+    @FunctionalInterface
+    private interface FileTransfer {
+        NamedResult run(int index) throws IOException, InterruptedException;
+    }
+
+    private static final class NamedResult {
+        final String name;
+        final TransferResult result;
+
+        NamedResult(String name, TransferResult result) {
+            this.name = name;
+            this.result = result;
+        }
+    }
+
+    /** The progress of an update or download session. */
+    private final class Session {
+        final String id;
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong transferred = new AtomicLong();
+
+        Session(String id) {
+            this.id = id;
+        }
+
+        void add(long size) {
+            total.addAndGet(size);
+            totalBytes.addAndGet(size);
+        }
+
+        long getPercent() {
+            long totalSize = total.get();
+            return totalSize <= 0 ? 0 : Math.min(100, transferred.get() * 100 / totalSize);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/** Builds the URLs of the datastore file access endpoint, {@code https://<server>/folder/<path>}. */
+public final class DatastoreFileUrls {
+
+    private DatastoreFileUrls() {}
+
+    /**
+     * Creates the URL of a file or directory on a datastore.
+     *
+     * @param serverAddress vCenter or ESXi FQDN or IP address, optionally followed by {@code :port}
+     * @param datacenterPath the inventory path of the datacenter, e.g. {@code dc1}; use {@code ha-datacenter} for ESXi
+     * @param datastoreName the name of the datastore
+     * @param path the path of the file within the datastore, e.g. {@code vm1/vm1-flat.vmdk}
+     * @return the URL
+     */
+    public static URI create(String serverAddress, String datacenterPath, String datastoreName, String path) {
+        String normalizedPath = path.startsWith("/") ? path.substring(1) : path;
+        String query = "dcPath=" + encode(datacenterPath) + "&dsName=" + encode(datastoreName);
+        try {
+            // the multi-argument constructor quotes the path, the query is encoded already
+            URI withPath = new URI("https", serverAddress, "/folder/" + normalizedPath, null, null);
+            return URI.create(withPath.toASCIIString() + "?" + query);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid datastore path: " + path, e);
+        }
+    }
+
+    /**
+     * Creates the URL of a file given by its datastore path.
+     *
+     * @param serverAddress vCenter or ESXi FQDN or IP address
+     * @param datacenterPath the inventory path of the datacenter
+     * @param datastorePath the datastore path, e.g. {@code [datastore1] vm1/vm1.vmx}
+     * @return the URL
+     */
+    public static URI create(String serverAddress, String datacenterPath, String datastorePath) {
+        int open = datastorePath.indexOf('[');
+        int close = datastorePath.indexOf(']');
+        if (open != 0 || close < 0) {
+            throw new IllegalArgumentException(
+                    "Expected datastore path like [datastore] path, but got " + datastorePath);
+        }
+        return create(
+                serverAddress,
+                datacenterPath,
+                datastorePath.substring(1, close),
+                datastorePath.substring(close + 1).trim());
+    }
+
+    /**
+     * @param url a URL created by this class
+     * @return the value of the {@code dsName} parameter, or null if there is none
+     */
+    public static String getDatastoreName(URI url) {
+        String query = url.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("dsName=")) {
+                return URLDecoder.decode(parameter.substring("dsName=".length()), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static String encode(String value) {
+        // URLEncoder encodes spaces as '+', which the server does not decode in query values
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
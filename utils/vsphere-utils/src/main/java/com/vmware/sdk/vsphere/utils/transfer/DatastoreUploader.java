@@ -0,0 +1,382 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static com.vmware.sdk.vsphere.utils.transfer.HttpTransferClient.discard;
+import static com.vmware.sdk.vsphere.utils.transfer.HttpTransferClient.responseError;
+import static java.net.HttpURLConnection.HTTP_CREATED;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.sdk.vsphere.utils.KeyedConcurrencyLimiter;
+
+/**
+ * Uploads files to datastores with HTTP {@code PUT} requests to the {@code /folder} endpoint.
+ *
+ * <p>Files are streamed from disk with chunked transfer encoding, so neither the file nor a request body is held in
+ * memory. Many files are uploaded at the same time, bounded by a total limit and by limits per server and per
+ * datastore, so seeding many datastores does not overload a single host or datastore. Uploads which cannot start
+ * because of a limit wait in submission order, without blocking uploads to other servers or datastores. All uploads
+ * share the session cookie and the kept-alive connections of the {@link HttpTransferClient}.
+ *
+ * <pre>{@code
+ * try (DatastoreUploader uploader = new DatastoreUploader(http)) {
+ *     List<CompletableFuture<TransferResult>> uploads = new ArrayList<>();
+ *     for (String datastore : datastores) {
+ *         URI target = DatastoreFileUrls.create(server, "Datacenter", datastore, "templates/photon.ova");
+ *         uploads.add(uploader.submit(Paths.get("photon.ova"), target));
+ *     }
+ *     CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).join();
+ * }
+ * }</pre>
+ *
+ * <p>The settings must be changed before the first upload is submitted; otherwise this class is thread safe.
+ */
+public class DatastoreUploader implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(DatastoreUploader.class);
+
+    public static final int DEFAULT_MAX_CONCURRENT_UPLOADS = 8;
+    public static final int DEFAULT_MAX_UPLOADS_PER_HOST = 4;
+    public static final int DEFAULT_MAX_UPLOADS_PER_DATASTORE = 2;
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final long INITIAL_RETRY_DELAY_MS = 1000;
+
+    private final HttpTransferClient client;
+    private final DirectBufferPool buffers;
+    private final ExecutorService executor;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private final Deque<Upload> pending = new ArrayDeque<>();
+    private boolean closed;
+
+    /** The running uploads in total and per host. */
+    private final KeyedConcurrencyLimiter hostLimiter =
+            new KeyedConcurrencyLimiter(DEFAULT_MAX_CONCURRENT_UPLOADS, DEFAULT_MAX_UPLOADS_PER_HOST);
+    /** The running uploads per datastore, which the total limit of the host limiter covers. */
+    private final KeyedConcurrencyLimiter datastoreLimiter =
+            new KeyedConcurrencyLimiter(KeyedConcurrencyLimiter.UNLIMITED, DEFAULT_MAX_UPLOADS_PER_DATASTORE);
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private TransferProgressListener progressListener;
+    private BandwidthGovernor bandwidthGovernor;
+
+    public DatastoreUploader(HttpTransferClient client) {
+        this.client = Objects.requireNonNull(client);
+        this.buffers = new DirectBufferPool(BUFFER_SIZE, DEFAULT_MAX_CONCURRENT_UPLOADS);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "datastore-upload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** @param maxConcurrentUploads the number of files uploaded at the same time; defaults to 8 */
+    public void setMaxConcurrentUploads(int maxConcurrentUploads) {
+        hostLimiter.setLimit(requirePositive(maxConcurrentUploads));
+    }
+
+    /** @param maxUploadsPerHost the number of files uploaded to the same server at the same time; defaults to 4 */
+    public void setMaxUploadsPerHost(int maxUploadsPerHost) {
+        hostLimiter.setLimitPerKey(requirePositive(maxUploadsPerHost));
+    }
+
+    /**
+     * @param maxUploadsPerDatastore the number of files uploaded to the same datastore at the same time; defaults to 2
+     */
+    public void setMaxUploadsPerDatastore(int maxUploadsPerDatastore) {
+        datastoreLimiter.setLimitPerKey(requirePositive(maxUploadsPerDatastore));
+    }
+
+    /**
+     * @param chunkSize the size of the HTTP chunks; 0 sends a {@code Content-Length} header instead of using chunked
+     *     transfer encoding, for servers which do not accept chunked requests. Defaults to 1 MiB.
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 0) {
+            throw new IllegalArgumentException("Expected non-negative chunk size, but got " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /** @param maxAttempts the number of attempts to upload a file before it fails; defaults to 3 */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = requirePositive(maxAttempts);
+    }
+
+    /** @param progressListener receives the progress of every upload; may be null */
+    public void setProgressListener(TransferProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /** @param bandwidthGovernor shapes each upload as a flow of its host; may be null */
+    public void setBandwidthGovernor(BandwidthGovernor bandwidthGovernor) {
+        this.bandwidthGovernor = bandwidthGovernor;
+    }
+
+    /**
+     * Queues a file for upload. Cancelling the returned future before the upload has completed aborts it.
+     *
+     * @param source the local file
+     * @param target the URL of the file on the datastore, typically created with {@link DatastoreFileUrls}; an existing
+     *     file is overwritten
+     * @return the summary of the upload
+     */
+    public CompletableFuture<TransferResult> submit(Path source, URI target) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(target);
+
+        String datastore = DatastoreFileUrls.getDatastoreName(target);
+        Upload upload = new Upload(source, target, target.getAuthority(), target.getAuthority() + "/" + datastore);
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The uploader is closed");
+            }
+            pending.add(upload);
+        }
+        dispatch();
+        return upload.future;
+    }
+
+    /** Cancels the queued uploads and aborts the running ones. */
+    @Override
+    public void close() {
+        List<Upload> cancelled;
+        synchronized (this) {
+            closed = true;
+            cancelled = new ArrayList<>(pending);
+            pending.clear();
+        }
+        for (Upload upload : cancelled) {
+            upload.future.cancel(false);
+        }
+        executor.shutdownNow();
+    }
+
+    /** Starts the queued uploads which fit the limits. */
+    private void dispatch() {
+        List<Upload> started = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Upload> iterator = pending.iterator();
+            while (!hostLimiter.isFull() && iterator.hasNext()) {
+                Upload upload = iterator.next();
+                if (upload.future.isDone()) {
+                    iterator.remove(); // cancelled while queued
+                } else if (hostLimiter.hasRoom(upload.host) && datastoreLimiter.hasRoom(upload.datastore)) {
+                    iterator.remove();
+                    hostLimiter.acquire(upload.host);
+                    datastoreLimiter.acquire(upload.datastore);
+                    started.add(upload);
+                }
+            }
+        }
+
+        for (Upload upload : started) {
+            executor.execute(() -> run(upload));
+        }
+    }
+
+    private void run(Upload upload) {
+        try {
+            upload.future.complete(upload(upload));
+        } catch (Exception e) {
+            upload.future.completeExceptionally(e);
+        } finally {
+            hostLimiter.release(upload.host);
+            datastoreLimiter.release(upload.datastore);
+            dispatch();
+        }
+    }
+
+    private TransferResult upload(Upload upload) throws IOException, InterruptedException {
+        long startTime = System.nanoTime();
+        long size;
+        BandwidthGovernor governor = bandwidthGovernor;
+        upload.flow = governor == null ? null : governor.open(upload.target.getHost(), 1, BandwidthGovernor.UNLIMITED);
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    size = send(upload);
+                    break;
+                } catch (RejectedException e) {
+                    throw e;
+                } catch (IOException e) {
+                    if (attempt >= maxAttempts || upload.future.isDone()) {
+                        throw e;
+                    }
+                    long delay = INITIAL_RETRY_DELAY_MS << (attempt - 1);
+                    log.debug("Retrying the upload of {} to {} in {} ms", upload.source, upload.target, delay, e);
+                    upload.retries++;
+                    Thread.sleep(delay);
+                }
+            }
+        } finally {
+            if (upload.flow != null) {
+                upload.flow.close();
+            }
+        }
+
+        TransferResult result = new TransferResult(
+                size, upload.transferred, 0, 1, upload.retries, Duration.ofNanos(System.nanoTime() - startTime), null);
+        log.debug("Uploaded {} to {}: {}", upload.source, upload.target, result);
+        return result;
+    }
+
+    /** @return the size of the file */
+    private long send(Upload upload) throws IOException {
+        try (FileChannel file = FileChannel.open(upload.source, READ)) {
+            long size = file.size();
+            HttpURLConnection connection = client.open(upload.target, "PUT");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/octet-stream");
+            if (chunkSize > 0) {
+                connection.setChunkedStreamingMode(chunkSize);
+            } else {
+                connection.setFixedLengthStreamingMode(size);
+            }
+
+            try {
+                write(upload, file, size, connection);
+            } catch (IOException e) {
+                // the server may reject the request before it has read the body, report its response if there is one
+                if (readStatus(connection) < 400) {
+                    throw e;
+                }
+            }
+
+            int status = connection.getResponseCode();
+            if (status == HTTP_OK || status == HTTP_CREATED) {
+                discard(connection);
+                return size;
+            }
+            IOException error = responseError(connection, status);
+            if (status < 500) {
+                // authentication, permission and path errors do not go away with a retry
+                throw new RejectedException(error.getMessage());
+            }
+            throw error;
+        }
+    }
+
+    private void write(Upload upload, FileChannel file, long size, HttpURLConnection connection) throws IOException {
+        TransferProgressListener listener = progressListener;
+        long position = 0;
+        ByteBuffer buffer = buffers.acquire();
+        try (OutputStream out = connection.getOutputStream();
+                WritableByteChannel channel = shape(upload, Channels.newChannel(out))) {
+            while (position < size) {
+                if (upload.future.isDone()) {
+                    connection.disconnect();
+                    throw new CancellationException("The upload of " + upload.source + " was cancelled");
+                }
+
+                buffer.clear();
+                if (size - position < buffer.capacity()) {
+                    buffer.limit((int) (size - position));
+                }
+                int read = file.read(buffer, position);
+                if (read <= 0) {
+                    throw new IOException("Expected " + size + " bytes in " + upload.source + ", but got " + position
+                            + "; the file has been truncated");
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                position += read;
+                upload.transferred += read;
+                if (listener != null) {
+                    listener.onProgress(upload.target, position, size);
+                }
+            }
+        } finally {
+            buffers.release(buffer);
+        }
+    }
+
+    private static WritableByteChannel shape(Upload upload, WritableByteChannel channel) {
+        return upload.flow == null ? channel : upload.flow.wrapWritable(channel);
+    }
+
+    /** @return the response status, or -1 if there is no response */
+    private static int readStatus(HttpURLConnection connection) {
+        try {
+            return connection.getResponseCode();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static int requirePositive(int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Expected positive limit, but got " + value);
+        }
+        return value;
+    }
+
+    /** A queued or running upload. The counters are only accessed by the thread running the upload. */
+    private static final class Upload {
+        final Path source;
+        final URI target;
+        final String host;
+        final String datastore;
+        final CompletableFuture<TransferResult> future = new CompletableFuture<>();
+        long transferred;
+        int retries;
+        BandwidthGovernor.Flow flow;
+
+        Upload(Path source, URI target, String host, String datastore) {
+            this.source = source;
+            this.target = target;
+            this.host = host;
+            this.datastore = datastore;
+        }
+    }
+
+    /** Signals a response which retrying cannot change. */
+    private static final class RejectedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        RejectedException(String message) {
+            super(message);
+        }
+    }
+}
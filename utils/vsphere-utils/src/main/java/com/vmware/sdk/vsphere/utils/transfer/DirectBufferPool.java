@@ -0,0 +1,58 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded pool of direct byte buffers of the same size.
+ *
+ * <p>Direct buffers are expensive to allocate and are only freed by the garbage collector, so transfers borrow them
+ * from a pool instead of allocating one per request. When the pool is empty a new buffer is allocated; when it is full
+ * a returned buffer is dropped.
+ *
+ * <p>This class is thread safe.
+ */
+final class DirectBufferPool {
+
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> buffers;
+
+    DirectBufferPool(int bufferSize, int capacity) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Expected positive buffer size, but got " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    /** @return a cleared buffer */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.capacity() == bufferSize) {
+            buffers.offer(buffer);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The completed segments of a {@link RangedDownloader} download, stored next to the target file so an interrupted
+ * download can be resumed. Each completed segment is stored with the CRC32 of its content, so a resumed download can
+ * detect segments which were damaged on disk.
+ *
+ * <p>This class is thread safe.
+ */
+final class DownloadCheckpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(DownloadCheckpoint.class);
+
+    private static final int MAGIC = 0x44434b50; // "DCKP"
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path file;
+    private final String source;
+    private final String validator;
+    private final long size;
+    private final long segmentSize;
+    private final BitSet done;
+    private final int[] checksums;
+
+    DownloadCheckpoint(Path file, String source, String validator, long size, long segmentSize) {
+        this(file, source, validator, size, segmentSize, new BitSet(), new int[segmentCount(size, segmentSize)]);
+    }
+
+    private DownloadCheckpoint(
+            Path file, String source, String validator, long size, long segmentSize, BitSet done, int[] checksums) {
+        this.file = file;
+        this.source = source;
+        this.validator = validator == null ? "" : validator;
+        this.size = size;
+        this.segmentSize = segmentSize;
+        this.done = done;
+        this.checksums = checksums;
+    }
+
+    /** @return the checkpoint file of the given download target */
+    static Path pathFor(Path target) {
+        return target.resolveSibling(target.getFileName() + ".checkpoint");
+    }
+
+    static int segmentCount(long size, long segmentSize) {
+        long count = (size + segmentSize - 1) / segmentSize;
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many segments of " + segmentSize + " bytes for " + size + " bytes");
+        }
+        return (int) count;
+    }
+
+    /** @return whether this checkpoint was written for the same version of the same file */
+    boolean matches(String source, String validator, long size, long segmentSize) {
+        // without a validator there is no way to tell whether the file has changed
+        return this.source.equals(source)
+                && !this.validator.isEmpty()
+                && this.validator.equals(validator)
+                && this.size == size
+                && this.segmentSize == segmentSize;
+    }
+
+    synchronized boolean isDone(int segment) {
+        return done.get(segment);
+    }
+
+    synchronized int getChecksum(int segment) {
+        return checksums[segment];
+    }
+
+    synchronized void forget(int segment) {
+        done.clear(segment);
+    }
+
+    /** Records a completed segment and writes the checkpoint file. */
+    synchronized void markDone(int segment, int checksum) throws IOException {
+        done.set(segment);
+        checksums[segment] = checksum;
+        store();
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete the download checkpoint {}", file, e);
+        }
+    }
+
+    /** @return the checkpoint, or null if there is none or it cannot be read */
+    static DownloadCheckpoint load(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(in), new CRC32());
+            DataInputStream data = new DataInputStream(checked);
+            if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a download checkpoint");
+            }
+            String source = data.readUTF();
+            String validator = data.readUTF();
+            long size = data.readLong();
+            long segmentSize = data.readLong();
+            if (size < 0 || segmentSize <= 0) {
+                throw new IOException("Invalid sizes in download checkpoint");
+            }
+            int segments = segmentCount(size, segmentSize);
+            BitSet done = BitSet.valueOf(data.readNBytes(data.readInt()));
+            int[] checksums = new int[segments];
+            for (int i = 0; i < segments; i++) {
+                checksums[i] = data.readInt();
+            }
+            long expected = checked.getChecksum().getValue();
+            if (new DataInputStream(checked).readLong() != expected) {
+                throw new IOException("Checksum mismatch in download checkpoint");
+            }
+            return new DownloadCheckpoint(file, source, validator, size, segmentSize, done, checksums);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring the unreadable download checkpoint {}", file, e);
+            return null;
+        }
+    }
+
+    /** Must hold the lock. */
+    private void store() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(out), new CRC32());
+            DataOutputStream data = new DataOutputStream(checked);
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeUTF(source);
+            data.writeUTF(validator);
+            data.writeLong(size);
+            data.writeLong(segmentSize);
+            byte[] doneBytes = done.toByteArray();
+            data.writeInt(doneBytes.length);
+            data.write(doneBytes);
+            for (int checksum : checksums) {
+                data.writeInt(checksum);
+            }
+            data.flush();
+            long checksum = checked.getChecksum().getValue();
+            new DataOutputStream(out).writeLong(checksum);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DownloadCheckpoint{" + Objects.toString(file) + ", " + done.cardinality() + "/" + checksums.length
+                + " segments done}";
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+import com.vmware.vim25.GuestAuthentication;
+import com.vmware.vim25.GuestFileAttributes;
+import com.vmware.vim25.ManagedObjectReference;
+
+/**
+ * A file to copy between the guest of a virtual machine and the local file system with {@link GuestFileTransfer}.
+ *
+ * <p>Instances are immutable.
+ */
+public final class GuestFileRequest {
+
+    public enum Type {
+        /** Copies a file from the guest. */
+        DOWNLOAD,
+        /** Copies a file to the guest. */
+        UPLOAD,
+        /** Packs a directory of the guest into an archive in the guest and copies the archive from the guest. */
+        DOWNLOAD_DIRECTORY
+    }
+
+    /**
+     * The archive format of a {@link Type#DOWNLOAD_DIRECTORY} request, which also selects the archiver of the guest.
+     */
+    public enum ArchiveFormat {
+        /** A gzip compressed tar archive created with {@code /bin/tar}, for Linux and other POSIX guests. */
+        TAR_GZ(".tar.gz"),
+        /** A zip archive created with PowerShell {@code Compress-Archive}, for Windows guests. */
+        ZIP(".zip");
+
+        private final String suffix;
+
+        ArchiveFormat(String suffix) {
+            this.suffix = suffix;
+        }
+
+        String getSuffix() {
+            return suffix;
+        }
+    }
+
+    private final Type type;
+    private final ManagedObjectReference vm;
+    private final GuestAuthentication authentication;
+    private final String guestPath;
+    private final Path localPath;
+    private final boolean overwrite;
+    private final GuestFileAttributes fileAttributes;
+    private final ArchiveFormat archiveFormat;
+    private final ManagedObjectReference host;
+
+    private GuestFileRequest(
+            Type type,
+            ManagedObjectReference vm,
+            GuestAuthentication authentication,
+            String guestPath,
+            Path localPath,
+            boolean overwrite,
+            GuestFileAttributes fileAttributes,
+            ArchiveFormat archiveFormat,
+            ManagedObjectReference host) {
+        this.type = type;
+        this.vm = Objects.requireNonNull(vm);
+        this.authentication = Objects.requireNonNull(authentication);
+        this.guestPath = Objects.requireNonNull(guestPath);
+        this.localPath = Objects.requireNonNull(localPath);
+        this.overwrite = overwrite;
+        this.fileAttributes = fileAttributes;
+        this.archiveFormat = archiveFormat;
+        this.host = host;
+    }
+
+    /**
+     * @param vm the virtual machine
+     * @param authentication the credentials of the guest
+     * @param guestPath the file in the guest
+     * @param localPath the local file, which is replaced if it exists
+     */
+    public static GuestFileRequest download(
+            ManagedObjectReference vm, GuestAuthentication authentication, String guestPath, Path localPath) {
+        return new GuestFileRequest(Type.DOWNLOAD, vm, authentication, guestPath, localPath, true, null, null, null);
+    }
+
+    /**
+     * @param vm the virtual machine
+     * @param authentication the credentials of the guest
+     * @param localPath the local file
+     * @param guestPath the file in the guest
+     * @param overwrite whether to replace the file in the guest if it exists
+     * @param fileAttributes the attributes of the file in the guest; null for the defaults of the guest
+     */
+    public static GuestFileRequest upload(
+            ManagedObjectReference vm,
+            GuestAuthentication authentication,
+            Path localPath,
+            String guestPath,
+            boolean overwrite,
+            GuestFileAttributes fileAttributes) {
+        return new GuestFileRequest(
+                Type.UPLOAD, vm, authentication, guestPath, localPath, overwrite, fileAttributes, null, null);
+    }
+
+    /**
+     * @param vm the virtual machine
+     * @param authentication the credentials of the guest; the user must be allowed to start programs
+     * @param guestDirectory the directory in the guest
+     * @param localArchive the local archive file, which is replaced if it exists
+     * @param archiveFormat the archive format, which must match the operating system of the guest
+     */
+    public static GuestFileRequest downloadDirectory(
+            ManagedObjectReference vm,
+            GuestAuthentication authentication,
+            String guestDirectory,
+            Path localArchive,
+            ArchiveFormat archiveFormat) {
+        return new GuestFileRequest(
+                Type.DOWNLOAD_DIRECTORY,
+                vm,
+                authentication,
+                guestDirectory,
+                localArchive,
+                true,
+                null,
+                Objects.requireNonNull(archiveFormat),
+                null);
+    }
+
+    /**
+     * @param host the ESXi host of the virtual machine, which counts against the per-host limit of
+     *     {@link GuestFileTransfer}; null for no limit
+     * @return a copy of this request with the host
+     */
+    public GuestFileRequest withHost(ManagedObjectReference host) {
+        return new GuestFileRequest(
+                type, vm, authentication, guestPath, localPath, overwrite, fileAttributes, archiveFormat, host);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public ManagedObjectReference getVm() {
+        return vm;
+    }
+
+    public GuestAuthentication getAuthentication() {
+        return authentication;
+    }
+
+    /** @return the file or, for {@link Type#DOWNLOAD_DIRECTORY}, the directory in the guest */
+    public String getGuestPath() {
+        return guestPath;
+    }
+
+    /** @return the local file or, for {@link Type#DOWNLOAD_DIRECTORY}, the local archive */
+    public Path getLocalPath() {
+        return localPath;
+    }
+
+    public boolean isOverwrite() {
+        return overwrite;
+    }
+
+    /** @return the attributes of an uploaded file, or null */
+    public GuestFileAttributes getFileAttributes() {
+        return fileAttributes;
+    }
+
+    /** @return the archive format of a {@link Type#DOWNLOAD_DIRECTORY} request, or null */
+    public ArchiveFormat getArchiveFormat() {
+        return archiveFormat;
+    }
+
+    /** @return the ESXi host of the virtual machine, or null */
+    public ManagedObjectReference getHost() {
+        return host;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + guestPath + " of " + vm.getValue() + (type == Type.UPLOAD ? " from " : " to ") + localPath;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import java.time.Duration;
+
+/**
+ * The outcome of a {@link GuestFileRequest}. A failed request does not stop the other requests of a batch, so its error
+ * is reported here instead of being thrown.
+ *
+ * <p>Instances are immutable.
+ */
+public final class GuestFileResult {
+
+    private final GuestFileRequest request;
+    private final long size;
+    private final Duration elapsed;
+    private final Exception error;
+
+    GuestFileResult(GuestFileRequest request, long size, Duration elapsed, Exception error) {
+        this.request = request;
+        this.size = size;
+        this.elapsed = elapsed;
+        this.error = error;
+    }
+
+    public GuestFileRequest getRequest() {
+        return request;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /** @return the number of bytes transferred */
+    public long getSize() {
+        return size;
+    }
+
+    /** @return the time from the start of the request, including the guest operations, to its end */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /** @return the reason of the failure, or null if the request succeeded */
+    public Exception getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return request + (error == null ? ": " + size + " bytes in " + elapsed : ": " + error);
+    }
+}
@@ -0,0 +1,473 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static com.vmware.sdk.vsphere.utils.transfer.HttpTransferClient.discard;
+import static com.vmware.sdk.vsphere.utils.transfer.HttpTransferClient.responseError;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.sdk.vsphere.utils.KeyedConcurrencyLimiter;
+import com.vmware.vim25.FileTransferInformation;
+import com.vmware.vim25.GuestAuthentication;
+import com.vmware.vim25.GuestFileAttributes;
+import com.vmware.vim25.GuestProcessInfo;
+import com.vmware.vim25.GuestProgramSpec;
+import com.vmware.vim25.ManagedObjectReference;
+import com.vmware.vim25.VimPortType;
+
+/**
+ * Copies files between the guests of many virtual machines and the local file system.
+ *
+ * <p>The requests of a batch are queued and started in parallel, up to a total limit and a limit per ESXi host of
+ * {@link GuestFileRequest#withHost(ManagedObjectReference)}, so collecting files from thousands of guests does not
+ * overload a single host. A request whose host is at its limit waits in the queue without holding up the requests of
+ * the other hosts, and its transfer URL is only requested once it has started, so the URL does not expire while it
+ * waits. A request holds its slot until it completes, including the archiving of a directory. The files are streamed
+ * through large pooled buffers. A failed request does not stop the batch; its error is reported in its
+ * {@link GuestFileResult}.
+ *
+ * <p>A directory is fetched as a whole by packing it into a temporary archive in the guest with a guest process,
+ * downloading the archive and deleting it from the guest again, which takes a single transfer instead of one per file.
+ *
+ * <pre>{@code
+ * GuestFileTransfer transfer = new GuestFileTransfer(
+ *         vimPort, fileManager, processManager, new HttpTransferClient(null, trustStore), serverAddress);
+ * List<GuestFileResult> results = transfer.transfer(requests);
+ * }</pre>
+ *
+ * <p>The transfer URLs carry their own authorization, so the {@link HttpTransferClient} does not need a session
+ * provider. The settings must not be changed while a batch is running; otherwise this class is thread safe.
+ */
+public class GuestFileTransfer {
+
+    private static final Logger log = LoggerFactory.getLogger(GuestFileTransfer.class);
+
+    public static final int DEFAULT_MAX_CONCURRENT_TRANSFERS = 32;
+    public static final int DEFAULT_MAX_CONCURRENT_TRANSFERS_PER_HOST = 4;
+    public static final Duration DEFAULT_ARCHIVE_TIMEOUT = Duration.ofMinutes(10);
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final long PROCESS_POLL_MAX_MS = 5000;
+    private static final String WINDOWS_POWERSHELL = "C:\\Windows\\System32\\WindowsPowerShell\\v1.0\\powershell.exe";
+
+    private final VimPortType vimPort;
+    private final ManagedObjectReference fileManager;
+    private final ManagedObjectReference processManager;
+    private final HttpTransferClient client;
+    private final String hostAddress;
+
+    private final DirectBufferPool buffers = new DirectBufferPool(BUFFER_SIZE, 64);
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private int maxConcurrentTransfers = DEFAULT_MAX_CONCURRENT_TRANSFERS;
+    private int maxConcurrentTransfersPerHost = DEFAULT_MAX_CONCURRENT_TRANSFERS_PER_HOST;
+    private Duration archiveTimeout = DEFAULT_ARCHIVE_TIMEOUT;
+    private BandwidthGovernor bandwidthGovernor;
+
+    /**
+     * @param vimPort the port of the vCenter Server or ESXi host
+     * @param fileManager the {@code fileManager} of the {@code GuestOperationsManager}
+     * @param processManager the {@code processManager} of the {@code GuestOperationsManager}; may be null if no
+     *     directories are downloaded
+     * @param client the client used for the transfer URLs
+     * @param hostAddress the address which replaces the {@code *} host in the transfer URLs
+     */
+    public GuestFileTransfer(
+            VimPortType vimPort,
+            ManagedObjectReference fileManager,
+            ManagedObjectReference processManager,
+            HttpTransferClient client,
+            String hostAddress) {
+        this.vimPort = Objects.requireNonNull(vimPort);
+        this.fileManager = Objects.requireNonNull(fileManager);
+        this.processManager = processManager;
+        this.client = Objects.requireNonNull(client);
+        this.hostAddress = Objects.requireNonNull(hostAddress);
+    }
+
+    /** @param maxConcurrentTransfers the number of requests of a batch running at the same time; defaults to 32 */
+    public void setMaxConcurrentTransfers(int maxConcurrentTransfers) {
+        if (maxConcurrentTransfers <= 0) {
+            throw new IllegalArgumentException(
+                    "Expected positive number of transfers, but got " + maxConcurrentTransfers);
+        }
+        this.maxConcurrentTransfers = maxConcurrentTransfers;
+    }
+
+    /**
+     * @param maxConcurrentTransfersPerHost the number of requests of the virtual machines of an ESXi host running at
+     *     the same time; defaults to 4
+     */
+    public void setMaxConcurrentTransfersPerHost(int maxConcurrentTransfersPerHost) {
+        if (maxConcurrentTransfersPerHost <= 0) {
+            throw new IllegalArgumentException(
+                    "Expected positive number of transfers, but got " + maxConcurrentTransfersPerHost);
+        }
+        this.maxConcurrentTransfersPerHost = maxConcurrentTransfersPerHost;
+    }
+
+    /** @param archiveTimeout how long the archiver of a directory may run in the guest; defaults to 10 minutes */
+    public void setArchiveTimeout(Duration archiveTimeout) {
+        this.archiveTimeout = Objects.requireNonNull(archiveTimeout);
+    }
+
+    /** @param bandwidthGovernor shapes each file transfer as a flow of its host; may be null */
+    public void setBandwidthGovernor(BandwidthGovernor bandwidthGovernor) {
+        this.bandwidthGovernor = bandwidthGovernor;
+    }
+
+    /**
+     * Runs a batch of requests.
+     *
+     * @param requests the requests
+     * @return the result of each request, in the order of the requests
+     * @throws InterruptedException if the thread was interrupted; the running requests are interrupted as well
+     */
+    public List<GuestFileResult> transfer(List<GuestFileRequest> requests) throws InterruptedException {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        ExecutorService workers =
+                Executors.newFixedThreadPool(Math.min(maxConcurrentTransfers, requests.size()), runnable -> {
+                    Thread thread = new Thread(runnable, "guest-file-transfer-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Batch batch = new Batch(requests, workers);
+        try {
+            batch.dispatch();
+            return batch.await();
+        } finally {
+            batch.close();
+            workers.shutdownNow();
+        }
+    }
+
+    private GuestFileResult run(GuestFileRequest request) {
+        long startTime = System.nanoTime();
+        long size = 0;
+        Exception error = null;
+        try {
+            switch (request.getType()) {
+                case DOWNLOAD:
+                    size = download(request, request.getGuestPath());
+                    break;
+                case UPLOAD:
+                    size = upload(request);
+                    break;
+                case DOWNLOAD_DIRECTORY:
+                    size = downloadDirectory(request);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported request type " + request.getType());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = e;
+        } catch (Exception e) {
+            // the faults of the guest operations are checked exceptions of many types, and all of them fail the
+            // request only
+            error = e;
+        }
+
+        GuestFileResult result =
+                new GuestFileResult(request, size, Duration.ofNanos(System.nanoTime() - startTime), error);
+        if (error != null) {
+            log.debug("Guest file transfer failed: {}", result, error);
+        }
+        return result;
+    }
+
+    private long download(GuestFileRequest request, String guestPath) throws Exception {
+        FileTransferInformation transferInfo = vimPort.initiateFileTransferFromGuest(
+                fileManager, request.getVm(), request.getAuthentication(), guestPath);
+        URI uri = resolve(transferInfo.getUrl());
+
+        BandwidthGovernor.Flow flow = openFlow(uri);
+        ByteBuffer buffer = buffers.acquire();
+        try {
+            HttpURLConnection connection = client.open(uri, "GET");
+            int status = connection.getResponseCode();
+            if (status != HTTP_OK) {
+                throw responseError(connection, status);
+            }
+
+            long position = 0;
+            try (ReadableByteChannel in = shape(flow, Channels.newChannel(connection.getInputStream()));
+                    FileChannel out = FileChannel.open(request.getLocalPath(), CREATE, WRITE, TRUNCATE_EXISTING)) {
+                while (in.read(buffer) >= 0) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        position += out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+            if (position != transferInfo.getSize()) {
+                throw new IOException(
+                        "Expected " + transferInfo.getSize() + " bytes from " + uri + ", but got " + position);
+            }
+            return position;
+        } finally {
+            buffers.release(buffer);
+            closeFlow(flow);
+        }
+    }
+
+    private long upload(GuestFileRequest request) throws Exception {
+        GuestFileAttributes fileAttributes = request.getFileAttributes();
+        try (FileChannel in = FileChannel.open(request.getLocalPath(), READ)) {
+            long size = in.size();
+            String url = vimPort.initiateFileTransferToGuest(
+                    fileManager,
+                    request.getVm(),
+                    request.getAuthentication(),
+                    request.getGuestPath(),
+                    fileAttributes == null ? new GuestFileAttributes() : fileAttributes,
+                    size,
+                    request.isOverwrite());
+            URI uri = resolve(url);
+
+            BandwidthGovernor.Flow flow = openFlow(uri);
+            ByteBuffer buffer = buffers.acquire();
+            try {
+                HttpURLConnection connection = client.open(uri, "PUT");
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/octet-stream");
+                connection.setFixedLengthStreamingMode(size);
+                try (OutputStream out = connection.getOutputStream();
+                        WritableByteChannel channel = shape(flow, Channels.newChannel(out))) {
+                    while (in.read(buffer) >= 0) {
+                        buffer.flip();
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                        buffer.clear();
+                    }
+                }
+
+                int status = connection.getResponseCode();
+                if (status / 100 != 2) {
+                    throw responseError(connection, status);
+                }
+                discard(connection);
+                return size;
+            } finally {
+                buffers.release(buffer);
+                closeFlow(flow);
+            }
+        }
+    }
+
+    private long downloadDirectory(GuestFileRequest request) throws Exception {
+        if (processManager == null) {
+            throw new IllegalStateException("Downloading a directory requires the process manager");
+        }
+
+        ManagedObjectReference vm = request.getVm();
+        GuestAuthentication auth = request.getAuthentication();
+        GuestFileRequest.ArchiveFormat format = request.getArchiveFormat();
+        String archive = vimPort.createTemporaryFileInGuest(
+                fileManager, vm, auth, "guest-file-transfer-", format.getSuffix(), "");
+        try {
+            GuestProgramSpec programSpec = new GuestProgramSpec();
+            if (format == GuestFileRequest.ArchiveFormat.ZIP) {
+                programSpec.setProgramPath(WINDOWS_POWERSHELL);
+                programSpec.setArguments("-NoProfile -NonInteractive -Command \"Compress-Archive -Force -Path "
+                        + quotePowerShell(request.getGuestPath() + "\\*") + " -DestinationPath "
+                        + quotePowerShell(archive) + "\"");
+            } else {
+                programSpec.setProgramPath("/bin/tar");
+                programSpec.setArguments(
+                        "-czf " + quotePosix(archive) + " -C " + quotePosix(request.getGuestPath()) + " .");
+            }
+
+            long pid = vimPort.startProgramInGuest(processManager, vm, auth, programSpec);
+            int exitCode = awaitExit(vm, auth, pid);
+            if (exitCode != 0) {
+                throw new IOException("The archiver of " + request.getGuestPath() + " exited with " + exitCode);
+            }
+
+            return download(request, archive);
+        } finally {
+            try {
+                vimPort.deleteFileInGuest(fileManager, vm, auth, archive);
+            } catch (Exception e) {
+                log.warn("Could not delete the archive {} of {}", archive, vm.getValue(), e);
+            }
+        }
+    }
+
+    private int awaitExit(ManagedObjectReference vm, GuestAuthentication auth, long pid) throws Exception {
+        long deadline = System.nanoTime() + archiveTimeout.toNanos();
+        long delayMs = 250;
+        while (true) {
+            List<GuestProcessInfo> processes =
+                    vimPort.listProcessesInGuest(processManager, vm, auth, Collections.singletonList(pid));
+            if (processes.isEmpty()) {
+                throw new IOException("The process " + pid + " of " + vm.getValue() + " disappeared");
+            }
+            GuestProcessInfo process = processes.get(0);
+            if (process.getEndTime() != null) {
+                return process.getExitCode() == null ? -1 : process.getExitCode();
+            } else if (System.nanoTime() > deadline) {
+                vimPort.terminateProcessInGuest(processManager, vm, auth, pid);
+                throw new IOException("Timed out waiting for the process " + pid + " of " + vm.getValue());
+            }
+            Thread.sleep(delayMs);
+            delayMs = Math.min(delayMs * 2, PROCESS_POLL_MAX_MS);
+        }
+    }
+
+    private BandwidthGovernor.Flow openFlow(URI uri) {
+        BandwidthGovernor governor = bandwidthGovernor;
+        return governor == null ? null : governor.open(uri.getHost(), 1, BandwidthGovernor.UNLIMITED);
+    }
+
+    private static void closeFlow(BandwidthGovernor.Flow flow) {
+        if (flow != null) {
+            flow.close();
+        }
+    }
+
+    private static ReadableByteChannel shape(BandwidthGovernor.Flow flow, ReadableByteChannel channel) {
+        return flow == null ? channel : flow.wrapReadable(channel);
+    }
+
+    private static WritableByteChannel shape(BandwidthGovernor.Flow flow, WritableByteChannel channel) {
+        return flow == null ? channel : flow.wrapWritable(channel);
+    }
+
+    private URI resolve(String url) {
+        return URI.create(url.replace("://*", "://" + hostAddress));
+    }
+
+    private static String quotePosix(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+
+    private static String quotePowerShell(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    private static String hostOf(GuestFileRequest request) {
+        return request.getHost() == null ? null : request.getHost().getValue();
+    }
+
+    /** The state of a single {@link #transfer(List)} call. */
+    private final class Batch {
+        final List<GuestFileRequest> requests;
+        final ExecutorService workers;
+        // the running requests, per host of their virtual machines
+        final KeyedConcurrencyLimiter limiter =
+                new KeyedConcurrencyLimiter(maxConcurrentTransfers, maxConcurrentTransfersPerHost);
+
+        // guarded by this
+        final Deque<Integer> pending = new ArrayDeque<>();
+        final GuestFileResult[] results;
+        int outstanding;
+        boolean closed;
+
+        Batch(List<GuestFileRequest> requests, ExecutorService workers) {
+            this.requests = requests;
+            this.workers = workers;
+            this.results = new GuestFileResult[requests.size()];
+            for (int i = 0; i < requests.size(); i++) {
+                pending.add(i);
+            }
+            outstanding = requests.size();
+        }
+
+        /** Starts the queued requests for which the limits have room. */
+        void dispatch() {
+            List<Integer> startable = new ArrayList<>();
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                Iterator<Integer> iterator = pending.iterator();
+                while (!limiter.isFull() && iterator.hasNext()) {
+                    Integer index = iterator.next();
+                    if (limiter.tryAcquire(hostOf(requests.get(index)))) {
+                        iterator.remove();
+                        startable.add(index);
+                    }
+                }
+            }
+            for (Integer index : startable) {
+                workers.execute(() -> start(index));
+            }
+        }
+
+        void start(int index) {
+            GuestFileRequest request = requests.get(index);
+            GuestFileResult result = null;
+            try {
+                result = run(request);
+            } finally {
+                limiter.release(hostOf(request));
+                synchronized (this) {
+                    results[index] = result;
+                    outstanding--;
+                    notifyAll();
+                }
+            }
+            dispatch();
+        }
+
+        synchronized List<GuestFileResult> await() throws InterruptedException {
+            while (outstanding > 0) {
+                wait();
+            }
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) {
+                    // run() reports its errors in the result
+                    throw new IllegalStateException("The request " + requests.get(i) + " did not complete");
+                }
+            }
+            return Arrays.asList(results);
+        }
+
+        synchronized void close() {
+            closed = true;
+        }
+    }
+}
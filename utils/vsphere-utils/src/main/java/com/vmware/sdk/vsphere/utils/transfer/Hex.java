@@ -0,0 +1,29 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+/** Formats digests and checksums the way the transfer results and vSphere report them. */
+final class Hex {
+
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    private Hex() {}
+
+    /** @return the lower case hex digits of the bytes */
+    static String encode(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = DIGITS[(bytes[i] >> 4) & 0xf];
+            hex[2 * i + 1] = DIGITS[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
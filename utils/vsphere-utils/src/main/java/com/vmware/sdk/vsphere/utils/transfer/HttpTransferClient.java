@@ -0,0 +1,163 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static com.vmware.sdk.vsphere.utils.VsphereCookieHelper.VMWARE_SOAP_SESSION_COOKIE;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpCookie;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLConnection;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.SecureRandom;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+
+import com.vmware.sdk.utils.ssl.InsecureHostnameVerifier;
+import com.vmware.sdk.utils.ssl.InsecureTrustManager;
+import com.vmware.sdk.utils.ssl.TlsHelper;
+import com.vmware.sdk.vsphere.utils.SessionIdProvider;
+
+/**
+ * Opens HTTP connections to the file transfer endpoints of vCenter and ESXi, e.g. the datastore {@code /folder} URLs.
+ * The connections carry the vim session cookie and use the same TLS settings as the SOAP clients.
+ *
+ * <p>Connections to the same server are kept alive and reused by the JDK, so transfers splitting a file into many
+ * requests do not pay for a TLS handshake per request.
+ *
+ * <p>This class is thread safe.
+ */
+public class HttpTransferClient {
+
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 30_000;
+    public static final int DEFAULT_READ_TIMEOUT_MS = 120_000;
+
+    private final SessionIdProvider sessionIdProvider;
+    private final SSLSocketFactory sslSocketFactory;
+    private final HostnameVerifier hostnameVerifier;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    /**
+     * @param sessionIdProvider provides the vim session, e.g.
+     *     {@link com.vmware.sdk.vsphere.utils.VimClient#getVimSessionProvider()}; may be null for endpoints which take
+     *     the credentials in the URL, like NFC leases
+     * @param trustStore a {@link KeyStore} containing the trusted certificates; if the keystore is empty, the TLS
+     *     connections are going to be insecure!
+     */
+    public HttpTransferClient(SessionIdProvider sessionIdProvider, KeyStore trustStore) {
+        this(sessionIdProvider, null, trustStore, DEFAULT_CONNECT_TIMEOUT_MS, DEFAULT_READ_TIMEOUT_MS);
+    }
+
+    /**
+     * @param sessionIdProvider provides the vim session; may be null
+     * @param verifyHostname whether to verify the server hostname; null means verify unless the trust store is empty
+     * @param trustStore a {@link KeyStore} containing the trusted certificates; if the keystore is empty, the TLS
+     *     connections are going to be insecure!
+     * @param connectTimeoutMs the connect timeout
+     * @param readTimeoutMs the timeout of a single read
+     */
+    public HttpTransferClient(
+            SessionIdProvider sessionIdProvider,
+            Boolean verifyHostname,
+            KeyStore trustStore,
+            int connectTimeoutMs,
+            int readTimeoutMs) {
+        this.sessionIdProvider = sessionIdProvider;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+
+        TrustManager[] trustManagers;
+        boolean insecure;
+        try {
+            insecure = trustStore != null && !trustStore.aliases().hasMoreElements();
+        } catch (KeyStoreException e) {
+            throw new RuntimeException("Could not retrieve the keystore aliases - it hasn't been initialized.", e);
+        }
+        if (insecure) {
+            trustManagers = new TrustManager[] {new InsecureTrustManager()};
+        } else {
+            trustManagers = TlsHelper.createTrustManagers(trustStore);
+        }
+        if (verifyHostname == null) {
+            verifyHostname = !insecure;
+        }
+        this.hostnameVerifier =
+                verifyHostname ? HttpsURLConnection.getDefaultHostnameVerifier() : new InsecureHostnameVerifier();
+
+        try {
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, trustManagers, new SecureRandom());
+            this.sslSocketFactory = sslContext.getSocketFactory();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Opens a connection. The request is not sent until the connection is used.
+     *
+     * @param uri the URL, typically created with {@link DatastoreFileUrls}
+     * @param method the HTTP method
+     * @return the connection
+     * @throws IOException if the connection could not be opened
+     */
+    public HttpURLConnection open(URI uri, String method) throws IOException {
+        URLConnection urlConnection = uri.toURL().openConnection();
+        if (!(urlConnection instanceof HttpURLConnection)) {
+            throw new IllegalArgumentException("Expected http or https URL, but got " + uri);
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) urlConnection;
+        if (connection instanceof HttpsURLConnection) {
+            ((HttpsURLConnection) connection).setSSLSocketFactory(sslSocketFactory);
+            ((HttpsURLConnection) connection).setHostnameVerifier(hostnameVerifier);
+        }
+        connection.setConnectTimeout(connectTimeoutMs);
+        connection.setReadTimeout(readTimeoutMs);
+        connection.setRequestMethod(method);
+        connection.setUseCaches(false);
+        if (sessionIdProvider != null) {
+            connection.setRequestProperty(
+                    "Cookie",
+                    new HttpCookie(VMWARE_SOAP_SESSION_COOKIE, new String(sessionIdProvider.get())).toString());
+        }
+        return connection;
+    }
+
+    /** @return the exception for an unexpected response; the response is discarded */
+    static IOException responseError(HttpURLConnection connection, int status) throws IOException {
+        String message = connection.getResponseMessage();
+        discard(connection);
+        return new IOException("Request to " + connection.getURL() + " failed: " + status + " " + message);
+    }
+
+    /** Reads the rest of the response, so the connection can be reused. */
+    static void discard(HttpURLConnection connection) {
+        try (InputStream in =
+                connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (in != null) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+        } catch (IOException e) {
+            connection.disconnect();
+        }
+    }
+}
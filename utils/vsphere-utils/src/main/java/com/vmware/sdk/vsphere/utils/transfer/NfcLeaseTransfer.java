@@ -0,0 +1,720 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static com.vmware.sdk.vsphere.utils.transfer.HttpTransferClient.discard;
+import static com.vmware.sdk.vsphere.utils.transfer.HttpTransferClient.responseError;
+import static java.net.HttpURLConnection.HTTP_CREATED;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vmware.sdk.vsphere.utils.PropertyCollectorHelper;
+import com.vmware.vim25.ArrayOfVirtualDevice;
+import com.vmware.vim25.HttpNfcLeaseDeviceUrl;
+import com.vmware.vim25.HttpNfcLeaseInfo;
+import com.vmware.vim25.InvalidPropertyFaultMsg;
+import com.vmware.vim25.InvalidStateFaultMsg;
+import com.vmware.vim25.ManagedObjectReference;
+import com.vmware.vim25.OvfFile;
+import com.vmware.vim25.OvfFileItem;
+import com.vmware.vim25.RuntimeFaultFaultMsg;
+import com.vmware.vim25.TimedoutFaultMsg;
+import com.vmware.vim25.VimPortType;
+import com.vmware.vim25.VirtualDevice;
+import com.vmware.vim25.VirtualDeviceBackingInfo;
+import com.vmware.vim25.VirtualDisk;
+import com.vmware.vim25.VirtualDiskFlatVer2BackingInfo;
+import com.vmware.vim25.VirtualDiskRawDiskMappingVer1BackingInfo;
+import com.vmware.vim25.VirtualDiskSeSparseBackingInfo;
+import com.vmware.vim25.VirtualDiskSparseVer2BackingInfo;
+
+/**
+ * Transfers the disks of an {@code HttpNfcLease}, as returned by {@code ExportVm} or {@code ImportVApp}.
+ *
+ * <p>All device URLs of the lease are transferred in parallel, bounded by a number of concurrent streams and an
+ * optional bandwidth limit shared by the streams. While the transfer runs, the progress of the lease is reported with
+ * {@code HttpNfcLeaseProgress} at a fixed interval, which also keeps the lease from timing out. The percentage is
+ * computed from the bytes of all streams. When all streams have completed the lease is completed; when a stream fails
+ * or the thread is interrupted the lease is aborted, so the server discards the partial import or export right away.
+ *
+ * <p>A failed download of an export is restarted from its start, while the downloads of the other devices continue.
+ * With a {@link TransferJournal}, the downloaded devices are recorded, so exporting the same virtual machine again
+ * after the lease was aborted or has expired only downloads the devices which are not complete and intact on disk. A
+ * recorded device is only reused if the virtual machine has not changed since: its configuration must have the same
+ * {@code changeVersion} and each of its disks the same change ID. Disks have change IDs only with changed block
+ * tracking; without them, or for a vApp, nothing recorded by an earlier lease is reused.
+ *
+ * <pre>{@code
+ * ManagedObjectReference lease = vimPort.exportVm(vmMoRef);
+ * // wait until the lease is READY, then
+ * HttpNfcLeaseInfo info = propertyCollectorHelper.fetch(lease, "info");
+ * NfcLeaseTransfer transfer = new NfcLeaseTransfer(vimPort, new HttpTransferClient(client.getVimSessionProvider(), trustStore));
+ * List<OvfFile> ovfFiles = transfer.exportDisks(lease, info, hostAddress, localDirectory);
+ * }</pre>
+ *
+ * <p>The settings must not be changed while a transfer is running; otherwise this class is thread safe.
+ */
+public class NfcLeaseTransfer {
+
+    private static final Logger log = LoggerFactory.getLogger(NfcLeaseTransfer.class);
+
+    public static final int DEFAULT_MAX_CONCURRENT_STREAMS = 4;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final Duration DEFAULT_PROGRESS_INTERVAL = Duration.ofSeconds(30);
+
+    /**
+     * The size of the pooled buffers, which is also the number of bytes between two checks of the bandwidth limit and
+     * two progress notifications.
+     */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private static final long INITIAL_RETRY_DELAY_MS = 1000;
+
+    private static final String STREAM_VMDK_CONTENT_TYPE = "application/x-vnd.vmware-streamVmdk";
+
+    private final VimPortType vimPort;
+    private final HttpTransferClient client;
+    private final DirectBufferPool buffers;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private int maxConcurrentStreams = DEFAULT_MAX_CONCURRENT_STREAMS;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private long bandwidthLimit;
+    private boolean sparse;
+    private TransferJournal journal;
+    private BandwidthGovernor bandwidthGovernor;
+    private Duration progressInterval = DEFAULT_PROGRESS_INTERVAL;
+    private TransferProgressListener progressListener;
+
+    /**
+     * @param vimPort the port used for the lease methods
+     * @param client the client used for the device URLs
+     */
+    public NfcLeaseTransfer(VimPortType vimPort, HttpTransferClient client) {
+        this.vimPort = Objects.requireNonNull(vimPort);
+        this.client = Objects.requireNonNull(client);
+        this.buffers = new DirectBufferPool(BUFFER_SIZE, 16);
+    }
+
+    /** @param maxConcurrentStreams the number of device URLs transferred at the same time; defaults to 4 */
+    public void setMaxConcurrentStreams(int maxConcurrentStreams) {
+        if (maxConcurrentStreams <= 0) {
+            throw new IllegalArgumentException("Expected positive number of streams, but got " + maxConcurrentStreams);
+        }
+        this.maxConcurrentStreams = maxConcurrentStreams;
+    }
+
+    /**
+     * @param maxAttempts the number of attempts to download a device before the export fails; defaults to 3. Uploads
+     *     are not retried, because the server has consumed a part of the stream.
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Expected positive number of attempts, but got " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @param bytesPerSecond the combined bandwidth of all streams of a transfer; 0, the default, means unlimited. With
+     *     a governor the limit is the own limit of the flow of the transfer.
+     */
+    public void setBandwidthLimit(long bytesPerSecond) {
+        if (bytesPerSecond < 0) {
+            throw new IllegalArgumentException("Expected non-negative bandwidth, but got " + bytesPerSecond);
+        }
+        this.bandwidthLimit = bytesPerSecond;
+    }
+
+    /**
+     * @param sparse whether to leave the all-zero blocks of downloaded disks as holes, which saves local disk space for
+     *     flat disks; it makes no difference for stream optimized disks. See {@link SparseFileWriter}.
+     */
+    public void setSparse(boolean sparse) {
+        this.sparse = sparse;
+    }
+
+    /**
+     * @param journal records the downloaded devices of exports, so a later export of the same, unchanged virtual
+     *     machine skips them after verifying them; may be null
+     */
+    public void setJournal(TransferJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * @param bandwidthGovernor shapes all streams of a transfer as a single flow of the host of its device URLs; may be
+     *     null
+     */
+    public void setBandwidthGovernor(BandwidthGovernor bandwidthGovernor) {
+        this.bandwidthGovernor = bandwidthGovernor;
+    }
+
+    /**
+     * @param progressInterval the interval of the {@code HttpNfcLeaseProgress} calls; it is shortened to half of the
+     *     lease timeout if that is shorter. Defaults to 30 seconds.
+     */
+    public void setProgressInterval(Duration progressInterval) {
+        if (progressInterval.isNegative() || progressInterval.isZero()) {
+            throw new IllegalArgumentException("Expected positive interval, but got " + progressInterval);
+        }
+        this.progressInterval = progressInterval;
+    }
+
+    /** @param progressListener receives the progress of every device URL; may be null */
+    public void setProgressListener(TransferProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Downloads the files of an export lease and completes the lease. Each file is written to the target directory
+     * under the last segment of its device URL.
+     *
+     * @param lease the {@code HttpNfcLease} in the {@code ready} state
+     * @param info the {@code info} property of the lease
+     * @param hostAddress the address which replaces the {@code *} host in the device URLs
+     * @param targetDirectory the directory of the files
+     * @return the downloaded files, e.g. for {@code OvfManager.createDescriptor}
+     * @throws IOException if a file could not be downloaded; the lease is aborted
+     * @throws InterruptedException if the thread was interrupted; the lease is aborted
+     */
+    public List<OvfFile> exportDisks(
+            ManagedObjectReference lease, HttpNfcLeaseInfo info, String hostAddress, Path targetDirectory)
+            throws IOException, InterruptedException {
+        String version = journal == null ? null : contentVersion(lease, info.getEntity());
+        List<Stream> streams = new ArrayList<>();
+        for (HttpNfcLeaseDeviceUrl deviceUrl : info.getDeviceUrl()) {
+            URI uri = resolve(deviceUrl, hostAddress);
+            String path = uri.getPath();
+            String fileName = path.substring(path.lastIndexOf('/') + 1);
+            Long fileSize = deviceUrl.getFileSize();
+            streams.add(new Stream(
+                    deviceUrl.getKey(),
+                    uri,
+                    "GET",
+                    targetDirectory.resolve(fileName),
+                    fileName,
+                    fileSize == null ? -1 : fileSize,
+                    // the device URLs change with every lease, the entity and the device key do not
+                    info.getEntity().getValue() + " " + deviceUrl.getKey() + " " + fileSize + " " + version));
+        }
+
+        // exported disks are compressed, so the disk capacity is an upper bound of the bytes to download
+        long total = info.getTotalDiskCapacityInKB() * 1024;
+        run(lease, info, streams, total);
+
+        TransferJournal journal = this.journal;
+        if (journal != null) {
+            for (Stream stream : streams) {
+                journal.forget(journalKey(stream));
+            }
+        }
+
+        List<OvfFile> ovfFiles = new ArrayList<>();
+        for (Stream stream : streams) {
+            OvfFile ovfFile = new OvfFile();
+            ovfFile.setDeviceId(stream.deviceKey);
+            ovfFile.setPath(stream.name);
+            ovfFile.setSize(stream.transferred.get());
+            ovfFiles.add(ovfFile);
+        }
+        return ovfFiles;
+    }
+
+    /**
+     * Uploads the files of an import lease and completes the lease.
+     *
+     * @param lease the {@code HttpNfcLease} in the {@code ready} state
+     * @param info the {@code info} property of the lease
+     * @param hostAddress the address which replaces the {@code *} host in the device URLs
+     * @param fileItems the file items of the {@code OvfCreateImportSpecResult}
+     * @param sourceDirectory the directory the paths of the file items are relative to
+     * @return the summary of the upload
+     * @throws IOException if a file could not be uploaded; the lease is aborted
+     * @throws InterruptedException if the thread was interrupted; the lease is aborted
+     */
+    public TransferResult importDisks(
+            ManagedObjectReference lease,
+            HttpNfcLeaseInfo info,
+            String hostAddress,
+            List<OvfFileItem> fileItems,
+            Path sourceDirectory)
+            throws IOException, InterruptedException {
+        List<Stream> streams = new ArrayList<>();
+        long total = 0;
+        for (HttpNfcLeaseDeviceUrl deviceUrl : info.getDeviceUrl()) {
+            for (OvfFileItem fileItem : fileItems) {
+                if (Objects.equals(deviceUrl.getImportKey(), fileItem.getDeviceId())) {
+                    Path file = sourceDirectory.resolve(fileItem.getPath());
+                    long size = Files.size(file);
+                    streams.add(new Stream(
+                            deviceUrl.getKey(),
+                            resolve(deviceUrl, hostAddress),
+                            fileItem.isCreate() ? "PUT" : "POST",
+                            file,
+                            fileItem.getPath(),
+                            size,
+                            null));
+                    total += size;
+                }
+            }
+        }
+
+        return run(lease, info, streams, total);
+    }
+
+    private TransferResult run(ManagedObjectReference lease, HttpNfcLeaseInfo info, List<Stream> streams, long total)
+            throws IOException, InterruptedException {
+        long startTime = System.nanoTime();
+        BandwidthGovernor governor = bandwidthGovernor;
+        if (governor == null && bandwidthLimit > 0) {
+            // a transfer of its own, which keeps the streams under the limit
+            governor = new BandwidthGovernor();
+        }
+        BandwidthGovernor.Flow flow = governor == null || streams.isEmpty()
+                ? null
+                : governor.open(streams.get(0).uri.getHost(), 1, bandwidthLimit);
+        Transfer transfer = new Transfer(lease, total, flow);
+
+        long intervalMs = progressInterval.toMillis();
+        if (info.getLeaseTimeout() > 0) {
+            intervalMs = Math.min(intervalMs, TimeUnit.SECONDS.toMillis(info.getLeaseTimeout()) / 2);
+        }
+        ScheduledExecutorService renewal = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nfc-lease-progress-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ExecutorService workers =
+                Executors.newFixedThreadPool(Math.max(1, Math.min(maxConcurrentStreams, streams.size())), runnable -> {
+                    Thread thread = new Thread(runnable, "nfc-transfer-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            renewal.scheduleWithFixedDelay(() -> reportProgress(transfer), 0, intervalMs, TimeUnit.MILLISECONDS);
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (Stream stream : streams) {
+                futures.add(workers.submit(() -> transfer(transfer, stream)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            renewal.shutdownNow();
+            renewal.awaitTermination(1, TimeUnit.MINUTES);
+
+            Exception failure = transfer.failure.get();
+            if (failure != null) {
+                throw failure;
+            }
+
+            complete(lease);
+        } catch (Exception e) {
+            transfer.cancelled = true;
+            abort(lease, e);
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            } else if (e instanceof InterruptedException) {
+                throw (InterruptedException) e;
+            } else if (e instanceof ExecutionException) {
+                throw new IOException(e.getCause());
+            }
+            throw new IOException("Could not transfer the files of the lease " + lease.getValue(), e);
+        } finally {
+            renewal.shutdownNow();
+            workers.shutdownNow();
+            if (flow != null) {
+                flow.close();
+            }
+        }
+
+        TransferResult result = new TransferResult(
+                transfer.transferred.get(),
+                transfer.transferred.get(),
+                0,
+                streams.size(),
+                0,
+                Duration.ofNanos(System.nanoTime() - startTime),
+                null);
+        log.debug("Transferred the files of the lease {}: {}", lease.getValue(), result);
+        return result;
+    }
+
+    private void transfer(Transfer transfer, Stream stream) {
+        if (transfer.cancelled) {
+            return;
+        }
+        try {
+            if ("GET".equals(stream.method)) {
+                downloadWithRetries(transfer, stream);
+            } else {
+                upload(transfer, stream);
+            }
+        } catch (Exception e) {
+            log.debug("Could not transfer {} of the lease {}", stream.uri, transfer.lease.getValue(), e);
+            if (transfer.failure.compareAndSet(null, e)) {
+                transfer.cancelled = true;
+            }
+        }
+    }
+
+    /** Restarts a failed download of a device from its start, while the other devices continue. */
+    private void downloadWithRetries(Transfer transfer, Stream stream) throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                download(transfer, stream);
+                return;
+            } catch (IOException e) {
+                if (attempt >= maxAttempts || transfer.cancelled) {
+                    throw e;
+                }
+                long delay = INITIAL_RETRY_DELAY_MS << (attempt - 1);
+                log.debug("Restarting the download of {} in {} ms", stream.uri, delay, e);
+                // the progress of the lease must not count the bytes of the failed attempt twice
+                transfer.transferred.addAndGet(-stream.transferred.getAndSet(0));
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    private void download(Transfer transfer, Stream stream) throws IOException, InterruptedException {
+        TransferJournal journal = this.journal;
+        String key = journalKey(stream);
+        if (journal != null) {
+            if (journal.begin(key, stream.identity, stream.size) && isIntact(journal, key, stream)) {
+                long size = journal.getCompleteSize(key);
+                log.debug("Skipping {}, which was downloaded by an earlier export", stream.file);
+                stream.transferred.set(size);
+                transfer.transferred.addAndGet(size);
+                return;
+            }
+            // the file is downloaded again from its start, so nothing recorded before applies to it
+            journal.forget(key);
+            journal.begin(key, stream.identity, stream.size);
+        }
+
+        HttpURLConnection connection = client.open(stream.uri, "GET");
+        int status = connection.getResponseCode();
+        if (status != HTTP_OK) {
+            throw responseError(connection, status);
+        }
+
+        try (ReadableByteChannel in = Channels.newChannel(connection.getInputStream());
+                FileChannel file = FileChannel.open(stream.file, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            CRC32 crc = journal == null ? null : new CRC32();
+            long position = write(transfer, stream, in, file, crc);
+            if (transfer.cancelled) {
+                connection.disconnect();
+                return;
+            }
+            // a connection closed in the middle of a response with a length reads like the end of the stream
+            long contentLength = connection.getContentLengthLong();
+            if (contentLength >= 0 && position != contentLength) {
+                throw new EOFException("Expected " + contentLength + " bytes from " + stream.uri + ", but got "
+                        + position + "; the connection was closed");
+            }
+            if (journal != null) {
+                file.force(false);
+                journal.record(key, 0, position, (int) crc.getValue());
+                journal.end(key, position);
+            }
+        }
+    }
+
+    /**
+     * Writes the response to the file through a pooled buffer, which also lets the bytes be checksummed for the journal
+     * and scanned for zero blocks.
+     *
+     * @param crc the checksum of the bytes written; may be null
+     * @return the number of bytes downloaded
+     */
+    private long write(Transfer transfer, Stream stream, ReadableByteChannel in, FileChannel file, CRC32 crc)
+            throws IOException, InterruptedException {
+        SparseFileWriter writer = sparse ? new SparseFileWriter(file) : null;
+        long position = 0;
+        ByteBuffer buffer = buffers.acquire();
+        try {
+            int read = 0;
+            while (!transfer.cancelled && read >= 0) {
+                read = in.read(buffer);
+                if (buffer.position() == buffer.capacity() || (read < 0 && buffer.position() > 0)) {
+                    buffer.flip();
+                    int length = buffer.remaining();
+                    if (crc != null) {
+                        crc.update(buffer.duplicate());
+                    }
+                    if (writer != null) {
+                        writer.write(buffer, position);
+                    } else {
+                        long offset = position;
+                        while (buffer.hasRemaining()) {
+                            offset += file.write(buffer, offset);
+                        }
+                    }
+                    position += length;
+                    transferred(transfer, stream, length);
+                    buffer.clear();
+                }
+            }
+        } finally {
+            buffers.release(buffer);
+        }
+        if (writer != null) {
+            writer.finish(position);
+            log.debug("Wrote {} sparsely: {}", stream.file, writer);
+        }
+        return position;
+    }
+
+    /** @return whether the journal records the download of the device as complete, and the file still matches it */
+    private static boolean isIntact(TransferJournal journal, String key, Stream stream) throws IOException {
+        long size = journal.getCompleteSize(key);
+        if (size < 0 || !Files.isRegularFile(stream.file)) {
+            return false;
+        }
+        try (FileChannel file = FileChannel.open(stream.file, READ)) {
+            return file.size() == size && journal.verify(key, file, 0, size, null) == size;
+        }
+    }
+
+    /**
+     * Determines the version of the content of an exported entity, which is part of the identity of its devices in the
+     * journal. The configuration of a virtual machine changes with its devices and their files, the change ID of a disk
+     * with every write to it.
+     *
+     * @return the configuration version and the change IDs of the disks of a virtual machine, or the lease if these do
+     *     not identify the content, so only the same lease can reuse the recorded devices
+     */
+    private String contentVersion(ManagedObjectReference lease, ManagedObjectReference entity) {
+        String leaseVersion = "lease " + lease.getValue();
+        if (!"VirtualMachine".equals(entity.getType())) {
+            return leaseVersion;
+        }
+        Map<String, Object> properties;
+        try {
+            properties = new PropertyCollectorHelper(vimPort)
+                    .fetchProperties(entity, "config.changeVersion", "config.hardware.device");
+        } catch (InvalidPropertyFaultMsg | RuntimeFaultFaultMsg | RuntimeException e) {
+            log.debug("Could not determine the version of {}, recorded devices are not reused", entity.getValue(), e);
+            return leaseVersion;
+        }
+        Object changeVersion = properties.get("config.changeVersion");
+        ArrayOfVirtualDevice devices = (ArrayOfVirtualDevice) properties.get("config.hardware.device");
+        if (changeVersion == null || devices == null) {
+            return leaseVersion;
+        }
+        StringBuilder version = new StringBuilder(changeVersion.toString());
+        for (VirtualDevice device : devices.getVirtualDevice()) {
+            if (device instanceof VirtualDisk) {
+                String changeId = changeId(device.getBacking());
+                if (changeId == null) {
+                    log.debug("A disk of {} has no change ID, recorded devices are not reused", entity.getValue());
+                    return leaseVersion;
+                }
+                version.append(' ').append(changeId);
+            }
+        }
+        return version.toString();
+    }
+
+    /** @return the change ID of a disk, which is only set with changed block tracking */
+    private static String changeId(VirtualDeviceBackingInfo backing) {
+        if (backing instanceof VirtualDiskFlatVer2BackingInfo) {
+            return ((VirtualDiskFlatVer2BackingInfo) backing).getChangeId();
+        } else if (backing instanceof VirtualDiskSparseVer2BackingInfo) {
+            return ((VirtualDiskSparseVer2BackingInfo) backing).getChangeId();
+        } else if (backing instanceof VirtualDiskSeSparseBackingInfo) {
+            return ((VirtualDiskSeSparseBackingInfo) backing).getChangeId();
+        } else if (backing instanceof VirtualDiskRawDiskMappingVer1BackingInfo) {
+            return ((VirtualDiskRawDiskMappingVer1BackingInfo) backing).getChangeId();
+        }
+        return null;
+    }
+
+    private static String journalKey(Stream stream) {
+        return stream.file.toAbsolutePath().toString();
+    }
+
+    private void upload(Transfer transfer, Stream stream) throws IOException, InterruptedException {
+        HttpURLConnection connection = client.open(stream.uri, stream.method);
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", STREAM_VMDK_CONTENT_TYPE);
+        connection.setFixedLengthStreamingMode(stream.size);
+
+        ByteBuffer buffer = buffers.acquire();
+        try (FileChannel file = FileChannel.open(stream.file, READ);
+                OutputStream out = connection.getOutputStream();
+                WritableByteChannel channel = Channels.newChannel(out)) {
+            long position = 0;
+            while (position < stream.size) {
+                if (transfer.cancelled) {
+                    connection.disconnect();
+                    return;
+                }
+
+                buffer.clear();
+                if (stream.size - position < buffer.capacity()) {
+                    buffer.limit((int) (stream.size - position));
+                }
+                int read = file.read(buffer, position);
+                if (read <= 0) {
+                    throw new IOException("Expected " + stream.size + " bytes in " + stream.file + ", but got "
+                            + position + "; the file has been truncated");
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                position += read;
+                transferred(transfer, stream, read);
+            }
+        } finally {
+            buffers.release(buffer);
+        }
+
+        int status = connection.getResponseCode();
+        if (status != HTTP_OK && status != HTTP_CREATED) {
+            throw responseError(connection, status);
+        }
+        discard(connection);
+    }
+
+    private void transferred(Transfer transfer, Stream stream, long bytes) throws InterruptedException {
+        long streamBytes = stream.transferred.addAndGet(bytes);
+        transfer.transferred.addAndGet(bytes);
+        TransferProgressListener listener = progressListener;
+        if (listener != null) {
+            listener.onProgress(stream.uri, streamBytes, stream.size);
+        }
+        if (transfer.flow != null) {
+            transfer.flow.acquire(bytes);
+        }
+    }
+
+    private void reportProgress(Transfer transfer) {
+        int percent = transfer.getPercent();
+        try {
+            vimPort.httpNfcLeaseProgress(transfer.lease, percent);
+            log.debug("Reported {}% progress of the lease {}", percent, transfer.lease.getValue());
+        } catch (RuntimeFaultFaultMsg | TimedoutFaultMsg | RuntimeException e) {
+            // a missed call is not fatal, the next one renews the lease as well
+            log.warn("Could not report the progress of the lease {}", transfer.lease.getValue(), e);
+        }
+    }
+
+    private void complete(ManagedObjectReference lease) throws IOException {
+        try {
+            vimPort.httpNfcLeaseProgress(lease, 100);
+            vimPort.httpNfcLeaseComplete(lease);
+        } catch (InvalidStateFaultMsg | RuntimeFaultFaultMsg | TimedoutFaultMsg e) {
+            throw new IOException("Could not complete the lease " + lease.getValue(), e);
+        }
+    }
+
+    private void abort(ManagedObjectReference lease, Exception cause) {
+        try {
+            vimPort.httpNfcLeaseAbort(lease, null);
+            log.debug("Aborted the lease {} because of {}", lease.getValue(), cause.toString());
+        } catch (InvalidStateFaultMsg | RuntimeFaultFaultMsg | TimedoutFaultMsg | RuntimeException e) {
+            // the lease may have timed out or failed on the server already
+            log.warn("Could not abort the lease {}", lease.getValue(), e);
+        }
+    }
+
+    private static URI resolve(HttpNfcLeaseDeviceUrl deviceUrl, String hostAddress) {
+        return URI.create(deviceUrl.getUrl().replace("*", hostAddress));
+    }
+
+    /** The state of a lease transfer shared by its streams. */
+    private static final class Transfer {
+        final ManagedObjectReference lease;
+        final long total;
+        /** The bandwidth of all streams, if the transfer is limited or shaped by a governor. */
+        final BandwidthGovernor.Flow flow;
+
+        final AtomicLong transferred = new AtomicLong();
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        volatile boolean cancelled;
+
+        Transfer(ManagedObjectReference lease, long total, BandwidthGovernor.Flow flow) {
+            this.lease = lease;
+            this.total = total;
+            this.flow = flow;
+        }
+
+        /** @return the progress, up to 99 percent, 100 is reported when the lease is completed */
+        int getPercent() {
+            if (total <= 0) {
+                return 0;
+            }
+            return (int) Math.min(99, transferred.get() * 100 / total);
+        }
+    }
+
+    /** The transfer of a single device URL. */
+    private static final class Stream {
+        final String deviceKey;
+        final URI uri;
+        final String method;
+        final Path file;
+        final String name;
+        final long size;
+        /** The source of a download in the journal. */
+        final String identity;
+
+        final AtomicLong transferred = new AtomicLong();
+
+        Stream(String deviceKey, URI uri, String method, Path file, String name, long size, String identity) {
+            this.deviceKey = deviceKey;
+            this.uri = uri;
+            this.method = method;
+            this.file = file;
+            this.name = name;
+            this.size = size;
+            this.identity = identity;
+        }
+    }
+}
@@ -0,0 +1,656 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static com.vmware.sdk.vsphere.utils.transfer.HttpTransferClient.discard;
+import static com.vmware.sdk.vsphere.utils.transfer.HttpTransferClient.responseError;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.net.HttpURLConnection.HTTP_PARTIAL;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Downloads a file, typically from a datastore, with parallel HTTP range requests.
+ *
+ * <p>The file is split into segments which are fetched by a fixed number of workers and written straight to their
+ * position in the target file, without an intermediate copy on the heap. A failed request is retried from the last byte
+ * written. Completed segments are recorded in a {@code <target>.checkpoint} file, so downloading the same URL to the
+ * same target again resumes an interrupted download, as long as the server reports the same {@code ETag} or
+ * {@code Last-Modified} value for the file. With a {@link TransferJournal}, the progress within segments is recorded as
+ * well, so a resumed download continues close to the last byte written instead of at the start of its segments.
+ *
+ * <p>If the server does not support range requests, the file is downloaded with a single request.
+ *
+ * <pre>{@code
+ * HttpTransferClient http = new HttpTransferClient(client.getVimSessionProvider(), trustStore);
+ * URI source = DatastoreFileUrls.create(server, "Datacenter", "[datastore1] iso/photon.iso");
+ * TransferResult result = new RangedDownloader(http).download(source, Paths.get("photon.iso"), expectedSha256);
+ * }</pre>
+ *
+ * <p>The settings must not be changed while a download is running; otherwise this class is thread safe.
+ */
+public class RangedDownloader {
+
+    private static final Logger log = LoggerFactory.getLogger(RangedDownloader.class);
+
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    public static final int DEFAULT_PARALLELISM = 4;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    /** The bytes of a segment covered by one journal record. */
+    private static final long JOURNAL_CHUNK = 8L * 1024 * 1024;
+
+    private static final long INITIAL_RETRY_DELAY_MS = 1000;
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (?:(\\d+)-(\\d+)|\\*)/(\\d+)");
+
+    private final HttpTransferClient client;
+    private final DirectBufferPool buffers;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private long segmentSize = DEFAULT_SEGMENT_SIZE;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private boolean computeDigest;
+    private boolean sparse;
+    private TransferJournal journal;
+    private BandwidthGovernor bandwidthGovernor;
+
+    public RangedDownloader(HttpTransferClient client) {
+        this.client = Objects.requireNonNull(client);
+        this.buffers = new DirectBufferPool(BUFFER_SIZE, 16);
+    }
+
+    /** @param segmentSize the number of bytes fetched by one range request; defaults to 64 MiB */
+    public void setSegmentSize(long segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("Expected positive segment size, but got " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+    }
+
+    /** @param parallelism the number of concurrent range requests; defaults to 4 */
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Expected positive parallelism, but got " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /** @param maxAttempts the number of attempts to fetch a segment before the download fails; defaults to 3 */
+    public void setMaxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Expected positive number of attempts, but got " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @param computeDigest whether to compute the SHA-256 digest of every downloaded file; the digest is always
+     *     computed when an expected digest is passed to {@link #download(URI, Path, String)}
+     */
+    public void setComputeDigest(boolean computeDigest) {
+        this.computeDigest = computeDigest;
+    }
+
+    /**
+     * @param sparse whether to leave the all-zero blocks of downloaded files as holes, which saves local disk space for
+     *     thin provisioned disks; see {@link SparseFileWriter}
+     */
+    public void setSparse(boolean sparse) {
+        this.sparse = sparse;
+    }
+
+    /**
+     * @param journal records the bytes written within each segment, so a resumed download skips them after verifying
+     *     them; may be null. Only downloads whose server reports a validator are recorded.
+     */
+    public void setJournal(TransferJournal journal) {
+        this.journal = journal;
+    }
+
+    /** @param bandwidthGovernor shapes each download as a flow of its host; may be null */
+    public void setBandwidthGovernor(BandwidthGovernor bandwidthGovernor) {
+        this.bandwidthGovernor = bandwidthGovernor;
+    }
+
+    /**
+     * Downloads a file, resuming an earlier download to the same target if possible.
+     *
+     * @param source the URL of the file
+     * @param target the file to write
+     * @return the summary of the download
+     * @throws IOException if the download failed; completed segments are kept for a later attempt
+     * @throws InterruptedException if the thread was interrupted
+     */
+    public TransferResult download(URI source, Path target) throws IOException, InterruptedException {
+        return download(source, target, null);
+    }
+
+    /**
+     * Downloads a file and verifies its SHA-256 digest.
+     *
+     * @param source the URL of the file
+     * @param target the file to write
+     * @param expectedSha256 the hex-encoded SHA-256 digest of the file, or null to skip the verification
+     * @return the summary of the download
+     * @throws IOException if the download failed or the digest does not match
+     * @throws InterruptedException if the thread was interrupted
+     */
+    public TransferResult download(URI source, Path target, String expectedSha256)
+            throws IOException, InterruptedException {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(target);
+        long startTime = System.nanoTime();
+
+        // a one byte range tells whether the server supports ranges, the size and the version of the file
+        HttpURLConnection probe = client.open(source, "GET");
+        probe.setRequestProperty("Range", "bytes=0-0");
+        int status = probe.getResponseCode();
+
+        BandwidthGovernor governor = bandwidthGovernor;
+        BandwidthGovernor.Flow flow =
+                governor == null ? null : governor.open(source.getHost(), 1, BandwidthGovernor.UNLIMITED);
+        Job job;
+        try {
+            if (status == HTTP_PARTIAL || status == HTTP_RANGE_NOT_SATISFIABLE) {
+                long[] range = parseContentRange(probe.getHeaderField("Content-Range"));
+                if (range == null || (status == HTTP_RANGE_NOT_SATISFIABLE && range[2] != 0)) {
+                    discard(probe);
+                    throw new IOException("Unexpected Content-Range '" + probe.getHeaderField("Content-Range")
+                            + "' in the response from " + source);
+                }
+                String validator = probe.getHeaderField("ETag");
+                if (validator == null) {
+                    validator = probe.getHeaderField("Last-Modified");
+                }
+                discard(probe);
+
+                job = new Job(source, target, range[2], validator);
+                job.flow = flow;
+                downloadSegments(job);
+            } else if (status == HTTP_OK) {
+                log.debug("{} does not support range requests, downloading it with a single request", source);
+                job = new Job(source, target, probe.getContentLengthLong(), null);
+                job.flow = flow;
+                downloadWhole(job, probe);
+            } else {
+                throw responseError(probe, status);
+            }
+        } finally {
+            if (flow != null) {
+                flow.close();
+            }
+        }
+
+        String sha256 = null;
+        if (computeDigest || expectedSha256 != null) {
+            sha256 = digest(target);
+            if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(sha256)) {
+                throw new IOException("Expected SHA-256 " + expectedSha256 + " of " + source + ", but got " + sha256);
+            }
+        }
+
+        TransferResult result = new TransferResult(
+                job.size,
+                job.transferred.get(),
+                job.resumed.get(),
+                job.segments,
+                job.retries.get(),
+                Duration.ofNanos(System.nanoTime() - startTime),
+                sha256);
+        log.debug("Downloaded {} to {}: {}", source, target, result);
+        return result;
+    }
+
+    private void downloadSegments(Job job) throws IOException, InterruptedException {
+        job.segments = DownloadCheckpoint.segmentCount(job.size, segmentSize);
+        Path checkpointFile = DownloadCheckpoint.pathFor(job.target);
+        DownloadCheckpoint checkpoint = DownloadCheckpoint.load(checkpointFile);
+        boolean resume = checkpoint != null && checkpoint.matches(job.uri, job.validator, job.size, segmentSize);
+        if (!resume) {
+            checkpoint = new DownloadCheckpoint(checkpointFile, job.uri, job.validator, job.size, segmentSize);
+        }
+        job.checkpoint = checkpoint;
+
+        // the journal may know about bytes of segments which were not completed before
+        TransferJournal journal = this.journal;
+        boolean journaled = false;
+        if (journal != null && job.validator != null) {
+            job.journal = journal;
+            job.journalKey = job.target.toAbsolutePath().toString();
+            journaled = journal.begin(job.journalKey, job.uri + " " + job.validator, job.size);
+        }
+
+        try (FileChannel channel = resume || journaled
+                ? FileChannel.open(job.target, CREATE, READ, WRITE)
+                : FileChannel.open(job.target, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+            job.channel = channel;
+            job.sparse = sparse ? new SparseFileWriter(channel) : null;
+
+            for (int segment = 0; segment < job.segments; segment++) {
+                if (!checkpoint.isDone(segment)) {
+                    job.pending.add(segment);
+                } else if (verifySegment(job, segment)) {
+                    job.resumed.addAndGet(segmentLength(job, segment));
+                } else {
+                    log.debug(
+                            "Segment {} of {} does not match the checkpoint, downloading it again",
+                            segment,
+                            job.target);
+                    checkpoint.forget(segment);
+                    job.pending.add(segment);
+                }
+            }
+
+            if (!job.pending.isEmpty()) {
+                runWorkers(job);
+            }
+            if (job.sparse != null) {
+                job.sparse.finish(job.size);
+                log.debug("Wrote {} sparsely: {}", job.target, job.sparse);
+            }
+
+            // an earlier version of the file may have been longer
+            if (channel.size() > job.size) {
+                channel.truncate(job.size);
+            } else if (channel.size() < job.size) {
+                throw new IOException(
+                        "Expected " + job.size + " bytes in " + job.target + ", but got " + channel.size());
+            }
+        }
+        checkpoint.delete();
+        if (job.journal != null) {
+            job.journal.forget(job.journalKey);
+        }
+    }
+
+    private void runWorkers(Job job) throws IOException, InterruptedException {
+        int workers = Math.min(parallelism, job.pending.size());
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "ranged-download-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> work(job)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            job.cancelled = true;
+            throw e;
+        } catch (ExecutionException e) {
+            // work() records its failures, this is not expected
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Exception failure = job.failure.get();
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof InterruptedException) {
+            throw (InterruptedException) failure;
+        } else if (failure != null) {
+            throw new IOException("Could not download " + job.uri, failure);
+        }
+    }
+
+    private void work(Job job) {
+        ByteBuffer buffer = buffers.acquire();
+        try {
+            Integer segment;
+            while (!job.cancelled && (segment = job.pending.poll()) != null) {
+                downloadSegment(job, segment, buffer);
+            }
+        } catch (Exception e) {
+            if (job.failure.compareAndSet(null, e)) {
+                job.cancelled = true;
+            }
+        } finally {
+            buffers.release(buffer);
+        }
+    }
+
+    private void downloadSegment(Job job, int segment, ByteBuffer buffer) throws IOException, InterruptedException {
+        long first = segment * segmentSize;
+        Range range = new Range(first, first + segmentLength(job, segment) - 1);
+        if (job.journal != null) {
+            range.position = job.journal.verify(job.journalKey, job.channel, first, range.last + 1, range.crc);
+            range.journalStart = range.position;
+            if (range.position > first) {
+                log.debug("Resuming segment {} of {} at byte {}", segment, job.target, range.position);
+                job.resumed.addAndGet(range.position - first);
+            }
+        }
+
+        for (int attempt = 1; range.position <= range.last; attempt++) {
+            try {
+                if (!fetch(job, range, buffer)) {
+                    return; // cancelled
+                }
+            } catch (SourceChangedException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= maxAttempts || job.cancelled) {
+                    throw e;
+                }
+                long delay = INITIAL_RETRY_DELAY_MS << (attempt - 1);
+                log.debug("Retrying bytes {}-{} of {} in {} ms", range.position, range.last, job.uri, delay, e);
+                job.retries.incrementAndGet();
+                Thread.sleep(delay);
+            }
+        }
+
+        job.channel.force(false);
+        job.checkpoint.markDone(segment, (int) range.crc.getValue());
+    }
+
+    /** @return false if the job was cancelled before the range was complete */
+    private boolean fetch(Job job, Range range, ByteBuffer buffer) throws IOException {
+        HttpURLConnection connection = client.open(job.source, "GET");
+        connection.setRequestProperty("Range", "bytes=" + range.position + "-" + range.last);
+        if (job.validator != null) {
+            connection.setRequestProperty("If-Range", job.validator);
+        }
+
+        int status = connection.getResponseCode();
+        if (status == HTTP_OK && job.validator != null) {
+            discard(connection);
+            throw new SourceChangedException("The file " + job.uri + " has changed during the download");
+        } else if (status != HTTP_PARTIAL) {
+            throw responseError(connection, status);
+        }
+        String contentRange = connection.getHeaderField("Content-Range");
+        long[] actual = parseContentRange(contentRange);
+        if (actual == null || actual[0] != range.position || actual[1] != range.last || actual[2] != job.size) {
+            discard(connection);
+            throw new SourceChangedException("Expected bytes " + range.position + "-" + range.last + "/" + job.size
+                    + " of " + job.uri + ", but got " + contentRange);
+        }
+
+        try (ReadableByteChannel in = shape(job, Channels.newChannel(connection.getInputStream()))) {
+            while (range.position <= range.last) {
+                if (job.cancelled) {
+                    return false;
+                }
+
+                buffer.clear();
+                long remaining = range.last - range.position + 1;
+                if (remaining < buffer.capacity()) {
+                    buffer.limit((int) remaining);
+                }
+                IOException readFailure = null;
+                try {
+                    while (buffer.hasRemaining()) {
+                        if (in.read(buffer) < 0) {
+                            break;
+                        }
+                    }
+                } catch (IOException e) {
+                    // the bytes received before the connection dropped are written, the retry continues after them
+                    readFailure = e;
+                }
+                buffer.flip();
+                int length = buffer.remaining();
+                if (length == 0) {
+                    if (readFailure != null) {
+                        throw readFailure;
+                    }
+                    throw new EOFException("Expected bytes " + range.position + "-" + range.last + " of " + job.uri
+                            + ", but the response ended");
+                }
+
+                if (job.sparse != null) {
+                    job.sparse.write(buffer, range.position);
+                } else {
+                    long position = range.position;
+                    while (buffer.hasRemaining()) {
+                        position += job.channel.write(buffer, position);
+                    }
+                }
+                buffer.rewind();
+                range.crc.update(buffer);
+                if (job.journal != null) {
+                    journal(job, range, buffer, length);
+                }
+                range.position += length;
+                job.transferred.addAndGet(length);
+                if (readFailure != null) {
+                    throw readFailure;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Records the bytes of the range written so far once they fill a journal chunk or the range is complete. */
+    private static void journal(Job job, Range range, ByteBuffer buffer, int length) throws IOException {
+        buffer.rewind();
+        range.journalCrc.update(buffer);
+        long end = range.position + length;
+        if (end - range.journalStart >= JOURNAL_CHUNK || end > range.last) {
+            job.journal.record(
+                    job.journalKey, range.journalStart, end - range.journalStart, (int) range.journalCrc.getValue());
+            range.journalStart = end;
+            range.journalCrc.reset();
+        }
+    }
+
+    private void downloadWhole(Job job, HttpURLConnection connection) throws IOException {
+        job.segments = 1;
+        Files.deleteIfExists(DownloadCheckpoint.pathFor(job.target));
+
+        long size = 0;
+        ByteBuffer buffer = buffers.acquire();
+        try (ReadableByteChannel in = shape(job, Channels.newChannel(connection.getInputStream()));
+                FileChannel channel = FileChannel.open(job.target, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            SparseFileWriter writer = sparse ? new SparseFileWriter(channel) : null;
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                if (writer != null) {
+                    int length = buffer.remaining();
+                    writer.write(buffer, size);
+                    size += length;
+                } else {
+                    while (buffer.hasRemaining()) {
+                        size += channel.write(buffer, size);
+                    }
+                }
+                buffer.clear();
+            }
+            if (writer != null) {
+                writer.finish(size);
+                log.debug("Wrote {} sparsely: {}", job.target, writer);
+            }
+            channel.force(false);
+        } finally {
+            buffers.release(buffer);
+        }
+
+        if (job.size >= 0 && size != job.size) {
+            throw new EOFException("Expected " + job.size + " bytes of " + job.uri + ", but got " + size);
+        }
+        job.size = size;
+        job.transferred.set(size);
+    }
+
+    /** @return whether the segment on disk matches the checksum in the checkpoint */
+    private boolean verifySegment(Job job, int segment) throws IOException {
+        long position = segment * segmentSize;
+        long end = position + segmentLength(job, segment);
+        if (job.channel.size() < end) {
+            return false;
+        }
+
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = buffers.acquire();
+        try {
+            while (position < end) {
+                buffer.clear();
+                if (end - position < buffer.capacity()) {
+                    buffer.limit((int) (end - position));
+                }
+                int read = job.channel.read(buffer, position);
+                if (read < 0) {
+                    return false;
+                }
+                buffer.flip();
+                crc.update(buffer);
+                position += read;
+            }
+        } finally {
+            buffers.release(buffer);
+        }
+        return (int) crc.getValue() == job.checkpoint.getChecksum(segment);
+    }
+
+    private long segmentLength(Job job, int segment) {
+        return Math.min(segmentSize, job.size - segment * segmentSize);
+    }
+
+    private String digest(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        ByteBuffer buffer = buffers.acquire();
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            buffers.release(buffer);
+        }
+
+        return Hex.encode(digest.digest());
+    }
+
+    private static ReadableByteChannel shape(Job job, ReadableByteChannel channel) {
+        return job.flow == null ? channel : job.flow.wrapReadable(channel);
+    }
+
+    /** @return the first byte, the last byte and the size, or null if the header cannot be parsed */
+    private static long[] parseContentRange(String contentRange) {
+        if (contentRange == null) {
+            return null;
+        }
+        Matcher matcher = CONTENT_RANGE.matcher(contentRange.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        if (matcher.group(1) == null) {
+            return new long[] {-1, -1, Long.parseLong(matcher.group(3))};
+        }
+        return new long[] {
+            Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3))
+        };
+    }
+
+    /** The state of a single download shared by its workers. */
+    private static final class Job {
+        final URI source;
+        final String uri;
+        final Path target;
+        final String validator;
+        final Queue<Integer> pending = new ConcurrentLinkedQueue<>();
+        final AtomicLong transferred = new AtomicLong();
+        final AtomicLong resumed = new AtomicLong();
+        final AtomicInteger retries = new AtomicInteger();
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        volatile boolean cancelled;
+        long size;
+        int segments;
+        FileChannel channel;
+        SparseFileWriter sparse;
+        DownloadCheckpoint checkpoint;
+        TransferJournal journal;
+        String journalKey;
+        BandwidthGovernor.Flow flow;
+
+        Job(URI source, Path target, long size, String validator) {
+            this.source = source;
+            this.uri = source.toString();
+            this.target = target;
+            this.size = size;
+            this.validator = validator;
+        }
+    }
+
+    /** The remaining bytes of a segment and the checksum of the bytes written so far. */
+    private static final class Range {
+        final long last;
+        final CRC32 crc = new CRC32();
+        long position;
+        /** The checksum and the first byte of the bytes not yet recorded in the journal. */
+        final CRC32 journalCrc = new CRC32();
+
+        long journalStart;
+
+        Range(long first, long last) {
+            this.position = first;
+            this.last = last;
+        }
+    }
+
+    /** Signals that retrying cannot help, because the server now returns a different file. */
+    private static final class SourceChangedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        SourceChangedException(String message) {
+            super(message);
+        }
+    }
+}
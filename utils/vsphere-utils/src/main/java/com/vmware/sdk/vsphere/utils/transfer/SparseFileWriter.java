@@ -0,0 +1,198 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes a file without writing its all-zero blocks, which leaves holes in the file on file systems with sparse file
+ * support.
+ *
+ * <p>Thin provisioned disks are mostly zeros, so a download of a flat or exported disk written through this class takes
+ * a fraction of the local disk space and I/O. Each block, aligned to the block size in the file, is compared with zeros
+ * through {@link ByteBuffer#mismatch(ByteBuffer)}, which the JDK compares a word or vector at a time.
+ *
+ * <p>A block is only skipped beyond the end of the file at the time this writer was created, where the file system
+ * reads zeros; an existing part of the file is always overwritten, so resuming into an earlier download is safe. Call
+ * {@link #finish(long)} at the end, which extends the file over a trailing hole.
+ *
+ * <p>Optionally the writer counts the non-zero blocks which have the same content as an earlier block, which tells how
+ * well a disk would deduplicate. The content is identified by a 64 bit checksum, so the count is an estimate.
+ *
+ * <p>This class is thread safe, as long as concurrent writes are to different parts of the file.
+ */
+public final class SparseFileWriter {
+
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    /** Bounds the memory of the duplicate detection to about 50 MiB; later blocks are no longer compared. */
+    private static final int MAX_TRACKED_BLOCKS = 1 << 20;
+
+    private static final ByteBuffer ZEROS = ByteBuffer.allocateDirect(1024 * 1024);
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final long holesFrom;
+    private final Set<Long> blockChecksums;
+
+    private final AtomicLong writtenBytes = new AtomicLong();
+    private final AtomicLong skippedBytes = new AtomicLong();
+    private final AtomicLong blocks = new AtomicLong();
+    private final AtomicLong zeroBlocks = new AtomicLong();
+    private final AtomicLong duplicateBlocks = new AtomicLong();
+
+    /**
+     * @param channel the file, which must be open for writing
+     * @throws IOException if the size of the file cannot be read
+     */
+    public SparseFileWriter(FileChannel channel) throws IOException {
+        this(channel, DEFAULT_BLOCK_SIZE, false);
+    }
+
+    /**
+     * @param channel the file, which must be open for writing
+     * @param blockSize the granularity of the zero detection, up to 1 MiB; a multiple of the block size of the file
+     *     system leaves the most holes
+     * @param countDuplicates whether to count the blocks which repeat an earlier block
+     * @throws IOException if the size of the file cannot be read
+     */
+    public SparseFileWriter(FileChannel channel, int blockSize, boolean countDuplicates) throws IOException {
+        if (blockSize <= 0 || blockSize > ZEROS.capacity()) {
+            throw new IllegalArgumentException(
+                    "Expected block size between 1 and " + ZEROS.capacity() + ", but got " + blockSize);
+        }
+        this.channel = channel;
+        this.blockSize = blockSize;
+        this.holesFrom = channel.size();
+        this.blockChecksums = countDuplicates ? new HashSet<>() : null;
+    }
+
+    /**
+     * Writes all remaining bytes of the buffer.
+     *
+     * @param src the bytes; its position is advanced to its limit
+     * @param position the position of the first byte in the file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(ByteBuffer src, long position) throws IOException {
+        int limit = src.limit();
+        try {
+            while (src.hasRemaining()) {
+                // pieces end at block boundaries of the file, so skipped pieces leave aligned holes
+                int length = (int) Math.min(src.remaining(), blockSize - position % blockSize);
+                src.limit(src.position() + length);
+                if (position + length > holesFrom && isZero(src)) {
+                    // only the part beyond the old end of the file is known to read as zeros
+                    int overwritten = (int) Math.max(0, holesFrom - position);
+                    if (overwritten > 0) {
+                        ByteBuffer head = src.duplicate();
+                        head.limit(src.position() + overwritten);
+                        writeFully(head, position);
+                    }
+                    src.position(src.limit());
+                    skippedBytes.addAndGet(length - overwritten);
+                    zeroBlocks.incrementAndGet();
+                } else {
+                    countDuplicate(src);
+                    writeFully(src, position);
+                }
+                blocks.incrementAndGet();
+                position += length;
+                src.limit(limit);
+            }
+        } finally {
+            src.limit(limit);
+        }
+    }
+
+    /**
+     * Makes the file as long as the written data, which a trailing hole does not.
+     *
+     * @param size the size of the file
+     * @throws IOException if the file cannot be extended
+     */
+    public void finish(long size) throws IOException {
+        if (size > 0 && channel.size() < size) {
+            // writing the last byte extends the file without allocating the hole before it
+            writeFully(ByteBuffer.allocate(1), size - 1);
+        }
+    }
+
+    /** @return the bytes written to the file */
+    public long getWrittenBytes() {
+        return writtenBytes.get();
+    }
+
+    /** @return the bytes left as holes */
+    public long getSkippedBytes() {
+        return skippedBytes.get();
+    }
+
+    /** @return the blocks passed to this writer, including partial blocks at the start and end of writes */
+    public long getBlocks() {
+        return blocks.get();
+    }
+
+    /** @return the blocks left as holes, including a zero block of which only the part beyond the old end is a hole */
+    public long getZeroBlocks() {
+        return zeroBlocks.get();
+    }
+
+    /** @return the non-zero blocks with the same content as an earlier block, or 0 if they are not counted */
+    public long getDuplicateBlocks() {
+        return duplicateBlocks.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SparseFileWriter[written=" + writtenBytes + ", skipped=" + skippedBytes + ", blocks=" + blocks
+                + ", zeroBlocks=" + zeroBlocks + ", duplicateBlocks=" + duplicateBlocks + "]";
+    }
+
+    private void writeFully(ByteBuffer src, long position) throws IOException {
+        while (src.hasRemaining()) {
+            int written = channel.write(src, position);
+            position += written;
+            writtenBytes.addAndGet(written);
+        }
+    }
+
+    private static boolean isZero(ByteBuffer block) {
+        ByteBuffer zeros = ZEROS.duplicate();
+        zeros.limit(block.remaining());
+        return block.mismatch(zeros) < 0;
+    }
+
+    private void countDuplicate(ByteBuffer block) {
+        if (blockChecksums == null) {
+            return;
+        }
+        CRC32 crc32 = new CRC32();
+        CRC32C crc32c = new CRC32C();
+        crc32.update(block.duplicate());
+        crc32c.update(block.duplicate());
+        long checksum = crc32.getValue() << 32 | crc32c.getValue();
+        synchronized (blockChecksums) {
+            if (blockChecksums.contains(checksum)) {
+                duplicateBlocks.incrementAndGet();
+            } else if (blockChecksums.size() < MAX_TRACKED_BLOCKS) {
+                blockChecksums.add(checksum);
+            }
+        }
+    }
+}
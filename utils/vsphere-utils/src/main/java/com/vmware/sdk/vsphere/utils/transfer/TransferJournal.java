@@ -0,0 +1,503 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the byte ranges of files which have been transferred, so a transfer which was interrupted by a dropped
+ * connection, an expired lease or a crash can continue where it stopped instead of at byte 0.
+ *
+ * <p>Each file is identified by a key chosen by the transfer, e.g. the path of the target, and an identity of its
+ * source, e.g. the URL and {@code ETag}; the recorded ranges of a key are discarded when it is started again with a
+ * different identity. Every range is recorded with the CRC32 of its content, so {@link #verify} can tell which of the
+ * recorded ranges are still intact on disk before they are skipped.
+ *
+ * <p>The records are appended to a single journal file. Instead of forcing every record to disk, the journal is forced
+ * at most once per sync interval: by the next record once the interval has passed, or else by a background thread at
+ * the end of the interval, so a record is forced at most one interval after it was written even if no other record
+ * follows. A crash therefore loses the records of the last interval at most, never the records before. A record which
+ * was torn by a crash is detected by its checksum and ignored. The journal is compacted when it is opened.
+ *
+ * <pre>{@code
+ * try (TransferJournal journal = new TransferJournal(Paths.get("transfers.journal"))) {
+ *     RangedDownloader downloader = new RangedDownloader(http);
+ *     downloader.setJournal(journal);
+ *     downloader.download(source, target);
+ * }
+ * }</pre>
+ *
+ * <p>This class is thread safe.
+ */
+public final class TransferJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferJournal.class);
+
+    public static final Duration DEFAULT_SYNC_INTERVAL = Duration.ofSeconds(1);
+
+    private static final int MAGIC = 0x544a524e; // "TJRN"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte BEGIN = 1;
+    private static final byte RANGE = 2;
+    private static final byte END = 3;
+    private static final byte FORGET = 4;
+
+    private final Path file;
+
+    // guarded by this
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final FileChannel channel;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private ScheduledFuture<?> scheduledSync;
+    private long syncIntervalNanos = DEFAULT_SYNC_INTERVAL.toNanos();
+    private long lastSyncNanos = System.nanoTime();
+    private boolean dirty;
+    private boolean closed;
+
+    /**
+     * Opens a journal, creating it if it does not exist.
+     *
+     * @param file the journal file
+     * @throws IOException if the journal cannot be read or written
+     */
+    public TransferJournal(Path file) throws IOException {
+        this.file = Objects.requireNonNull(file);
+        replay();
+        compact();
+        this.channel = FileChannel.open(file, WRITE);
+        channel.position(channel.size());
+
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "transfer-journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /** @param syncInterval the longest time between writing a record and forcing it to disk; defaults to 1 second */
+    public synchronized void setSyncInterval(Duration syncInterval) {
+        if (syncInterval.isNegative()) {
+            throw new IllegalArgumentException("Expected non-negative interval, but got " + syncInterval);
+        }
+        this.syncIntervalNanos = syncInterval.toNanos();
+    }
+
+    /**
+     * Starts or continues the transfer of a file.
+     *
+     * @param key the file
+     * @param identity the version of the source, e.g. its URL and {@code ETag}
+     * @param size the size of the file, or -1 if unknown
+     * @return whether the ranges recorded for the same identity and size were kept; if false, the key starts empty
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized boolean begin(String key, String identity, long size) throws IOException {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.identity.equals(identity) && entry.size == size) {
+            return true;
+        }
+        entries.put(key, new Entry(identity, size));
+        append(BEGIN, key, data -> {
+            data.writeUTF(identity);
+            data.writeLong(size);
+        });
+        return false;
+    }
+
+    /**
+     * Records a range of a file whose content has been written to the target. The range replaces the recorded ranges
+     * which start within it.
+     *
+     * @param key the file, which must have been started with {@link #begin}
+     * @param position the position of the first byte
+     * @param length the number of bytes
+     * @param checksum the CRC32 of the bytes
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void record(String key, long position, long length, int checksum) throws IOException {
+        entry(key).put(position, length, checksum);
+        append(RANGE, key, data -> {
+            data.writeLong(position);
+            data.writeLong(length);
+            data.writeInt(checksum);
+        });
+    }
+
+    /**
+     * Records that a file is complete, and forces the journal to disk.
+     *
+     * @param key the file, which must have been started with {@link #begin}
+     * @param size the size of the file
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void end(String key, long size) throws IOException {
+        entry(key).completeSize = size;
+        append(END, key, data -> data.writeLong(size));
+        sync();
+    }
+
+    /**
+     * Discards the records of a file, typically when its transfer is complete and nothing is left to resume.
+     *
+     * @param key the file
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void forget(String key) throws IOException {
+        if (entries.remove(key) != null) {
+            append(FORGET, key, data -> {});
+        }
+    }
+
+    /** @return the size recorded by {@link #end}, or -1 if the file is not complete or unknown */
+    public synchronized long getCompleteSize(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? -1 : entry.completeSize;
+    }
+
+    /** @return the number of bytes in the recorded ranges of the file */
+    public synchronized long getRecordedBytes(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return 0;
+        }
+        long bytes = 0;
+        long covered = Long.MIN_VALUE;
+        for (Map.Entry<Long, RecordedRange> range : entry.ranges.entrySet()) {
+            long start = Math.max(range.getKey(), covered);
+            if (range.getValue().end > start) {
+                bytes += range.getValue().end - start;
+                covered = range.getValue().end;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Checks the recorded ranges from a position on against the content of the target, and returns where the transfer
+     * has to continue. The ranges are checked in order until the first gap or the first range whose content does not
+     * match its checksum; that range is discarded.
+     *
+     * @param key the file
+     * @param target the target of the transfer, open for reading
+     * @param from the position to check from
+     * @param to the position after the last byte of interest
+     * @param checksum updated with the content of the intact ranges, e.g. to continue a checksum of the whole part; may
+     *     be null
+     * @return the position of the first byte which has to be transferred, between {@code from} and {@code to}
+     * @throws IOException if the target cannot be read
+     */
+    public long verify(String key, FileChannel target, long from, long to, Checksum checksum) throws IOException {
+        TreeMap<Long, RecordedRange> ranges;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return from;
+            }
+            ranges = new TreeMap<>(entry.ranges.subMap(from, true, to, false));
+        }
+
+        long position = from;
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        for (Map.Entry<Long, RecordedRange> range : ranges.entrySet()) {
+            long start = range.getKey();
+            long end = range.getValue().end;
+            if (start < position) {
+                continue; // overlaps a range already checked
+            }
+            if (start > position || end > to) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            if (!read(target, start, end, buffer, crc) || (int) crc.getValue() != range.getValue().checksum) {
+                log.debug("Bytes {}-{} of {} do not match the journal {}", start, end - 1, key, file);
+                synchronized (this) {
+                    Entry entry = entries.get(key);
+                    if (entry != null) {
+                        entry.ranges.remove(start);
+                    }
+                }
+                break;
+            }
+            position = end;
+        }
+        // only the intact bytes may reach the checksum of the caller
+        if (checksum != null && position > from && !read(target, from, position, buffer, checksum)) {
+            throw new IOException("The target of " + key + " was truncated while it was verified");
+        }
+        return position;
+    }
+
+    /** @return false if the target ends before the end position */
+    private static boolean read(FileChannel target, long position, long end, ByteBuffer buffer, Checksum checksum)
+            throws IOException {
+        while (position < end) {
+            buffer.clear();
+            if (end - position < buffer.capacity()) {
+                buffer.limit((int) (end - position));
+            }
+            int read = target.read(buffer, position);
+            if (read < 0) {
+                return false;
+            }
+            checksum.update(buffer.array(), 0, read);
+            position += read;
+        }
+        return true;
+    }
+
+    /**
+     * Forces the written records to disk.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public synchronized void sync() throws IOException {
+        if (dirty && !closed) {
+            channel.force(false);
+            dirty = false;
+        }
+        lastSyncNanos = System.nanoTime();
+        if (scheduledSync != null) {
+            scheduledSync.cancel(false);
+            scheduledSync = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            sync();
+        } finally {
+            closed = true;
+            scheduler.shutdownNow();
+            channel.close();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TransferJournal{" + file + ", " + entries.size() + " files}";
+    }
+
+    private Entry entry(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            throw new IllegalStateException("The transfer of " + key + " has not been started");
+        }
+        return entry;
+    }
+
+    /** Must hold the lock. */
+    private void append(byte type, String key, RecordWriter payload) throws IOException {
+        if (closed) {
+            throw new IOException("The journal " + file + " is closed");
+        }
+        channel.write(ByteBuffer.wrap(encode(type, key, payload)));
+        dirty = true;
+        long elapsedNanos = System.nanoTime() - lastSyncNanos;
+        if (elapsedNanos >= syncIntervalNanos) {
+            sync();
+        } else if (scheduledSync == null) {
+            scheduledSync =
+                    scheduler.schedule(this::syncScheduled, syncIntervalNanos - elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Forces the records which were not followed by another record within the sync interval. */
+    private synchronized void syncScheduled() {
+        scheduledSync = null;
+        try {
+            sync();
+        } catch (IOException e) {
+            // the next record or end() tries again and reports the error
+            log.warn("Could not force the transfer journal {} to disk", file, e);
+        }
+    }
+
+    /** @return whether records were written which have not been forced to disk yet */
+    synchronized boolean hasUnsyncedRecords() {
+        return dirty;
+    }
+
+    /** @return the record as its length, its content and the CRC32 of its content */
+    private static byte[] encode(byte type, String key, RecordWriter payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(0);
+        data.writeByte(type);
+        data.writeUTF(key);
+        payload.write(data);
+        CRC32 crc = new CRC32();
+        byte[] record = bytes.toByteArray();
+        crc.update(record, 4, record.length - 4);
+        data.writeInt((int) crc.getValue());
+        record = bytes.toByteArray();
+        ByteBuffer.wrap(record).putInt(0, record.length - 8);
+        return record;
+    }
+
+    /** Reads the records up to the end of the file or to the first torn or damaged record. */
+    private void replay() throws IOException {
+        byte[] journal;
+        try {
+            journal = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        ByteBuffer header = ByteBuffer.wrap(journal);
+        if (journal.length < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+            throw new IOException(file + " is not a transfer journal");
+        }
+
+        int position = HEADER_SIZE;
+        int records = 0;
+        while (journal.length - position >= 8) {
+            int length = ByteBuffer.wrap(journal, position, 4).getInt();
+            if (length <= 0 || length > journal.length - position - 8) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(journal, position + 4, length);
+            if (ByteBuffer.wrap(journal, position + 4 + length, 4).getInt() != (int) crc.getValue()) {
+                break;
+            }
+            apply(new DataInputStream(new ByteArrayInputStream(journal, position + 4, length)));
+            position += length + 8;
+            records++;
+        }
+        if (position < journal.length) {
+            // the end of a record which was being written when the process stopped
+            log.warn("Ignoring {} bytes at the end of the transfer journal {}", journal.length - position, file);
+        }
+        log.debug("Read {} records of {} files from the transfer journal {}", records, entries.size(), file);
+    }
+
+    private void apply(DataInputStream record) throws IOException {
+        byte type = record.readByte();
+        String key = record.readUTF();
+        Entry entry = entries.get(key);
+        switch (type) {
+            case BEGIN:
+                entries.put(key, new Entry(record.readUTF(), record.readLong()));
+                break;
+            case RANGE:
+                if (entry != null) {
+                    entry.put(record.readLong(), record.readLong(), record.readInt());
+                }
+                break;
+            case END:
+                if (entry != null) {
+                    entry.completeSize = record.readLong();
+                }
+                break;
+            case FORGET:
+                entries.remove(key);
+                break;
+            default:
+                throw new IOException("Unknown record type " + type + " in the transfer journal " + file);
+        }
+    }
+
+    /** Rewrites the journal with one record per file and range, and replaces the old journal atomically. */
+    private void compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION);
+            header.flip();
+            out.write(header);
+            for (Map.Entry<String, Entry> file : entries.entrySet()) {
+                String key = file.getKey();
+                Entry entry = file.getValue();
+                out.write(ByteBuffer.wrap(encode(BEGIN, key, data -> {
+                    data.writeUTF(entry.identity);
+                    data.writeLong(entry.size);
+                })));
+                for (Map.Entry<Long, RecordedRange> range : entry.ranges.entrySet()) {
+                    out.write(ByteBuffer.wrap(encode(RANGE, key, data -> {
+                        data.writeLong(range.getKey());
+                        data.writeLong(range.getValue().end - range.getKey());
+                        data.writeInt(range.getValue().checksum);
+                    })));
+                }
+                if (entry.completeSize >= 0) {
+                    out.write(ByteBuffer.wrap(encode(END, key, data -> data.writeLong(entry.completeSize))));
+                }
+            }
+            out.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream data) throws IOException;
+    }
+
+    private static final class Entry {
+        final String identity;
+        final long size;
+        final TreeMap<Long, RecordedRange> ranges = new TreeMap<>();
+        long completeSize = -1;
+
+        Entry(String identity, long size) {
+            this.identity = identity;
+            this.size = size;
+        }
+
+        void put(long position, long length, int checksum) {
+            ranges.subMap(position, position + length).clear();
+            ranges.put(position, new RecordedRange(position + length, checksum));
+        }
+    }
+
+    private static final class RecordedRange {
+        final long end;
+        final int checksum;
+
+        RecordedRange(long end, int checksum) {
+            this.end = end;
+            this.checksum = checksum;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import java.net.URI;
+
+/**
+ * Receives the progress of file transfers. It is called from the transfer threads, so it must be thread safe and must
+ * not block.
+ */
+@FunctionalInterface
+public interface TransferProgressListener {
+
+    /**
+     * @param uri the remote end of the transfer
+     * @param transferredBytes the number of bytes of the file transferred so far
+     * @param totalBytes the size of the file, or -1 if it is not known
+     */
+    void onProgress(URI uri, long transferredBytes, long totalBytes);
+}
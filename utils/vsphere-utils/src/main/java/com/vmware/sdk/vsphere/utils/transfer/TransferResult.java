@@ -0,0 +1,93 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import java.time.Duration;
+
+/**
+ * Summary of a completed file transfer.
+ *
+ * <p>Instances are immutable.
+ */
+public final class TransferResult {
+
+    private final long size;
+    private final long transferredBytes;
+    private final long resumedBytes;
+    private final int segments;
+    private final int retries;
+    private final Duration elapsed;
+    private final String sha256;
+
+    TransferResult(
+            long size,
+            long transferredBytes,
+            long resumedBytes,
+            int segments,
+            int retries,
+            Duration elapsed,
+            String sha256) {
+        this.size = size;
+        this.transferredBytes = transferredBytes;
+        this.resumedBytes = resumedBytes;
+        this.segments = segments;
+        this.retries = retries;
+        this.elapsed = elapsed;
+        this.sha256 = sha256;
+    }
+
+    /** @return the size of the file */
+    public long getSize() {
+        return size;
+    }
+
+    /** @return the number of bytes sent over the network, including bytes sent again by retries */
+    public long getTransferredBytes() {
+        return transferredBytes;
+    }
+
+    /** @return the number of bytes which were not transferred because an earlier run had transferred them */
+    public long getResumedBytes() {
+        return resumedBytes;
+    }
+
+    /** @return the number of segments the file was split into */
+    public int getSegments() {
+        return segments;
+    }
+
+    /** @return the number of retried requests */
+    public int getRetries() {
+        return retries;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /** @return the average throughput in bytes per second */
+    public double getBytesPerSecond() {
+        long elapsedMs = elapsed.toMillis();
+        return elapsedMs == 0 ? 0 : transferredBytes * 1000.0 / elapsedMs;
+    }
+
+    /** @return the hex-encoded SHA-256 digest of the file, or null if it was not computed */
+    public String getSha256() {
+        return sha256;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%d bytes in %d segments, %d transferred, %d resumed, %d retries, %.1f MB/s in %s",
+                size, segments, transferredBytes, resumedBytes, retries, getBytesPerSecond() / (1024 * 1024), elapsed);
+    }
+}
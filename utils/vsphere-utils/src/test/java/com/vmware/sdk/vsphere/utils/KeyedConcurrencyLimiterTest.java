@@ -0,0 +1,151 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/** Tests {@link KeyedConcurrencyLimiter}. */
+public class KeyedConcurrencyLimiterTest {
+
+    @Test
+    public void testLimitsPerKeyAndInTotal() {
+        KeyedConcurrencyLimiter limiter = new KeyedConcurrencyLimiter(3, 2);
+
+        assertTrue(limiter.tryAcquire("host-1"));
+        assertTrue(limiter.tryAcquire("host-1"));
+        assertFalse(limiter.tryAcquire("host-1"));
+        assertTrue(limiter.hasRoom("host-2"));
+        assertTrue(limiter.tryAcquire("host-2"));
+
+        assertTrue(limiter.isFull());
+        assertFalse(limiter.tryAcquire("host-3"));
+        assertEquals(3, limiter.getRunning());
+        assertEquals(2, limiter.getRunning("host-1"));
+        assertEquals(1, limiter.getRunning("host-2"));
+        assertEquals(0, limiter.getRunning("host-3"));
+    }
+
+    @Test
+    public void testReleaseDropsIdleKeys() {
+        KeyedConcurrencyLimiter limiter = new KeyedConcurrencyLimiter(10, 2);
+        limiter.acquire("host-1");
+        limiter.acquire("host-1");
+        limiter.acquire("host-2");
+
+        limiter.release("host-1");
+        assertEquals(2, limiter.getKeyCount());
+        limiter.release("host-1");
+        limiter.release("host-2");
+
+        assertEquals(0, limiter.getKeyCount());
+        assertEquals(0, limiter.getRunning());
+        assertThrows(IllegalStateException.class, () -> limiter.release("host-1"));
+    }
+
+    @Test
+    public void testNullKeyCountsOnlyInTotal() {
+        KeyedConcurrencyLimiter limiter = new KeyedConcurrencyLimiter(2, 1);
+
+        assertTrue(limiter.tryAcquire(null));
+        assertTrue(limiter.tryAcquire(null));
+        assertFalse(limiter.tryAcquire(null));
+        assertEquals(0, limiter.getKeyCount());
+
+        limiter.release(null);
+        assertTrue(limiter.tryAcquire("host-1"));
+    }
+
+    @Test
+    public void testAcquireIgnoresLimits() {
+        KeyedConcurrencyLimiter limiter = new KeyedConcurrencyLimiter(1, 1);
+        limiter.acquire("host-1");
+        limiter.acquire("host-1");
+
+        assertEquals(2, limiter.getRunning("host-1"));
+        assertFalse(limiter.hasRoom("host-2"));
+    }
+
+    @Test
+    public void testChangedLimitsApplyToNextAcquire() {
+        KeyedConcurrencyLimiter limiter = new KeyedConcurrencyLimiter(1, 1);
+        assertTrue(limiter.tryAcquire("host-1"));
+
+        limiter.setLimit(KeyedConcurrencyLimiter.UNLIMITED);
+        assertFalse(limiter.tryAcquire("host-1"));
+        limiter.setLimitPerKey(2);
+        assertTrue(limiter.tryAcquire("host-1"));
+
+        limiter.setLimitPerKey(1);
+        assertEquals(2, limiter.getRunning("host-1"));
+        assertFalse(limiter.hasRoom("host-1"));
+    }
+
+    @Test
+    public void testRejectsInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new KeyedConcurrencyLimiter(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new KeyedConcurrencyLimiter(1, -1));
+    }
+
+    @Test
+    public void testConcurrentOperationsStayWithinLimits() throws Exception {
+        KeyedConcurrencyLimiter limiter = new KeyedConcurrencyLimiter(6, 2);
+        Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        AtomicInteger total = new AtomicInteger();
+        AtomicInteger violations = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(threads.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        String key = "host-" + (thread + i) % 5;
+                        if (!limiter.tryAcquire(key)) {
+                            continue;
+                        }
+                        int keyRunning = running.computeIfAbsent(key, k -> new AtomicInteger())
+                                .incrementAndGet();
+                        if (keyRunning > 2 || total.incrementAndGet() > 6) {
+                            violations.incrementAndGet();
+                        }
+                        total.decrementAndGet();
+                        running.get(key).decrementAndGet();
+                        limiter.release(key);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+
+        assertEquals(0, violations.get());
+        assertEquals(0, limiter.getRunning());
+        assertEquals(0, limiter.getKeyCount());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.function.BiFunction;
+
+import com.vmware.vapi.bindings.Service;
+import com.vmware.vapi.bindings.StubConfigurationBase;
+import com.vmware.vapi.bindings.StubCreator;
+import com.vmware.vim25.ManagedObjectReference;
+import com.vmware.vim25.VimPortType;
+
+/**
+ * Stand-ins for the SOAP ports and vAPI stubs of the SDK, which the tests back with invocation handlers instead of a
+ * server.
+ */
+public final class SdkStubs {
+
+    /** Fails every call with the name of the called method. */
+    public static final InvocationHandler UNSUPPORTED = (proxy, method, args) -> {
+        throw new UnsupportedOperationException(method.getName());
+    };
+
+    private SdkStubs() {}
+
+    public static ManagedObjectReference moRef(String type, String value) {
+        ManagedObjectReference moRef = new ManagedObjectReference();
+        moRef.setType(type);
+        moRef.setValue(value);
+        return moRef;
+    }
+
+    /** @return a VIM port whose calls are answered by the handler */
+    public static VimPortType vimPort(InvocationHandler handler) {
+        return proxy(VimPortType.class, handler);
+    }
+
+    /** @return an implementation of the interface whose calls are answered by the handler */
+    public static <T> T proxy(Class<T> iface, InvocationHandler handler) {
+        return iface.cast(Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[] {iface}, handler));
+    }
+
+    /**
+     * @param handlers returns the handler answering the calls of a stub created with the given interface and
+     *     configuration
+     * @return a stub creator which only supports creating stubs with a configuration
+     */
+    public static StubCreator stubCreator(BiFunction<Class<?>, StubConfigurationBase, InvocationHandler> handlers) {
+        return new StubCreator() {
+            @Override
+            public <T extends Service> T createStub(Class<T> vapiIface) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public <T extends Service> T createStub(Class<T> vapiIface, StubConfigurationBase config) {
+                return proxy(vapiIface, handlers.apply(vapiIface, config));
+            }
+        };
+    }
+
+    /** @return a stub creator for tests which do not call any vAPI service */
+    public static StubCreator unsupportedStubCreator() {
+        return stubCreator((vapiIface, config) -> {
+            throw new UnsupportedOperationException();
+        });
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.ws.BindingProvider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.vmware.pbm.PbmPortType;
+import com.vmware.pbm.PbmServiceInstanceContent;
+import com.vmware.sdk.utils.wsdl.PortConfigurer;
+import com.vmware.vim25.ArrayOfManagedObjectReference;
+import com.vmware.vim25.DynamicProperty;
+import com.vmware.vim25.PropertyFilterSpec;
+import com.vmware.vim25.RetrieveOptions;
+import com.vmware.vim25.RetrieveResult;
+import com.vmware.vim25.ServiceContent;
+import com.vmware.vim25.VimPortType;
+
+/** Tests the shared SOAP bindings with round trips of the VIM and PBM ports against a stub SOAP server. */
+public class SoapBindingsTest {
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private VcenterClient client;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        // the port configurer sends the requests of every endpoint to the stub server
+        int serverPort = server.getAddress().getPort();
+        PortConfigurer portConfigurer = (provider, url) -> provider.getRequestContext()
+                .put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, "http://127.0.0.1:" + serverPort + url.getPath());
+        client = new VcenterClient(
+                "vcenter.example.com",
+                443,
+                portConfigurer,
+                () -> "soap-session".toCharArray(),
+                SdkStubs.unsupportedStubCreator(),
+                () -> "vapi-session".toCharArray());
+    }
+
+    @AfterEach
+    public void teardown() {
+        SoapBindings.setVim25ContextClasses();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testVimRoundTrip() throws Exception {
+        ServiceContent serviceContent = client.getVimServiceContent();
+
+        assertEquals("group-d1", serviceContent.getRootFolder().getValue());
+        assertEquals("8.0.3.0", serviceContent.getAbout().getApiVersion());
+        assertTrue(requests.get(0).contains("ServiceInstance"), requests.get(0));
+
+        // the property values are only declared as xsd:anyType, so they are read through the shared context
+        RetrieveResult result = client.getVimPort()
+                .retrievePropertiesEx(
+                        serviceContent.getPropertyCollector(),
+                        List.of(new PropertyFilterSpec()),
+                        new RetrieveOptions());
+        List<DynamicProperty> properties = result.getObjects().get(0).getPropSet();
+        assertEquals("vm-1", properties.get(0).getVal());
+        ArrayOfManagedObjectReference datastores =
+                (ArrayOfManagedObjectReference) properties.get(1).getVal();
+        assertEquals(
+                "datastore-1", datastores.getManagedObjectReference().get(0).getValue());
+    }
+
+    @Test
+    public void testPbmRoundTrip() {
+        PbmServiceInstanceContent serviceContent = client.getPbmServiceInstanceContent();
+
+        assertEquals(
+                "VMware Profile-Driven Storage Service",
+                serviceContent.getAboutInfo().getName());
+        assertEquals("ProfileManager", serviceContent.getProfileManager().getValue());
+        assertTrue(requests.get(0).contains("PbmServiceInstance"), requests.get(0));
+    }
+
+    @Test
+    public void testContextIsBuiltOncePerApi() {
+        SoapBindings.prewarm().join();
+
+        assertSame(contextOf(VimPortType.class), contextOf(VimPortType.class));
+        assertSame(contextOf(PbmPortType.class), contextOf(PbmPortType.class));
+        assertNotSame(contextOf(VimPortType.class), contextOf(PbmPortType.class));
+    }
+
+    @Test
+    public void testLimitedVim25ContextIsBuiltAgain() throws Exception {
+        JAXBContext full = contextOf(VimPortType.class);
+
+        SoapBindings.setVim25ContextClasses(ArrayOfManagedObjectReference.class);
+        JAXBContext limited = contextOf(VimPortType.class);
+        assertNotSame(full, limited);
+        assertSame(limited, contextOf(VimPortType.class));
+
+        // the limited context still reads the declared property values
+        client.getVimPort()
+                .retrievePropertiesEx(
+                        client.getVimServiceContent().getPropertyCollector(),
+                        List.of(new PropertyFilterSpec()),
+                        new RetrieveOptions());
+    }
+
+    private static JAXBContext contextOf(Class<?> portType) {
+        return SoapBindings.createDataBinding(portType).getContext();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        requests.add(request);
+
+        String body;
+        if (request.contains("PbmRetrieveServiceContent")) {
+            body = "<PbmRetrieveServiceContentResponse xmlns=\"urn:pbm\"><returnval><aboutInfo>"
+                    + "<name>VMware Profile-Driven Storage Service</name><version>8.0</version>"
+                    + "<instanceUuid>5c0bd6e4-0a3f-4b1e-9d6a-1f2e3d4c5b6a</instanceUuid></aboutInfo>"
+                    + "<sessionManager type=\"PbmSessionManager\">SessionManager</sessionManager>"
+                    + "<capabilityMetadataManager type=\"PbmCapabilityMetadataManager\">"
+                    + "CapabilityMetadataManager</capabilityMetadataManager>"
+                    + "<profileManager type=\"PbmProfileProfileManager\">ProfileManager</profileManager>"
+                    + "<complianceManager type=\"PbmComplianceManager\">complianceManager</complianceManager>"
+                    + "<placementSolver type=\"PbmPlacementSolver\">placementSolver</placementSolver>"
+                    + "</returnval></PbmRetrieveServiceContentResponse>";
+        } else if (request.contains("RetrieveServiceContent")) {
+            body = "<RetrieveServiceContentResponse xmlns=\"urn:vim25\"><returnval>"
+                    + "<rootFolder type=\"Folder\">group-d1</rootFolder>"
+                    + "<propertyCollector type=\"PropertyCollector\">propertyCollector</propertyCollector>"
+                    + "<about><name>VMware vCenter Server</name><fullName>VMware vCenter Server</fullName>"
+                    + "<vendor>VMware, Inc.</vendor><version>8.0.3</version><build>1</build>"
+                    + "<osType>linux-x64</osType><productLineId>vpx</productLineId>"
+                    + "<apiType>VirtualCenter</apiType><apiVersion>8.0.3.0</apiVersion></about>"
+                    + "</returnval></RetrieveServiceContentResponse>";
+        } else {
+            body = "<RetrievePropertiesExResponse xmlns=\"urn:vim25\""
+                    + " xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\""
+                    + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"><returnval><objects>"
+                    + "<obj type=\"VirtualMachine\">vm-1</obj>"
+                    + "<propSet><name>name</name><val xsi:type=\"xsd:string\">vm-1</val></propSet>"
+                    + "<propSet><name>datastore</name><val xsi:type=\"ArrayOfManagedObjectReference\">"
+                    + "<ManagedObjectReference type=\"Datastore\">datastore-1</ManagedObjectReference>"
+                    + "</val></propSet></objects></returnval></RetrievePropertiesExResponse>";
+        }
+
+        byte[] response = ("<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+                        + "<soapenv:Body>" + body + "</soapenv:Body></soapenv:Envelope>")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=utf-8");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import jakarta.xml.ws.BindingProvider;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.vmware.sdk.utils.wsdl.PortConfigurer;
+import com.vmware.sdk.vsphere.utils.VcenterClientFactory.WarmUpEndpoint;
+
+/**
+ * Tests the bootstrap of {@link VcenterClientFactory} against a stub SOAP server, which answers every request after a
+ * fixed latency.
+ */
+public class VcenterClientFactoryTest {
+
+    private static final long LATENCY_MS = 200;
+    private static final String SESSION_ID = "stub-session";
+    private static final Pattern OPERATION = Pattern.compile("<(?:\\w+:)?Body[^>]*>\\s*<(?:\\w+:)?(\\w+)");
+
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final List<String> logoutCookies = new CopyOnWriteArrayList<>();
+    private volatile String apiVersion = "8.0.3.0";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService bootstrapExecutor;
+    private VcenterClientFactory factory;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        // the port configurer sends the requests of every endpoint to the stub server
+        int serverPort = server.getAddress().getPort();
+        PortConfigurer portConfigurer = (provider, url) -> provider.getRequestContext()
+                .put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, "http://127.0.0.1:" + serverPort + url.getPath());
+
+        factory = new VcenterClientFactory("vcenter.example.com", 443, portConfigurer, null);
+        bootstrapExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void teardown() {
+        factory.close();
+        bootstrapExecutor.shutdownNow();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testBootstrapLogsInOnce() {
+        factory.setBootstrapExecutor(bootstrapExecutor);
+        factory.setWarmUpEndpoints(WarmUpEndpoint.PBM, WarmUpEndpoint.VSLM);
+
+        factory.createClient(createToken(), null, null);
+
+        // the warm-ups use the session of the bootstrap login
+        assertEquals(1, count("LoginByToken"));
+        assertEquals(1, count("PbmRetrieveServiceContent"));
+        assertEquals(1, count("RetrieveContent"));
+    }
+
+    @Test
+    public void testConcurrentBootstrapHidesLatency() {
+        factory.setWarmUpEndpoints(WarmUpEndpoint.PBM);
+        // the first client pays for the initialization of the SOAP stack
+        factory.createClient(createToken(), null, null);
+
+        long serial = timeClientCreation();
+        factory.setBootstrapExecutor(bootstrapExecutor);
+        long concurrent = timeClientCreation();
+
+        // serially: the login (2 requests), the server version and the warm-up; concurrently the server version
+        // is retrieved during the login
+        assertTrue(serial >= 4 * LATENCY_MS, "serial bootstrap took " + serial + "ms");
+        assertTrue(concurrent <= serial - LATENCY_MS / 2, "concurrent " + concurrent + "ms, serial " + serial + "ms");
+    }
+
+    @Test
+    public void testFailedBootstrapLogsOut() throws InterruptedException {
+        // the vAPI session of an older server cannot be created from the stub token
+        apiVersion = "7.0.3.0";
+
+        assertThrows(RuntimeException.class, () -> factory.createClient(createToken(), null, null));
+
+        awaitLogout();
+    }
+
+    @Test
+    public void testFailedConcurrentBootstrapLogsOut() throws InterruptedException {
+        apiVersion = "7.0.3.0";
+        factory.setBootstrapExecutor(bootstrapExecutor);
+
+        // the creation fails before the concurrent login completes, the session is destroyed once it does
+        assertThrows(RuntimeException.class, () -> factory.createClient(createToken(), null, null));
+
+        awaitLogout();
+        assertEquals(1, count("LoginByToken"));
+    }
+
+    private long timeClientCreation() {
+        long start = System.nanoTime();
+        factory.createClient(createToken(), null, null);
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private void awaitLogout() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (count("Logout") == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, count("Logout"));
+        assertTrue(logoutCookies.get(0).contains(SESSION_ID), logoutCookies.get(0));
+    }
+
+    private int count(String operation) {
+        AtomicInteger counter = requests.get(operation);
+        return counter == null ? 0 : counter.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        Matcher matcher = OPERATION.matcher(request);
+        String operation = matcher.find() ? matcher.group(1) : "";
+        try {
+            Thread.sleep(LATENCY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        String body;
+        switch (operation) {
+            case "RetrieveServiceContent":
+                body = "<RetrieveServiceContentResponse xmlns=\"urn:vim25\"><returnval>"
+                        + "<rootFolder type=\"Folder\">group-d1</rootFolder>"
+                        + "<propertyCollector type=\"PropertyCollector\">propertyCollector</propertyCollector>"
+                        + "<about><name>VMware vCenter Server</name><fullName>VMware vCenter Server</fullName>"
+                        + "<vendor>VMware, Inc.</vendor><version>" + apiVersion + "</version><build>1</build>"
+                        + "<osType>linux-x64</osType><productLineId>vpx</productLineId>"
+                        + "<apiType>VirtualCenter</apiType><apiVersion>" + apiVersion + "</apiVersion></about>"
+                        + "<sessionManager type=\"SessionManager\">SessionManager</sessionManager>"
+                        + "</returnval></RetrieveServiceContentResponse>";
+                break;
+            case "LoginByToken":
+                exchange.getResponseHeaders()
+                        .add(
+                                "Set-Cookie",
+                                VsphereCookieHelper.VMWARE_SOAP_SESSION_COOKIE + "=\"" + SESSION_ID
+                                        + "\"; Path=/; HttpOnly");
+                body = "<LoginByTokenResponse xmlns=\"urn:vim25\"><returnval><key>session</key>"
+                        + "<userName>user</userName><fullName>user</fullName>"
+                        + "<loginTime>2025-01-01T00:00:00Z</loginTime>"
+                        + "<lastActiveTime>2025-01-01T00:00:00Z</lastActiveTime>"
+                        + "<locale>en</locale><messageLocale>en</messageLocale>"
+                        + "<extensionSession>false</extensionSession></returnval></LoginByTokenResponse>";
+                break;
+            case "Logout":
+                logoutCookies.add(String.valueOf(exchange.getRequestHeaders().getFirst("Cookie")));
+                body = "<LogoutResponse xmlns=\"urn:vim25\"/>";
+                break;
+            default:
+                // the warm-ups only need a response, not its content
+                body = "<" + operation + "Response xmlns=\"urn:vim25\"/>";
+        }
+        requests.computeIfAbsent(operation, o -> new AtomicInteger()).incrementAndGet();
+
+        byte[] response = ("<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+                        + "<soapenv:Body>" + body + "</soapenv:Body></soapenv:Envelope>")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=utf-8");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    private static Element createToken() {
+        try {
+            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            dbf.setNamespaceAware(true);
+            Document doc = dbf.newDocumentBuilder().newDocument();
+            Element token = doc.createElementNS("urn:oasis:names:tc:SAML:2.0:assertion", "saml2:Assertion");
+            token.setAttribute("ID", "_stub-token");
+            doc.appendChild(token);
+            return token;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.vmware.cis.Session;
+import com.vmware.vapi.bindings.StubConfiguration;
+import com.vmware.vapi.bindings.StubConfigurationBase;
+import com.vmware.vapi.bindings.StubCreator;
+import com.vmware.vapi.security.SessionSecurityContext;
+
+/** Tests the per-session stub cache of {@link VcenterClient#createStub(Class)}. */
+public class VcenterClientTest {
+
+    private final List<StubConfigurationBase> created = new ArrayList<>();
+    private volatile char[] vapiSession;
+    private VcenterClient client;
+
+    @BeforeEach
+    public void setup() {
+        vapiSession = "session-1".toCharArray();
+        StubCreator stubCreator = SdkStubs.stubCreator((vapiIface, config) -> {
+            created.add(config);
+            return SdkStubs.UNSUPPORTED;
+        });
+        client = new VcenterClient(
+                "vcenter.example.com",
+                443,
+                (provider, url) -> {},
+                () -> "soap-session".toCharArray(),
+                stubCreator,
+                () -> vapiSession);
+    }
+
+    @Test
+    public void testStubIsCreatedOncePerSession() {
+        Session stub = client.createStub(Session.class);
+
+        assertSame(stub, client.createStub(Session.class));
+        assertEquals(1, created.size());
+        assertArrayEquals("session-1".toCharArray(), sessionIdOf(created.get(0)));
+    }
+
+    @Test
+    public void testStubIsCreatedAgainForNewSession() {
+        Session stub = client.createStub(Session.class);
+
+        vapiSession = "session-2".toCharArray();
+        Session renewed = client.createStub(Session.class);
+
+        assertNotSame(stub, renewed);
+        assertSame(renewed, client.createStub(Session.class));
+        assertEquals(2, created.size());
+        assertArrayEquals("session-2".toCharArray(), sessionIdOf(created.get(1)));
+    }
+
+    @Test
+    public void testSessionEqualityIsByContent() {
+        Session stub = client.createStub(Session.class);
+
+        // a provider may return a new array for the same session on every call
+        vapiSession = "session-1".toCharArray();
+
+        assertSame(stub, client.createStub(Session.class));
+        assertEquals(1, created.size());
+    }
+
+    @Test
+    public void testMissingSession() {
+        client.createStub(Session.class);
+
+        vapiSession = null;
+
+        assertThrows(IllegalStateException.class, () -> client.createStub(Session.class));
+        assertEquals(1, created.size());
+    }
+
+    private static char[] sessionIdOf(StubConfigurationBase config) {
+        SessionSecurityContext context = (SessionSecurityContext) ((StubConfiguration) config).getSecurityContext();
+        return context.getSessionId();
+    }
+}
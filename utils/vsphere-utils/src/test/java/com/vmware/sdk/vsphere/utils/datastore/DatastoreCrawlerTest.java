@@ -0,0 +1,494 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.datastore;
+
+import static com.vmware.sdk.vsphere.utils.SdkStubs.moRef;
+import static com.vmware.sdk.vsphere.utils.SdkStubs.vimPort;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.vmware.vim25.ArrayOfDatastoreHostMount;
+import com.vmware.vim25.ArrayOfHostDatastoreBrowserSearchResults;
+import com.vmware.vim25.DatastoreHostMount;
+import com.vmware.vim25.DynamicProperty;
+import com.vmware.vim25.FileInfo;
+import com.vmware.vim25.FolderFileInfo;
+import com.vmware.vim25.FolderFileQuery;
+import com.vmware.vim25.HostDatastoreBrowserSearchResults;
+import com.vmware.vim25.HostDatastoreBrowserSearchSpec;
+import com.vmware.vim25.HostMountInfo;
+import com.vmware.vim25.LocalizedMethodFault;
+import com.vmware.vim25.ManagedObjectReference;
+import com.vmware.vim25.ObjectContent;
+import com.vmware.vim25.ObjectSpec;
+import com.vmware.vim25.ObjectUpdate;
+import com.vmware.vim25.PropertyChange;
+import com.vmware.vim25.PropertyFilterSpec;
+import com.vmware.vim25.PropertyFilterUpdate;
+import com.vmware.vim25.RetrieveResult;
+import com.vmware.vim25.ServiceContent;
+import com.vmware.vim25.TaskInfoState;
+import com.vmware.vim25.UpdateSet;
+import com.vmware.vim25.VimPortType;
+import com.vmware.vim25.WaitOptions;
+
+/**
+ * Tests {@link DatastoreCrawler} against stub datastore browsers, whose search tasks complete after a few milliseconds.
+ */
+public class DatastoreCrawlerTest {
+
+    private static final int HOSTS = 10;
+    private static final int FOLDERS = 20;
+    private static final int ROOT_FILES = 3;
+    private static final int FOLDER_FILES = 500;
+    private static final int SUBFOLDER_FILES = 50;
+    private static final int FILES_PER_FOLDER = FOLDER_FILES + SUBFOLDER_FILES;
+    private static final int FILES_PER_DATASTORE = ROOT_FILES + FOLDERS * FILES_PER_FOLDER;
+
+    private StubBrowsers browsers;
+    private DatastoreCrawler crawler;
+
+    @BeforeEach
+    public void setup() {
+        browsers = new StubBrowsers();
+        ServiceContent serviceContent = new ServiceContent();
+        serviceContent.setPropertyCollector(moRef("PropertyCollector", "propertyCollector"));
+        crawler = new DatastoreCrawler(browsers.createVimPort(), serviceContent);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        browsers.completions.shutdownNow();
+    }
+
+    @Test
+    public void testCrawlsManyDatastoresWithinLimits() throws Exception {
+        crawler.setMaxConcurrentSearches(24);
+        crawler.setMaxConcurrentSearchesPerHost(3);
+        crawler.setSearchTimeout(Duration.ofMillis(500));
+        browsers.failing = "[ds7] f3";
+        browsers.hanging = "[ds5] f5";
+        Map<String, AtomicInteger> filesPerFolder = new ConcurrentHashMap<>();
+        AtomicLong files = new AtomicLong();
+
+        Map<String, Exception> failures = crawler.crawl(datastores(100), file -> {
+            assertTrue(file.getSize() >= 0, file::toString);
+            files.incrementAndGet();
+            filesPerFolder
+                    .computeIfAbsent(topFolder(file), folder -> new AtomicInteger())
+                    .incrementAndGet();
+        });
+
+        // about 1.1 million files, without the two folders which could not be searched
+        assertEquals(100L * FILES_PER_DATASTORE - 2 * FILES_PER_FOLDER, files.get());
+        for (int ds = 0; ds < 100; ds++) {
+            assertEquals(ROOT_FILES, filesPerFolder.get("[ds" + ds + "]").get());
+            for (int folder = 0; folder < FOLDERS; folder++) {
+                String path = "[ds" + ds + "] f" + folder;
+                int expected = path.equals("[ds7] f3") || path.equals("[ds5] f5") ? 0 : FILES_PER_FOLDER;
+                AtomicInteger count = filesPerFolder.get(path);
+                assertEquals(expected, count == null ? 0 : count.get(), path);
+            }
+        }
+
+        assertEquals(Set.of("[ds5] f5", "[ds7] f3"), failures.keySet());
+        assertInstanceOf(TimeoutException.class, failures.get("[ds5] f5"));
+        assertInstanceOf(IOException.class, failures.get("[ds7] f3"));
+        assertEquals(1, browsers.cancelled.size());
+
+        // each datastore is listed, its root searched and each of its folders searched with its own task
+        assertEquals(100 * (2 + FOLDERS), browsers.tasks.get());
+        assertTrue(browsers.maxRunning.get() <= 24, browsers.maxRunning::toString);
+        // all datastores would count towards their inaccessible mount if it was not skipped
+        assertTrue(browsers.maxRunning.get() > 3, browsers.maxRunning::toString);
+        for (AtomicInteger hostMax : browsers.maxRunningPerHost.values()) {
+            assertTrue(hostMax.get() <= 3, browsers.maxRunningPerHost::toString);
+        }
+        assertTrue(browsers.collectorDestroyed);
+    }
+
+    @Test
+    public void testSearchesEachDatastoreWithSingleTaskWithoutPartitioning() throws Exception {
+        crawler.setPartitionDepth(0);
+        AtomicLong files = new AtomicLong();
+
+        Map<String, Exception> failures = crawler.crawl(datastores(10), file -> files.incrementAndGet());
+
+        assertTrue(failures.isEmpty(), failures::toString);
+        assertEquals(10L * FILES_PER_DATASTORE, files.get());
+        assertEquals(10, browsers.tasks.get());
+    }
+
+    @Test
+    public void testMatchPatternsAreOnlyUsedForFiles() throws Exception {
+        crawler.setMatchPatterns(List.of("*.vmdk"));
+
+        crawler.crawl(datastores(2), file -> {});
+
+        assertEquals(2 * (2 + FOLDERS), browsers.specs.size());
+        for (HostDatastoreBrowserSearchSpec spec : browsers.specs) {
+            boolean folders = spec.getQuery().stream().anyMatch(query -> query instanceof FolderFileQuery);
+            assertEquals(folders ? List.of() : List.of("*.vmdk"), spec.getMatchPattern());
+        }
+    }
+
+    @Test
+    public void testInterruptCancelsRunningSearches() throws Exception {
+        crawler.setMaxConcurrentSearches(6);
+        browsers.hanging = "";
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            try {
+                crawler.crawl(datastores(4), file -> {});
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        });
+        thread.start();
+        while (browsers.running.get() < 6) {
+            Thread.sleep(5);
+        }
+
+        thread.interrupt();
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertInstanceOf(InterruptedException.class, failure.get());
+        assertEquals(6, browsers.cancelled.size());
+        assertEquals(0, browsers.running.get());
+        assertTrue(browsers.collectorDestroyed);
+    }
+
+    @Test
+    public void testEmptyDatastoreList() throws Exception {
+        assertTrue(crawler.crawl(List.of(), file -> {}).isEmpty());
+        assertEquals(0, browsers.tasks.get());
+    }
+
+    @Test
+    public void testRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> crawler.setMaxConcurrentSearches(0));
+        assertThrows(IllegalArgumentException.class, () -> crawler.setMaxConcurrentSearchesPerHost(0));
+        assertThrows(IllegalArgumentException.class, () -> crawler.setPartitionDepth(-1));
+        assertThrows(IllegalArgumentException.class, () -> crawler.setSearchTimeout(Duration.ZERO));
+    }
+
+    /** @return the datastore and top level folder of a file, e.g. {@code [ds3] f4} */
+    private static String topFolder(DatastoreFile file) {
+        int slash = file.getPath().indexOf('/');
+        return slash < 0
+                ? "[" + file.getDatastore() + "]"
+                : "[" + file.getDatastore() + "] " + file.getPath().substring(0, slash);
+    }
+
+    private static List<ManagedObjectReference> datastores(int count) {
+        List<ManagedObjectReference> datastores = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            datastores.add(moRef("Datastore", "ds" + i));
+        }
+        return datastores;
+    }
+
+    /**
+     * Serves the datastores {@code dsN}, each mounted by {@code host-(N % 10)}, with the same folders. The root of a
+     * datastore holds a few files and the folders {@code f0} to {@code f19}, each of which holds 500 files and a
+     * subfolder {@code sub} with 50 files. The search results are built when the crawler reads them.
+     */
+    private static final class StubBrowsers {
+        final ScheduledExecutorService completions = Executors.newScheduledThreadPool(4);
+        final Map<String, Task> taskById = new ConcurrentHashMap<>();
+        final LinkedBlockingQueue<String> changed = new LinkedBlockingQueue<>();
+        final Set<String> filtered = ConcurrentHashMap.newKeySet();
+        final List<String> cancelled = new CopyOnWriteArrayList<>();
+        final List<HostDatastoreBrowserSearchSpec> specs = new CopyOnWriteArrayList<>();
+        final AtomicInteger tasks = new AtomicInteger();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final Map<String, AtomicInteger> runningPerHost = new ConcurrentHashMap<>();
+        final Map<String, AtomicInteger> maxRunningPerHost = new ConcurrentHashMap<>();
+        volatile boolean collectorDestroyed;
+        /** The datastore path of a search which fails. */
+        volatile String failing;
+        /** The datastore path of a search which never completes; empty for all searches. */
+        volatile String hanging;
+
+        VimPortType createVimPort() {
+            return vimPort((proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "retrievePropertiesEx":
+                        return retrieve(((List<?>) args[1]).get(0));
+                    case "createPropertyCollector":
+                        return moRef("PropertyCollector", "session[crawl]");
+                    case "destroyPropertyCollector":
+                        collectorDestroyed = true;
+                        return null;
+                    case "searchDatastoreTask":
+                    case "searchDatastoreSubFoldersTask":
+                        return search(
+                                (String) args[1],
+                                (HostDatastoreBrowserSearchSpec) args[2],
+                                method.getName().equals("searchDatastoreSubFoldersTask"));
+                    case "createFilter":
+                        return createFilter((PropertyFilterSpec) args[1]);
+                    case "waitForUpdatesEx":
+                        return waitForUpdates((WaitOptions) args[2]);
+                    case "cancelTask":
+                        cancel((ManagedObjectReference) args[0]);
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        private RetrieveResult retrieve(Object filterSpec) {
+            RetrieveResult result = new RetrieveResult();
+            for (ObjectSpec objectSpec : ((PropertyFilterSpec) filterSpec).getObjectSet()) {
+                ManagedObjectReference obj = objectSpec.getObj();
+                ObjectContent content = new ObjectContent();
+                content.setObj(obj);
+                if (obj.getType().equals("Datastore")) {
+                    content.getPropSet().add(property("name", obj.getValue()));
+                    content.getPropSet().add(property("browser", moRef("HostDatastoreBrowser", obj.getValue())));
+                    content.getPropSet().add(property("host", mounts(obj.getValue())));
+                } else {
+                    content.getPropSet()
+                            .add(property(
+                                    "info.result", taskById.get(obj.getValue()).result()));
+                }
+                result.getObjects().add(content);
+            }
+            return result;
+        }
+
+        private static ArrayOfDatastoreHostMount mounts(String datastore) {
+            ArrayOfDatastoreHostMount mounts = new ArrayOfDatastoreHostMount();
+            mounts.getDatastoreHostMount().add(mount("host-lost", false));
+            int index = Integer.parseInt(datastore.substring(2));
+            mounts.getDatastoreHostMount().add(mount("host-" + index % HOSTS, true));
+            return mounts;
+        }
+
+        private static DatastoreHostMount mount(String host, boolean accessible) {
+            HostMountInfo info = new HostMountInfo();
+            info.setAccessible(accessible);
+            DatastoreHostMount mount = new DatastoreHostMount();
+            mount.setKey(moRef("HostSystem", host));
+            mount.setMountInfo(info);
+            return mount;
+        }
+
+        private ManagedObjectReference search(String path, HostDatastoreBrowserSearchSpec spec, boolean tree) {
+            specs.add(spec);
+            String datastore = path.substring(1, path.indexOf(']'));
+            String folder = path.indexOf("] ") < 0 ? "" : path.substring(path.indexOf("] ") + 2);
+            boolean folders = spec.getQuery().stream().anyMatch(query -> query instanceof FolderFileQuery);
+            Task task = new Task(
+                    "task-" + tasks.incrementAndGet(),
+                    datastore,
+                    folder,
+                    folders,
+                    tree,
+                    "host-" + Integer.parseInt(datastore.substring(2)) % HOSTS);
+            taskById.put(task.id, task);
+
+            enter(task.host);
+            if (!path.equals(hanging) && !"".equals(hanging)) {
+                TaskInfoState state = path.equals(failing) ? TaskInfoState.ERROR : TaskInfoState.SUCCESS;
+                completions.schedule(
+                        () -> complete(task, state),
+                        1 + ThreadLocalRandom.current().nextInt(5),
+                        TimeUnit.MILLISECONDS);
+            }
+            return moRef("Task", task.id);
+        }
+
+        private void enter(String host) {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            int hostRunning = runningPerHost
+                    .computeIfAbsent(host, h -> new AtomicInteger())
+                    .incrementAndGet();
+            maxRunningPerHost.computeIfAbsent(host, h -> new AtomicInteger()).accumulateAndGet(hostRunning, Math::max);
+        }
+
+        private void complete(Task task, TaskInfoState state) {
+            synchronized (task) {
+                if (task.state != TaskInfoState.RUNNING) {
+                    return;
+                }
+                task.state = state;
+            }
+            running.decrementAndGet();
+            runningPerHost.get(task.host).decrementAndGet();
+            changed.add(task.id);
+        }
+
+        private void cancel(ManagedObjectReference taskRef) {
+            cancelled.add(taskRef.getValue());
+            complete(taskById.get(taskRef.getValue()), TaskInfoState.ERROR);
+        }
+
+        private ManagedObjectReference createFilter(PropertyFilterSpec spec) {
+            String id = spec.getObjectSet().get(0).getObj().getValue();
+            filtered.add(id);
+            // the first update of a filter reports the current state
+            changed.add(id);
+            return moRef("PropertyFilter", "filter-" + id);
+        }
+
+        /** Returns the changes of the tasks with a filter; it returns early, which a server may do as well. */
+        private UpdateSet waitForUpdates(WaitOptions options) {
+            String first;
+            try {
+                first = changed.poll(Math.min(50, options.getMaxWaitSeconds() * 1000L), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            if (first == null) {
+                return null;
+            }
+            List<String> ids = new ArrayList<>();
+            ids.add(first);
+            changed.drainTo(ids);
+
+            PropertyFilterUpdate filterUpdate = new PropertyFilterUpdate();
+            for (String id : ids) {
+                if (!filtered.contains(id)) {
+                    // reported once its filter exists
+                    changed.add(id);
+                    continue;
+                }
+                Task task = taskById.get(id);
+                ObjectUpdate objectUpdate = new ObjectUpdate();
+                objectUpdate.setObj(moRef("Task", id));
+                objectUpdate.getChangeSet().add(change("info.state", task.state));
+                if (task.state == TaskInfoState.ERROR) {
+                    LocalizedMethodFault fault = new LocalizedMethodFault();
+                    fault.setLocalizedMessage("File [" + task.datastore + "] " + task.folder + " was not found");
+                    objectUpdate.getChangeSet().add(change("info.error", fault));
+                }
+                filterUpdate.getObjectSet().add(objectUpdate);
+            }
+            UpdateSet updateSet = new UpdateSet();
+            updateSet.setVersion(Long.toString(System.nanoTime()));
+            updateSet.getFilterSet().add(filterUpdate);
+            return updateSet;
+        }
+
+        private static DynamicProperty property(String name, Object value) {
+            DynamicProperty property = new DynamicProperty();
+            property.setName(name);
+            property.setVal(value);
+            return property;
+        }
+
+        private static PropertyChange change(String name, Object value) {
+            PropertyChange change = new PropertyChange();
+            change.setName(name);
+            change.setVal(value);
+            return change;
+        }
+    }
+
+    /** A search task of a stub browser. */
+    private static final class Task {
+        final String id;
+        final String datastore;
+        final String folder;
+        final boolean folders;
+        final boolean tree;
+        final String host;
+        /** Changed while holding the lock of the task. */
+        volatile TaskInfoState state = TaskInfoState.RUNNING;
+
+        Task(String id, String datastore, String folder, boolean folders, boolean tree, String host) {
+            this.id = id;
+            this.datastore = datastore;
+            this.folder = folder;
+            this.folders = folders;
+            this.tree = tree;
+            this.host = host;
+        }
+
+        Object result() {
+            if (!tree) {
+                return list(folder);
+            }
+            ArrayOfHostDatastoreBrowserSearchResults results = new ArrayOfHostDatastoreBrowserSearchResults();
+            addTree(results, folder);
+            return results;
+        }
+
+        private void addTree(ArrayOfHostDatastoreBrowserSearchResults results, String path) {
+            HostDatastoreBrowserSearchResults list = list(path);
+            results.getHostDatastoreBrowserSearchResults().add(list);
+            for (FileInfo file : list.getFile()) {
+                if (file instanceof FolderFileInfo) {
+                    addTree(results, path.isEmpty() ? file.getPath() : path + "/" + file.getPath());
+                }
+            }
+        }
+
+        /** @return the folders of a folder, or its files and folders */
+        private HostDatastoreBrowserSearchResults list(String path) {
+            HostDatastoreBrowserSearchResults results = new HostDatastoreBrowserSearchResults();
+            results.setFolderPath(path.isEmpty() ? "[" + datastore + "]" : "[" + datastore + "] " + path + "/");
+            int depth = path.isEmpty() ? 0 : path.split("/").length;
+            if (depth == 0) {
+                for (int i = 0; i < FOLDERS; i++) {
+                    results.getFile().add(folder("f" + i));
+                }
+            } else if (depth == 1) {
+                results.getFile().add(folder("sub"));
+            }
+            if (!folders) {
+                int files = depth == 0 ? ROOT_FILES : depth == 1 ? FOLDER_FILES : SUBFOLDER_FILES;
+                for (int i = 0; i < files; i++) {
+                    FileInfo file = new FileInfo();
+                    file.setPath("disk" + i + ".vmdk");
+                    file.setFileSize((long) i);
+                    results.getFile().add(file);
+                }
+            }
+            return results;
+        }
+
+        private static FolderFileInfo folder(String name) {
+            FolderFileInfo folder = new FolderFileInfo();
+            folder.setPath(name);
+            return folder;
+        }
+    }
+}
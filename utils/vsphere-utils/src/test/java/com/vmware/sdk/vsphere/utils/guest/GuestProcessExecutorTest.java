@@ -0,0 +1,333 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.guest;
+
+import static com.vmware.sdk.vsphere.utils.SdkStubs.moRef;
+import static com.vmware.sdk.vsphere.utils.SdkStubs.vimPort;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.vmware.vim25.GuestAuthentication;
+import com.vmware.vim25.GuestProcessInfo;
+import com.vmware.vim25.GuestProgramSpec;
+import com.vmware.vim25.ManagedObjectReference;
+import com.vmware.vim25.NamePasswordAuthentication;
+import com.vmware.vim25.VimPortType;
+
+/** Tests {@link GuestProcessExecutor} with a stub guest process manager running simulated programs. */
+public class GuestProcessExecutorTest {
+
+    private final GuestAuthentication auth = new NamePasswordAuthentication();
+    private StubProcessManager processManager;
+    private GuestProcessExecutor executor;
+
+    @BeforeEach
+    public void setup() {
+        processManager = new StubProcessManager();
+        executor = new GuestProcessExecutor(
+                processManager.createVimPort(), moRef("GuestProcessManager", "guestOperationsProcessManager"));
+        executor.setPollInterval(Duration.ofMillis(5), Duration.ofMillis(40));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    public void testRunsProgramsAndReportsExitCodes() throws Exception {
+        List<CompletableFuture<GuestProcessResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(executor.start(vm(i), host(0), auth, program(20 * i, i)));
+        }
+
+        for (int i = 0; i < 6; i++) {
+            GuestProcessResult result = futures.get(i).get(10, TimeUnit.SECONDS);
+            assertEquals("vm-" + i, result.getVm().getValue());
+            assertEquals(i, result.getExitCode());
+            assertTrue(result.getPid() > 0);
+            assertTrue(!result.getEndTime().isBefore(result.getStartTime()), result::toString);
+        }
+    }
+
+    @Test
+    public void testListsProcessesOfVmWithSingleCall() throws Exception {
+        List<CompletableFuture<GuestProcessResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(executor.start(vm(0), host(0), auth, program(200, 0)));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        // the processes start within a few milliseconds of each other and are checked together until they exit
+        assertEquals(5, processManager.maxPidsPerList.get());
+        assertTrue(processManager.listCalls.get() < 5 * 10, processManager.listCalls::toString);
+    }
+
+    @Test
+    public void testLimitsProcessesPerHostAndInTotal() throws Exception {
+        executor.setMaxConcurrentProcesses(3);
+        executor.setMaxConcurrentProcessesPerHost(2);
+        List<CompletableFuture<GuestProcessResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            futures.add(executor.start(vm(i), host(i % 2), auth, program(30, 0)));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        assertEquals(3, processManager.maxRunning.get());
+        for (AtomicInteger max : processManager.maxRunningPerHost.values()) {
+            assertTrue(max.get() <= 2, processManager.maxRunningPerHost::toString);
+        }
+    }
+
+    @Test
+    public void testLimitsConcurrentCalls() throws Exception {
+        executor.setMaxConcurrentCalls(2);
+        processManager.callDelayMs = 20;
+        List<CompletableFuture<GuestProcessResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(executor.start(vm(i), null, auth, program(0, 0)));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        assertEquals(2, processManager.maxCalls.get());
+    }
+
+    @Test
+    public void testCallsAreCappedByProcessLimit() throws Exception {
+        executor.setMaxConcurrentProcesses(1);
+        processManager.callDelayMs = 10;
+        List<CompletableFuture<GuestProcessResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(executor.start(vm(i), null, auth, program(0, 0)));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        assertEquals(1, processManager.maxCalls.get());
+    }
+
+    @Test
+    public void testTimeoutTerminatesProcess() {
+        executor.setTimeout(Duration.ofMillis(50));
+
+        CompletableFuture<GuestProcessResult> future = executor.start(vm(0), host(0), auth, program(60_000, 0));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals(1, processManager.terminated.size());
+    }
+
+    @Test
+    public void testCancelTerminatesProcess() throws Exception {
+        CompletableFuture<GuestProcessResult> future = executor.start(vm(0), host(0), auth, program(60_000, 0));
+        while (processManager.started.get() == 0) {
+            Thread.sleep(5);
+        }
+
+        future.cancel(true);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (processManager.terminated.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, processManager.terminated.size());
+    }
+
+    @Test
+    public void testUnreachableGuestIsRetried() throws Exception {
+        processManager.listFailures.set(2);
+
+        GuestProcessResult result =
+                executor.start(vm(0), host(0), auth, program(0, 3)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(3, result.getExitCode());
+    }
+
+    @Test
+    public void testRepeatedListFailuresFailProcesses() {
+        processManager.listFailures.set(3);
+
+        CompletableFuture<GuestProcessResult> future = executor.start(vm(0), host(0), auth, program(0, 0));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    public void testCloseCancelsQueuedPrograms() throws Exception {
+        executor.setMaxConcurrentProcesses(1);
+
+        CompletableFuture<GuestProcessResult> running = executor.start(vm(0), null, auth, program(60_000, 0));
+        CompletableFuture<GuestProcessResult> queued = executor.start(vm(1), null, auth, program(0, 0));
+        executor.close();
+
+        assertThrows(CancellationException.class, () -> queued.get(10, TimeUnit.SECONDS));
+        assertThrows(CancellationException.class, () -> running.get(10, TimeUnit.SECONDS));
+        assertThrows(IllegalStateException.class, () -> executor.start(vm(2), null, auth, program(0, 0)));
+    }
+
+    /** @return a program which runs for the given time and exits with the given code */
+    private static GuestProgramSpec program(long durationMs, int exitCode) {
+        GuestProgramSpec programSpec = new GuestProgramSpec();
+        programSpec.setProgramPath("/bin/sleep");
+        programSpec.setArguments(durationMs + " " + exitCode);
+        return programSpec;
+    }
+
+    private static ManagedObjectReference vm(int index) {
+        return moRef("VirtualMachine", "vm-" + index);
+    }
+
+    private static ManagedObjectReference host(int index) {
+        return moRef("HostSystem", "host-" + index);
+    }
+
+    /**
+     * Simulates the processes of the guests. A program runs for the time and exits with the code given by its
+     * arguments, and its host is taken from the virtual machine index for the limit checks.
+     */
+    private static final class StubProcessManager {
+        final AtomicInteger started = new AtomicInteger();
+        final AtomicInteger listCalls = new AtomicInteger();
+        final AtomicInteger maxPidsPerList = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final Map<String, AtomicInteger> maxRunningPerHost = new ConcurrentHashMap<>();
+        final AtomicInteger maxCalls = new AtomicInteger();
+        final AtomicInteger listFailures = new AtomicInteger();
+        final List<Long> terminated = new CopyOnWriteArrayList<>();
+        private final Map<Long, Process> processes = new ConcurrentHashMap<>();
+        private final AtomicLong pids = new AtomicLong(1000);
+        private final AtomicInteger calls = new AtomicInteger();
+        volatile long callDelayMs;
+
+        VimPortType createVimPort() {
+            return vimPort((proxy, method, args) -> {
+                maxCalls.accumulateAndGet(calls.incrementAndGet(), Math::max);
+                try {
+                    if (callDelayMs > 0) {
+                        Thread.sleep(callDelayMs);
+                    }
+                    switch (method.getName()) {
+                        case "startProgramInGuest":
+                            return start((ManagedObjectReference) args[1], (GuestProgramSpec) args[3]);
+                        case "listProcessesInGuest":
+                            @SuppressWarnings("unchecked")
+                            List<Long> listed = (List<Long>) args[3];
+                            return list(listed);
+                        case "terminateProcessInGuest":
+                            terminated.add((Long) args[3]);
+                            processes.get((Long) args[3]).endMillis = System.currentTimeMillis();
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                } finally {
+                    calls.decrementAndGet();
+                }
+            });
+        }
+
+        private synchronized long start(ManagedObjectReference vm, GuestProgramSpec programSpec) {
+            String[] arguments = programSpec.getArguments().split(" ");
+            long now = System.currentTimeMillis();
+            int index = Integer.parseInt(vm.getValue().substring("vm-".length()));
+            Process process = new Process(
+                    "host-" + index % 2, now, now + Long.parseLong(arguments[0]), Integer.parseInt(arguments[1]));
+            long pid = pids.incrementAndGet();
+            processes.put(pid, process);
+            started.incrementAndGet();
+
+            int running = 0;
+            int runningOnHost = 0;
+            for (Process other : processes.values()) {
+                if (other.endMillis > now || other == process) {
+                    running++;
+                    runningOnHost += other.host.equals(process.host) ? 1 : 0;
+                }
+            }
+            maxRunning.accumulateAndGet(running, Math::max);
+            maxRunningPerHost
+                    .computeIfAbsent(process.host, host -> new AtomicInteger())
+                    .accumulateAndGet(runningOnHost, Math::max);
+            return pid;
+        }
+
+        private List<GuestProcessInfo> list(List<Long> pids) throws Exception {
+            listCalls.incrementAndGet();
+            maxPidsPerList.accumulateAndGet(pids.size(), Math::max);
+            if (listFailures.getAndUpdate(failures -> Math.max(0, failures - 1)) > 0) {
+                throw new IllegalStateException("The guest tools are not running");
+            }
+
+            long now = System.currentTimeMillis();
+            List<GuestProcessInfo> infos = new ArrayList<>();
+            for (long pid : pids) {
+                Process process = processes.get(pid);
+                GuestProcessInfo info = new GuestProcessInfo();
+                info.setPid(pid);
+                info.setStartTime(toCalendar(process.startMillis));
+                if (process.endMillis <= now) {
+                    info.setEndTime(toCalendar(process.endMillis));
+                    info.setExitCode(process.exitCode);
+                }
+                infos.add(info);
+            }
+            return infos;
+        }
+
+        private static XMLGregorianCalendar toCalendar(long millis) throws Exception {
+            GregorianCalendar calendar = new GregorianCalendar();
+            calendar.setTimeInMillis(millis);
+            return DatatypeFactory.newInstance().newXMLGregorianCalendar(calendar);
+        }
+    }
+
+    private static final class Process {
+        final String host;
+        final long startMillis;
+        final int exitCode;
+        volatile long endMillis;
+
+        Process(String host, long startMillis, long endMillis, int exitCode) {
+            this.host = host;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.exitCode = exitCode;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link BandwidthGovernor} by simulating flows against a fake clock, and the achieved rate over a loopback
+ * socket.
+ */
+public class BandwidthGovernorTest {
+
+    private static final long MB = 1024 * 1024;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(SECOND);
+    private BandwidthGovernor governor;
+
+    @BeforeEach
+    public void setup() {
+        governor = new BandwidthGovernor(clock::get);
+    }
+
+    @Test
+    public void testGlobalLimitIsSharedByWeight() {
+        governor.setGlobalLimit(12 * MB);
+        SimulatedFlow light = new SimulatedFlow(governor.open("host-1", 1, 0));
+        SimulatedFlow heavy = new SimulatedFlow(governor.open("host-2", 3, 0));
+
+        simulate(List.of(light, heavy), 10 * SECOND);
+
+        assertRate(3 * MB, light);
+        assertRate(9 * MB, heavy);
+    }
+
+    @Test
+    public void testHostLimitLeavesRestToOtherHosts() {
+        governor.setGlobalLimit(10 * MB);
+        governor.setHostLimit("host-1", 2 * MB);
+        SimulatedFlow limited = new SimulatedFlow(governor.open("host-1", 1, 0));
+        SimulatedFlow other = new SimulatedFlow(governor.open("host-2", 1, 0));
+
+        simulate(List.of(limited, other), 10 * SECOND);
+
+        assertRate(2 * MB, limited);
+        assertRate(8 * MB, other);
+    }
+
+    @Test
+    public void testOwnLimit() {
+        SimulatedFlow flow = new SimulatedFlow(governor.open("host-1", 1, 3 * MB));
+
+        simulate(List.of(flow), 10 * SECOND);
+
+        assertRate(3 * MB, flow);
+    }
+
+    @Test
+    public void testStalledFlowShareIsRedistributed() {
+        governor.setGlobalLimit(12 * MB);
+        SimulatedFlow first = new SimulatedFlow(governor.open("host-1", 1, 0));
+        SimulatedFlow second = new SimulatedFlow(governor.open("host-1", 1, 0));
+        // a slow disk holds the third flow far below its share of 4 MB/s
+        SimulatedFlow slow = new SimulatedFlow(governor.open("host-2", 1, 0));
+        slow.sourceRate = MB;
+
+        simulate(List.of(first, second, slow), 10 * SECOND);
+
+        assertRate(MB, slow);
+        assertRate(5.5 * MB, first);
+        assertRate(5.5 * MB, second);
+        assertEquals(4 * MB, slow.flow.getEffectiveLimit());
+    }
+
+    @Test
+    public void testResumedFlowGetsShareBack() {
+        governor.setGlobalLimit(12 * MB);
+        SimulatedFlow first = new SimulatedFlow(governor.open("host-1", 1, 0));
+        SimulatedFlow second = new SimulatedFlow(governor.open("host-1", 1, 0));
+        SimulatedFlow paused = new SimulatedFlow(governor.open("host-2", 1, 0));
+        paused.next = 6 * SECOND;
+
+        simulate(List.of(first, second, paused), 5 * SECOND);
+        assertRate(6 * MB, first);
+        assertRate(6 * MB, second);
+        assertEquals(0, paused.bytes);
+
+        // the paused flow sends again, it saved up at most one second at the global limit
+        simulate(List.of(first, second, paused), 10 * SECOND);
+        assertRate(4 * MB, first);
+        assertRate(4 * MB, second);
+        assertRate(4 * MB, paused);
+    }
+
+    @Test
+    public void testClosedFlowReleasesShare() {
+        governor.setGlobalLimit(8 * MB);
+        SimulatedFlow remaining = new SimulatedFlow(governor.open("host-1", 1, 0));
+        SimulatedFlow closed = new SimulatedFlow(governor.open("host-1", 1, 0));
+
+        simulate(List.of(remaining, closed), 5 * SECOND);
+        assertRate(4 * MB, remaining);
+        closed.flow.close();
+        simulate(List.of(remaining), 5 * SECOND);
+
+        assertRate(8 * MB, remaining);
+        assertEquals(1, governor.getFlowCount());
+    }
+
+    @Test
+    public void testLoopbackRateAccuracy() throws Exception {
+        BandwidthGovernor governor = new BandwidthGovernor();
+        long limit = 8 * MB;
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                SocketChannel channel = SocketChannel.open(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort()));
+                Socket peer = server.accept()) {
+            AtomicLong received = new AtomicLong();
+            Thread reader = new Thread(() -> {
+                byte[] buffer = new byte[CHUNK_SIZE];
+                try (InputStream in = peer.getInputStream()) {
+                    for (int read; (read = in.read(buffer)) >= 0; ) {
+                        received.addAndGet(read);
+                    }
+                } catch (Exception e) {
+                    // the socket is closed at the end of the test
+                }
+            });
+            reader.start();
+
+            BandwidthGovernor.Flow flow = governor.open("127.0.0.1", 1, limit);
+            WritableByteChannel out = flow.wrapWritable(channel);
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            // the bucket starts with a second worth of bytes, which is not counted
+            long burst = limit;
+            for (long written = 0; written < burst; ) {
+                buffer.clear();
+                written += out.write(buffer);
+            }
+            long start = System.nanoTime();
+            long written = 0;
+            while (System.nanoTime() - start < 2 * SECOND) {
+                buffer.clear();
+                written += out.write(buffer);
+            }
+            double rate = (double) written * SECOND / (System.nanoTime() - start);
+            flow.close();
+            channel.shutdownOutput();
+            reader.join(TimeUnit.SECONDS.toMillis(10));
+
+            assertTrue(Math.abs(rate - limit) < limit * 0.1, () -> "Rate " + rate);
+            assertEquals(burst + written, received.get(), 2 * CHUNK_SIZE);
+        }
+    }
+
+    /** Runs the flows for the duration from now on, each sending its chunks as soon as it is allowed to. */
+    private void simulate(List<SimulatedFlow> flows, long duration) {
+        long start = clock.get();
+        long end = start + duration;
+        // the first second settles the buckets and the shares
+        long measured = start + SECOND;
+        List<SimulatedFlow> sending = new ArrayList<>(flows);
+        for (SimulatedFlow flow : sending) {
+            flow.next = Math.max(flow.next, start);
+            flow.bytes = 0;
+            flow.start = measured;
+            flow.end = end;
+        }
+        while (true) {
+            SimulatedFlow flow = sending.get(0);
+            for (SimulatedFlow candidate : sending) {
+                if (candidate.next < flow.next) {
+                    flow = candidate;
+                }
+            }
+            if (flow.next >= end) {
+                break;
+            }
+            clock.set(flow.next);
+            long wait = flow.flow.reserve(CHUNK_SIZE);
+            if (flow.next >= measured) {
+                flow.bytes += CHUNK_SIZE;
+            }
+            // a flow sleeps for its wait, then produces the next chunk at the rate of its source
+            long produce = flow.sourceRate == 0 ? 0 : CHUNK_SIZE * SECOND / flow.sourceRate;
+            flow.next += wait + Math.max(1, produce);
+        }
+        clock.set(end);
+    }
+
+    private static void assertRate(double expected, SimulatedFlow flow) {
+        double rate = flow.getRate();
+        assertTrue(
+                Math.abs(rate - expected) < expected * 0.05,
+                () -> String.format("Expected %.2f MB/s, but got %.2f MB/s", expected / MB, rate / MB));
+    }
+
+    /** A transfer which sends its chunks through a flow of the governor. */
+    private static final class SimulatedFlow {
+        final BandwidthGovernor.Flow flow;
+        /** The rate at which the transfer can read its chunks; 0 means as fast as the flow allows. */
+        long sourceRate;
+
+        long next;
+        long bytes;
+        long start;
+        long end;
+
+        SimulatedFlow(BandwidthGovernor.Flow flow) {
+            this.flow = flow;
+        }
+
+        double getRate() {
+            return (double) bytes * SECOND / (end - start);
+        }
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vmware.content.library.Item;
+import com.vmware.content.library.ItemModel;
+import com.vmware.content.library.item.DownloadSession;
+import com.vmware.content.library.item.FileTypes.ChecksumAlgorithm;
+import com.vmware.content.library.item.FileTypes.ChecksumInfo;
+import com.vmware.content.library.item.TransferEndpoint;
+import com.vmware.content.library.item.UpdateSession;
+import com.vmware.content.library.item.UpdateSessionModel;
+import com.vmware.content.library.item.downloadsession.FileTypes.PrepareStatus;
+import com.vmware.content.library.item.updatesession.FileTypes.AddSpec;
+import com.vmware.content.library.item.updatesession.FileTypes.ValidationResult;
+import com.vmware.sdk.vsphere.utils.SdkStubs;
+import com.vmware.sdk.vsphere.utils.VcenterClient;
+import com.vmware.vapi.bindings.StubCreator;
+
+/**
+ * Tests {@link ContentLibraryTransfer} with stub session services and a local HTTPS server standing in for the transfer
+ * endpoints.
+ */
+public class ContentLibraryTransferTest {
+
+    private static final String ITEM_ID = "item-1";
+
+    @TempDir
+    Path tempDir;
+
+    private LocalHttpsServer server;
+    private StubLibrary library;
+    private ContentLibraryTransfer transfer;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        server = LocalHttpsServer.start();
+        library = new StubLibrary(server);
+        transfer = new ContentLibraryTransfer(library.createClient(), server.createClient());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testUploadAddsFilesAndCompletesSession() throws Exception {
+        byte[] ovf = RangedDownloaderTest.randomBytes(4096, 1);
+        byte[] vmdk = RangedDownloaderTest.randomBytes(3 * 1024 * 1024 + 5, 2);
+        Path ovfFile = file("photon.ovf", ovf);
+        Path vmdkFile = file("photon-disk1.vmdk", vmdk);
+
+        Map<String, TransferResult> results = transfer.upload(ITEM_ID, List.of(ovfFile, vmdkFile));
+
+        assertEquals(List.of("photon.ovf", "photon-disk1.vmdk"), new ArrayList<>(results.keySet()));
+        assertArrayEquals(ovf, library.uploaded.get("photon.ovf"));
+        assertArrayEquals(vmdk, library.uploaded.get("photon-disk1.vmdk"));
+        assertEquals(
+                RangedDownloaderTest.sha256(vmdk),
+                results.get("photon-disk1.vmdk").getSha256());
+        assertEquals(vmdk.length, library.added.get("photon-disk1.vmdk").getSize());
+        assertEquals("content-3", library.updateSpec.getLibraryItemContentVersion());
+        assertEquals(List.of("complete update-1", "delete update-1"), library.calls);
+        assertEquals(ovf.length + vmdk.length, transfer.getTransferredBytes());
+    }
+
+    @Test
+    public void testMissingFilesFailSession() throws Exception {
+        library.missingFiles = Set.of("photon-disk2.vmdk");
+
+        IOException e = assertThrows(
+                IOException.class,
+                () -> transfer.upload(ITEM_ID, List.of(file("photon.ovf", RangedDownloaderTest.randomBytes(10, 3)))));
+
+        assertTrue(e.getMessage().contains("photon-disk2.vmdk"), e.getMessage());
+        assertEquals(List.of("fail update-1", "delete update-1"), library.calls);
+    }
+
+    @Test
+    public void testRejectedUploadFailsSession() throws Exception {
+        library.uploadStatus = 403;
+
+        assertThrows(
+                IOException.class,
+                () -> transfer.upload(ITEM_ID, List.of(file("photon.ovf", RangedDownloaderTest.randomBytes(10, 4)))));
+
+        assertEquals(List.of("fail update-1", "delete update-1"), library.calls);
+    }
+
+    @Test
+    public void testDownloadVerifiesChecksums() throws Exception {
+        byte[] ovf = RangedDownloaderTest.randomBytes(2048, 5);
+        byte[] vmdk = RangedDownloaderTest.randomBytes(2 * 1024 * 1024 + 11, 6);
+        library.addFile("photon.ovf", ovf, ChecksumAlgorithm.SHA1, checksum("SHA-1", ovf));
+        library.addFile("photon-disk1.vmdk", vmdk, ChecksumAlgorithm.SHA256, checksum("SHA-256", vmdk));
+        library.preparePolls = 1;
+
+        Map<String, TransferResult> results = transfer.download(ITEM_ID, tempDir);
+
+        assertArrayEquals(ovf, Files.readAllBytes(tempDir.resolve("photon.ovf")));
+        assertArrayEquals(vmdk, Files.readAllBytes(tempDir.resolve("photon-disk1.vmdk")));
+        assertEquals(RangedDownloaderTest.sha256(ovf), results.get("photon.ovf").getSha256());
+        assertEquals(Set.of("photon.ovf", "photon-disk1.vmdk"), library.prepared);
+        assertEquals(List.of("delete download-1"), library.calls);
+        assertEquals(ovf.length + vmdk.length, transfer.getTotalBytes());
+    }
+
+    @Test
+    public void testChecksumMismatchDeletesFile() throws Exception {
+        byte[] vmdk = RangedDownloaderTest.randomBytes(1024 * 1024, 7);
+        library.addFile(
+                "photon-disk1.vmdk",
+                vmdk,
+                ChecksumAlgorithm.SHA256,
+                checksum("SHA-256", RangedDownloaderTest.randomBytes(16, 8)));
+
+        IOException e = assertThrows(IOException.class, () -> transfer.download(ITEM_ID, tempDir));
+
+        assertTrue(e.getMessage().contains("checksum"), e.getMessage());
+        assertFalse(Files.exists(tempDir.resolve("photon-disk1.vmdk")));
+        assertEquals(List.of("delete download-1"), library.calls);
+    }
+
+    @Test
+    public void testPrepareErrorFailsDownload() throws Exception {
+        library.addFile("photon.ovf", RangedDownloaderTest.randomBytes(10, 9), null, null);
+        library.prepareStatus = PrepareStatus.ERROR;
+
+        assertThrows(IOException.class, () -> transfer.download(ITEM_ID, tempDir));
+
+        assertEquals(List.of("delete download-1"), library.calls);
+    }
+
+    @Test
+    public void testSessionIsKeptAliveDuringTransfer() throws Exception {
+        transfer.setKeepAliveInterval(Duration.ofMillis(10));
+        BandwidthGovernor governor = new BandwidthGovernor();
+        governor.setGlobalLimit(4L * 1024 * 1024);
+        transfer.setBandwidthGovernor(governor);
+        library.addFile("photon-disk1.vmdk", RangedDownloaderTest.randomBytes(3 * 1024 * 1024, 10), null, null);
+
+        transfer.download(ITEM_ID, tempDir);
+
+        // the download takes about 3/4 of a second under the bandwidth limit
+        assertTrue(library.keepAlives.get() > 5, () -> String.valueOf(library.keepAlives.get()));
+    }
+
+    /**
+     * Measures the throughput of uploading and downloading an item through the local server, and the garbage
+     * collections it causes. Run with {@code TRANSFER_BENCHMARK=true}.
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "TRANSFER_BENCHMARK", matches = "true")
+    public void testBenchmark() throws Exception {
+        int fileCount = 4;
+        int fileSize = 64 * 1024 * 1024;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < fileCount; i++) {
+            byte[] content = RangedDownloaderTest.randomBytes(fileSize, i);
+            files.add(file("disk" + i + ".vmdk", content));
+            library.addFile("disk" + i + ".vmdk", content, null, null);
+        }
+        Path target = Files.createDirectories(tempDir.resolve("target"));
+
+        for (int round = 0; round < 3; round++) {
+            long collections = collectionCount();
+            long startTime = System.nanoTime();
+            transfer.upload(ITEM_ID, files);
+            long uploadTime = System.nanoTime() - startTime;
+            startTime = System.nanoTime();
+            transfer.download(ITEM_ID, target);
+            long downloadTime = System.nanoTime() - startTime;
+
+            System.out.printf(
+                    "round %d: upload %.0f MiB/s, download %.0f MiB/s, %d collections%n",
+                    round,
+                    fileCount * (fileSize / 1024.0 / 1024) / (uploadTime / 1e9),
+                    fileCount * (fileSize / 1024.0 / 1024) / (downloadTime / 1e9),
+                    collectionCount() - collections);
+        }
+    }
+
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private Path file(String name, byte[] content) throws IOException {
+        Path directory = Files.createDirectories(tempDir.resolve("source"));
+        return Files.write(directory.resolve(name), content);
+    }
+
+    private static String checksum(String algorithm, byte[] bytes) throws Exception {
+        return Hex.encode(MessageDigest.getInstance(algorithm).digest(bytes));
+    }
+
+    /** Stands in for the library item, its sessions and the transfer endpoints of vCenter. */
+    private static final class StubLibrary {
+        final Map<String, byte[]> uploaded = new ConcurrentHashMap<>();
+        final Map<String, AddSpec> added = new ConcurrentHashMap<>();
+        final Set<String> prepared = ConcurrentHashMap.newKeySet();
+        final List<String> calls = new CopyOnWriteArrayList<>();
+        final AtomicInteger keepAlives = new AtomicInteger();
+        private final Map<String, com.vmware.content.library.item.downloadsession.FileTypes.Info> files =
+                new LinkedHashMap<>();
+        private final Map<String, AtomicInteger> polls = new ConcurrentHashMap<>();
+        private final Map<Class<?>, InvocationHandler> services = new ConcurrentHashMap<>();
+        private final LocalHttpsServer server;
+        volatile UpdateSessionModel updateSpec;
+        volatile int uploadStatus = 200;
+        volatile Set<String> missingFiles = Set.of();
+        volatile int preparePolls;
+        volatile PrepareStatus prepareStatus = PrepareStatus.PREPARED;
+
+        StubLibrary(LocalHttpsServer server) {
+            this.server = server;
+            server.handle("/library/upload/", exchange -> {
+                String path = exchange.getRequestURI().getPath();
+                byte[] body = exchange.getRequestBody().readAllBytes();
+                if (uploadStatus == 200) {
+                    uploaded.put(path.substring(path.lastIndexOf('/') + 1), body);
+                }
+                exchange.sendResponseHeaders(uploadStatus, -1);
+                exchange.close();
+            });
+
+            services.put(Item.class, (proxy, method, args) -> {
+                ItemModel item = new ItemModel();
+                item.setContentVersion("content-3");
+                return item;
+            });
+            services.put(UpdateSession.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "create":
+                        updateSpec = (UpdateSessionModel) args[1];
+                        return "update-1";
+                    case "keepAlive":
+                        keepAlives.incrementAndGet();
+                        return null;
+                    default:
+                        calls.add(method.getName() + " " + args[0]);
+                        return null;
+                }
+            });
+            services.put(com.vmware.content.library.item.updatesession.File.class, (proxy, method, args) -> {
+                if ("add".equals(method.getName())) {
+                    AddSpec addSpec = (AddSpec) args[1];
+                    added.put(addSpec.getName(), addSpec);
+                    com.vmware.content.library.item.updatesession.FileTypes.Info info =
+                            new com.vmware.content.library.item.updatesession.FileTypes.Info();
+                    info.setUploadEndpoint(endpoint("/library/upload/" + args[0] + "/" + addSpec.getName()));
+                    return info;
+                }
+                ValidationResult validation = new ValidationResult();
+                validation.setHasErrors(!missingFiles.isEmpty());
+                validation.setInvalidFiles(List.of());
+                validation.setMissingFiles(missingFiles);
+                return validation;
+            });
+            services.put(DownloadSession.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "create":
+                        return "download-1";
+                    case "keepAlive":
+                        keepAlives.incrementAndGet();
+                        return null;
+                    default:
+                        calls.add(method.getName() + " " + args[0]);
+                        return null;
+                }
+            });
+            services.put(com.vmware.content.library.item.downloadsession.File.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "list":
+                        return new ArrayList<>(files.values());
+                    case "prepare":
+                        prepared.add((String) args[1]);
+                        return null;
+                    default:
+                        return fileInfo((String) args[1]);
+                }
+            });
+        }
+
+        /** Adds a file to the item, served at its download endpoint once it is prepared. */
+        void addFile(String name, byte[] content, ChecksumAlgorithm algorithm, String checksum) {
+            server.handle("/library/download/" + name, new RangeFileHandler(content, null));
+            com.vmware.content.library.item.downloadsession.FileTypes.Info info =
+                    new com.vmware.content.library.item.downloadsession.FileTypes.Info();
+            info.setName(name);
+            info.setSize((long) content.length);
+            info.setStatus(PrepareStatus.UNPREPARED);
+            if (checksum != null) {
+                ChecksumInfo checksumInfo = new ChecksumInfo();
+                checksumInfo.setAlgorithm(algorithm);
+                checksumInfo.setChecksum(checksum);
+                info.setChecksumInfo(checksumInfo);
+            }
+            files.put(name, info);
+        }
+
+        VcenterClient createClient() {
+            StubCreator stubCreator =
+                    SdkStubs.stubCreator((vapiIface, config) -> services.getOrDefault(vapiIface, SdkStubs.UNSUPPORTED));
+            return new VcenterClient(
+                    "vcenter.example.com",
+                    443,
+                    (provider, url) -> {},
+                    () -> "soap-session".toCharArray(),
+                    stubCreator,
+                    () -> "vapi-session".toCharArray());
+        }
+
+        private com.vmware.content.library.item.downloadsession.FileTypes.Info fileInfo(String name) {
+            com.vmware.content.library.item.downloadsession.FileTypes.Info info = files.get(name);
+            if (polls.computeIfAbsent(name, key -> new AtomicInteger()).getAndIncrement() < preparePolls) {
+                info.setStatus(PrepareStatus.PREPARE_REQUESTED);
+            } else {
+                info.setStatus(prepareStatus);
+                info.setDownloadEndpoint(endpoint("/library/download/" + name));
+            }
+            return info;
+        }
+
+        private TransferEndpoint endpoint(String path) {
+            TransferEndpoint endpoint = new TransferEndpoint();
+            endpoint.setUri(server.uri(path));
+            return endpoint;
+        }
+    }
+}
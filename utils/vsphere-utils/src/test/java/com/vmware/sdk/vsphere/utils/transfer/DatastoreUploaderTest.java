@@ -0,0 +1,279 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/** Tests {@link DatastoreUploader} against a local HTTPS server standing in for the datastore endpoint. */
+public class DatastoreUploaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LocalHttpsServer server;
+    private StubDatastore datastore;
+    private DatastoreUploader uploader;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        datastore = new StubDatastore();
+        server = LocalHttpsServer.start();
+        server.handle("/folder/", datastore);
+        uploader = new DatastoreUploader(server.createClient());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        uploader.close();
+        server.close();
+    }
+
+    @Test
+    public void testUploadsFilesToDatastores() throws Exception {
+        AtomicLong lastProgress = new AtomicLong();
+        uploader.setProgressListener((uri, transferred, total) -> lastProgress.set(transferred));
+        Path source = file("photon.ova", 3 * 1024 * 1024 + 17, 1);
+
+        List<CompletableFuture<TransferResult>> uploads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            uploads.add(uploader.submit(source, target("datastore" + i, "templates/photon.ova")));
+        }
+
+        for (CompletableFuture<TransferResult> upload : uploads) {
+            TransferResult result = upload.get(30, TimeUnit.SECONDS);
+            assertEquals(Files.size(source), result.getSize());
+            assertEquals(Files.size(source), result.getTransferredBytes());
+            assertEquals(0, result.getRetries());
+        }
+        for (int i = 0; i < 4; i++) {
+            assertArrayEquals(Files.readAllBytes(source), datastore.file("datastore" + i, "templates/photon.ova"));
+        }
+        assertEquals(Files.size(source), lastProgress.get());
+        assertTrue(datastore.chunked.get() > 0);
+    }
+
+    @Test
+    public void testLimitsUploadsPerDatastoreAndHost() throws Exception {
+        uploader.setMaxConcurrentUploads(8);
+        uploader.setMaxUploadsPerHost(3);
+        uploader.setMaxUploadsPerDatastore(2);
+        datastore.delayMs = 50;
+        Path source = file("small.iso", 1024, 2);
+
+        List<CompletableFuture<TransferResult>> uploads = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            // the same server under two names counts as two hosts
+            String address =
+                    i % 2 == 0 ? server.getAddress() : server.getAddress().replace("localhost", "127.0.0.1");
+            URI target = DatastoreFileUrls.create(address, "Datacenter", "datastore" + (i % 4), "file" + i + ".iso");
+            uploads.add(uploader.submit(source, target));
+        }
+        CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        assertEquals(12, datastore.files.size());
+        for (AtomicInteger max : datastore.maxPerDatastore.values()) {
+            assertTrue(max.get() <= 2, datastore.maxPerDatastore::toString);
+        }
+        for (AtomicInteger max : datastore.maxPerHost.values()) {
+            assertTrue(max.get() <= 3, datastore.maxPerHost::toString);
+        }
+        assertEquals(2, datastore.maxPerHost.size());
+    }
+
+    @Test
+    public void testServerErrorIsRetried() throws Exception {
+        datastore.statuses.add(503);
+        Path source = file("disk.vmdk", 100_000, 3);
+
+        TransferResult result =
+                uploader.submit(source, target("datastore1", "disk.vmdk")).get(30, TimeUnit.SECONDS);
+
+        assertEquals(1, result.getRetries());
+        assertEquals(2, datastore.requests.get());
+        assertArrayEquals(Files.readAllBytes(source), datastore.file("datastore1", "disk.vmdk"));
+    }
+
+    @Test
+    public void testRejectedUploadIsNotRetried() throws Exception {
+        datastore.statuses.add(403);
+        Path source = file("disk.vmdk", 100_000, 3);
+
+        ExecutionException e =
+                assertThrows(ExecutionException.class, () -> uploader.submit(source, target("datastore1", "disk.vmdk"))
+                        .get(30, TimeUnit.SECONDS));
+
+        assertInstanceOf(IOException.class, e.getCause());
+        assertTrue(e.getCause().getMessage().contains("403"), e.getCause().getMessage());
+        assertEquals(1, datastore.requests.get());
+    }
+
+    @Test
+    public void testFixedLengthUpload() throws Exception {
+        uploader.setChunkSize(0);
+        Path source = file("disk.vmdk", 2 * 1024 * 1024 + 5, 4);
+
+        uploader.submit(source, target("datastore1", "disk.vmdk")).get(30, TimeUnit.SECONDS);
+
+        assertEquals(0, datastore.chunked.get());
+        assertArrayEquals(Files.readAllBytes(source), datastore.file("datastore1", "disk.vmdk"));
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        Path source = file("empty.txt", 0, 5);
+
+        TransferResult result =
+                uploader.submit(source, target("datastore1", "empty.txt")).get(30, TimeUnit.SECONDS);
+
+        assertEquals(0, result.getSize());
+        assertEquals(0, datastore.file("datastore1", "empty.txt").length);
+    }
+
+    @Test
+    public void testCancelledQueuedUploadIsNotSent() throws Exception {
+        uploader.setMaxConcurrentUploads(1);
+        datastore.gate = new CountDownLatch(1);
+        Path source = file("disk.vmdk", 1024, 6);
+
+        CompletableFuture<TransferResult> first = uploader.submit(source, target("datastore1", "first.vmdk"));
+        CompletableFuture<TransferResult> second = uploader.submit(source, target("datastore1", "second.vmdk"));
+        assertTrue(second.cancel(false));
+        datastore.gate.countDown();
+
+        first.get(30, TimeUnit.SECONDS);
+        // a third upload runs once the first has finished, the cancelled one is skipped
+        uploader.submit(source, target("datastore1", "third.vmdk")).get(30, TimeUnit.SECONDS);
+        assertEquals(2, datastore.requests.get());
+        assertFalse(datastore.files.containsKey("datastore1/second.vmdk"));
+    }
+
+    @Test
+    public void testCloseCancelsQueuedUploads() throws Exception {
+        uploader.setMaxConcurrentUploads(1);
+        datastore.gate = new CountDownLatch(1);
+        Path source = file("disk.vmdk", 1024, 7);
+
+        uploader.submit(source, target("datastore1", "first.vmdk"));
+        CompletableFuture<TransferResult> queued = uploader.submit(source, target("datastore1", "second.vmdk"));
+        uploader.close();
+        datastore.gate.countDown();
+
+        assertThrows(CancellationException.class, () -> queued.get(30, TimeUnit.SECONDS));
+        assertThrows(IllegalStateException.class, () -> uploader.submit(source, target("datastore1", "third.vmdk")));
+    }
+
+    private URI target(String datastoreName, String path) {
+        return DatastoreFileUrls.create(server.getAddress(), "Datacenter", datastoreName, path);
+    }
+
+    private Path file(String name, int size, long seed) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.write(file, RangedDownloaderTest.randomBytes(size, seed));
+        return file;
+    }
+
+    /** Stores the uploaded files and records how many uploads ran at the same time. */
+    private static final class StubDatastore implements HttpHandler {
+        final Map<String, byte[]> files = new ConcurrentHashMap<>();
+        final Map<String, AtomicInteger> maxPerDatastore = new ConcurrentHashMap<>();
+        final Map<String, AtomicInteger> maxPerHost = new ConcurrentHashMap<>();
+        final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger chunked = new AtomicInteger();
+        private final Map<String, AtomicInteger> runningPerDatastore = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> runningPerHost = new ConcurrentHashMap<>();
+        volatile long delayMs;
+        volatile CountDownLatch gate;
+
+        byte[] file(String datastoreName, String path) {
+            return files.get(datastoreName + "/" + path);
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            requests.incrementAndGet();
+            String datastoreName = DatastoreFileUrls.getDatastoreName(exchange.getRequestURI());
+            String host = exchange.getRequestHeaders().getFirst("Host");
+            enter(runningPerDatastore, maxPerDatastore, datastoreName);
+            enter(runningPerHost, maxPerHost, host);
+            try {
+                if ("chunked".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Transfer-Encoding"))) {
+                    chunked.incrementAndGet();
+                }
+                byte[] body = exchange.getRequestBody().readAllBytes();
+                await();
+
+                Integer status = statuses.poll();
+                if (status == null) {
+                    String path = exchange.getRequestURI().getPath().substring("/folder/".length());
+                    files.put(datastoreName + "/" + path, body);
+                    status = 201;
+                }
+                exchange.sendResponseHeaders(status, -1);
+            } finally {
+                runningPerDatastore.get(datastoreName).decrementAndGet();
+                runningPerHost.get(host).decrementAndGet();
+                exchange.close();
+            }
+        }
+
+        private void await() throws IOException {
+            try {
+                CountDownLatch gate = this.gate;
+                if (gate != null) {
+                    gate.await(30, TimeUnit.SECONDS);
+                }
+                if (delayMs > 0) {
+                    Thread.sleep(delayMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+
+        private static void enter(Map<String, AtomicInteger> running, Map<String, AtomicInteger> max, String key) {
+            int count = running.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+            max.computeIfAbsent(key, k -> new AtomicInteger()).accumulateAndGet(count, Math::max);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests the file format and the matching rules of {@link DownloadCheckpoint}. */
+public class DownloadCheckpointTest {
+
+    private static final String SOURCE = "https://esx.example.com/folder/disk.vmdk";
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+
+    @BeforeEach
+    public void setup() {
+        file = DownloadCheckpoint.pathFor(tempDir.resolve("disk.vmdk"));
+    }
+
+    @Test
+    public void testLoadReturnsCompletedSegments() throws Exception {
+        DownloadCheckpoint checkpoint = new DownloadCheckpoint(file, SOURCE, "\"v1\"", 1000, 100);
+        checkpoint.markDone(0, 11);
+        checkpoint.markDone(9, -22);
+
+        DownloadCheckpoint loaded = DownloadCheckpoint.load(file);
+
+        assertNotNull(loaded);
+        assertTrue(loaded.matches(SOURCE, "\"v1\"", 1000, 100));
+        assertTrue(loaded.isDone(0));
+        assertFalse(loaded.isDone(1));
+        assertTrue(loaded.isDone(9));
+        assertEquals(11, loaded.getChecksum(0));
+        assertEquals(-22, loaded.getChecksum(9));
+    }
+
+    @Test
+    public void testMatchesOnlySameVersionAndLayout() {
+        DownloadCheckpoint checkpoint = new DownloadCheckpoint(file, SOURCE, "\"v1\"", 1000, 100);
+
+        assertFalse(checkpoint.matches(SOURCE, "\"v2\"", 1000, 100));
+        assertFalse(checkpoint.matches(SOURCE + "?dsName=other", "\"v1\"", 1000, 100));
+        assertFalse(checkpoint.matches(SOURCE, "\"v1\"", 1001, 100));
+        assertFalse(checkpoint.matches(SOURCE, "\"v1\"", 1000, 200));
+    }
+
+    @Test
+    public void testWithoutValidatorNeverMatches() {
+        DownloadCheckpoint checkpoint = new DownloadCheckpoint(file, SOURCE, null, 1000, 100);
+
+        assertFalse(checkpoint.matches(SOURCE, null, 1000, 100));
+        assertFalse(checkpoint.matches(SOURCE, "", 1000, 100));
+    }
+
+    @Test
+    public void testDamagedFileIsIgnored() throws Exception {
+        new DownloadCheckpoint(file, SOURCE, "\"v1\"", 1000, 100).markDone(3, 33);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertNull(DownloadCheckpoint.load(file));
+
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(file, bytes);
+        assertNull(DownloadCheckpoint.load(file));
+
+        assertNull(DownloadCheckpoint.load(tempDir.resolve("missing.checkpoint")));
+    }
+
+    @Test
+    public void testSegmentCount() {
+        assertEquals(0, DownloadCheckpoint.segmentCount(0, 100));
+        assertEquals(1, DownloadCheckpoint.segmentCount(1, 100));
+        assertEquals(1, DownloadCheckpoint.segmentCount(100, 100));
+        assertEquals(2, DownloadCheckpoint.segmentCount(101, 100));
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static com.vmware.sdk.vsphere.utils.SdkStubs.moRef;
+import static com.vmware.sdk.vsphere.utils.SdkStubs.vimPort;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.datatype.DatatypeFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.vmware.vim25.FileTransferInformation;
+import com.vmware.vim25.GuestAuthentication;
+import com.vmware.vim25.GuestFileAttributes;
+import com.vmware.vim25.GuestProcessInfo;
+import com.vmware.vim25.GuestProgramSpec;
+import com.vmware.vim25.ManagedObjectReference;
+import com.vmware.vim25.NamePasswordAuthentication;
+import com.vmware.vim25.VimPortType;
+
+/**
+ * Tests {@link GuestFileTransfer} with a stub guest file manager and a local HTTPS server serving its transfer URLs.
+ */
+public class GuestFileTransferTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final GuestAuthentication auth = auth();
+    private LocalHttpsServer server;
+    private StubGuests guests;
+    private GuestFileTransfer transfer;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        server = LocalHttpsServer.start();
+        guests = new StubGuests();
+        server.handle("/guestFile", guests);
+        transfer = new GuestFileTransfer(
+                guests.createVimPort(),
+                moRef("GuestFileManager", "guestOperationsFileManager"),
+                moRef("GuestProcessManager", "guestOperationsProcessManager"),
+                server.createClient(),
+                server.getAddress());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testTransfersBatch() throws Exception {
+        byte[] log0 = RangedDownloaderTest.randomBytes(3 * 1024 * 1024 + 7, 1);
+        byte[] log1 = RangedDownloaderTest.randomBytes(100, 2);
+        guests.files.put("vm-0:/var/log/messages", log0);
+        guests.files.put("vm-1:/var/log/messages", log1);
+        byte[] script = RangedDownloaderTest.randomBytes(2 * 1024 * 1024, 3);
+        Path scriptFile = Files.write(tempDir.resolve("setup.sh"), script);
+
+        List<GuestFileResult> results = transfer.transfer(List.of(
+                GuestFileRequest.download(vm(0), auth, "/var/log/messages", tempDir.resolve("vm-0.log")),
+                GuestFileRequest.upload(vm(2), auth, scriptFile, "/tmp/setup.sh", true, null),
+                GuestFileRequest.download(vm(1), auth, "/var/log/messages", tempDir.resolve("vm-1.log"))));
+
+        assertEquals(3, results.size());
+        for (GuestFileResult result : results) {
+            assertTrue(result.isSuccess(), result::toString);
+        }
+        assertEquals(log0.length, results.get(0).getSize());
+        assertEquals(script.length, results.get(1).getSize());
+        assertArrayEquals(log0, Files.readAllBytes(tempDir.resolve("vm-0.log")));
+        assertArrayEquals(log1, Files.readAllBytes(tempDir.resolve("vm-1.log")));
+        assertArrayEquals(script, guests.files.get("vm-2:/tmp/setup.sh"));
+        assertEquals(List.of(true), guests.overwrites);
+    }
+
+    @Test
+    public void testFailedRequestDoesNotStopBatch() throws Exception {
+        guests.files.put("vm-0:/etc/hosts", RangedDownloaderTest.randomBytes(10, 4));
+
+        List<GuestFileResult> results = transfer.transfer(List.of(
+                GuestFileRequest.download(vm(0), auth, "/etc/missing", tempDir.resolve("missing")),
+                GuestFileRequest.download(vm(0), auth, "/etc/hosts", tempDir.resolve("hosts"))));
+
+        assertFalse(results.get(0).isSuccess());
+        assertInstanceOf(IOException.class, results.get(0).getError());
+        assertTrue(results.get(1).isSuccess(), results.get(1)::toString);
+    }
+
+    @Test
+    public void testTruncatedDownloadFails() throws Exception {
+        guests.files.put("vm-0:/var/log/messages", RangedDownloaderTest.randomBytes(1000, 5));
+        guests.extraSize = 1;
+
+        List<GuestFileResult> results = transfer.transfer(
+                List.of(GuestFileRequest.download(vm(0), auth, "/var/log/messages", tempDir.resolve("vm-0.log"))));
+
+        assertInstanceOf(IOException.class, results.get(0).getError());
+        assertTrue(results.get(0).getError().getMessage().contains("1001"), results.get(0)::toString);
+    }
+
+    @Test
+    public void testLimitsTransfersPerHost() throws Exception {
+        transfer.setMaxConcurrentTransfersPerHost(2);
+        guests.delayMs = 50;
+        List<GuestFileRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            guests.files.put("vm-" + i + ":/etc/hosts", RangedDownloaderTest.randomBytes(1000, i));
+            requests.add(GuestFileRequest.download(vm(i), auth, "/etc/hosts", tempDir.resolve("hosts-" + i))
+                    .withHost(moRef("HostSystem", "host-1")));
+        }
+
+        List<GuestFileResult> results = transfer.transfer(requests);
+
+        for (GuestFileResult result : results) {
+            assertTrue(result.isSuccess(), result::toString);
+        }
+        assertEquals(2, guests.maxRunning.get());
+        // the transfer URLs are only requested by the started requests
+        assertEquals(2, guests.maxInitiated.get());
+    }
+
+    @Test
+    public void testBusyHostDoesNotHoldUpOtherHosts() throws Exception {
+        transfer.setMaxConcurrentTransfers(2);
+        transfer.setMaxConcurrentTransfersPerHost(1);
+        guests.delayMs = 50;
+        List<GuestFileRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            guests.files.put("vm-" + i + ":/etc/hosts", RangedDownloaderTest.randomBytes(1000, i));
+            // the first three virtual machines share a host, and the last one is queued behind them
+            String host = i < 3 ? "host-1" : "host-2";
+            requests.add(GuestFileRequest.download(vm(i), auth, "/etc/hosts", tempDir.resolve("hosts-" + i))
+                    .withHost(moRef("HostSystem", host)));
+        }
+
+        List<GuestFileResult> results = transfer.transfer(requests);
+
+        for (GuestFileResult result : results) {
+            assertTrue(result.isSuccess(), result::toString);
+        }
+        assertEquals(2, guests.maxRunning.get());
+        assertEquals(2, guests.maxInitiated.get());
+    }
+
+    @Test
+    public void testDownloadDirectoryPacksAndDeletesArchive() throws Exception {
+        byte[] archive = RangedDownloaderTest.randomBytes(50_000, 6);
+        guests.archive = archive;
+        guests.runningPolls = 1;
+
+        List<GuestFileResult> results = transfer.transfer(List.of(GuestFileRequest.downloadDirectory(
+                vm(0), auth, "/var/log/it's", tempDir.resolve("logs.tar.gz"), GuestFileRequest.ArchiveFormat.TAR_GZ)));
+
+        assertTrue(results.get(0).isSuccess(), results.get(0)::toString);
+        assertArrayEquals(archive, Files.readAllBytes(tempDir.resolve("logs.tar.gz")));
+        GuestProgramSpec programSpec = guests.programs.get(0);
+        assertEquals("/bin/tar", programSpec.getProgramPath());
+        assertEquals("-czf '/tmp/guest-file-transfer-1.tar.gz' -C '/var/log/it'\\''s' .", programSpec.getArguments());
+        assertEquals(List.of("vm-0:/tmp/guest-file-transfer-1.tar.gz"), guests.deleted);
+    }
+
+    @Test
+    public void testZipArchiveUsesPowerShell() throws Exception {
+        guests.archive = RangedDownloaderTest.randomBytes(100, 7);
+
+        List<GuestFileResult> results = transfer.transfer(List.of(GuestFileRequest.downloadDirectory(
+                vm(0), auth, "C:\\Logs", tempDir.resolve("logs.zip"), GuestFileRequest.ArchiveFormat.ZIP)));
+
+        assertTrue(results.get(0).isSuccess(), results.get(0)::toString);
+        GuestProgramSpec programSpec = guests.programs.get(0);
+        assertTrue(programSpec.getProgramPath().endsWith("powershell.exe"), programSpec.getProgramPath());
+        assertTrue(
+                programSpec.getArguments().contains("Compress-Archive -Force -Path 'C:\\Logs\\*'"),
+                programSpec.getArguments());
+    }
+
+    @Test
+    public void testFailedArchiverDeletesArchive() throws Exception {
+        guests.archive = RangedDownloaderTest.randomBytes(100, 8);
+        guests.exitCode = 2;
+
+        List<GuestFileResult> results = transfer.transfer(List.of(GuestFileRequest.downloadDirectory(
+                vm(0), auth, "/var/log", tempDir.resolve("logs.tar.gz"), GuestFileRequest.ArchiveFormat.TAR_GZ)));
+
+        assertTrue(results.get(0).getError().getMessage().contains("exited with 2"), results.get(0)::toString);
+        assertFalse(Files.exists(tempDir.resolve("logs.tar.gz")));
+        assertEquals(List.of("vm-0:/tmp/guest-file-transfer-1.tar.gz"), guests.deleted);
+    }
+
+    private static GuestAuthentication auth() {
+        NamePasswordAuthentication auth = new NamePasswordAuthentication();
+        auth.setUsername("root");
+        auth.setPassword("secret");
+        return auth;
+    }
+
+    private static ManagedObjectReference vm(int index) {
+        return moRef("VirtualMachine", "vm-" + index);
+    }
+
+    /**
+     * Stands in for the guest operations of the virtual machines and the {@code /guestFile} URLs of their host. The
+     * files of the guests are keyed by the virtual machine and the path in the guest.
+     */
+    private static final class StubGuests implements HttpHandler {
+        final Map<String, byte[]> files = new ConcurrentHashMap<>();
+        final List<Boolean> overwrites = new CopyOnWriteArrayList<>();
+        final List<GuestProgramSpec> programs = new CopyOnWriteArrayList<>();
+        final List<String> deleted = new CopyOnWriteArrayList<>();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger maxInitiated = new AtomicInteger();
+        private final Map<String, String> transfers = new ConcurrentHashMap<>();
+        private final AtomicInteger ids = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger initiated = new AtomicInteger();
+        private final AtomicInteger polls = new AtomicInteger();
+        volatile long extraSize;
+        volatile long delayMs;
+        volatile byte[] archive;
+        volatile int runningPolls;
+        volatile int exitCode;
+
+        VimPortType createVimPort() {
+            return vimPort((proxy, method, args) -> {
+                String vm = args.length > 1 ? ((ManagedObjectReference) args[1]).getValue() : null;
+                switch (method.getName()) {
+                    case "initiateFileTransferFromGuest":
+                        maxInitiated.accumulateAndGet(initiated.incrementAndGet(), Math::max);
+                        FileTransferInformation transferInfo = new FileTransferInformation();
+                        byte[] content = files.get(vm + ":" + args[3]);
+                        transferInfo.setSize((content == null ? 0 : content.length) + extraSize);
+                        transferInfo.setUrl(url(vm + ":" + args[3]));
+                        transferInfo.setAttributes(new GuestFileAttributes());
+                        return transferInfo;
+                    case "initiateFileTransferToGuest":
+                        maxInitiated.accumulateAndGet(initiated.incrementAndGet(), Math::max);
+                        overwrites.add((Boolean) args[6]);
+                        return url(vm + ":" + args[3]);
+                    case "createTemporaryFileInGuest":
+                        String archivePath = "/tmp/" + args[3] + "1" + args[4];
+                        files.put(vm + ":" + archivePath, new byte[0]);
+                        return archivePath;
+                    case "startProgramInGuest":
+                        programs.add((GuestProgramSpec) args[3]);
+                        String target = files.keySet().stream()
+                                .filter(key -> key.startsWith(vm + ":/tmp/guest-file-transfer-"))
+                                .findFirst()
+                                .orElseThrow();
+                        files.put(target, archive);
+                        return 4242L;
+                    case "listProcessesInGuest":
+                        return List.of(process(((List<?>) args[3]).get(0)));
+                    case "deleteFileInGuest":
+                        deleted.add(vm + ":" + args[3]);
+                        files.remove(vm + ":" + args[3]);
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            int count = running.incrementAndGet();
+            maxRunning.accumulateAndGet(count, Math::max);
+            try {
+                sleep();
+                String key = transfers.get(exchange.getRequestURI().getQuery());
+                if ("PUT".equals(exchange.getRequestMethod())) {
+                    files.put(key, exchange.getRequestBody().readAllBytes());
+                    exchange.sendResponseHeaders(200, -1);
+                    return;
+                }
+                byte[] content = key == null ? null : files.get(key);
+                if (content == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                exchange.sendResponseHeaders(200, content.length);
+                exchange.getResponseBody().write(content);
+            } finally {
+                running.decrementAndGet();
+                initiated.decrementAndGet();
+                exchange.close();
+            }
+        }
+
+        /** @return a transfer URL with the {@code *} host, the way the guest operations return it */
+        private String url(String key) {
+            String query = "id=" + ids.incrementAndGet() + "&token=" + Integer.toHexString(key.hashCode());
+            transfers.put(query, key);
+            return "https://*/guestFile?" + query;
+        }
+
+        private GuestProcessInfo process(Object pid) throws Exception {
+            GuestProcessInfo process = new GuestProcessInfo();
+            process.setPid((Long) pid);
+            process.setStartTime(DatatypeFactory.newInstance().newXMLGregorianCalendar(new GregorianCalendar()));
+            if (polls.incrementAndGet() > runningPolls) {
+                process.setEndTime(DatatypeFactory.newInstance().newXMLGregorianCalendar(new GregorianCalendar()));
+                process.setExitCode(exitCode);
+            }
+            return process;
+        }
+
+        private void sleep() throws IOException {
+            try {
+                if (delayMs > 0) {
+                    Thread.sleep(delayMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+/**
+ * A local HTTPS server standing in for the transfer endpoints of vCenter and ESXi. Its self-signed certificate for
+ * {@code localhost} is trusted by the clients it creates, so the tests run with the TLS and hostname verification of
+ * {@link HttpTransferClient}.
+ */
+final class LocalHttpsServer implements AutoCloseable {
+
+    private static final String KEYSTORE = "/transfer-server.p12";
+    private static final char[] KEYSTORE_PASSWORD = "changeit".toCharArray();
+
+    private final HttpsServer server;
+    private final ExecutorService executor;
+    private final KeyStore trustStore;
+
+    private LocalHttpsServer(HttpsServer server, ExecutorService executor, KeyStore trustStore) {
+        this.server = server;
+        this.executor = executor;
+        this.trustStore = trustStore;
+    }
+
+    static LocalHttpsServer start() throws IOException, GeneralSecurityException {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = LocalHttpsServer.class.getResourceAsStream(KEYSTORE)) {
+            keyStore.load(in, KEYSTORE_PASSWORD);
+        }
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, KEYSTORE_PASSWORD);
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagers.getKeyManagers(), null, null);
+
+        KeyStore trustStore = KeyStore.getInstance("PKCS12");
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("localhost", keyStore.getCertificate("localhost"));
+
+        HttpsServer server = HttpsServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "local-https-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+        return new LocalHttpsServer(server, executor, trustStore);
+    }
+
+    void handle(String path, HttpHandler handler) {
+        server.createContext(path, handler);
+    }
+
+    /** @return the address of the server, to be used with {@link DatastoreFileUrls} */
+    String getAddress() {
+        return "localhost:" + server.getAddress().getPort();
+    }
+
+    URI uri(String pathAndQuery) {
+        return URI.create("https://" + getAddress() + pathAndQuery);
+    }
+
+    /** @return a client trusting this server, with short timeouts so a hanging test fails quickly */
+    HttpTransferClient createClient() {
+        return new HttpTransferClient(null, true, trustStore, 5_000, 5_000);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
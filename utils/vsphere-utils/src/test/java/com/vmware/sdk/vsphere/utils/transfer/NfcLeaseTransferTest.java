@@ -0,0 +1,389 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static com.vmware.sdk.vsphere.utils.SdkStubs.moRef;
+import static com.vmware.sdk.vsphere.utils.SdkStubs.vimPort;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.vmware.vim25.ArrayOfVirtualDevice;
+import com.vmware.vim25.DynamicProperty;
+import com.vmware.vim25.HttpNfcLeaseDeviceUrl;
+import com.vmware.vim25.HttpNfcLeaseInfo;
+import com.vmware.vim25.ManagedObjectReference;
+import com.vmware.vim25.ObjectContent;
+import com.vmware.vim25.OvfFile;
+import com.vmware.vim25.OvfFileItem;
+import com.vmware.vim25.RetrieveResult;
+import com.vmware.vim25.ServiceContent;
+import com.vmware.vim25.VimPortType;
+import com.vmware.vim25.VirtualDisk;
+import com.vmware.vim25.VirtualDiskFlatVer2BackingInfo;
+import com.vmware.vim25.VirtualEthernetCard;
+
+/** Tests {@link NfcLeaseTransfer} with a stub lease and a local HTTPS server standing in for the host. */
+public class NfcLeaseTransferTest {
+
+    private static final int DISK_SIZE = 3 * 1024 * 1024 + 99;
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<Integer, RangeFileHandler> handlers = new ConcurrentHashMap<>();
+    private LocalHttpsServer server;
+    private StubLease lease;
+    private NfcLeaseTransfer transfer;
+    private ManagedObjectReference leaseRef;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        server = LocalHttpsServer.start();
+        lease = new StubLease();
+        transfer = new NfcLeaseTransfer(lease.createVimPort(), server.createClient());
+        leaseRef = moRef("HttpNfcLease", "lease-1");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testExportDownloadsDisksAndCompletesLease() throws Exception {
+        transfer.setMaxConcurrentStreams(2);
+        List<byte[]> disks = List.of(
+                RangedDownloaderTest.randomBytes(DISK_SIZE, 1),
+                RangedDownloaderTest.randomBytes(17, 2),
+                RangedDownloaderTest.randomBytes(2 * 1024 * 1024, 3));
+        HttpNfcLeaseInfo info = exportInfo(disks);
+
+        List<OvfFile> ovfFiles = transfer.exportDisks(leaseRef, info, server.getAddress(), tempDir);
+
+        assertEquals(3, ovfFiles.size());
+        for (int i = 0; i < disks.size(); i++) {
+            assertEquals("disk-" + i + ".vmdk", ovfFiles.get(i).getPath());
+            assertEquals(disks.get(i).length, ovfFiles.get(i).getSize());
+            assertArrayEquals(disks.get(i), Files.readAllBytes(tempDir.resolve("disk-" + i + ".vmdk")));
+        }
+        assertEquals(1, lease.completed.size());
+        assertTrue(lease.aborted.isEmpty());
+        assertEquals(100, lease.progress.get(lease.progress.size() - 1));
+    }
+
+    @Test
+    public void testExportRestartsDroppedDownload() throws Exception {
+        byte[] disk = RangedDownloaderTest.randomBytes(DISK_SIZE, 4);
+        HttpNfcLeaseInfo info = exportInfo(List.of(disk));
+        handler(0).truncateAt.add(1024L * 1024 + 5);
+
+        transfer.exportDisks(leaseRef, info, server.getAddress(), tempDir);
+
+        assertArrayEquals(disk, Files.readAllBytes(tempDir.resolve("disk-0.vmdk")));
+        assertEquals(2, handler(0).requests.size());
+        assertEquals(1, lease.completed.size());
+    }
+
+    @Test
+    public void testExportFailureAbortsLease() throws Exception {
+        transfer.setMaxAttempts(1);
+        HttpNfcLeaseInfo info = exportInfo(
+                List.of(RangedDownloaderTest.randomBytes(DISK_SIZE, 5), RangedDownloaderTest.randomBytes(1024, 6)));
+        handler(1).setFailAt(0);
+
+        assertThrows(IOException.class, () -> transfer.exportDisks(leaseRef, info, server.getAddress(), tempDir));
+
+        assertEquals(1, lease.aborted.size());
+        assertTrue(lease.completed.isEmpty());
+    }
+
+    @Test
+    public void testSparseExport() throws Exception {
+        transfer.setSparse(true);
+        byte[] disk = new byte[DISK_SIZE];
+        disk[10] = 1;
+        disk[DISK_SIZE - 1] = 2;
+        HttpNfcLeaseInfo info = exportInfo(List.of(disk));
+
+        transfer.exportDisks(leaseRef, info, server.getAddress(), tempDir);
+
+        assertArrayEquals(disk, Files.readAllBytes(tempDir.resolve("disk-0.vmdk")));
+    }
+
+    @Test
+    public void testProgressKeepsLeaseAlive() throws Exception {
+        transfer.setProgressInterval(Duration.ofMillis(10));
+        transfer.setBandwidthLimit(4L * 1024 * 1024);
+        HttpNfcLeaseInfo info = exportInfo(List.of(RangedDownloaderTest.randomBytes(DISK_SIZE, 7)));
+
+        transfer.exportDisks(leaseRef, info, server.getAddress(), tempDir);
+
+        // the download takes about a second at the bandwidth limit
+        assertTrue(lease.progress.size() > 5, lease.progress::toString);
+        for (int i = 1; i < lease.progress.size(); i++) {
+            assertTrue(lease.progress.get(i) >= lease.progress.get(i - 1), lease.progress::toString);
+        }
+    }
+
+    @Test
+    public void testJournalSkipsDevicesOfUnchangedVm() throws Exception {
+        List<byte[]> disks =
+                List.of(RangedDownloaderTest.randomBytes(DISK_SIZE, 11), RangedDownloaderTest.randomBytes(4096, 12));
+        HttpNfcLeaseInfo info = exportInfo(disks);
+
+        try (TransferJournal journal = new TransferJournal(tempDir.resolve("transfers.journal"))) {
+            transfer.setJournal(journal);
+            exportFailingSecondDisk(info);
+
+            transfer.exportDisks(moRef("HttpNfcLease", "lease-2"), info, server.getAddress(), tempDir);
+        }
+
+        // the first disk was complete and intact, so the second lease only downloads the other one
+        assertTrue(handler(0).requests.isEmpty(), handler(0).requests::toString);
+        assertEquals(1, handler(1).requests.size());
+        for (int i = 0; i < disks.size(); i++) {
+            assertArrayEquals(disks.get(i), Files.readAllBytes(tempDir.resolve("disk-" + i + ".vmdk")));
+        }
+        assertEquals(1, lease.completed.size());
+    }
+
+    @Test
+    public void testJournalDownloadsDevicesOfChangedVmAgain() throws Exception {
+        HttpNfcLeaseInfo info = exportInfo(
+                List.of(RangedDownloaderTest.randomBytes(DISK_SIZE, 13), RangedDownloaderTest.randomBytes(4096, 14)));
+
+        try (TransferJournal journal = new TransferJournal(tempDir.resolve("transfers.journal"))) {
+            transfer.setJournal(journal);
+            exportFailingSecondDisk(info);
+
+            // the virtual machine was powered on and its disk written between the exports
+            lease.changeId = "52 1e 4a 9c 0f 21 77 d3-8e 6b 90 2c 11 aa 3f 05/12";
+            transfer.exportDisks(moRef("HttpNfcLease", "lease-2"), info, server.getAddress(), tempDir);
+        }
+
+        assertEquals(1, handler(0).requests.size());
+    }
+
+    @Test
+    public void testJournalWithoutChangeTrackingIsNotUsedByOtherLease() throws Exception {
+        lease.changeId = null;
+        HttpNfcLeaseInfo info = exportInfo(
+                List.of(RangedDownloaderTest.randomBytes(DISK_SIZE, 15), RangedDownloaderTest.randomBytes(4096, 16)));
+
+        try (TransferJournal journal = new TransferJournal(tempDir.resolve("transfers.journal"))) {
+            transfer.setJournal(journal);
+            exportFailingSecondDisk(info);
+
+            transfer.exportDisks(moRef("HttpNfcLease", "lease-2"), info, server.getAddress(), tempDir);
+        }
+
+        // without a change ID a written disk cannot be told apart from the recorded one
+        assertEquals(1, handler(0).requests.size());
+    }
+
+    @Test
+    public void testImportUploadsDisks() throws Exception {
+        Map<String, byte[]> uploaded = new ConcurrentHashMap<>();
+        Map<String, String> contentTypes = new ConcurrentHashMap<>();
+        server.handle("/nfc/lease-1/", exchange -> {
+            uploaded.put(
+                    exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath(),
+                    exchange.getRequestBody().readAllBytes());
+            contentTypes.put(
+                    exchange.getRequestURI().getPath(),
+                    exchange.getRequestHeaders().getFirst("Content-Type"));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        byte[] disk0 = RangedDownloaderTest.randomBytes(DISK_SIZE, 8);
+        byte[] disk1 = RangedDownloaderTest.randomBytes(4096, 9);
+        Files.write(tempDir.resolve("disk-0.vmdk"), disk0);
+        Files.write(tempDir.resolve("disk-1.vmdk"), disk1);
+        HttpNfcLeaseInfo info = importInfo(2);
+        List<OvfFileItem> fileItems =
+                List.of(fileItem("/vm/disk-0", "disk-0.vmdk", true), fileItem("/vm/disk-1", "disk-1.vmdk", false));
+
+        TransferResult result = transfer.importDisks(leaseRef, info, server.getAddress(), fileItems, tempDir);
+
+        assertEquals(disk0.length + disk1.length, result.getTransferredBytes());
+        assertArrayEquals(disk0, uploaded.get("PUT /nfc/lease-1/disk-0.vmdk"));
+        assertArrayEquals(disk1, uploaded.get("POST /nfc/lease-1/disk-1.vmdk"));
+        assertEquals("application/x-vnd.vmware-streamVmdk", contentTypes.get("/nfc/lease-1/disk-0.vmdk"));
+        assertEquals(1, lease.completed.size());
+    }
+
+    @Test
+    public void testRejectedImportAbortsLease() throws Exception {
+        server.handle("/nfc/lease-1/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(403, -1);
+            exchange.close();
+        });
+        Files.write(tempDir.resolve("disk-0.vmdk"), RangedDownloaderTest.randomBytes(1024, 10));
+
+        assertThrows(
+                IOException.class,
+                () -> transfer.importDisks(
+                        leaseRef,
+                        importInfo(1),
+                        server.getAddress(),
+                        List.of(fileItem("/vm/disk-0", "disk-0.vmdk", true)),
+                        tempDir));
+
+        assertEquals(1, lease.aborted.size());
+        assertFalse(lease.progress.contains(100));
+    }
+
+    private RangeFileHandler handler(int disk) {
+        return handlers.get(disk);
+    }
+
+    /** Exports the disks one after the other while the second one fails, so only the first one is journaled. */
+    private void exportFailingSecondDisk(HttpNfcLeaseInfo info) {
+        transfer.setMaxConcurrentStreams(1);
+        transfer.setMaxAttempts(1);
+        handler(1).setFailAt(0);
+
+        assertThrows(IOException.class, () -> transfer.exportDisks(leaseRef, info, server.getAddress(), tempDir));
+
+        assertEquals(1, lease.aborted.size());
+        handler(1).setFailAt(-1);
+        for (RangeFileHandler handler : handlers.values()) {
+            handler.requests.clear();
+        }
+    }
+
+    /** Serves the disks under device URLs of the lease, the way the host serves an export. */
+    private HttpNfcLeaseInfo exportInfo(List<byte[]> disks) {
+        HttpNfcLeaseInfo info = new HttpNfcLeaseInfo();
+        info.setEntity(moRef("VirtualMachine", "vm-42"));
+        info.setLeaseTimeout(300);
+        long capacity = 0;
+        for (int i = 0; i < disks.size(); i++) {
+            RangeFileHandler handler = new RangeFileHandler(disks.get(i), null);
+            handler.setRanges(false);
+            handlers.put(i, handler);
+            server.handle("/nfc/lease-1/disk-" + i + ".vmdk", handler);
+            info.getDeviceUrl().add(deviceUrl(i));
+            capacity += disks.get(i).length;
+        }
+        info.setTotalDiskCapacityInKB(capacity / 1024 + 1);
+        return info;
+    }
+
+    private HttpNfcLeaseInfo importInfo(int disks) {
+        HttpNfcLeaseInfo info = new HttpNfcLeaseInfo();
+        info.setEntity(moRef("VirtualMachine", "vm-43"));
+        info.setLeaseTimeout(300);
+        for (int i = 0; i < disks; i++) {
+            info.getDeviceUrl().add(deviceUrl(i));
+        }
+        return info;
+    }
+
+    private static HttpNfcLeaseDeviceUrl deviceUrl(int disk) {
+        HttpNfcLeaseDeviceUrl deviceUrl = new HttpNfcLeaseDeviceUrl();
+        deviceUrl.setKey("/vm-42/VirtualLsiLogicController0:" + disk);
+        deviceUrl.setImportKey("/vm/disk-" + disk);
+        deviceUrl.setUrl("https://*/nfc/lease-1/disk-" + disk + ".vmdk");
+        deviceUrl.setDisk(true);
+        return deviceUrl;
+    }
+
+    private static OvfFileItem fileItem(String deviceId, String path, boolean create) {
+        OvfFileItem fileItem = new OvfFileItem();
+        fileItem.setDeviceId(deviceId);
+        fileItem.setPath(path);
+        fileItem.setCreate(create);
+        return fileItem;
+    }
+
+    /** Records the lease calls of the transfer, and serves the configuration of the exported virtual machine. */
+    private static final class StubLease {
+        final List<Integer> progress = new CopyOnWriteArrayList<>();
+        final List<String> completed = new CopyOnWriteArrayList<>();
+        final List<String> aborted = new CopyOnWriteArrayList<>();
+        volatile String changeVersion = "2025-03-14T09:26:53.589793Z";
+        /** The change ID of the disks, null without changed block tracking. */
+        volatile String changeId = "52 1e 4a 9c 0f 21 77 d3-8e 6b 90 2c 11 aa 3f 05/7";
+
+        VimPortType createVimPort() {
+            return vimPort((proxy, method, args) -> {
+                ManagedObjectReference lease = (ManagedObjectReference) args[0];
+                switch (method.getName()) {
+                    case "httpNfcLeaseProgress":
+                        progress.add((Integer) args[1]);
+                        return null;
+                    case "httpNfcLeaseComplete":
+                        completed.add(lease.getValue());
+                        return null;
+                    case "httpNfcLeaseAbort":
+                        aborted.add(lease.getValue());
+                        return null;
+                    case "retrieveServiceContent":
+                        ServiceContent serviceContent = new ServiceContent();
+                        serviceContent.setPropertyCollector(moRef("PropertyCollector", "propertyCollector"));
+                        return serviceContent;
+                    case "retrievePropertiesEx":
+                        return vmConfig();
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        private RetrieveResult vmConfig() {
+            ArrayOfVirtualDevice devices = new ArrayOfVirtualDevice();
+            for (int i = 0; i < 2; i++) {
+                VirtualDiskFlatVer2BackingInfo backing = new VirtualDiskFlatVer2BackingInfo();
+                backing.setFileName("[datastore1] vm-42/vm-42_" + i + ".vmdk");
+                backing.setChangeId(changeId);
+                VirtualDisk disk = new VirtualDisk();
+                disk.setKey(2000 + i);
+                disk.setBacking(backing);
+                devices.getVirtualDevice().add(disk);
+            }
+            devices.getVirtualDevice().add(new VirtualEthernetCard());
+
+            ObjectContent vm = new ObjectContent();
+            vm.setObj(moRef("VirtualMachine", "vm-42"));
+            vm.getPropSet().add(property("config.changeVersion", changeVersion));
+            vm.getPropSet().add(property("config.hardware.device", devices));
+            RetrieveResult result = new RetrieveResult();
+            result.getObjects().add(vm);
+            return result;
+        }
+
+        private static DynamicProperty property(String name, Object value) {
+            DynamicProperty property = new DynamicProperty();
+            property.setName(name);
+            property.setVal(value);
+            return property;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * Serves a file like the datastore {@code /folder} endpoint, with range requests, {@code ETag} and {@code If-Range}.
+ * Responses can be cut off or failed at given positions to test the recovery of the downloaders.
+ */
+final class RangeFileHandler implements HttpHandler {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+    /** The range headers of the GET requests in the order they were received, empty for requests without range. */
+    final List<String> requests = new CopyOnWriteArrayList<>();
+
+    /** Positions at which the next response covering them is cut off; each position is used once. */
+    final Set<Long> truncateAt = ConcurrentHashMap.newKeySet();
+
+    private volatile byte[] content;
+    private volatile String etag;
+    private volatile boolean ranges = true;
+    private volatile long failAt = -1;
+
+    RangeFileHandler(byte[] content, String etag) {
+        setContent(content, etag);
+    }
+
+    /** Replaces the file, like a new version of it uploaded by someone else. */
+    void setContent(byte[] content, String etag) {
+        this.content = content;
+        this.etag = etag;
+    }
+
+    /** @param ranges whether range requests are supported, otherwise the whole file is always returned */
+    void setRanges(boolean ranges) {
+        this.ranges = ranges;
+    }
+
+    /** @param failAt every request covering this position fails with 500, or -1 for none */
+    void setFailAt(long failAt) {
+        this.failAt = failAt;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        byte[] content = this.content;
+        String etag = this.etag;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        requests.add(range == null ? "" : range);
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+
+        Matcher matcher = range == null ? null : RANGE.matcher(range);
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        if (!ranges || matcher == null || !matcher.matches() || (ifRange != null && !ifRange.equals(etag))) {
+            send(exchange, 200, content, 0, content.length - 1);
+            return;
+        }
+
+        long first = Long.parseLong(matcher.group(1));
+        long last = matcher.group(2).isEmpty() ? content.length - 1 : Long.parseLong(matcher.group(2));
+        if (first >= content.length) {
+            exchange.getResponseHeaders().set("Content-Range", "bytes */" + content.length);
+            exchange.sendResponseHeaders(416, -1);
+            exchange.close();
+            return;
+        }
+        last = Math.min(last, content.length - 1);
+        exchange.getResponseHeaders().set("Content-Range", "bytes " + first + "-" + last + "/" + content.length);
+        send(exchange, 206, content, first, last);
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] content, long first, long last) throws IOException {
+        long failAt = this.failAt;
+        if (failAt >= first && failAt <= last) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+
+        long end = last + 1;
+        for (Long position : truncateAt) {
+            if (position >= first && position < end && truncateAt.remove(position)) {
+                end = position;
+                break;
+            }
+        }
+        exchange.sendResponseHeaders(status, last - first + 1);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            out.write(content, (int) first, (int) (end - first));
+            out.flush();
+        } finally {
+            try {
+                // closing a response with fewer bytes than announced drops the connection
+                out.close();
+            } catch (IOException e) {
+                // expected for cut off responses
+            }
+            exchange.close();
+        }
+    }
+}
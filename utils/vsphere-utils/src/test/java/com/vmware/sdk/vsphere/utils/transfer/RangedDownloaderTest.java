@@ -0,0 +1,303 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests {@link RangedDownloader} against a local HTTPS server serving a datastore file. */
+public class RangedDownloaderTest {
+
+    private static final int SEGMENT_SIZE = 1024 * 1024;
+    private static final int SIZE = 5 * SEGMENT_SIZE + 123;
+    /** The bytes recorded at once by the journal of the downloader. */
+    private static final int JOURNAL_CHUNK = 8 * 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private LocalHttpsServer server;
+    private RangeFileHandler file;
+    private byte[] content;
+    private URI source;
+    private Path target;
+    private RangedDownloader downloader;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        content = randomBytes(SIZE, 1);
+        file = new RangeFileHandler(content, "\"version-1\"");
+        server = LocalHttpsServer.start();
+        server.handle("/folder/disk.vmdk", file);
+        source = server.uri("/folder/disk.vmdk?dcPath=Datacenter&dsName=datastore1");
+        target = tempDir.resolve("disk.vmdk");
+
+        downloader = new RangedDownloader(server.createClient());
+        downloader.setSegmentSize(SEGMENT_SIZE);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testDownloadsSegmentsInParallel() throws Exception {
+        downloader.setComputeDigest(true);
+
+        TransferResult result = downloader.download(source, target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(SIZE, result.getSize());
+        assertEquals(SIZE, result.getTransferredBytes());
+        assertEquals(0, result.getResumedBytes());
+        assertEquals(6, result.getSegments());
+        assertEquals(sha256(content), result.getSha256());
+        assertFalse(Files.exists(DownloadCheckpoint.pathFor(target)));
+        // the probe and one request per segment
+        assertEquals(7, file.requests.size());
+    }
+
+    @Test
+    public void testTruncatedResponseIsResumedAtLastByteWritten() throws Exception {
+        long truncateAt = SEGMENT_SIZE + SEGMENT_SIZE / 2 + 7;
+        file.truncateAt.add(truncateAt);
+
+        TransferResult result = downloader.download(source, target, sha256(content));
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(1, result.getRetries());
+        // the bytes received before the connection dropped are not requested again
+        assertTrue(
+                file.requests.contains("bytes=" + truncateAt + "-" + (2 * SEGMENT_SIZE - 1)), file.requests::toString);
+        assertEquals(SIZE, result.getTransferredBytes());
+    }
+
+    @Test
+    public void testFailedDownloadResumesFromCheckpoint() throws Exception {
+        downloader.setParallelism(1);
+        downloader.setMaxAttempts(1);
+        file.setFailAt(3L * SEGMENT_SIZE);
+
+        assertThrows(IOException.class, () -> downloader.download(source, target));
+        assertTrue(Files.exists(DownloadCheckpoint.pathFor(target)));
+
+        file.setFailAt(-1);
+        file.requests.clear();
+        TransferResult result = downloader.download(source, target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(3L * SEGMENT_SIZE, result.getResumedBytes());
+        assertEquals(SIZE - 3L * SEGMENT_SIZE, result.getTransferredBytes());
+        assertFalse(file.requests.contains("bytes=0-" + (SEGMENT_SIZE - 1)), file.requests::toString);
+        assertFalse(Files.exists(DownloadCheckpoint.pathFor(target)));
+    }
+
+    @Test
+    public void testCorruptedSegmentIsDownloadedAgain() throws Exception {
+        downloader.setParallelism(1);
+        downloader.setMaxAttempts(1);
+        file.setFailAt(3L * SEGMENT_SIZE);
+        assertThrows(IOException.class, () -> downloader.download(source, target));
+
+        // a byte of the second segment changes on disk between the attempts
+        byte[] onDisk = Files.readAllBytes(target);
+        onDisk[SEGMENT_SIZE + 10] ^= 0x01;
+        Files.write(target, onDisk);
+
+        file.setFailAt(-1);
+        TransferResult result = downloader.download(source, target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(2L * SEGMENT_SIZE, result.getResumedBytes());
+    }
+
+    @Test
+    public void testChangedFileIsNotResumed() throws Exception {
+        downloader.setParallelism(1);
+        downloader.setMaxAttempts(1);
+        file.setFailAt(3L * SEGMENT_SIZE);
+        assertThrows(IOException.class, () -> downloader.download(source, target));
+
+        byte[] changed = randomBytes(SIZE, 2);
+        file.setContent(changed, "\"version-2\"");
+        file.setFailAt(-1);
+        TransferResult result = downloader.download(source, target);
+
+        assertArrayEquals(changed, Files.readAllBytes(target));
+        assertEquals(0, result.getResumedBytes());
+    }
+
+    @Test
+    public void testShorterFileTruncatesTarget() throws Exception {
+        Files.write(target, randomBytes(SIZE * 2, 3));
+
+        downloader.download(source, target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+    }
+
+    @Test
+    public void testServerWithoutRangesSendsWholeFile() throws Exception {
+        file.setRanges(false);
+
+        TransferResult result = downloader.download(source, target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(1, result.getSegments());
+        assertEquals(1, file.requests.size());
+    }
+
+    @Test
+    public void testTruncatedWholeFileFails() throws Exception {
+        file.setRanges(false);
+        file.truncateAt.add((long) SEGMENT_SIZE);
+
+        assertThrows(IOException.class, () -> downloader.download(source, target));
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        file.setContent(new byte[0], "\"empty\"");
+
+        TransferResult result = downloader.download(source, target);
+
+        assertEquals(0, Files.size(target));
+        assertEquals(0, result.getSegments());
+    }
+
+    @Test
+    public void testDigestMismatchFails() {
+        IOException e =
+                assertThrows(IOException.class, () -> downloader.download(source, target, sha256(randomBytes(16, 4))));
+
+        assertTrue(e.getMessage().contains("Expected SHA-256"), e.getMessage());
+    }
+
+    @Test
+    public void testJournalResumesDroppedSegmentAfterRestart() throws Exception {
+        byte[] large = startLargeDownloadDroppedAt(2 * JOURNAL_CHUNK + JOURNAL_CHUNK / 8);
+
+        TransferResult result = resumeWithJournal();
+
+        assertArrayEquals(large, Files.readAllBytes(target));
+        // the two journaled chunks of the segment are verified and not requested again
+        assertEquals(2 * JOURNAL_CHUNK, result.getResumedBytes());
+        assertEquals(large.length - 2 * JOURNAL_CHUNK, result.getTransferredBytes());
+        assertTrue(
+                file.requests.contains("bytes=" + 2 * JOURNAL_CHUNK + "-" + (large.length - 1)),
+                file.requests::toString);
+    }
+
+    @Test
+    public void testJournalRefetchesDamagedChunk() throws Exception {
+        byte[] large = startLargeDownloadDroppedAt(2 * JOURNAL_CHUNK + JOURNAL_CHUNK / 8);
+        byte[] onDisk = Files.readAllBytes(target);
+        onDisk[JOURNAL_CHUNK + 10] ^= 0x01;
+        Files.write(target, onDisk);
+
+        TransferResult result = resumeWithJournal();
+
+        assertArrayEquals(large, Files.readAllBytes(target));
+        assertEquals(JOURNAL_CHUNK, result.getResumedBytes());
+        assertTrue(
+                file.requests.contains("bytes=" + JOURNAL_CHUNK + "-" + (large.length - 1)), file.requests::toString);
+    }
+
+    @Test
+    public void testTornJournalResumesAtLastIntactRecord() throws Exception {
+        byte[] large = startLargeDownloadDroppedAt(2 * JOURNAL_CHUNK + JOURNAL_CHUNK / 8);
+        // the process stopped while it was writing the record of the second chunk
+        byte[] journal = Files.readAllBytes(journalFile());
+        Files.write(journalFile(), Arrays.copyOf(journal, journal.length - 3));
+
+        TransferResult result = resumeWithJournal();
+
+        assertArrayEquals(large, Files.readAllBytes(target));
+        assertEquals(JOURNAL_CHUNK, result.getResumedBytes());
+    }
+
+    @Test
+    public void testJournalIsNotUsedForChangedFile() throws Exception {
+        startLargeDownloadDroppedAt(2 * JOURNAL_CHUNK + JOURNAL_CHUNK / 8);
+        byte[] changed = randomBytes(3 * JOURNAL_CHUNK, 12);
+        file.setContent(changed, "\"large-2\"");
+
+        TransferResult result = resumeWithJournal();
+
+        assertArrayEquals(changed, Files.readAllBytes(target));
+        assertEquals(0, result.getResumedBytes());
+    }
+
+    /**
+     * Downloads a file larger than a journal chunk as a single segment, in a single attempt, while the server drops the
+     * connection in the middle of the response.
+     *
+     * @return the content of the file
+     */
+    private byte[] startLargeDownloadDroppedAt(long position) throws Exception {
+        byte[] large = randomBytes(3 * JOURNAL_CHUNK, 11);
+        file.setContent(large, "\"large-1\"");
+        file.truncateAt.add(position);
+        downloader.setSegmentSize(large.length);
+        downloader.setMaxAttempts(1);
+
+        try (TransferJournal journal = new TransferJournal(journalFile())) {
+            downloader.setJournal(journal);
+            assertThrows(IOException.class, () -> downloader.download(source, target));
+        }
+        file.requests.clear();
+        return large;
+    }
+
+    /** Downloads the file again with a new downloader and the reopened journal, as after a restart. */
+    private TransferResult resumeWithJournal() throws Exception {
+        try (TransferJournal journal = new TransferJournal(journalFile())) {
+            RangedDownloader restarted = new RangedDownloader(server.createClient());
+            restarted.setJournal(journal);
+            return restarted.download(source, target);
+        }
+    }
+
+    private Path journalFile() {
+        return tempDir.resolve("transfers.journal");
+    }
+
+    static byte[] randomBytes(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    static String sha256(byte[] bytes) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests {@link SparseFileWriter} with files in a temporary directory. */
+public class SparseFileWriterTest {
+
+    private static final int BLOCK_SIZE = 4096;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testZeroBlocksAreSkipped() throws Exception {
+        byte[] content = new byte[8 * BLOCK_SIZE];
+        Arrays.fill(content, BLOCK_SIZE, 2 * BLOCK_SIZE, (byte) 1);
+        content[5 * BLOCK_SIZE + 7] = 2;
+        Path file = tempDir.resolve("disk.vmdk");
+
+        try (FileChannel channel = open(file)) {
+            SparseFileWriter writer = new SparseFileWriter(channel, BLOCK_SIZE, false);
+            writer.write(ByteBuffer.wrap(content), 0);
+            writer.finish(content.length);
+
+            assertEquals(8, writer.getBlocks());
+            assertEquals(6, writer.getZeroBlocks());
+            // the last byte extends the file over the trailing hole
+            assertEquals(2 * BLOCK_SIZE + 1, writer.getWrittenBytes());
+            assertEquals(6 * BLOCK_SIZE, writer.getSkippedBytes());
+        }
+        assertArrayEquals(content, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testUnalignedWritesSplitAtBlockBoundaries() throws Exception {
+        byte[] content = RangedDownloaderTest.randomBytes(4 * BLOCK_SIZE, 1);
+        Arrays.fill(content, BLOCK_SIZE, 3 * BLOCK_SIZE, (byte) 0);
+        Path file = tempDir.resolve("disk.vmdk");
+
+        try (FileChannel channel = open(file)) {
+            SparseFileWriter writer = new SparseFileWriter(channel, BLOCK_SIZE, false);
+            // the pieces of a download do not start at block boundaries
+            int first = BLOCK_SIZE + 100;
+            writer.write(ByteBuffer.wrap(content, 0, first), 0);
+            writer.write(ByteBuffer.wrap(content, first, content.length - first), first);
+            writer.finish(content.length);
+
+            // the block split between the writes is counted once per piece
+            assertEquals(5, writer.getBlocks());
+            assertEquals(3, writer.getZeroBlocks());
+            assertEquals(2 * BLOCK_SIZE, writer.getSkippedBytes());
+        }
+        assertArrayEquals(content, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testBlockAtOldEndIsCountedOnce() throws Exception {
+        Path file = tempDir.resolve("disk.vmdk");
+        int oldSize = BLOCK_SIZE + 1000;
+        Files.write(file, RangedDownloaderTest.randomBytes(oldSize, 2));
+        byte[] content = new byte[3 * BLOCK_SIZE];
+
+        try (FileChannel channel = open(file)) {
+            SparseFileWriter writer = new SparseFileWriter(channel, BLOCK_SIZE, false);
+            writer.write(ByteBuffer.wrap(content), 0);
+            writer.finish(content.length);
+
+            // the existing part of the file is overwritten, the rest of the block it ends in is a hole
+            assertEquals(3, writer.getBlocks());
+            assertEquals(2, writer.getZeroBlocks());
+            assertEquals(oldSize, writer.getWrittenBytes() - 1);
+            assertEquals(content.length - oldSize, writer.getSkippedBytes());
+        }
+        assertArrayEquals(content, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testResumedDownloadOverwritesExistingPart() throws Exception {
+        Path file = tempDir.resolve("disk.vmdk");
+        Files.write(file, RangedDownloaderTest.randomBytes(2 * BLOCK_SIZE, 3));
+        byte[] content = new byte[2 * BLOCK_SIZE];
+        content[0] = 5;
+
+        try (FileChannel channel = open(file)) {
+            SparseFileWriter writer = new SparseFileWriter(channel, BLOCK_SIZE, false);
+            writer.write(ByteBuffer.wrap(content), 0);
+
+            assertEquals(0, writer.getZeroBlocks());
+            assertEquals(content.length, writer.getWrittenBytes());
+        }
+        assertArrayEquals(content, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testFinishExtendsTrailingHole() throws Exception {
+        byte[] content = new byte[3 * BLOCK_SIZE + 17];
+        content[1] = 1;
+        Path file = tempDir.resolve("disk.vmdk");
+
+        try (FileChannel channel = open(file)) {
+            SparseFileWriter writer = new SparseFileWriter(channel, BLOCK_SIZE, false);
+            writer.write(ByteBuffer.wrap(content), 0);
+            assertEquals(BLOCK_SIZE, channel.size());
+
+            writer.finish(content.length);
+            assertEquals(content.length, channel.size());
+        }
+        assertArrayEquals(content, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testCountsDuplicateBlocks() throws Exception {
+        byte[] block = RangedDownloaderTest.randomBytes(BLOCK_SIZE, 4);
+        ByteBuffer content = ByteBuffer.allocate(6 * BLOCK_SIZE);
+        content.put(block).put(RangedDownloaderTest.randomBytes(BLOCK_SIZE, 5)).put(block);
+        content.position(4 * BLOCK_SIZE);
+        content.put(block).clear();
+
+        try (FileChannel channel = open(tempDir.resolve("disk.vmdk"))) {
+            SparseFileWriter writer = new SparseFileWriter(channel, BLOCK_SIZE, true);
+            writer.write(content, 0);
+
+            assertEquals(2, writer.getDuplicateBlocks());
+            assertEquals(2, writer.getZeroBlocks());
+            assertEquals(content.capacity(), content.position());
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidBlockSize() throws Exception {
+        try (FileChannel channel = open(tempDir.resolve("disk.vmdk"))) {
+            assertThrows(IllegalArgumentException.class, () -> new SparseFileWriter(channel, 0, false));
+            assertThrows(IllegalArgumentException.class, () -> new SparseFileWriter(channel, 2 * 1024 * 1024, false));
+        }
+    }
+
+    /**
+     * Measures writing a synthetic thin disk image, of which one block in twenty holds data, through the writer and
+     * plainly, and the garbage collections it causes. Run with {@code TRANSFER_BENCHMARK=true}.
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "TRANSFER_BENCHMARK", matches = "true")
+    public void testBenchmark() throws Exception {
+        int imageSize = 512 * 1024 * 1024;
+        int chunkSize = 1024 * 1024;
+        Random random = new Random(6);
+        ByteBuffer chunk = ByteBuffer.allocateDirect(chunkSize);
+        byte[] data = RangedDownloaderTest.randomBytes(SparseFileWriter.DEFAULT_BLOCK_SIZE, 7);
+        byte[] zeros = new byte[data.length];
+        // the layout of the image, the same for each round
+        boolean[] dataBlocks = new boolean[imageSize / SparseFileWriter.DEFAULT_BLOCK_SIZE];
+        for (int i = 0; i < dataBlocks.length; i++) {
+            dataBlocks[i] = random.nextInt(20) == 0;
+        }
+
+        for (int round = 0; round < 3; round++) {
+            for (boolean sparse : new boolean[] {false, true}) {
+                Path file = tempDir.resolve("image-" + round + "-" + sparse + ".vmdk");
+                long collections = collectionCount();
+                long startTime = System.nanoTime();
+                SparseFileWriter writer = null;
+                try (FileChannel channel = open(file)) {
+                    writer = sparse ? new SparseFileWriter(channel) : null;
+                    for (long position = 0; position < imageSize; position += chunkSize) {
+                        fill(chunk, dataBlocks, (int) (position / SparseFileWriter.DEFAULT_BLOCK_SIZE), data, zeros);
+                        if (writer != null) {
+                            writer.write(chunk, position);
+                        } else {
+                            while (chunk.hasRemaining()) {
+                                channel.write(chunk, position + chunk.position());
+                            }
+                        }
+                    }
+                    if (writer != null) {
+                        writer.finish(imageSize);
+                    }
+                    channel.force(false);
+                }
+                long time = System.nanoTime() - startTime;
+                long written = writer != null ? writer.getWrittenBytes() : imageSize;
+
+                System.out.printf(
+                        "round %d, %s: %.0f MiB/s, %d MiB written, %d collections%n",
+                        round,
+                        sparse ? "sparse" : "plain",
+                        (imageSize / 1024.0 / 1024) / (time / 1e9),
+                        written / 1024 / 1024,
+                        collectionCount() - collections);
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static void fill(ByteBuffer chunk, boolean[] dataBlocks, int firstBlock, byte[] data, byte[] zeros) {
+        chunk.clear();
+        for (int block = firstBlock; chunk.hasRemaining(); block++) {
+            chunk.put(dataBlocks[block] ? data : zeros);
+        }
+        chunk.flip();
+    }
+
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * ******************************************************************
+ * Copyright (c) 2025 Broadcom. All Rights Reserved.
+ * The term "Broadcom" refers to Broadcom Inc.
+ * and/or its subsidiaries.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ * ******************************************************************
+ */
+
+package com.vmware.sdk.vsphere.utils.transfer;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests {@link TransferJournal} with journals and targets in a temporary directory. */
+public class TransferJournalTest {
+
+    private static final String KEY = "/downloads/disk.vmdk";
+    private static final String IDENTITY = "https://host/folder/disk.vmdk \"version-1\"";
+    private static final int CHUNK = 4096;
+
+    @TempDir
+    Path tempDir;
+
+    private Path journalFile;
+    private Path target;
+    private byte[] content;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        journalFile = tempDir.resolve("transfers.journal");
+        target = tempDir.resolve("disk.vmdk");
+        content = RangedDownloaderTest.randomBytes(4 * CHUNK, 1);
+        Files.write(target, content);
+    }
+
+    @Test
+    public void testRecordsAreReplayedWhenReopened() throws Exception {
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            assertFalse(journal.begin(KEY, IDENTITY, content.length));
+            recordChunks(journal, 0, 4);
+            journal.end(KEY, content.length);
+            assertTrue(journal.begin(KEY, IDENTITY, content.length));
+        }
+
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            assertTrue(journal.begin(KEY, IDENTITY, content.length));
+            assertEquals(content.length, journal.getCompleteSize(KEY));
+            assertEquals(content.length, journal.getRecordedBytes(KEY));
+        }
+    }
+
+    @Test
+    public void testTornRecordIsIgnored() throws Exception {
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            journal.begin(KEY, IDENTITY, content.length);
+            recordChunks(journal, 0, 2);
+        }
+        long intact = Files.size(journalFile);
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            recordChunks(journal, 2, 3);
+        }
+        // the process stopped in the middle of writing the record of the third chunk
+        byte[] bytes = Files.readAllBytes(journalFile);
+        Files.write(journalFile, Arrays.copyOf(bytes, (int) intact + 11));
+
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            assertTrue(journal.begin(KEY, IDENTITY, content.length));
+            assertEquals(2 * CHUNK, journal.getRecordedBytes(KEY));
+            // the journal was compacted, so new records follow the intact ones
+            recordChunks(journal, 2, 4);
+        }
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            assertEquals(4 * CHUNK, journal.getRecordedBytes(KEY));
+        }
+    }
+
+    @Test
+    public void testLastRecordIsForcedAfterSyncInterval() throws Exception {
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            journal.setSyncInterval(Duration.ofMillis(200));
+            journal.begin(KEY, IDENTITY, content.length);
+            journal.sync();
+            recordChunks(journal, 0, 1);
+            assertTrue(journal.hasUnsyncedRecords());
+
+            // no other record follows, so the journal is forced in the background
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (journal.hasUnsyncedRecords() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(journal.hasUnsyncedRecords());
+        }
+    }
+
+    @Test
+    public void testDamagedRecordEndsReplay() throws Exception {
+        long[] ends = new long[4];
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            journal.begin(KEY, IDENTITY, content.length);
+            for (int i = 0; i < 4; i++) {
+                recordChunks(journal, i, i + 1);
+                journal.sync();
+                ends[i] = Files.size(journalFile);
+            }
+        }
+        byte[] bytes = Files.readAllBytes(journalFile);
+        bytes[(int) ends[1] + 9] ^= 0x01;
+        Files.write(journalFile, bytes);
+
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            // the records after a damaged one may depend on it, so they are not applied either
+            assertEquals(2 * CHUNK, journal.getRecordedBytes(KEY));
+        }
+    }
+
+    @Test
+    public void testVerifyStopsAtDamagedRange() throws Exception {
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            journal.begin(KEY, IDENTITY, content.length);
+            recordChunks(journal, 0, 4);
+
+            byte[] onDisk = content.clone();
+            onDisk[2 * CHUNK + 100] ^= 0x01;
+            Files.write(target, onDisk);
+
+            CRC32 crc = new CRC32();
+            try (FileChannel channel = FileChannel.open(target, READ)) {
+                assertEquals(2 * CHUNK, journal.verify(KEY, channel, 0, content.length, crc));
+            }
+            // only the intact bytes reach the checksum, and the damaged range is not trusted again
+            assertEquals(crc(content, 0, 2 * CHUNK), (int) crc.getValue());
+            assertEquals(3 * CHUNK, journal.getRecordedBytes(KEY));
+        }
+    }
+
+    @Test
+    public void testVerifyStopsAtGapAndTruncatedTarget() throws Exception {
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            journal.begin(KEY, IDENTITY, content.length);
+            recordChunks(journal, 0, 1);
+            recordChunks(journal, 2, 4);
+
+            try (FileChannel channel = FileChannel.open(target, READ)) {
+                assertEquals(CHUNK, journal.verify(KEY, channel, 0, content.length, null));
+                assertEquals(content.length, journal.verify(KEY, channel, 2 * CHUNK, content.length, null));
+            }
+
+            Files.write(target, Arrays.copyOf(content, 3 * CHUNK + 10));
+            try (FileChannel channel = FileChannel.open(target, READ)) {
+                assertEquals(3 * CHUNK, journal.verify(KEY, channel, 2 * CHUNK, content.length, null));
+            }
+        }
+    }
+
+    @Test
+    public void testOtherIdentityDiscardsRanges() throws Exception {
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            journal.begin(KEY, IDENTITY, content.length);
+            recordChunks(journal, 0, 4);
+            journal.end(KEY, content.length);
+        }
+
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            assertFalse(journal.begin(KEY, IDENTITY.replace("version-1", "version-2"), content.length));
+            assertEquals(0, journal.getRecordedBytes(KEY));
+            assertEquals(-1, journal.getCompleteSize(KEY));
+            assertFalse(journal.begin(KEY, IDENTITY, content.length + 1));
+        }
+    }
+
+    @Test
+    public void testForgottenFileIsNotReplayed() throws Exception {
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            journal.begin(KEY, IDENTITY, content.length);
+            recordChunks(journal, 0, 4);
+            journal.forget(KEY);
+            assertThrows(IllegalStateException.class, () -> journal.record(KEY, 0, 1, 0));
+        }
+
+        try (TransferJournal journal = new TransferJournal(journalFile)) {
+            assertFalse(journal.begin(KEY, IDENTITY, content.length));
+        }
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws Exception {
+        Files.write(journalFile, RangedDownloaderTest.randomBytes(100, 2));
+
+        assertThrows(IOException.class, () -> new TransferJournal(journalFile));
+    }
+
+    /** Records the chunks from the first to before the last with the checksums of the content. */
+    private void recordChunks(TransferJournal journal, int first, int last) throws IOException {
+        for (int i = first; i < last; i++) {
+            journal.record(KEY, (long) i * CHUNK, CHUNK, crc(content, i * CHUNK, CHUNK));
+        }
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
@@ -32,6 +32,7 @@ import com.vmware.sdk.vcf.installer.model.SddcSpec;
 import com.vmware.sdk.vcf.installer.model.SddcTask;
 import com.vmware.sdk.vcf.installer.model.Validation;
 import com.vmware.sdk.vcf.installer.utils.MiscUtil;
+import com.vmware.sdk.vcf.installer.utils.SddcSpecValidator;
 import com.vmware.sdk.vcf.installer.utils.SddcTaskUtil;
 import com.vmware.sdk.vcf.installer.utils.VcfInstallerClientFactory;
 import com.vmware.sdk.vcf.installer.v1.Sddcs;
@@ -216,6 +217,7 @@ public class DeployVcfFleetFirstVcfInstance {
 
             SddcSpec sddcSpec = createSddcSpecForNewVcfFleet(client);
             log.info("Crafted Deployment Spec is: {}", SddcSpecUtil.sddcSpecToJson(sddcSpec));
+            SddcSpecValidator.validateAndFailOnError(sddcSpec);
 
             Validations validations = client.createStub(Validations.class);
             Validation validationResult =
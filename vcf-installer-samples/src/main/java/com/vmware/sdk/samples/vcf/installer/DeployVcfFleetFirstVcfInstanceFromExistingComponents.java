@@ -26,6 +26,7 @@ import com.vmware.sdk.vcf.installer.model.SddcSpec;
 import com.vmware.sdk.vcf.installer.model.SddcTask;
 import com.vmware.sdk.vcf.installer.model.Validation;
 import com.vmware.sdk.vcf.installer.utils.MiscUtil;
+import com.vmware.sdk.vcf.installer.utils.SddcSpecValidator;
 import com.vmware.sdk.vcf.installer.utils.SddcTaskUtil;
 import com.vmware.sdk.vcf.installer.utils.VcfInstallerClientFactory;
 import com.vmware.sdk.vcf.installer.v1.Sddcs;
@@ -166,6 +167,7 @@ public class DeployVcfFleetFirstVcfInstanceFromExistingComponents {
 
             SddcSpec sddcSpec = createSddcSpecForNewVcfFleetWithExistingVcenterNsx(client);
             log.info("Crafted Deployment Spec is: {}", SddcSpecUtil.sddcSpecToJson(sddcSpec));
+            SddcSpecValidator.validateAndFailOnError(sddcSpec);
 
             Validations validations = client.createStub(Validations.class);
             Validation validationResult =
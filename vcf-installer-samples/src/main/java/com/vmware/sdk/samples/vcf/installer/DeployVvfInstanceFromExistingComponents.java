@@ -25,6 +25,7 @@ import com.vmware.sdk.vcf.installer.model.SddcSpec;
 import com.vmware.sdk.vcf.installer.model.SddcTask;
 import com.vmware.sdk.vcf.installer.model.Validation;
 import com.vmware.sdk.vcf.installer.utils.MiscUtil;
+import com.vmware.sdk.vcf.installer.utils.SddcSpecValidator;
 import com.vmware.sdk.vcf.installer.utils.SddcTaskUtil;
 import com.vmware.sdk.vcf.installer.utils.VcfInstallerClientFactory;
 import com.vmware.sdk.vcf.installer.v1.Sddcs;
@@ -115,6 +116,7 @@ public class DeployVvfInstanceFromExistingComponents {
 
             SddcSpec sddcSpec = createSddcSpecForNewVvfInstanceWithExistingVc(client);
             log.info("Crafted Deployment Spec is: {}", SddcSpecUtil.sddcSpecToJson(sddcSpec));
+            SddcSpecValidator.validateAndFailOnError(sddcSpec);
 
             Validations validations = client.createStub(Validations.class);
             Validation validationResult =
@@ -34,6 +34,7 @@ import com.vmware.sdk.vcf.installer.model.SddcTask;
 import com.vmware.sdk.vcf.installer.model.Validation;
 import com.vmware.sdk.vcf.installer.model.VcfOperationsDiscoveryResult;
 import com.vmware.sdk.vcf.installer.utils.MiscUtil;
+import com.vmware.sdk.vcf.installer.utils.SddcSpecValidator;
 import com.vmware.sdk.vcf.installer.utils.SddcTaskUtil;
 import com.vmware.sdk.vcf.installer.utils.VcfInstallerClientFactory;
 import com.vmware.sdk.vcf.installer.v1.Sddcs;
@@ -230,6 +231,7 @@ public class ExtendVcfFleetWithVcfInstance {
                 vcfInstallerClientFactory.createClient(installerFqdn, vcfInstallerAdminPassword, keyStore)) {
             SddcSpec sddcSpec = createSddcSpecForExtensionOfExistingVcfFleet(client);
             log.info("Crafted Deployment Spec is: {}", SddcSpecUtil.sddcSpecToJson(sddcSpec));
+            SddcSpecValidator.validateAndFailOnError(sddcSpec);
 
             Validations validations = client.createStub(Validations.class);
             Validation validationResult =